@@ -18,4 +18,69 @@ dependencies {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+val escapeTableDir = layout.buildDirectory.dir("generated/resources/escapes")
+
+val compileEscapeTable by tasks.registering(JavaExec::class) {
+    description = "Compiles the Unicode+ escape database into the binary table loaded at runtime."
+
+    val database = file("src/main/resources/dev/mathops/text/UnicodePlusEscapes.txt")
+    val table = escapeTableDir.map { it.file("dev/mathops/text/UnicodePlusEscapes.bin") }
+
+    inputs.file(database)
+    outputs.dir(escapeTableDir)
+
+    classpath = files(tasks.compileJava) + configurations.runtimeClasspath.get()
+    mainClass.set("dev.mathops.text.UnicodePlusEscapesCompiler")
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf(database.absolutePath, table.get().asFile.absolutePath)
+    })
+}
+
+val unicodeTableDir = layout.buildDirectory.dir("generated/resources/unicode")
+
+val compileUnicodeTables by tasks.registering(JavaExec::class) {
+    description = "Compiles the Unicode character database files into the binary tables loaded at runtime."
+
+    val unicodeData = file("src/main/resources/dev/mathops/text/unicode/UnicodeData.txt")
+    val blocks = file("src/main/resources/dev/mathops/text/unicode/Blocks.txt")
+    val characterTable = unicodeTableDir.map { it.file("dev/mathops/text/unicode/UnicodeData.bin") }
+    val blockTable = unicodeTableDir.map { it.file("dev/mathops/text/unicode/Blocks.bin") }
+
+    inputs.files(unicodeData, blocks)
+    outputs.dir(unicodeTableDir)
+
+    classpath = files(tasks.compileJava) + configurations.runtimeClasspath.get()
+    mainClass.set("dev.mathops.text.unicode.UnicodeDatabaseCompiler")
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf(unicodeData.absolutePath, blocks.absolutePath, characterTable.get().asFile.absolutePath,
+            blockTable.get().asFile.absolutePath)
+    })
+}
+
+sourceSets {
+    main {
+        resources.srcDir(compileEscapeTable)
+        resources.srcDir(compileUnicodeTables)
+    }
+}
+
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+
+dependencies {
+    jmh.implementationConfigurationName("org.openjdk.jmh:jmh-core:1.37")
+    jmh.annotationProcessorConfigurationName("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+val jmhRun by tasks.registering(JavaExec::class) {
+    description = "Runs the JMH benchmarks (pass a benchmark name pattern with --args)."
+
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+}
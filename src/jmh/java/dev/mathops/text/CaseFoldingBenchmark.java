@@ -0,0 +1,166 @@
+package dev.mathops.text;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the word-at-a-time ASCII case operations in {@code TextUtils} with the one-byte-at-a-time loops they
+ * replaced, on identifiers of the lengths typical of HTTP header names and HTML tag and attribute names.
+ *
+ * <p>
+ * Run with {@code gradle jmhRun --args="CaseFoldingBenchmark"}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaseFoldingBenchmark {
+
+    /** The identifier length. */
+    @Param({"8", "16", "32", "64"})
+    public int length;
+
+    /** A mixed-case identifier. */
+    private byte[] mixed;
+
+    /** The same identifier with different letter case. */
+    private byte[] otherCase;
+
+    /** A buffer that is lowercased in place. */
+    private byte[] work;
+
+    /** The mixed-case identifier as a string. */
+    private String mixedString;
+
+    /** The identifier with different letter case, as a string. */
+    private String otherCaseString;
+
+    /**
+     * Builds the identifiers.
+     */
+    @Setup
+    public void setup() {
+
+        final String pattern = "Content-Type-X-Forwarded-For-Accept-Encoding-Strict-Transport-Security";
+        final String id = pattern.substring(0, this.length);
+
+        this.mixed = id.getBytes(StandardCharsets.US_ASCII);
+        this.otherCase = TextUtils.asciiUppercase(id).getBytes(StandardCharsets.US_ASCII);
+        this.work = new byte[this.length];
+        this.mixedString = id;
+        this.otherCaseString = TextUtils.asciiLowercase(id);
+    }
+
+    /**
+     * Lowercases a copy of the identifier in place, one byte at a time.
+     *
+     * @return the lowercased bytes
+     */
+    @Benchmark
+    public byte[] lowercaseScalar() {
+
+        System.arraycopy(this.mixed, 0, this.work, 0, this.length);
+        for (int i = this.length - 1; i >= 0; --i) {
+            final int value = (int) this.work[i];
+            if (value >= 0x41 && value <= 0x5A) {
+                this.work[i] = (byte) (value + 0x20);
+            }
+        }
+
+        return this.work;
+    }
+
+    /**
+     * Lowercases a copy of the identifier in place, eight bytes at a time.
+     *
+     * @return the lowercased bytes
+     */
+    @Benchmark
+    public byte[] lowercaseWords() {
+
+        System.arraycopy(this.mixed, 0, this.work, 0, this.length);
+        TextUtils.byteLowercase(this.work, 0, this.length);
+
+        return this.work;
+    }
+
+    /**
+     * Compares the identifiers ignoring case, one byte at a time.
+     *
+     * @return true if they match
+     */
+    @Benchmark
+    public boolean matchScalar() {
+
+        boolean match = true;
+
+        for (int i = this.length - 1; i >= 0; --i) {
+            final int b1 = (int) this.mixed[i];
+            final int b2 = (int) this.otherCase[i];
+
+            if (b1 != b2) {
+                if (b1 < 0x41 || b1 > 0x7a) {
+                    match = false;
+                    break;
+                } else if (b1 <= 0x5a) {
+                    if (b2 != (b1 + 0x20)) {
+                        match = false;
+                        break;
+                    }
+                } else if (b1 < 0x61 || (b1 != (b2 + 0x20))) {
+                    match = false;
+                    break;
+                }
+            }
+        }
+
+        return match;
+    }
+
+    /**
+     * Compares the identifiers ignoring case, eight bytes at a time.
+     *
+     * @return true if they match
+     */
+    @Benchmark
+    public boolean matchWords() {
+
+        return TextUtils.byteCaseInsensitiveMatch(this.mixed, this.otherCase);
+    }
+
+    /**
+     * Compares the identifiers as strings, ignoring case.
+     *
+     * @return true if they match
+     */
+    @Benchmark
+    public boolean matchStrings() {
+
+        return TextUtils.asciiCsaseInsensitiveMatch(this.mixedString, this.otherCaseString);
+    }
+
+    /**
+     * Lowercases an identifier string that is already lowercase (which no longer copies the string).
+     *
+     * @return the lowercase string
+     */
+    @Benchmark
+    public String lowercaseLowerString() {
+
+        return TextUtils.asciiLowercase(this.otherCaseString);
+    }
+}
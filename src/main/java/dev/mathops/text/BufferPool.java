@@ -0,0 +1,307 @@
+package dev.mathops.text;
+
+import dev.mathops.text.builder.HtmlBuilder;
+import dev.mathops.text.builder.USVHtmlBuilder;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A pool of reusable text buffers (queues and builders), so code that parses or generates text under load can reuse
+ * buffers that have already grown to a useful size rather than allocating and growing new ones for each request.
+ *
+ * <p>
+ * Buffers are borrowed with {@code lease} in a try-with-resources block; closing the lease resets the buffer and
+ * returns it to the pool:
+ * <pre>
+ * try (final BufferPool.Lease&lt;USVQueue&gt; lease = BufferPool.USV_QUEUES.lease(4096)) {
+ *     final USVQueue queue = lease.get();
+ *     ...
+ * }
+ * </pre>
+ * The buffer must not be used after the lease is closed, and must not be retained beyond it (a queue from which
+ * {@code subSequence} views were taken is discarded rather than reused, so the views remain valid).
+ *
+ * <p>
+ * The pool is divided into stripes, and each thread uses the stripe selected by its identity hash (falling back to
+ * the next stripe when that is empty). This keeps contention low without a {@code ThreadLocal} cache, which would
+ * retain one set of buffers per thread; with virtual threads (typically one per request) such a cache would never be
+ * reused and would grow with the number of threads. Stripes are lock-free, so borrowing never blocks or pins a
+ * virtual thread to its carrier.
+ *
+ * <p>
+ * Within a stripe, buffers are kept by size class (by capacity), with a limit on the number retained in each class.
+ * Larger classes retain fewer buffers, and a buffer that has grown beyond the largest class is discarded when
+ * returned, so one very large request cannot pin a large amount of memory in the pool.
+ *
+ * @param <T> the type of buffer
+ */
+public final class BufferPool<T> {
+
+    /** The capacity limits of the size classes (a buffer is in the first class whose limit is at least its size). */
+    private static final int[] CLASS_LIMITS = {1024, 16 * 1024, 256 * 1024, 1024 * 1024};
+
+    /** The number of buffers each stripe retains in each size class. */
+    private static final int[] CLASS_RETENTION = {8, 4, 2, 1};
+
+    /** The initial capacity of a buffer created by {@code lease()}. */
+    private static final int DEFAULT_CAPACITY = 256;
+
+    /** The number of stripes (a power of two). */
+    private static final int NUM_STRIPES = stripeCount();
+
+    /** A pool of unbounded code point queues (pooled queues have no encoding label). */
+    public static final BufferPool<USVQueue> USV_QUEUES = new BufferPool<>(USVQueue::new, USVQueue::capacity,
+            USVQueue::recycle);
+
+    /** A pool of unbounded byte queues (pooled queues have no encoding label). */
+    public static final BufferPool<ByteQueue> BYTE_QUEUES = new BufferPool<>(ByteQueue::new, ByteQueue::capacity,
+            ByteQueue::recycle);
+
+    /** A pool of HTML builders. */
+    public static final BufferPool<HtmlBuilder> HTML_BUILDERS = new BufferPool<>(HtmlBuilder::new,
+            HtmlBuilder::capacity, BufferPool::resetBuilder);
+
+    /** A pool of code point HTML builders. */
+    public static final BufferPool<USVHtmlBuilder> USV_HTML_BUILDERS = new BufferPool<>(USVHtmlBuilder::new,
+            USVHtmlBuilder::capacity, BufferPool::resetBuilder);
+
+    /** The function that creates a buffer with a given initial capacity. */
+    private final IntFunction<T> factory;
+
+    /** The function that gets a buffer's current capacity. */
+    private final ToIntFunction<T> capacity;
+
+    /** The function that resets a buffer for reuse, returning false if it should be discarded instead. */
+    private final Predicate<T> recycler;
+
+    /** The slots in which buffers are retained, indexed by stripe, then by size class. */
+    private final AtomicReferenceArray<T>[][] slots;
+
+    /**
+     * Constructs a new {@code BufferPool}.
+     *
+     * @param theFactory  the function that creates a buffer with a given initial capacity
+     * @param theCapacity the function that gets a buffer's current capacity
+     * @param theRecycler the function that resets a buffer for reuse, returning false if it should be discarded
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BufferPool(final IntFunction<T> theFactory, final ToIntFunction<T> theCapacity,
+                       final Predicate<T> theRecycler) {
+
+        this.factory = theFactory;
+        this.capacity = theCapacity;
+        this.recycler = theRecycler;
+
+        final int numClasses = CLASS_LIMITS.length;
+        this.slots = new AtomicReferenceArray[NUM_STRIPES][numClasses];
+        for (int stripe = 0; stripe < NUM_STRIPES; ++stripe) {
+            for (int cls = 0; cls < numClasses; ++cls) {
+                this.slots[stripe][cls] = new AtomicReferenceArray<>(CLASS_RETENTION[cls]);
+            }
+        }
+    }
+
+    /**
+     * Computes the number of stripes: the smallest power of two that is at least twice the number of processors, up to
+     * 64.
+     *
+     * @return the number of stripes
+     */
+    private static int stripeCount() {
+
+        final int target = Math.min(64, Runtime.getRuntime().availableProcessors() * 2);
+
+        return Integer.highestOneBit(Math.max(1, target - 1)) << 1;
+    }
+
+    /**
+     * Resets a builder for reuse.
+     *
+     * @param builder the builder
+     * @return true (builders can always be reused)
+     */
+    private static boolean resetBuilder(final HtmlBuilder builder) {
+
+        builder.reset();
+
+        return true;
+    }
+
+    /**
+     * Resets a code point builder for reuse.
+     *
+     * @param builder the builder
+     * @return true (builders can always be reused)
+     */
+    private static boolean resetBuilder(final USVHtmlBuilder builder) {
+
+        builder.reset();
+
+        return true;
+    }
+
+    /**
+     * Finds the size class for a capacity.
+     *
+     * @param size the capacity
+     * @return the size class index ({@code CLASS_LIMITS.length} if larger than the largest class)
+     */
+    private static int classOf(final int size) {
+
+        int cls = 0;
+        while (cls < CLASS_LIMITS.length && size > CLASS_LIMITS[cls]) {
+            ++cls;
+        }
+
+        return cls;
+    }
+
+    /**
+     * Gets the stripe used by the current thread.
+     *
+     * @return the stripe index
+     */
+    private static int homeStripe() {
+
+        final int h = System.identityHashCode(Thread.currentThread());
+
+        return (h ^ (h >>> 16)) & (NUM_STRIPES - 1);
+    }
+
+    /**
+     * Borrows an empty buffer with no particular expected size.
+     *
+     * @return the lease, which must be closed to return the buffer
+     */
+    public Lease<T> lease() {
+
+        return lease(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Borrows an empty buffer, preferring one with at least an expected capacity. A retained buffer from the size class
+     * of the expected size (or a larger class) is returned if there is one; otherwise a new buffer is created with the
+     * expected capacity. The buffer grows as needed in either case.
+     *
+     * @param expectedSize the expected number of items the buffer will hold
+     * @return the lease, which must be closed to return the buffer
+     */
+    public Lease<T> lease(final int expectedSize) {
+
+        final int home = homeStripe();
+        final int numClasses = CLASS_LIMITS.length;
+
+        T buffer = null;
+        for (int cls = classOf(expectedSize); buffer == null && cls < numClasses; ++cls) {
+            buffer = take(this.slots[home][cls]);
+            if (buffer == null) {
+                buffer = take(this.slots[(home + 1) & (NUM_STRIPES - 1)][cls]);
+            }
+        }
+
+        if (buffer == null) {
+            buffer = this.factory.apply(expectedSize);
+        }
+
+        return new Lease<>(this, buffer);
+    }
+
+    /**
+     * Takes a buffer from a set of slots.
+     *
+     * @param classSlots the slots
+     * @return the buffer, or null if all slots were empty
+     */
+    private T take(final AtomicReferenceArray<T> classSlots) {
+
+        T result = null;
+
+        final int len = classSlots.length();
+        for (int i = 0; result == null && i < len; ++i) {
+            if (classSlots.get(i) != null) {
+                result = classSlots.getAndSet(i, null);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Resets a buffer and retains it in the current thread's stripe, if it can be reused and there is an empty slot
+     * in its size class. Otherwise, the buffer is left for the garbage collector.
+     *
+     * @param buffer the buffer
+     */
+    private void release(final T buffer) {
+
+        final int cls = classOf(this.capacity.applyAsInt(buffer));
+
+        if (cls < CLASS_LIMITS.length && this.recycler.test(buffer)) {
+            final AtomicReferenceArray<T> classSlots = this.slots[homeStripe()][cls];
+            final int len = classSlots.length();
+            for (int i = 0; i < len; ++i) {
+                if (classSlots.get(i) == null && classSlots.compareAndSet(i, null, buffer)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * A borrowed buffer, returned to its pool when closed.
+     *
+     * @param <T> the type of buffer
+     */
+    public static final class Lease<T> implements AutoCloseable {
+
+        /** The pool to which the buffer is returned. */
+        private final BufferPool<T> pool;
+
+        /** The buffer (null once the lease is closed). */
+        private T buffer;
+
+        /**
+         * Constructs a new {@code Lease}.
+         *
+         * @param thePool   the pool to which the buffer is returned
+         * @param theBuffer the buffer
+         */
+        private Lease(final BufferPool<T> thePool, final T theBuffer) {
+
+            this.pool = thePool;
+            this.buffer = theBuffer;
+        }
+
+        /**
+         * Gets the borrowed buffer.
+         *
+         * @return the buffer
+         * @throws IllegalStateException if the lease has been closed
+         */
+        public T get() {
+
+            if (this.buffer == null) {
+                throw new IllegalStateException("Lease has been closed.");
+            }
+
+            return this.buffer;
+        }
+
+        /**
+         * Returns the buffer to the pool. Closing a lease that is already closed has no effect.
+         */
+        @Override
+        public void close() {
+
+            final T toRelease = this.buffer;
+
+            if (toRelease != null) {
+                this.buffer = null;
+                this.pool.release(toRelease);
+            }
+        }
+    }
+}
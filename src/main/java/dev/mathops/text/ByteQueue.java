@@ -1,6 +1,7 @@
 package dev.mathops.text;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * A "list" whose items are Unicode code points. This class is designed to act as a stack or queue as well as a list,
@@ -14,6 +15,13 @@ import java.nio.charset.StandardCharsets;
  * <p>
  * This class implements the algorithms for a "Queue", allowing it to be used as those types directly. It can serve as
  * the code point queue to which a byte stream is decoded, or from which a byte stream is encoded.
+ *
+ * <p>
+ * A queue may be bounded by a maximum capacity. A bounded queue reclaims the storage used by consumed bytes (moving
+ * the unconsumed bytes to the front of its storage) rather than growing, so a long-running stream can pass through a
+ * queue of constant size. When a bounded queue is full, {@code enqueue} and {@code offer} return a value that tells
+ * the producer to wait, while {@code append}, {@code prepend}, {@code insert} and {@code extend} throw
+ * {@code IllegalStateException}.
  */
 public class ByteQueue implements IByteSequence {
 
@@ -23,17 +31,30 @@ public class ByteQueue implements IByteSequence {
     /** The value returned to indicate the queue is empty but not yet at end of file. */
     public static final int QUEUE_EMPTY = -1;
 
-    /** The code points in the list. */
-    public int[] data;
+    /** The maximum capacity of a queue that is not bounded. */
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    /** The bytes in the list. */
+    private byte[] data;
 
     /**
-     * The position in the int array of the first element in the list. Tracking this allows "remove the first item" to
+     * The position in the data array of the first element in the list. Tracking this allows "remove the first item" to
      * be performed by a simple integer increment.
      */
-    public int start = 0;
+    private int start = 0;
+
+    /** The position in the data array after the last element in the list. */
+    private int end = 0;
+
+    /**
+     * The index in the data array below which the data is shared with immutable views returned by
+     * {@code subSequence}. Before any element below this index is modified, the data array is copied so existing views
+     * are unaffected ("copy on write").
+     */
+    private int sharedLimit;
 
-    /** The position in the int array after the last element in the list. */
-    public int end = 0;
+    /** The maximum number of bytes the queue may hold ({@code UNBOUNDED} if the queue is not bounded). */
+    private final int maxCapacity;
 
     /**
      * An optional encoding label from a higher-level protocol (like http's Content-Type header).
@@ -68,12 +89,38 @@ public class ByteQueue implements IByteSequence {
         final int max = Math.max(10, initialCapacity);
         final int clamped = Math.min(max, 1000000);
 
-        this.data = new int[clamped];
+        this.data = new byte[clamped];
         this.encodingLabel = theEncodingLabel;
+        this.maxCapacity = UNBOUNDED;
     }
 
     /**
-     * Constructs a new {@code ByteQueue} whose data is taken from another.
+     * Constructs a new bounded {@code ByteQueue}.
+     *
+     * @param initialCapacity  the initial capacity of the list (clamped to the range 10 to 1000000, and to the maximum
+     *                         capacity)
+     * @param theMaxCapacity   the maximum number of bytes the queue may hold at one time
+     * @param theEncodingLabel an optional encoding label from a higher-level protocol (like http's Content-Type
+     *                         header)
+     * @throws IllegalArgumentException if the maximum capacity is not positive
+     */
+    public ByteQueue(final int initialCapacity, final int theMaxCapacity, final String theEncodingLabel) {
+
+        if (theMaxCapacity < 1) {
+            throw new IllegalArgumentException("Maximum capacity must be positive.");
+        }
+
+        final int max = Math.max(10, initialCapacity);
+        final int clamped = Math.min(Math.min(max, 1000000), theMaxCapacity + 1);
+
+        this.data = new byte[clamped];
+        this.encodingLabel = theEncodingLabel;
+        this.maxCapacity = theMaxCapacity;
+    }
+
+    /**
+     * Constructs a new {@code ByteQueue} whose data is taken from another. If the source is bounded, this queue has the
+     * same maximum capacity.
      *
      * @param src the list whose data to copy
      */
@@ -81,12 +128,13 @@ public class ByteQueue implements IByteSequence {
 
         final int len = src.size();
 
-        this.data = new int[len];
+        this.data = new byte[len];
         System.arraycopy(src.data, src.start, this.data, 0, len);
         this.start = 0;
         this.end = len;
         this.encodingLabel = src.encodingLabel;
         this.eofQueued = src.eofQueued;
+        this.maxCapacity = src.maxCapacity;
     }
 
     /**
@@ -108,15 +156,11 @@ public class ByteQueue implements IByteSequence {
      */
     public ByteQueue(final byte[] src, final String theEncodingLabel) {
 
-        final int len = src.length;
-
-        this.data = new int[len];
-        for (int i = 0; i < len; ++i) {
-            this.data[i] = (int) src[i] & 0xFF;
-        }
+        this.data = src.clone();
         this.start = 0;
-        this.end = len;
+        this.end = src.length;
         this.encodingLabel = theEncodingLabel;
+        this.maxCapacity = UNBOUNDED;
     }
 
     /**
@@ -143,15 +187,13 @@ public class ByteQueue implements IByteSequence {
     public ByteQueue(final byte[] theData, final int theStart, final int length,
                      final String theEncodingLabel) {
 
-        this.data = new int[length];
-
-        for (int i = 0; i < length; ++i) {
-            this.data[i] = (int) theData[theStart + i] & MASK;
-        }
+        this.data = new byte[length];
+        System.arraycopy(theData, theStart, this.data, 0, length);
 
         this.start = 0;
         this.end = length;
         this.encodingLabel = theEncodingLabel;
+        this.maxCapacity = UNBOUNDED;
     }
 
     /**
@@ -163,11 +205,12 @@ public class ByteQueue implements IByteSequence {
     @Override
     public final int get(final int index) {
 
-        return this.start + index >= this.end ? EOF : this.data[this.start + index];
+        return this.start + index >= this.end ? EOF : (int) this.data[this.start + index] & MASK;
     }
 
     /**
-     * Gets the index the next code point to be returned by {@code consume} or {@code dequeue}.
+     * Gets the index the next code point to be returned by {@code consume} or {@code dequeue}. In a bounded queue,
+     * adding bytes may reclaim consumed storage and move the data, which invalidates indexes obtained earlier.
      *
      * @return the code point index
      */
@@ -203,15 +246,16 @@ public class ByteQueue implements IByteSequence {
      *
      * @param item the int to append
      * @return this, for invocation chaining
+     * @throws IllegalStateException if the queue is bounded and full
      */
     public final ByteQueue append(final int item) {
 
         if (!this.eofQueued) {
-            if (this.end >= this.data.length) {
-                extendStorage();
-            }
+            checkRoomFor(1);
+            ensureRoom(1);
+            beforeWrite(this.end);
 
-            this.data[this.end] = item & MASK;
+            this.data[this.end] = (byte) item;
             ++this.end;
         }
 
@@ -224,11 +268,13 @@ public class ByteQueue implements IByteSequence {
      *
      * @param seq the string whose code points to append
      * @return this, for invocation chaining
+     * @throws IllegalStateException if the queue is bounded and does not have room for all the items
      */
     public final ByteQueue append(final IUSVSequence seq) {
 
         if (!this.eofQueued) {
             final int len = seq.size();
+            checkRoomFor(len);
             for (int i = 0; i < len; ++i) {
                 final int item = seq.get(i);
                 append(item);
@@ -244,12 +290,19 @@ public class ByteQueue implements IByteSequence {
      *
      * @param seq the string whose code points to append
      * @return this, for invocation chaining
+     * @throws IllegalStateException if the queue is bounded and does not have room for all the items
      */
     public final ByteQueue append(final CharSequence seq) {
 
         if (!this.eofQueued) {
-            for (final int cp : seq.codePoints().toArray()) {
+            final int len = seq.length();
+            checkRoomFor(Character.codePointCount(seq, 0, len));
+
+            int pos = 0;
+            while (pos < len) {
+                final int cp = Character.codePointAt(seq, pos);
                 append(cp);
+                pos += Character.charCount(cp);
             }
         }
 
@@ -262,14 +315,27 @@ public class ByteQueue implements IByteSequence {
      *
      * @param seq the string whose code points to append
      * @return this, for invocation chaining
+     * @throws IllegalStateException if the queue is bounded and does not have room for all the bytes
      */
     public final ByteQueue append(final IByteSequence seq) {
 
         if (!this.eofQueued) {
-            final int len = seq.size();
-            for (int i = 0; i < len; ++i) {
-                final int item = seq.get(i);
-                append(item);
+            checkRoomFor(seq.size());
+
+            if (seq instanceof final ByteQueue queue) {
+                extend(queue);
+            } else if (seq instanceof final ByteString str) {
+                final int len = str.size();
+                ensureRoom(len);
+                beforeWrite(this.end);
+                str.copyBytes(0, this.data, this.end, len);
+                this.end += len;
+            } else {
+                final int len = seq.size();
+                for (int i = 0; i < len; ++i) {
+                    final int item = seq.get(i);
+                    append(item);
+                }
             }
         }
 
@@ -281,20 +347,89 @@ public class ByteQueue implements IByteSequence {
      *
      * @param rawBytes the bytes to append
      * @return this, for invocation chaining
+     * @throws IllegalStateException if the queue is bounded and does not have room for all the bytes
      */
     public final ByteQueue append(final byte[] rawBytes) {
 
+        return append(rawBytes, 0, rawBytes.length);
+    }
+
+    /**
+     * Appends a range of raw bytes from an array.
+     *
+     * @param rawBytes the array containing the bytes to append
+     * @param offset   the index of the first byte to append
+     * @param length   the number of bytes to append
+     * @return this, for invocation chaining
+     * @throws IllegalStateException if the queue is bounded and does not have room for all the bytes
+     */
+    public final ByteQueue append(final byte[] rawBytes, final int offset, final int length) {
+
         if (!this.eofQueued) {
-            final int len = rawBytes.length;
-            for (final int rawByte : rawBytes) {
-                final int item = rawByte & 0xFF;
-                append(item);
-            }
+            checkRoomFor(length);
+            ensureRoom(length);
+            beforeWrite(this.end);
+            System.arraycopy(rawBytes, offset, this.data, this.end, length);
+            this.end += length;
         }
 
         return this;
     }
 
+    /**
+     * Appends as many bytes from a range of an array as the queue has room for. An unbounded queue always accepts all
+     * the bytes. If {@code indicateEndOfFile} has already been called, no bytes are accepted.
+     *
+     * @param rawBytes the array containing the bytes to append
+     * @param offset   the index of the first byte to append
+     * @param length   the number of bytes to append
+     * @return the number of bytes accepted (less than {@code length} if the queue became full)
+     */
+    public final int offer(final byte[] rawBytes, final int offset, final int length) {
+
+        int count = 0;
+
+        if (!this.eofQueued) {
+            count = Math.min(length, remainingCapacity());
+            ensureRoom(count);
+            beforeWrite(this.end);
+            System.arraycopy(rawBytes, offset, this.data, this.end, count);
+            this.end += count;
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the number of bytes that can be added before the queue is full.
+     *
+     * @return the remaining capacity ({@code Integer.MAX_VALUE} minus the current size if the queue is not bounded)
+     */
+    public final int remainingCapacity() {
+
+        return this.maxCapacity - (this.end - this.start);
+    }
+
+    /**
+     * Tests whether the queue is full (only a bounded queue can become full).
+     *
+     * @return true if the queue is full
+     */
+    public final boolean isFull() {
+
+        return this.end - this.start >= this.maxCapacity;
+    }
+
+    /**
+     * Tests whether the queue is bounded by a maximum capacity.
+     *
+     * @return true if the queue is bounded
+     */
+    public final boolean isBounded() {
+
+        return this.maxCapacity != UNBOUNDED;
+    }
+
     /**
      * Appends the EOF code to the end of the stream.
      */
@@ -303,25 +438,31 @@ public class ByteQueue implements IByteSequence {
         this.eofQueued = true;
     }
 
+    /**
+     * Tests whether {@code indicateEndOfFile} has been called.
+     *
+     * @return true if end of file has been indicated
+     */
+    public final boolean isEndOfFileIndicated() {
+
+        return this.eofQueued;
+    }
+
     /**
      * Extends this list by appending all items from a given list. If {@code indicateEndOfFile} has already been called,
      * this has no effect.
      *
      * @param list the list to append
+     * @throws IllegalStateException if the queue is bounded and does not have room for all the bytes
      */
     public final void extend(final ByteQueue list) {
 
         if (!this.eofQueued) {
             final int lengthToAdd = list.size();
 
-            if (this.end + lengthToAdd > this.data.length) {
-                // Extend using the length to add to control how much space to allocate
-                final int growSize = lengthToAdd * 6 / 5;
-                final int newLen = this.data.length + growSize;
-                final int[] newData = new int[newLen];
-                System.arraycopy(this.data, 0, newData, 0, this.end);
-                this.data = newData;
-            }
+            checkRoomFor(lengthToAdd);
+            ensureRoom(lengthToAdd);
+            beforeWrite(this.end);
 
             System.arraycopy(list.data, list.start, this.data, this.end, lengthToAdd);
             this.end += lengthToAdd;
@@ -332,13 +473,15 @@ public class ByteQueue implements IByteSequence {
      * Prepends a code point to the list.
      *
      * @param item the code point to prepend
+     * @throws IllegalStateException if the queue is bounded and full
      */
     public final void prepend(final int item) {
 
+        checkRoomFor(1);
+        beforeWrite(Math.max(0, this.start - 1));
+
         if (this.start == 0) {
-            if (this.end >= this.data.length - 1) {
-                extendStorage();
-            }
+            ensureRoom(2);
 
             // Shift by 1/2 the extra space
             final int len = this.end - this.start;
@@ -351,7 +494,7 @@ public class ByteQueue implements IByteSequence {
         }
 
         --this.start;
-        this.data[this.start] = item & MASK;
+        this.data[this.start] = (byte) item;
     }
 
     /**
@@ -362,8 +505,10 @@ public class ByteQueue implements IByteSequence {
      */
     public final void replace(final int match, final int replacement) {
 
-        final int m = match & MASK;
-        final int r = replacement & MASK;
+        final byte m = (byte) match;
+        final byte r = (byte) replacement;
+
+        beforeWrite(this.start);
 
         for (int i = this.start; i < this.end; ++i) {
             if (this.data[i] == m) {
@@ -380,10 +525,12 @@ public class ByteQueue implements IByteSequence {
      */
     public final void replace(final Condition match, final int replacement) {
 
-        final int r = replacement & MASK;
+        final byte r = (byte) replacement;
+
+        beforeWrite(this.start);
 
         for (int i = this.start; i < this.end; ++i) {
-            if (match.test(this.data[i])) {
+            if (match.test((int) this.data[i] & MASK)) {
                 this.data[i] = r;
             }
         }
@@ -394,19 +541,20 @@ public class ByteQueue implements IByteSequence {
      *
      * @param item        the code point to insert
      * @param beforeIndex the index before which to insert the code point
+     * @throws IllegalStateException if the queue is bounded and full
      */
     public final void insert(final int item, final int beforeIndex) {
 
-        if (this.end == this.data.length) {
-            extendStorage();
-        }
+        checkRoomFor(1);
+        ensureRoom(1);
+        beforeWrite(this.start + beforeIndex);
 
         final int len = this.end - this.start;
         System.arraycopy(this.data, this.start + beforeIndex, this.data,
                 this.start + beforeIndex + 1, len - beforeIndex);
         ++this.end;
 
-        this.data[this.start + beforeIndex] = item & MASK;
+        this.data[this.start + beforeIndex] = (byte) item;
     }
 
     /**
@@ -416,7 +564,9 @@ public class ByteQueue implements IByteSequence {
      */
     public final void remove(final int match) {
 
-        final int m = match & MASK;
+        final byte m = (byte) match;
+
+        beforeWrite(this.start);
 
         int pos = this.start;
         for (int i = this.start; i < this.end; ++i) {
@@ -435,9 +585,11 @@ public class ByteQueue implements IByteSequence {
      */
     public final void remove(final Condition match) {
 
+        beforeWrite(this.start);
+
         int pos = this.start;
         for (int i = this.start; i < this.end; ++i) {
-            if (!match.test(this.data[i])) {
+            if (!match.test((int) this.data[i] & MASK)) {
                 this.data[pos] = this.data[i];
                 ++pos;
             }
@@ -475,10 +627,10 @@ public class ByteQueue implements IByteSequence {
 
         int result = -1;
 
-        for (int i = this.start; i < this.end; ++i) {
-            if (this.data[i] == cp) {
-                result = i - this.start;
-                break;
+        if (cp >= 0 && cp <= MASK) {
+            final int found = SequenceSearch.indexOf(this.data, this.start, this.end, cp);
+            if (found >= 0) {
+                result = found - this.start;
             }
         }
 
@@ -498,13 +650,21 @@ public class ByteQueue implements IByteSequence {
     }
 
     /**
-     * Enqueues a code point to the tail of the queue.
+     * Enqueues a byte to the tail of the queue. Unlike {@code append}, this does not throw an exception when a bounded
+     * queue is full; the producer should instead wait until some bytes have been consumed.
      *
-     * @param item the code point to enqueue
+     * @param item the byte to enqueue
+     * @return true if the byte was enqueued; false if the queue is full or EOF has been enqueued
      */
-    public final void enqueue(final int item) {
+    public final boolean enqueue(final int item) {
 
-        append(item);
+        final boolean accepted = !this.eofQueued && !isFull();
+
+        if (accepted) {
+            append(item);
+        }
+
+        return accepted;
     }
 
     /**
@@ -525,7 +685,7 @@ public class ByteQueue implements IByteSequence {
      */
     public final int peek() {
 
-        return this.end == this.start ? -1 : this.data[this.start];
+        return this.end == this.start ? -1 : (int) this.data[this.start] & MASK;
     }
 
     /**
@@ -536,7 +696,7 @@ public class ByteQueue implements IByteSequence {
      */
     public final int peekPlus(final int i) {
 
-        return this.end <= this.start + i ? -1 : this.data[this.start + i];
+        return this.end <= this.start + i ? -1 : (int) this.data[this.start + i] & MASK;
     }
 
     /**
@@ -549,6 +709,23 @@ public class ByteQueue implements IByteSequence {
      */
     public final void peek(final int rangeStart, final int rangeEnd, final int[] target) {
 
+        final int offset = this.start + rangeStart;
+        final int len = rangeEnd - rangeStart;
+        for (int i = 0; i < len; ++i) {
+            target[i] = (int) this.data[offset + i] & MASK;
+        }
+    }
+
+    /**
+     * Returns the next bytes at a specified position in the queue, without affecting the queue at all. This method
+     * does not do range checking, so callers must ensure their request falls within the range of queued data.
+     *
+     * @param rangeStart the first index to retrieve
+     * @param rangeEnd   the index after the last index to retrieve
+     * @param target     the byte array into which to store retrieved bytes
+     */
+    public final void peek(final int rangeStart, final int rangeEnd, final byte[] target) {
+
         System.arraycopy(this.data, this.start + rangeStart, target, 0, rangeEnd - rangeStart);
     }
 
@@ -564,7 +741,7 @@ public class ByteQueue implements IByteSequence {
         if (this.end == this.start) {
             result = -1;
         } else {
-            result = this.data[this.start];
+            result = (int) this.data[this.start] & MASK;
             ++this.start;
         }
 
@@ -608,7 +785,7 @@ public class ByteQueue implements IByteSequence {
         } else {
             result = true;
             for (int i = 0; i < len; ++i) {
-                if (this.data[this.start + i] != (int) seq.charAt(i)) {
+                if (((int) this.data[this.start + i] & MASK) != (int) seq.charAt(i)) {
                     result = false;
                     break;
                 }
@@ -634,7 +811,7 @@ public class ByteQueue implements IByteSequence {
         } else {
             result = true;
             for (int i = 0; i < len; ++i) {
-                if (this.data[this.start + i] != (int) seq.charAt(i)) {
+                if (((int) this.data[this.start + i] & MASK) != (int) seq.charAt(i)) {
                     result = false;
                     break;
                 }
@@ -645,47 +822,294 @@ public class ByteQueue implements IByteSequence {
     }
 
     /**
-     * Extends storage. Storage grows by the smallest of half the current data size and 1 million bytes.
+     * Prepares the data array for an encoder in this package to store bytes directly. On return, the caller may store
+     * up to {@code count} bytes in {@code rawData()} starting at index {@code rawEnd()}, then must call {@code commit}
+     * with the number of bytes stored. The array must not be modified anywhere else, since parts of it may be shared
+     * with views returned by {@code subSequence}.
+     *
+     * @param count the number of bytes to be stored
+     * @throws IllegalStateException if the queue is bounded and does not have room for the bytes
      */
-    private void extendStorage() {
+    final void reserve(final int count) {
 
-        final int growSize = Math.min(this.data.length / 2, 1000000);
-        final int newLen = this.data.length + growSize;
-        final int[] newData = new int[newLen];
-        System.arraycopy(this.data, 0, newData, 0, this.end);
-        this.data = newData;
+        checkRoomFor(count);
+        ensureRoom(count);
+        beforeWrite(this.end);
     }
 
     /**
-     * Retrieves the byte data as a Java byte array.
+     * Adds bytes that an encoder in this package stored directly after calling {@code reserve} to the end of the
+     * queue.
      *
-     * @return the byte array
+     * @param count the number of bytes stored (no more than the number reserved)
      */
-    public final byte[] asByteArray() {
+    final void commit(final int count) {
 
-        final int len = this.end - this.start;
-        final byte[] result = new byte[len];
+        this.end += count;
+    }
 
-        for (int i = 0; i < len; ++i) {
-            result[i] = (byte) this.data[this.start + i];
+    /**
+     * Gets the data array, for decoders and encoders in this package that scan or fill the queue in bulk. The bytes in
+     * the queue are at indexes {@code rawStart()} through {@code rawEnd() - 1}. Callers must not modify the array
+     * except as described in {@code reserve}.
+     *
+     * @return the data array
+     */
+    final byte[] rawData() {
+
+        return this.data;
+    }
+
+    /**
+     * Gets the index in the data array of the byte at the head of the queue (see {@code rawData}).
+     *
+     * @return the index
+     */
+    final int rawStart() {
+
+        return this.start;
+    }
+
+    /**
+     * Gets the index in the data array after the last byte in the queue (see {@code rawData}).
+     *
+     * @return the index
+     */
+    final int rawEnd() {
+
+        return this.end;
+    }
+
+    /**
+     * Gets the number of bytes the data array can hold before it must grow.
+     *
+     * @return the capacity
+     */
+    final int capacity() {
+
+        return this.data.length;
+    }
+
+    /**
+     * Prepares the queue for reuse by {@code BufferPool}: empties it, clears the end of file indicator, and moves the
+     * head back to the start of the data array. A queue that is bounded, or whose data array is shared with views
+     * returned by {@code subSequence}, is not reusable and is left unchanged.
+     *
+     * @return true if the queue was reset for reuse; false if it should be discarded
+     */
+    final boolean recycle() {
+
+        final boolean reusable = this.maxCapacity == UNBOUNDED && this.sharedLimit == 0;
+
+        if (reusable) {
+            this.start = 0;
+            this.end = 0;
+            this.eofQueued = false;
         }
 
-        return result;
+        return reusable;
     }
 
     /**
-     * Computes a hash code for the list.
+     * Throws an exception if the queue is bounded and does not have room for a number of additional bytes.
+     *
+     * @param count the number of bytes to be added
+     * @throws IllegalStateException if there is not room for the bytes
+     */
+    private void checkRoomFor(final int count) {
+
+        if (count > remainingCapacity()) {
+            throw new IllegalStateException("Queue is full.");
+        }
+    }
+
+    /**
+     * Ensures there is room in the data array for a number of bytes after the current end.
+     *
+     * <p>
+     * A bounded queue first reclaims the storage used by consumed bytes when that would free at least a quarter of the
+     * array, or when the array cannot grow enough within the maximum capacity. Otherwise, storage grows by the largest
+     * of the shortfall, 10 bytes, and the smaller of half the current data size and 1 million bytes (but a bounded
+     * queue never grows beyond its maximum capacity).
+     *
+     * @param count the number of bytes to be added
+     */
+    private void ensureRoom(final int count) {
+
+        if (this.end + count > this.data.length) {
+            final boolean bounded = this.maxCapacity != UNBOUNDED;
+            final int limit = bounded ? this.maxCapacity + 1 : Integer.MAX_VALUE;
+
+            if (bounded && this.start > 1
+                    && (this.start >= this.data.length / 4 || this.end + count > limit)) {
+                compact();
+            }
+
+            if (this.end + count > this.data.length) {
+                final int growSize = Math.max(10, Math.min(this.data.length / 2, 1000000));
+                final int newLen = Math.max(this.end + count, Math.min(this.data.length + growSize, limit));
+                this.data = Arrays.copyOf(this.data, newLen);
+                this.sharedLimit = 0;
+            }
+        }
+    }
+
+    /**
+     * Moves the unconsumed bytes to the front of the data array, reclaiming the space used by consumed bytes. The most
+     * recently consumed byte is retained so it can still be reconsumed.
+     */
+    private void compact() {
+
+        final int keep = this.start - 1;
+        final int len = this.end - keep;
+
+        if (this.sharedLimit > 0) {
+            // Views share the current array, so move the data into a new array instead
+            final byte[] newData = new byte[this.data.length];
+            System.arraycopy(this.data, keep, newData, 0, len);
+            this.data = newData;
+            this.sharedLimit = 0;
+        } else {
+            System.arraycopy(this.data, keep, this.data, 0, len);
+        }
+
+        this.start = 1;
+        this.end = len;
+    }
+
+    /**
+     * Called before modifying the data array at or above a specified index. If any immutable view shares that part of
+     * the array, the array is copied first.
+     *
+     * @param index the lowest index that is about to be modified
+     */
+    private void beforeWrite(final int index) {
+
+        if (index < this.sharedLimit) {
+            this.data = this.data.clone();
+            this.sharedLimit = 0;
+        }
+    }
+
+    /**
+     * Marks a range of the data array as shared with an immutable view.
+     *
+     * @param rangeStart the index of the first byte to include, relative to the head of the queue
+     * @param rangeEnd   the index after the last byte to include, relative to the head of the queue
+     * @throws IndexOutOfBoundsException if the range is not valid for this queue
+     */
+    private void share(final int rangeStart, final int rangeEnd) {
+
+        final int size = this.end - this.start;
+        if (rangeStart < 0 || rangeEnd > size || rangeStart > rangeEnd) {
+            final String msg = "Range [" + rangeStart + ", " + rangeEnd + ") out of bounds for length " + size;
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        this.sharedLimit = Math.max(this.sharedLimit, this.start + rangeEnd);
+    }
+
+    /**
+     * Gets a range of this queue as an immutable byte string. The string shares this queue's data array rather than
+     * copying it; if this queue is later modified in that range, it copies its data first so the string is unaffected.
+     *
+     * @param rangeStart the index of the first byte to include
+     * @param rangeEnd   the index after the last byte to include
+     * @return the byte string
+     * @throws IndexOutOfBoundsException if the range is not valid for this queue
      */
     @Override
-    public final int hashCode() {
+    public final ByteString subSequence(final int rangeStart, final int rangeEnd) {
 
-        int hash = 0;
+        share(rangeStart, rangeEnd);
 
-        for (int i = this.start; i < this.end; ++i) {
-            hash += this.data[i];
+        return ByteString.view(this.data, this.start + rangeStart, rangeEnd - rangeStart);
+    }
+
+    /**
+     * Generates a ByteString with this queue's bytes. The string shares this queue's data array (see
+     * {@code subSequence}).
+     *
+     * @return the ByteString
+     */
+    public final ByteString toByteString() {
+
+        return subSequence(0, this.end - this.start);
+    }
+
+    /**
+     * Tests whether two byte sequences contain identical bytes.
+     *
+     * @param other the sequence against which to compare
+     * @return {@code true} if this sequence and {@code other} contain identical bytes
+     */
+    @Override
+    public final boolean equalsBytes(final IByteSequence other) {
+
+        final boolean equal;
+
+        if (other instanceof final ByteQueue queue) {
+            equal = Arrays.equals(this.data, this.start, this.end, queue.data, queue.start, queue.end);
+        } else if (other instanceof final ByteString str) {
+            equal = str.equalsRange(this.data, this.start, this.end);
+        } else {
+            equal = IByteSequence.super.equalsBytes(other);
+        }
+
+        return equal;
+    }
+
+    /**
+     * Compares this sequence to another lexicographically, treating bytes as unsigned values.
+     *
+     * @param other the sequence against which to compare
+     * @return a negative value, zero, or a positive value as this sequence is less than, equal to, or greater than
+     *         {@code other}
+     */
+    @Override
+    public final int compareBytes(final IByteSequence other) {
+
+        final int result;
+
+        if (other instanceof final ByteQueue queue) {
+            result = Arrays.compareUnsigned(this.data, this.start, this.end, queue.data, queue.start, queue.end);
+        } else if (other instanceof final ByteString str) {
+            result = -str.compareBytes(this);
+        } else {
+            result = IByteSequence.super.compareBytes(other);
         }
 
-        return hash;
+        return result;
+    }
+
+    /**
+     * Retrieves the byte data as a Java byte array.
+     *
+     * @return the byte array
+     */
+    public final byte[] asByteArray() {
+
+        return Arrays.copyOfRange(this.data, this.start, this.end);
+    }
+
+    /**
+     * Computes a hash of the bytes in the sequence.
+     *
+     * @return the hash
+     */
+    @Override
+    public final int hashBytes() {
+
+        return SequenceHash.hash(this.data, this.start, this.end);
+    }
+
+    /**
+     * Computes a hash code for the list. This is not cached since the list is mutable.
+     */
+    @Override
+    public final int hashCode() {
+
+        return SequenceHash.hash(this.data, this.start, this.end);
     }
 
     /**
@@ -701,18 +1125,7 @@ public class ByteQueue implements IByteSequence {
         if (o == this) {
             equal = true;
         } else if (o instanceof ByteQueue list) {
-            final int sz = size();
-            if (sz == list.size()) {
-                equal = true;
-                for (int i = 0; i < sz; ++i) {
-                    if (get(i) != list.get(i)) {
-                        equal = false;
-                        break;
-                    }
-                }
-            } else {
-                equal = false;
-            }
+            equal = Arrays.equals(this.data, this.start, this.end, list.data, list.start, list.end);
         } else {
             equal = false;
         }
@@ -729,19 +1142,21 @@ public class ByteQueue implements IByteSequence {
     @Override
     public final String toString() {
 
-        final byte[] bytes = asByteArray();
-
-        return new String(bytes, StandardCharsets.UTF_8);
+        return new String(this.data, this.start, this.end - this.start, StandardCharsets.UTF_8);
     }
 
     /**
-     * Generates a USVString with this object's code points.
+     * Generates a USVString with this object's code points (each byte is treated as a Latin-1 code point). The string
+     * shares this queue's data array (see {@code subSequence}).
      *
      * @return the USVString
      */
     public final USVString toUSVString() {
 
-        return new USVString(this.data, this.start, this.end - this.start);
+        final int len = this.end - this.start;
+        share(0, len);
+
+        return USVString.latin1View(this.data, this.start, len);
     }
 
     /**
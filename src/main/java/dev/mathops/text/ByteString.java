@@ -1,19 +1,36 @@
 package dev.mathops.text;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * An immutable string made up of bytes, as defined in
- * <a href="https://infra.spec.whatwg.org/#bytes">Infra</a>. This class uses int values to store
- * bytes so their values will be non-negative numbers from 0x00 to 0xFF.
+ * <a href="https://infra.spec.whatwg.org/#bytes">Infra</a>. Bytes are stored packed in a byte array, but are always
+ * presented through the {@code IByteSequence} interface as non-negative numbers from 0x00 to 0xFF.
+ *
+ * <p>
+ * A string may be a view of a range of a larger array (see {@code subSequence}), in which case it shares that array
+ * rather than copying it.
  */
 public class ByteString implements IByteSequence {
 
     /** An empty ByteString. */
-    public static final ByteString EMPTY = new ByteString(new int[0]);
+    public static final ByteString EMPTY = new ByteString(new byte[0]);
+
+    /** Mask for byte values. */
+    private static final int MASK = 0xFF;
 
     /** The bytes in the string. */
-    private final int[] data;
+    private final byte[] data;
+
+    /** The index in the data array of the first byte in the string. */
+    private final int offset;
+
+    /** The number of bytes in the string. */
+    private final int length;
+
+    /** The cached hash code (computed on first use, zero until then). */
+    private int hash;
 
     /**
      * Constructs a new {@code ByteString}.
@@ -22,11 +39,9 @@ public class ByteString implements IByteSequence {
      */
     public ByteString(final byte[] theBytes) {
 
-        this.data = new int[theBytes.length];
-
-        for (int i = 0; i < this.data.length; ++i) {
-            this.data[i] = (int) theBytes[i] & 0xFF;
-        }
+        this.data = theBytes.clone();
+        this.offset = 0;
+        this.length = theBytes.length;
     }
 
     /**
@@ -37,11 +52,13 @@ public class ByteString implements IByteSequence {
      */
     public ByteString(final int[] theBytes) {
 
-        this.data = new int[theBytes.length];
+        this.data = new byte[theBytes.length];
 
         for (int i = 0; i < this.data.length; ++i) {
-            this.data[i] = theBytes[i] & 0xFF;
+            this.data[i] = (byte) theBytes[i];
         }
+        this.offset = 0;
+        this.length = theBytes.length;
     }
 
     /**
@@ -53,11 +70,9 @@ public class ByteString implements IByteSequence {
      */
     public ByteString(final byte[] theBytes, final int start, final int length) {
 
-        this.data = new int[length];
-
-        for (int i = 0; i < length; ++i) {
-            this.data[i] = (int) theBytes[start + i] & 0xFF;
-        }
+        this.data = Arrays.copyOfRange(theBytes, start, start + length);
+        this.offset = 0;
+        this.length = length;
     }
 
     /**
@@ -70,11 +85,41 @@ public class ByteString implements IByteSequence {
      */
     public ByteString(final int[] theBytes, final int start, final int length) {
 
-        this.data = new int[length];
+        this.data = new byte[length];
 
         for (int i = 0; i < length; ++i) {
-            this.data[i] = theBytes[start + i] & 0xFF;
+            this.data[i] = (byte) theBytes[start + i];
         }
+        this.offset = 0;
+        this.length = length;
+    }
+
+    /**
+     * Constructs a new {@code ByteString} that shares a range of an existing array.
+     *
+     * @param theOffset the index of the first byte in the backing array
+     * @param theLength the number of bytes
+     * @param theData   the backing array
+     */
+    private ByteString(final int theOffset, final int theLength, final byte[] theData) {
+
+        this.data = theData;
+        this.offset = theOffset;
+        this.length = theLength;
+    }
+
+    /**
+     * Creates a {@code ByteString} that is a view of a range of a byte array, without copying. The caller must ensure
+     * the range of the array is never modified while the string is reachable.
+     *
+     * @param theBytes the array of bytes
+     * @param start    the index of the first byte
+     * @param length   the number of bytes
+     * @return the string
+     */
+    static ByteString view(final byte[] theBytes, final int start, final int length) {
+
+        return new ByteString(start, length, theBytes);
     }
 
     /**
@@ -85,7 +130,7 @@ public class ByteString implements IByteSequence {
     @Override
     public final boolean isEmpty() {
 
-        return this.data.length == 0;
+        return this.length == 0;
     }
 
     /**
@@ -96,7 +141,7 @@ public class ByteString implements IByteSequence {
     @Override
     public final int size() {
 
-        return this.data.length;
+        return this.length;
     }
 
     /**
@@ -108,7 +153,27 @@ public class ByteString implements IByteSequence {
     @Override
     public final int get(final int index) {
 
-        return index >= this.data.length ? EOF : this.data[index];
+        return index >= this.length ? EOF : (int) this.data[this.offset + index] & MASK;
+    }
+
+    /**
+     * Gets a range of this string as a new string. The result shares this string's backing array, so no bytes are
+     * copied.
+     *
+     * @param start the index of the first byte to include
+     * @param end   the index after the last byte to include
+     * @return the substring
+     * @throws IndexOutOfBoundsException if the range is not valid for this string
+     */
+    @Override
+    public final ByteString subSequence(final int start, final int end) {
+
+        if (start < 0 || end > this.length || start > end) {
+            final String msg = "Range [" + start + ", " + end + ") out of bounds for length " + this.length;
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        return start == 0 && end == this.length ? this : view(this.data, this.offset + start, end - start);
     }
 
     /**
@@ -118,30 +183,130 @@ public class ByteString implements IByteSequence {
      */
     public final byte[] asByteArray() {
 
-        final byte[] result = new byte[this.data.length];
+        return Arrays.copyOfRange(this.data, this.offset, this.offset + this.length);
+    }
+
+    /**
+     * Copies a range of bytes from this string into a byte array.
+     *
+     * @param srcPos  the index of the first byte in this string to copy
+     * @param dest    the destination array
+     * @param destPos the index in {@code dest} at which to store the first byte
+     * @param length  the number of bytes to copy
+     */
+    final void copyBytes(final int srcPos, final byte[] dest, final int destPos, final int length) {
 
-        for (int i = 0; i < this.data.length; ++i) {
-            result[i] = (byte) this.data[i];
-        }
+        System.arraycopy(this.data, this.offset + srcPos, dest, destPos, length);
+    }
 
-        return result;
+    /**
+     * Gets the array that stores this string's bytes, which may be shared with other strings. The bytes are at indexes
+     * {@code rawOffset()} through {@code rawOffset() + size() - 1}. Callers must not modify the array.
+     *
+     * @return the data array
+     */
+    final byte[] rawData() {
+
+        return this.data;
+    }
+
+    /**
+     * Gets the index in the data array of the first byte of this string (see {@code rawData}).
+     *
+     * @return the index
+     */
+    final int rawOffset() {
+
+        return this.offset;
+    }
+
+    /**
+     * Computes a hash of the bytes in the sequence.
+     *
+     * @return the hash
+     */
+    @Override
+    public final int hashBytes() {
+
+        return hashCode();
     }
 
     /**
-     * Gets the hash code for the object.
+     * Gets the hash code for the object. The hash is computed on first use and cached.
      *
      * @return the hash code
      */
     @Override
     public final int hashCode() {
 
-        int hash = 0;
+        int h = this.hash;
+
+        if (h == 0) {
+            h = SequenceHash.hash(this.data, this.offset, this.offset + this.length);
+            this.hash = h;
+        }
+
+        return h;
+    }
+
+    /**
+     * Tests whether two byte sequences contain identical bytes.
+     *
+     * @param other the sequence against which to compare
+     * @return {@code true} if this sequence and {@code other} contain identical bytes
+     */
+    @Override
+    public final boolean equalsBytes(final IByteSequence other) {
+
+        final boolean equal;
+
+        if (other instanceof final ByteString str) {
+            equal = equals(str);
+        } else if (other instanceof final ByteQueue queue) {
+            equal = queue.equalsBytes(this);
+        } else {
+            equal = IByteSequence.super.equalsBytes(other);
+        }
+
+        return equal;
+    }
+
+    /**
+     * Compares this sequence to another lexicographically, treating bytes as unsigned values.
+     *
+     * @param other the sequence against which to compare
+     * @return a negative value, zero, or a positive value as this sequence is less than, equal to, or greater than
+     *         {@code other}
+     */
+    @Override
+    public final int compareBytes(final IByteSequence other) {
+
+        final int result;
 
-        for (final int cp : this.data) {
-            hash += cp;
+        if (other instanceof final ByteString str) {
+            result = Arrays.compareUnsigned(this.data, this.offset, this.offset + this.length, str.data, str.offset,
+                    str.offset + str.length);
+        } else if (other instanceof final ByteQueue queue) {
+            result = Arrays.compareUnsigned(this.data, this.offset, this.offset + this.length, queue.rawData(),
+                    queue.rawStart(), queue.rawEnd());
+        } else {
+            result = IByteSequence.super.compareBytes(other);
         }
 
-        return hash;
+        return result;
+    }
+
+    /**
+     * Tests whether a range of this string matches a range of a byte array.
+     *
+     * @param bytes     the byte array
+     * @param fromIndex the index of the first byte in {@code bytes} to compare
+     * @param toIndex   the index after the last byte in {@code bytes} to compare
+     * @return true if this string's bytes match the range of the array
+     */
+    final boolean equalsRange(final byte[] bytes, final int fromIndex, final int toIndex) {
+
+        return Arrays.equals(this.data, this.offset, this.offset + this.length, bytes, fromIndex, toIndex);
     }
 
     /**
@@ -158,16 +323,8 @@ public class ByteString implements IByteSequence {
         if (obj == this) {
             equal = true;
         } else if (obj instanceof final ByteString u) {
-            equal = this.data.length == u.data.length;
-
-            if (equal) {
-                for (int i = 0; i < this.data.length; ++i) {
-                    if (this.data[i] != u.data[i]) {
-                        equal = false;
-                        break;
-                    }
-                }
-            }
+            equal = Arrays.equals(this.data, this.offset, this.offset + this.length, u.data, u.offset,
+                    u.offset + u.length);
         } else {
             equal = false;
         }
@@ -183,7 +340,6 @@ public class ByteString implements IByteSequence {
     @Override
     public final String toString() {
 
-        final byte[] bytes = asByteArray();
-        return new String(bytes, 0, this.data.length, StandardCharsets.UTF_8);
+        return new String(this.data, this.offset, this.length, StandardCharsets.UTF_8);
     }
 }
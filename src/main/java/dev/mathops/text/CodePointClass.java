@@ -0,0 +1,308 @@
+package dev.mathops.text;
+
+import dev.mathops.text.unicode.CodePointTable;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed character classes for code points, shared by the character predicates in {@code TextUtils}, the XML,
+ * JSON, and internet parsers, and the encoders.
+ *
+ * <p>
+ * Each code point has a set of class bits. For ASCII code points these are held in a 128-entry table, so a test is
+ * one array load. Other code points up to U+10FFFF use a two-stage {@code CodePointTable} (the same table the Unicode
+ * character database uses): the first stage maps each 128-code-point block to one of a small number of distinct
+ * blocks in the second stage (most blocks are identical, so the tables are small). Code points beyond U+10FFFF
+ * (including the Unicode+ extended range) and negative values have no classes.
+ *
+ * <p>
+ * A class test is {@code CodePointClass.is(cp, CodePointClass.ASCII_DIGIT)}. A mask that combines several bits tests
+ * whether the code point is in any of those classes, and a tokenizer that tests several classes for the same code
+ * point can call {@code classify} once and test the bits of the result.
+ */
+public enum CodePointClass {
+    ;
+
+    /** U+0009 TAB, U+000A LF, or U+000D CR. */
+    public static final int ASCII_TAB_OR_NEWLINE = 0x0001;
+
+    /** U+0009 TAB, U+000A LF, U+000C FF, U+000D CR, or U+0020 SPACE. */
+    public static final int ASCII_WHITESPACE = 0x0002;
+
+    /** U+0000 to U+001F. */
+    public static final int C0_CONTROL = 0x0004;
+
+    /** U+0000 to U+0020. */
+    public static final int C0_CONTROL_OR_SPACE = 0x0008;
+
+    /** U+0000 to U+001F, or U+007F to U+009F. */
+    public static final int CONTROL = 0x0010;
+
+    /** U+0030 (0) to U+0039 (9). */
+    public static final int ASCII_DIGIT = 0x0020;
+
+    /** U+0041 (A) to U+005A (Z). */
+    public static final int ASCII_UPPER_ALPHA = 0x0040;
+
+    /** U+0061 (a) to U+007A (z). */
+    public static final int ASCII_LOWER_ALPHA = 0x0080;
+
+    /** U+0041 (A) to U+0046 (F). */
+    public static final int ASCII_UPPER_HEX_LETTER = 0x0100;
+
+    /** U+0061 (a) to U+0066 (f). */
+    public static final int ASCII_LOWER_HEX_LETTER = 0x0200;
+
+    /** U+002D (-). */
+    public static final int HYPHEN = 0x0400;
+
+    /** U+0009 TAB, U+000A LF, U+000D CR, or U+0020 SPACE (the {@code S} production of XML, and JSON whitespace). */
+    public static final int XML_WHITESPACE = 0x0800;
+
+    /** The code points in the ranges of the {@code NameStartChar} production of XML 1.1. */
+    public static final int XML_NAME_START_CHAR = 0x1000;
+
+    /** The code points in the ranges of the {@code NameChar} production of XML 1.1. */
+    public static final int XML_NAME_CHAR = 0x2000;
+
+    /** The code points in the ranges of the {@code Char} production of XML 1.1. */
+    public static final int XML_CHAR = 0x4000;
+
+    /** U+FDD0 to U+FDEF, or the last two code points of each plane. */
+    public static final int NONCHARACTER = 0x8000;
+
+    /** U+0041 (A) to U+005A (Z) or U+0061 (a) to U+007A (z). */
+    public static final int ASCII_ALPHA = ASCII_UPPER_ALPHA | ASCII_LOWER_ALPHA;
+
+    /** An ASCII digit or ASCII alpha. */
+    public static final int ASCII_ALPHANUMERIC = ASCII_ALPHA | ASCII_DIGIT;
+
+    /** An ASCII digit or U+0041 (A) to U+0046 (F). */
+    public static final int ASCII_UPPER_HEX_DIGIT = ASCII_DIGIT | ASCII_UPPER_HEX_LETTER;
+
+    /** An ASCII digit or U+0061 (a) to U+0066 (f). */
+    public static final int ASCII_LOWER_HEX_DIGIT = ASCII_DIGIT | ASCII_LOWER_HEX_LETTER;
+
+    /** An ASCII digit, or U+0041 (A) to U+0046 (F), or U+0061 (a) to U+0066 (f). */
+    public static final int ASCII_HEX_DIGIT = ASCII_DIGIT | ASCII_UPPER_HEX_LETTER | ASCII_LOWER_HEX_LETTER;
+
+    /** A letter, digit, or hyphen, as defined in RFC 1034. */
+    public static final int LDH = ASCII_ALPHANUMERIC | HYPHEN;
+
+    /** The largest code point with classes in the two-stage table. */
+    private static final int MAX_CLASSIFIED = 0x10FFFF;
+
+    /** The ranges of {@code NameStartChar} in XML 1.1. */
+    private static final int[][] XML_NAME_START_RANGES = {{0x3A, 0x3A}, {0x41, 0x5A}, {0x5F, 0x5F}, {0x61, 0x7A},
+            {0xC0, 0xD6}, {0xD8, 0xF6}, {0xF8, 0x2FF}, {0x370, 0x37D}, {0x37F, 0x1FFF}, {0x200C, 0x200D},
+            {0x2070, 0x218F}, {0x2C00, 0x2FEF}, {0x3001, 0xD7FF}, {0xF900, 0xFDCF}, {0xFDF0, 0xFFFD},
+            {0x10000, 0xEFFFF},};
+
+    /** The ranges of {@code NameChar} in XML 1.1 that are not also ranges of {@code NameStartChar}. */
+    private static final int[][] XML_NAME_EXTRA_RANGES = {{0x2D, 0x2E}, {0x30, 0x39}, {0xB7, 0xB7}, {0x300, 0x36F},
+            {0x203F, 0x2040},};
+
+    /** The ranges of {@code Char} in XML 1.1. */
+    private static final int[][] XML_CHAR_RANGES = {{0x1, 0xD7FF}, {0xE000, 0xFFFD}, {0x10000, 0x10FFFF},};
+
+    /** The classes of the ASCII code points. */
+    private static final char[] ASCII = new char[0x80];
+
+    /** The two-stage table of the classes of all code points up to {@code MAX_CLASSIFIED}. */
+    private static final CodePointTable TABLE;
+
+    static {
+        for (int cp = 0; cp < 0x80; ++cp) {
+            ASCII[cp] = (char) computeClasses(cp);
+        }
+
+        // Classes are constant between consecutive boundaries, so they are computed only at the start of each run
+        // beyond the ASCII range, and the table is built from the runs.
+        final int[] boundaries = boundaries();
+        final int[] runStarts = new int[0x81 + boundaries.length];
+        final char[] runValues = new char[runStarts.length];
+        for (int cp = 0; cp < 0x80; ++cp) {
+            runStarts[cp] = cp;
+            runValues[cp] = ASCII[cp];
+        }
+        runStarts[0x80] = 0x80;
+        runValues[0x80] = (char) computeClasses(0x80);
+
+        int numRuns = 0x81;
+        for (final int boundary : boundaries) {
+            if (boundary > runStarts[numRuns - 1] && boundary <= MAX_CLASSIFIED) {
+                runStarts[numRuns] = boundary;
+                runValues[numRuns] = (char) computeClasses(boundary);
+                ++numRuns;
+            }
+        }
+
+        TABLE = new CodePointTable(Arrays.copyOf(runStarts, numRuns), Arrays.copyOf(runValues, numRuns));
+    }
+
+    /**
+     * Gets the classes of a code point.
+     *
+     * @param cp the code point
+     * @return the bitwise OR of the class bits of the code point (zero if it is negative or beyond U+10FFFF)
+     */
+    public static int classify(final int cp) {
+
+        final int result;
+
+        if (cp >>> 7 == 0) {
+            result = (int) ASCII[cp];
+        } else if (cp > 0 && cp <= MAX_CLASSIFIED) {
+            result = TABLE.get(cp);
+        } else {
+            result = 0;
+        }
+
+        return result;
+    }
+
+    /**
+     * Tests whether a code point is in any of a set of classes.
+     *
+     * @param cp   the code point
+     * @param mask the class bits to test
+     * @return true if the code point has any of the class bits in {@code mask}
+     */
+    public static boolean is(final int cp, final int mask) {
+
+        return (classify(cp) & mask) != 0;
+    }
+
+    /**
+     * Tests whether an ASCII code point is in any of a set of classes. The test is one array load, with no range test
+     * beyond the one the array access performs; use this only where the code point is known to be ASCII (for example,
+     * when it is a {@code char} already tested to be less than 0x80).
+     *
+     * @param cp   the code point, which must be in the range 0 to 0x7F
+     * @param mask the class bits to test
+     * @return true if the code point has any of the class bits in {@code mask}
+     */
+    public static boolean isAscii(final int cp, final int mask) {
+
+        return ((int) ASCII[cp] & mask) != 0;
+    }
+
+    /**
+     * Builds the sorted list of code points beyond the ASCII range at which the classes may differ from those of the
+     * preceding code point (used to build the tables).
+     *
+     * @return the boundaries, in ascending order
+     */
+    private static int[] boundaries() {
+
+        final int numPlanes = (MAX_CLASSIFIED + 1) >> 16;
+        final int numRanges = XML_NAME_START_RANGES.length + XML_NAME_EXTRA_RANGES.length + XML_CHAR_RANGES.length;
+        final int[] result = new int[numRanges * 2 + numPlanes * 2 + 4];
+
+        int count = 0;
+        for (final int[][] ranges : new int[][][]{XML_NAME_START_RANGES, XML_NAME_EXTRA_RANGES, XML_CHAR_RANGES}) {
+            for (final int[] range : ranges) {
+                result[count] = range[0];
+                result[count + 1] = range[1] + 1;
+                count += 2;
+            }
+        }
+        result[count] = 0x7F;
+        result[count + 1] = 0xA0;
+        result[count + 2] = 0xFDD0;
+        result[count + 3] = 0xFDF0;
+        count += 4;
+        for (int plane = 0; plane < numPlanes; ++plane) {
+            result[count] = (plane << 16) + 0xFFFE;
+            result[count + 1] = (plane << 16) + 0x10000;
+            count += 2;
+        }
+
+        Arrays.sort(result);
+
+        return result;
+    }
+
+    /**
+     * Computes the classes of a code point from their definitions (used to build the tables).
+     *
+     * @param cp the code point
+     * @return the class bits
+     */
+    private static int computeClasses(final int cp) {
+
+        int result = 0;
+
+        if (cp == 0x09 || cp == 0x0A || cp == 0x0D) {
+            result |= ASCII_TAB_OR_NEWLINE | XML_WHITESPACE;
+        }
+        if (cp == 0x09 || cp == 0x0A || cp == 0x0C || cp == 0x0D || cp == 0x20) {
+            result |= ASCII_WHITESPACE;
+        }
+        if (cp == 0x20) {
+            result |= XML_WHITESPACE;
+        }
+        if (cp <= 0x1F) {
+            result |= C0_CONTROL | CONTROL;
+        }
+        if (cp <= 0x20) {
+            result |= C0_CONTROL_OR_SPACE;
+        }
+        if (cp >= 0x7F && cp <= 0x9F) {
+            result |= CONTROL;
+        }
+        if (cp >= 0x30 && cp <= 0x39) {
+            result |= ASCII_DIGIT;
+        }
+        if (cp >= 0x41 && cp <= 0x5A) {
+            result |= ASCII_UPPER_ALPHA;
+        }
+        if (cp >= 0x61 && cp <= 0x7A) {
+            result |= ASCII_LOWER_ALPHA;
+        }
+        if (cp >= 0x41 && cp <= 0x46) {
+            result |= ASCII_UPPER_HEX_LETTER;
+        }
+        if (cp >= 0x61 && cp <= 0x66) {
+            result |= ASCII_LOWER_HEX_LETTER;
+        }
+        if (cp == 0x2D) {
+            result |= HYPHEN;
+        }
+        if (isInRanges(cp, XML_NAME_START_RANGES)) {
+            result |= XML_NAME_START_CHAR | XML_NAME_CHAR;
+        }
+        if (isInRanges(cp, XML_NAME_EXTRA_RANGES)) {
+            result |= XML_NAME_CHAR;
+        }
+        if (isInRanges(cp, XML_CHAR_RANGES)) {
+            result |= XML_CHAR;
+        }
+        if ((cp >= 0xFDD0 && cp <= 0xFDEF) || (cp & 0xFFFE) == 0xFFFE) {
+            result |= NONCHARACTER;
+        }
+
+        return result;
+    }
+
+    /**
+     * Tests whether a code point falls within any of several ranges.
+     *
+     * @param cp     the code point
+     * @param ranges the ranges, each an array with the first and last code point (inclusive)
+     * @return true if the code point is in any of the ranges
+     */
+    private static boolean isInRanges(final int cp, final int[][] ranges) {
+
+        boolean result = false;
+
+        for (final int[] range : ranges) {
+            if (cp >= range[0] && cp <= range[1]) {
+                result = true;
+                break;
+            }
+        }
+
+        return result;
+    }
+}
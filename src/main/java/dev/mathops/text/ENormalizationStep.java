@@ -0,0 +1,23 @@
+package dev.mathops.text;
+
+/**
+ * The transforms a {@code TextNormalizer} can apply. Whatever steps are selected, they are applied in the order
+ * listed here, as if each were applied to the result of the previous one.
+ */
+public enum ENormalizationStep {
+
+    /** Replace every CR LF pair with LF, then every remaining CR with LF. */
+    NORMALIZE_NEWLINES,
+
+    /** Remove ASCII whitespace from the start and end of the text. */
+    STRIP_ASCII_WHITESPACE,
+
+    /**
+     * Replace every run of ASCII whitespace with a single U+0020 SPACE, then remove ASCII whitespace from the start and
+     * end of the text (this implies {@code STRIP_ASCII_WHITESPACE}).
+     */
+    STRIP_AND_COLLAPSE_ASCII_WHITESPACE,
+
+    /** Replace every ASCII upper alpha with the corresponding ASCII lower alpha. */
+    ASCII_LOWERCASE,
+}
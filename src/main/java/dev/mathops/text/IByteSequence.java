@@ -33,6 +33,92 @@ public interface IByteSequence {
      */
     int get(int index);
 
+    /**
+     * Gets a range of this sequence as an immutable sequence. Implementations in this package return a view that
+     * shares storage with this sequence where that is safe, rather than copying bytes. This default implementation
+     * copies the range into a new {@code ByteString}.
+     *
+     * @param start the index of the first byte to include
+     * @param end   the index after the last byte to include
+     * @return the subsequence
+     * @throws IndexOutOfBoundsException if the range is not valid for this sequence
+     */
+    default IByteSequence subSequence(final int start, final int end) {
+
+        final int size = size();
+        if (start < 0 || end > size || start > end) {
+            final String msg = "Range [" + start + ", " + end + ") out of bounds for length " + size;
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        final int len = end - start;
+        final byte[] bytes = new byte[len];
+        for (int i = 0; i < len; ++i) {
+            bytes[i] = (byte) get(start + i);
+        }
+
+        return new ByteString(bytes);
+    }
+
+    /**
+     * Tests whether two byte sequences contain identical bytes.
+     *
+     * @param other the sequence against which to compare
+     * @return {@code true} if this sequence and {@code other} contain identical bytes
+     */
+    default boolean equalsBytes(final IByteSequence other) {
+
+        final int size = size();
+        boolean equal = size == other.size();
+
+        if (equal) {
+            for (int i = 0; i < size; ++i) {
+                if (get(i) != other.get(i)) {
+                    equal = false;
+                    break;
+                }
+            }
+        }
+
+        return equal;
+    }
+
+    /**
+     * Compares this sequence to another lexicographically, treating bytes as unsigned values. A sequence that is a
+     * proper prefix of another is less than the other.
+     *
+     * @param other the sequence against which to compare
+     * @return a negative value, zero, or a positive value as this sequence is less than, equal to, or greater than
+     *         {@code other}
+     */
+    default int compareBytes(final IByteSequence other) {
+
+        final int mySize = size();
+        final int otherSize = other.size();
+        final int len = Math.min(mySize, otherSize);
+
+        int result = 0;
+        for (int i = 0; i < len; ++i) {
+            result = Integer.compare(get(i), other.get(i));
+            if (result != 0) {
+                break;
+            }
+        }
+
+        return result == 0 ? Integer.compare(mySize, otherSize) : result;
+    }
+
+    /**
+     * Computes a hash of the bytes in the sequence. Two sequences whose bytes are identical have the same hash,
+     * regardless of their implementing classes. The classes in this package return this value from {@code hashCode}.
+     *
+     * @return the hash
+     */
+    default int hashBytes() {
+
+        return SequenceHash.hash(this);
+    }
+
     /**
      * Generates the string representation, which is the Java string formed by doing a UTF-8 decoding of the sequence of
      * bytes.
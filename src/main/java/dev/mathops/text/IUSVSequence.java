@@ -40,6 +40,33 @@ public interface IUSVSequence {
      */
     int get(int index);
 
+    /**
+     * Gets a range of this sequence as an immutable sequence. Implementations in this package return a view that
+     * shares storage with this sequence where that is safe, rather than copying code points. This default
+     * implementation copies the range into a new {@code USVString}.
+     *
+     * @param start the index of the first code point to include
+     * @param end   the index after the last code point to include
+     * @return the subsequence
+     * @throws IndexOutOfBoundsException if the range is not valid for this sequence
+     */
+    default IUSVSequence subSequence(final int start, final int end) {
+
+        final int size = size();
+        if (start < 0 || end > size || start > end) {
+            final String msg = "Range [" + start + ", " + end + ") out of bounds for length " + size;
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        final int len = end - start;
+        final int[] codePoints = new int[len];
+        for (int i = 0; i < len; ++i) {
+            codePoints[i] = get(start + i);
+        }
+
+        return new USVString(codePoints);
+    }
+
     /**
      * Gets an array of the code points in the sequence. The returned array is independent of the sequence and can be
      * modified without affecting this object.
@@ -56,6 +83,43 @@ public interface IUSVSequence {
      */
     boolean equalsCodePoints(IUSVSequence other);
 
+    /**
+     * Compares this sequence to another lexicographically by code point. A sequence that is a proper prefix of another
+     * is less than the other.
+     *
+     * @param other the sequence against which to compare
+     * @return a negative value, zero, or a positive value as this sequence is less than, equal to, or greater than
+     *         {@code other}
+     */
+    default int compareCodePoints(final IUSVSequence other) {
+
+        final int mySize = size();
+        final int otherSize = other.size();
+        final int len = Math.min(mySize, otherSize);
+
+        int result = 0;
+        for (int i = 0; i < len; ++i) {
+            result = Integer.compare(get(i), other.get(i));
+            if (result != 0) {
+                break;
+            }
+        }
+
+        return result == 0 ? Integer.compare(mySize, otherSize) : result;
+    }
+
+    /**
+     * Computes a hash of the code points in the sequence. Two sequences whose code points are identical have the same
+     * hash, regardless of their implementing classes, so this is consistent with {@code equalsCodePoints}. The classes
+     * in this package return this value from {@code hashCode}.
+     *
+     * @return the hash
+     */
+    default int hashCodePoints() {
+
+        return SequenceHash.hash(this);
+    }
+
     /**
      * Generates the string representation, which is the Java string formed by doing a UTF-16 encoding of the sequence
      * of code points.  This method supports encoding of the non-Unicode extended code point range N+110000 - N+1FFFFF
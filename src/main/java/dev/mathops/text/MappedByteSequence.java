@@ -0,0 +1,423 @@
+package dev.mathops.text;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A byte sequence backed by a read-only memory-mapped file, with the same {@code get}/{@code size}/{@code peek}/
+ * {@code consume} semantics as {@code ByteQueue}, so a file can be scanned without first being read into the heap.
+ *
+ * <p>
+ * The file is mapped one window at a time (64 MB by default), and a new window is mapped when an access falls outside
+ * the current one, so files larger than 2 GB are supported. Positions in the file are {@code long} values; the
+ * {@code int} indexes used by {@code IByteSequence} methods are relative to the head of the sequence (the current
+ * position), and {@code size} reports at most {@code Integer.MAX_VALUE} bytes even when more remain (use
+ * {@code remaining} to get the exact count).
+ *
+ * <p>
+ * Window sizes are rounded up to a multiple of 64 KB (a multiple of the page size on common platforms, so every window
+ * starts on a page boundary) and to at least 1 MB. A mapping is released only when it is garbage collected, so the
+ * minimum size bounds the number of mappings a scan of the file creates. The two most recently used windows are kept,
+ * so accesses that move back and forth across a window boundary reuse the existing mappings rather than mapping the
+ * same part of the file again.
+ *
+ * <p>
+ * The file must not be modified or truncated while it is mapped. Instances are not thread-safe.
+ */
+public final class MappedByteSequence implements IByteSequence, AutoCloseable {
+
+    /** The default window size (64 MB). */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 26;
+
+    /** The minimum window size (1 MB). */
+    public static final int MIN_WINDOW_SIZE = 1 << 20;
+
+    /** The granularity of window sizes (64 KB, a multiple of the page size on common platforms). */
+    private static final int WINDOW_GRANULARITY = 1 << 16;
+
+    /** The maximum window size (the largest multiple of the granularity that fits in an {@code int}). */
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE & -WINDOW_GRANULARITY;
+
+    /** Mask for byte values. */
+    private static final int MASK = 0xFF;
+
+    /** The channel from which windows are mapped. */
+    private final FileChannel channel;
+
+    /** The length of the file. */
+    private final long length;
+
+    /** The size of each mapped window. */
+    private final int windowSize;
+
+    /** The file offset of the head of the sequence. */
+    private long position;
+
+    /** The currently mapped window (null until the first access). */
+    private MappedByteBuffer window;
+
+    /** The file offset of the start of the current window. */
+    private long windowStart;
+
+    /** The number of bytes in the current window. */
+    private int windowLength;
+
+    /** The previously mapped window (null if there is none). */
+    private MappedByteBuffer previousWindow;
+
+    /** The file offset of the start of the previous window. */
+    private long previousWindowStart;
+
+    /** The number of bytes in the previous window. */
+    private int previousWindowLength;
+
+    /**
+     * Constructs a new {@code MappedByteSequence} with the default window size.
+     *
+     * @param path the path of the file to map
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedByteSequence(final Path path) throws IOException {
+
+        this(path, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Constructs a new {@code MappedByteSequence}.
+     *
+     * @param path          the path of the file to map
+     * @param theWindowSize the number of bytes to map at one time (rounded up to a multiple of 64 KB, and to at least
+     *                      {@code MIN_WINDOW_SIZE})
+     * @throws IOException              if the file cannot be opened
+     * @throws IllegalArgumentException if the window size is not positive
+     */
+    public MappedByteSequence(final Path path, final int theWindowSize) throws IOException {
+
+        if (theWindowSize < 1) {
+            throw new IllegalArgumentException("Window size must be positive.");
+        }
+
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.length = this.channel.size();
+        this.windowSize = roundWindowSize(theWindowSize);
+    }
+
+    /**
+     * Rounds a requested window size up to a multiple of the window granularity, within the allowed range.
+     *
+     * @param requested the requested window size
+     * @return the window size
+     */
+    private static int roundWindowSize(final int requested) {
+
+        final long rounded = ((long) requested + (long) (WINDOW_GRANULARITY - 1)) & (long) -WINDOW_GRANULARITY;
+
+        return (int) Math.min(Math.max(rounded, (long) MIN_WINDOW_SIZE), (long) MAX_WINDOW_SIZE);
+    }
+
+    /**
+     * Gets the number of bytes mapped at one time.
+     *
+     * @return the window size
+     */
+    public int windowSize() {
+
+        return this.windowSize;
+    }
+
+    /**
+     * Gets the length of the file.
+     *
+     * @return the length, in bytes
+     */
+    public long length() {
+
+        return this.length;
+    }
+
+    /**
+     * Gets the file offset of the head of the sequence (the number of bytes consumed).
+     *
+     * @return the position
+     */
+    public long position() {
+
+        return this.position;
+    }
+
+    /**
+     * Sets the file offset of the head of the sequence (used to restore the condition as of an earlier call to
+     * {@code position}).
+     *
+     * @param newPosition the new position (clamped to the range 0 to the file length)
+     */
+    public void position(final long newPosition) {
+
+        this.position = Math.max(0L, Math.min(newPosition, this.length));
+    }
+
+    /**
+     * Gets the number of bytes that remain after the current position.
+     *
+     * @return the number of bytes remaining
+     */
+    public long remaining() {
+
+        return this.length - this.position;
+    }
+
+    /**
+     * Tests whether the sequence is empty (all bytes have been consumed).
+     *
+     * @return true if empty
+     */
+    @Override
+    public boolean isEmpty() {
+
+        return this.position >= this.length;
+    }
+
+    /**
+     * Gets the number of bytes remaining, limited to {@code Integer.MAX_VALUE}.
+     *
+     * @return the size
+     */
+    @Override
+    public int size() {
+
+        return (int) Math.min(remaining(), (long) Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the byte at a specified index relative to the current position.
+     *
+     * @param index the index
+     * @return the byte (0 to 255), or {@code EOF} if the index is at or beyond the end of the file
+     */
+    @Override
+    public int get(final int index) {
+
+        return getAt(this.position + (long) index);
+    }
+
+    /**
+     * Gets the byte at a specified file offset, regardless of the current position.
+     *
+     * @param offset the file offset
+     * @return the byte (0 to 255), or {@code EOF} if the offset is at or beyond the end of the file
+     */
+    public int getAt(final long offset) {
+
+        final int result;
+
+        if (offset < 0L || offset >= this.length) {
+            result = EOF;
+        } else {
+            mapWindowFor(offset);
+            result = (int) this.window.get((int) (offset - this.windowStart)) & MASK;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns but does not remove the byte at the head of the sequence.
+     *
+     * @return the byte, or {@code EOF} if the sequence is empty
+     */
+    public int peek() {
+
+        return getAt(this.position);
+    }
+
+    /**
+     * Returns but does not remove the i-th byte following the byte at the head of the sequence.
+     *
+     * @param i the number of bytes to skip before peeking a byte
+     * @return the byte, or {@code EOF} if there is no such byte
+     */
+    public int peekPlus(final int i) {
+
+        return getAt(this.position + (long) i);
+    }
+
+    /**
+     * Removes and returns the byte at the head of the sequence.
+     *
+     * @return the byte, or {@code EOF} if the sequence is empty
+     */
+    public int consume() {
+
+        final int result = getAt(this.position);
+
+        if (result != EOF) {
+            ++this.position;
+        }
+
+        return result;
+    }
+
+    /**
+     * Consumes a number of bytes (or all remaining bytes if fewer remain).
+     *
+     * @param n the number of bytes to consume
+     */
+    public void consume(final long n) {
+
+        this.position = Math.min(this.position + n, this.length);
+    }
+
+    /**
+     * "Reconsumes" the most recent byte, so it will be returned again by the next call to {@code consume}.
+     */
+    public void reconsume() {
+
+        if (this.position > 0L) {
+            --this.position;
+        }
+    }
+
+    /**
+     * Copies bytes from the head of the sequence into an array and consumes them. This is the bulk path for decoders
+     * and hash functions that process a file in chunks.
+     *
+     * @param target the array into which to copy bytes
+     * @param offset the index in the array at which to store the first byte
+     * @param count  the maximum number of bytes to copy
+     * @return the number of bytes copied (0 if the sequence is empty)
+     */
+    public int read(final byte[] target, final int offset, final int count) {
+
+        final int actual = (int) Math.min((long) count, remaining());
+
+        copy(this.position, target, offset, actual);
+        this.position += (long) actual;
+
+        return actual;
+    }
+
+    /**
+     * Copies bytes from a range of the file into an array without affecting the current position. The range must lie
+     * within the file.
+     *
+     * @param fileOffset the file offset of the first byte to copy
+     * @param target     the array into which to copy bytes
+     * @param offset     the index in the array at which to store the first byte
+     * @param count      the number of bytes to copy
+     * @throws IndexOutOfBoundsException if the range extends beyond the end of the file
+     */
+    public void copy(final long fileOffset, final byte[] target, final int offset, final int count) {
+
+        if (fileOffset < 0L || fileOffset + (long) count > this.length) {
+            final String msg = "Range [" + fileOffset + ", " + (fileOffset + (long) count)
+                               + ") out of bounds for length " + this.length;
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        long src = fileOffset;
+        int dest = offset;
+        int left = count;
+
+        while (left > 0) {
+            mapWindowFor(src);
+            final int inWindow = (int) (src - this.windowStart);
+            final int chunk = Math.min(left, this.windowLength - inWindow);
+            this.window.get(inWindow, target, dest, chunk);
+            src += (long) chunk;
+            dest += chunk;
+            left -= chunk;
+        }
+    }
+
+    /**
+     * Copies a range of bytes (relative to the current position) into a new {@code ByteString}.
+     *
+     * @param start the index of the first byte to include
+     * @param end   the index after the last byte to include
+     * @return the byte string
+     * @throws IndexOutOfBoundsException if the range is not within the remaining bytes
+     */
+    @Override
+    public ByteString subSequence(final int start, final int end) {
+
+        if (start < 0 || start > end || this.position + (long) end > this.length) {
+            final String msg = "Range [" + start + ", " + end + ") out of bounds for length " + remaining();
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        final byte[] bytes = new byte[end - start];
+        copy(this.position + (long) start, bytes, 0, bytes.length);
+
+        return new ByteString(bytes);
+    }
+
+    /**
+     * Closes the underlying file channel. Windows that were already mapped remain valid until they are garbage
+     * collected.
+     *
+     * @throws IOException if the channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+
+        this.window = null;
+        this.previousWindow = null;
+        this.channel.close();
+    }
+
+    /**
+     * Generates a string representation of the sequence (its position and length; the content is not included since
+     * it may be very large).
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+
+        return "MappedByteSequence{position=" + this.position + ", length=" + this.length + "}";
+    }
+
+    /**
+     * Ensures the current window contains a file offset. If the previous window contains it, the two are exchanged;
+     * otherwise a new window (aligned to a multiple of the window size) is mapped, and the current window becomes the
+     * previous window.
+     *
+     * @param offset the file offset (must be less than the file length)
+     * @throws IllegalStateException if the window cannot be mapped
+     */
+    private void mapWindowFor(final long offset) {
+
+        if (this.window == null || offset < this.windowStart
+            || offset >= this.windowStart + (long) this.windowLength) {
+
+            final MappedByteBuffer oldWindow = this.window;
+            final long oldStart = this.windowStart;
+            final int oldLength = this.windowLength;
+
+            if (this.previousWindow != null && offset >= this.previousWindowStart
+                && offset < this.previousWindowStart + (long) this.previousWindowLength) {
+                this.window = this.previousWindow;
+                this.windowStart = this.previousWindowStart;
+                this.windowLength = this.previousWindowLength;
+            } else {
+                final long start = offset - offset % (long) this.windowSize;
+                final int len = (int) Math.min((long) this.windowSize, this.length - start);
+
+                try {
+                    this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start, (long) len);
+                } catch (final IOException ex) {
+                    throw new IllegalStateException("Unable to map file window.", ex);
+                }
+                this.windowStart = start;
+                this.windowLength = len;
+            }
+
+            this.previousWindow = oldWindow;
+            this.previousWindowStart = oldStart;
+            this.previousWindowLength = oldLength;
+        }
+    }
+}
@@ -40,6 +40,12 @@ final class Res extends ResBundle {
     /** A resource key. */
     static final String UNI_LOADED_ESC_DB = key(4);
 
+    /** A resource key. */
+    static final String UNI_UNRECOGNIZED_ESC = key(5);
+
+    /** A resource key. */
+    static final String UNI_BAD_ESC_TABLE = key(6);
+
     //
 
     /** The resources - an array of key-values pairs. */
@@ -48,6 +54,8 @@ final class Res extends ResBundle {
             {UNI_CANT_LOAD_ESC_DB, "Unable to load Unicode+ escape sequence database"},
             {UNI_BAD_ESC_IN_DB, "Invalid line in escape database: ''{0}''"},
             {UNI_LOADED_ESC_DB, "Loaded {0} Unicode+ escape sequences"},
+            {UNI_UNRECOGNIZED_ESC, "Unrecognized escape sequence at position {0}"},
+            {UNI_BAD_ESC_TABLE, "Unicode+ escape table has the wrong format; compiling escape database"},
     };
 
     /** The singleton instance. */
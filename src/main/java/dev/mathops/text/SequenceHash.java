@@ -0,0 +1,130 @@
+package dev.mathops.text;
+
+/**
+ * The hash function shared by all code point and byte sequences in this package.
+ *
+ * <p>
+ * The hash is a polynomial over the elements (so order matters, and permutations of the same elements produce
+ * different values), followed by a multiply-xorshift finalizer that spreads the result over all 32 bits. Every
+ * implementation of {@code IUSVSequence} or {@code IByteSequence} in this package computes its hash code with this
+ * class, so a mutable queue and an immutable string with the same content produce the same hash.
+ */
+enum SequenceHash {
+    ;
+
+    /** The polynomial multiplier (an odd constant with well-distributed bits). */
+    private static final int MULTIPLIER = 0x9E3779B1;
+
+    /**
+     * Computes the hash of a range of code points.
+     *
+     * @param data  the array of code points
+     * @param start the index of the first code point to include
+     * @param end   the index after the last code point to include
+     * @return the hash
+     */
+    static int hash(final int[] data, final int start, final int end) {
+
+        int h = 0;
+
+        for (int i = start; i < end; ++i) {
+            h = h * MULTIPLIER + data[i];
+        }
+
+        return finish(h, end - start);
+    }
+
+    /**
+     * Computes the hash of a range of bytes, treating each byte as an unsigned value.
+     *
+     * @param data  the array of bytes
+     * @param start the index of the first byte to include
+     * @param end   the index after the last byte to include
+     * @return the hash
+     */
+    static int hash(final byte[] data, final int start, final int end) {
+
+        int h = 0;
+
+        for (int i = start; i < end; ++i) {
+            h = h * MULTIPLIER + ((int) data[i] & 0xFF);
+        }
+
+        return finish(h, end - start);
+    }
+
+    /**
+     * Computes the hash of a range of code points stored as UTF-16 code units (all in the Basic Multilingual Plane).
+     *
+     * @param data  the array of code points
+     * @param start the index of the first code point to include
+     * @param end   the index after the last code point to include
+     * @return the hash
+     */
+    static int hash(final char[] data, final int start, final int end) {
+
+        int h = 0;
+
+        for (int i = start; i < end; ++i) {
+            h = h * MULTIPLIER + (int) data[i];
+        }
+
+        return finish(h, end - start);
+    }
+
+    /**
+     * Computes the hash of a code point sequence through its {@code get} method.
+     *
+     * @param seq the sequence
+     * @return the hash
+     */
+    static int hash(final IUSVSequence seq) {
+
+        final int len = seq.size();
+        int h = 0;
+
+        for (int i = 0; i < len; ++i) {
+            h = h * MULTIPLIER + seq.get(i);
+        }
+
+        return finish(h, len);
+    }
+
+    /**
+     * Computes the hash of a byte sequence through its {@code get} method.
+     *
+     * @param seq the sequence
+     * @return the hash
+     */
+    static int hash(final IByteSequence seq) {
+
+        final int len = seq.size();
+        int h = 0;
+
+        for (int i = 0; i < len; ++i) {
+            h = h * MULTIPLIER + seq.get(i);
+        }
+
+        return finish(h, len);
+    }
+
+    /**
+     * Applies the final avalanche step (the 32-bit finalizer from MurmurHash3), mixing in the length.
+     *
+     * @param h   the accumulated polynomial hash
+     * @param len the number of elements hashed
+     * @return the final hash
+     */
+    private static int finish(final int h, final int len) {
+
+        int x = h ^ len;
+
+        x ^= x >>> 16;
+        x *= 0x85EBCA6B;
+        x ^= x >>> 13;
+        x *= 0xC2B2AE35;
+        x ^= x >>> 16;
+
+        return x;
+    }
+}
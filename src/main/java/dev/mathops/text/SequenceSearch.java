@@ -0,0 +1,724 @@
+package dev.mathops.text;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Bulk search and comparison operations over code point sequences ({@code IUSVSequence}) and byte sequences
+ * ({@code IByteSequence}).
+ *
+ * <p>
+ * When a sequence is one of the array-backed classes in this package ({@code USVQueue}, {@code USVString},
+ * {@code ByteQueue}, {@code ByteString}), these operations work directly on the backing array rather than calling
+ * {@code get} for each element:
+ * <ul>
+ *     <li>Comparisons ({@code mismatch}, {@code compare}, {@code regionMatches}) use {@code Arrays.mismatch}, which
+ *     the JVM implements with vector instructions that compare 16 to 64 bytes at a time.</li>
+ *     <li>Searches and counts over bytes (including {@code USVString}s stored as Latin-1) read eight bytes at a time
+ *     as a {@code long} and test all eight at once with carry-free bit arithmetic ("SWAR"), so a tokenizer can skip a
+ *     long run of ordinary text in a few instructions per eight bytes.</li>
+ *     <li>Searches for any of a set of ASCII values test each element against a 128-bit mask held in two
+ *     {@code long}s, with no per-element branching on the set.</li>
+ * </ul>
+ * Other sequences are processed one element at a time through {@code get}. No operation allocates.
+ */
+public enum SequenceSearch {
+    ;
+
+    /** A view of a byte array as little-endian longs, for reading eight bytes at a time. */
+    static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    /** The value 1 in each byte of a long. */
+    static final long ONES = 0x0101010101010101L;
+
+    /** The high bit of each byte of a long. */
+    static final long HIGH_BITS = 0x8080808080808080L;
+
+    /** The low seven bits of each byte of a long. */
+    static final long LOW_SEVEN = 0x7F7F7F7F7F7F7F7FL;
+
+    /** Mask for byte values. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /** The number of ASCII values (the size of the mask used by {@code indexOfAny}). */
+    private static final int ASCII_LIMIT = 0x80;
+
+    /**
+     * Finds the first occurrence of a code point in a sequence, at or after a starting index.
+     *
+     * @param seq  the sequence to search
+     * @param cp   the code point for which to search
+     * @param from the index at which to start searching
+     * @return the index of the first occurrence; -1 if there is none
+     */
+    public static int indexOf(final IUSVSequence seq, final int cp, final int from) {
+
+        int result = -1;
+
+        final int size = seq.size();
+        final int start = Math.max(from, 0);
+
+        if (start < size) {
+            if (seq instanceof final USVQueue queue) {
+                result = indexOf(queue.rawData(), queue.rawStart(), start, size, cp);
+            } else if (seq instanceof final USVString str) {
+                final int offset = str.rawOffset();
+                final byte[] latin1 = str.rawLatin1();
+                final char[] bmp = str.rawBmp();
+
+                if (latin1 != null) {
+                    if (cp >= 0 && cp <= BYTE_MASK) {
+                        final int found = indexOf(latin1, offset + start, offset + size, cp);
+                        result = found < 0 ? -1 : found - offset;
+                    }
+                } else if (bmp != null) {
+                    for (int i = start; i < size; ++i) {
+                        if ((int) bmp[offset + i] == cp) {
+                            result = i;
+                            break;
+                        }
+                    }
+                } else {
+                    result = indexOf(str.rawWide(), offset, start, size, cp);
+                }
+            } else {
+                for (int i = start; i < size; ++i) {
+                    if (seq.get(i) == cp) {
+                        result = i;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the first occurrence of any of a set of code points in a sequence, at or after a starting index.
+     *
+     * @param seq  the sequence to search
+     * @param set  the code points for which to search
+     * @param from the index at which to start searching
+     * @return the index of the first occurrence; -1 if there is none
+     */
+    public static int indexOfAny(final IUSVSequence seq, final int[] set, final int from) {
+
+        int result = -1;
+
+        final int size = seq.size();
+        final int start = Math.max(from, 0);
+
+        if (start < size && set.length > 0) {
+            boolean allAscii = true;
+            long low = 0L;
+            long high = 0L;
+            for (final int member : set) {
+                if (member >= 0 && member < 64) {
+                    low |= 1L << member;
+                } else if (member >= 64 && member < ASCII_LIMIT) {
+                    high |= 1L << (member - 64);
+                } else {
+                    allAscii = false;
+                }
+            }
+
+            if (allAscii) {
+                for (int i = start; i < size; ++i) {
+                    if (inAsciiMask(seq.get(i), low, high)) {
+                        result = i;
+                        break;
+                    }
+                }
+            } else {
+                outer:
+                for (int i = start; i < size; ++i) {
+                    final int cp = seq.get(i);
+                    for (final int member : set) {
+                        if (cp == member) {
+                            result = i;
+                            break outer;
+                        }
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Counts the occurrences of a code point in a sequence.
+     *
+     * @param seq the sequence to search
+     * @param cp  the code point to count
+     * @return the number of occurrences
+     */
+    public static int count(final IUSVSequence seq, final int cp) {
+
+        int result = 0;
+
+        final int size = seq.size();
+
+        if (seq instanceof final USVString str && str.rawLatin1() != null) {
+            if (cp >= 0 && cp <= BYTE_MASK) {
+                final int offset = str.rawOffset();
+                result = count(str.rawLatin1(), offset, offset + size, cp);
+            }
+        } else if (seq instanceof final USVQueue queue) {
+            final int[] data = queue.rawData();
+            final int offset = queue.rawStart();
+            for (int i = 0; i < size; ++i) {
+                if (data[offset + i] == cp) {
+                    ++result;
+                }
+            }
+        } else {
+            for (int i = 0; i < size; ++i) {
+                if (seq.get(i) == cp) {
+                    ++result;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the index of the first code point that differs between two sequences, as {@code Arrays.mismatch} does for
+     * arrays.
+     *
+     * @param a the first sequence
+     * @param b the second sequence
+     * @return the index of the first mismatch (the length of the shorter sequence if one is a proper prefix of the
+     *         other); -1 if the sequences are identical
+     */
+    public static int mismatch(final IUSVSequence a, final IUSVSequence b) {
+
+        final int aSize = a.size();
+        final int bSize = b.size();
+        final int len = Math.min(aSize, bSize);
+
+        final int found = regionMismatch(a, 0, b, 0, len);
+
+        final int result;
+        if (found >= 0) {
+            result = found;
+        } else {
+            result = aSize == bSize ? -1 : len;
+        }
+
+        return result;
+    }
+
+    /**
+     * Compares two sequences lexicographically by code point. A sequence that is a proper prefix of another is less
+     * than the other.
+     *
+     * @param a the first sequence
+     * @param b the second sequence
+     * @return a negative value, zero, or a positive value as {@code a} is less than, equal to, or greater than
+     *         {@code b}
+     */
+    public static int compare(final IUSVSequence a, final IUSVSequence b) {
+
+        final int aSize = a.size();
+        final int bSize = b.size();
+        final int found = regionMismatch(a, 0, b, 0, Math.min(aSize, bSize));
+
+        return found < 0 ? Integer.compare(aSize, bSize) : Integer.compare(a.get(found), b.get(found));
+    }
+
+    /**
+     * Tests whether a region of one sequence matches a region of another.
+     *
+     * @param a       the first sequence
+     * @param aOffset the index of the region in the first sequence
+     * @param b       the second sequence
+     * @param bOffset the index of the region in the second sequence
+     * @param len     the length of the regions
+     * @return true if both regions are within their sequences and their code points are identical
+     */
+    public static boolean regionMatches(final IUSVSequence a, final int aOffset, final IUSVSequence b,
+                                        final int bOffset, final int len) {
+
+        final boolean inRange = aOffset >= 0 && bOffset >= 0 && len >= 0
+                && aOffset <= a.size() - len && bOffset <= b.size() - len;
+
+        return inRange && regionMismatch(a, aOffset, b, bOffset, len) < 0;
+    }
+
+    /**
+     * Finds the first occurrence of a byte value in a sequence, at or after a starting index.
+     *
+     * @param seq   the sequence to search
+     * @param value the byte value (0 to 255) for which to search
+     * @param from  the index at which to start searching
+     * @return the index of the first occurrence; -1 if there is none
+     */
+    public static int indexOf(final IByteSequence seq, final int value, final int from) {
+
+        int result = -1;
+
+        final int size = seq.size();
+        final int start = Math.max(from, 0);
+
+        if (start < size && value >= 0 && value <= BYTE_MASK) {
+            final byte[] data = rawBytes(seq);
+
+            if (data == null) {
+                for (int i = start; i < size; ++i) {
+                    if (seq.get(i) == value) {
+                        result = i;
+                        break;
+                    }
+                }
+            } else {
+                final int offset = rawOffset(seq);
+                final int found = indexOf(data, offset + start, offset + size, value);
+                result = found < 0 ? -1 : found - offset;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the first occurrence of any of a set of byte values in a sequence, at or after a starting index.
+     *
+     * @param seq  the sequence to search
+     * @param set  the byte values (0 to 255) for which to search
+     * @param from the index at which to start searching
+     * @return the index of the first occurrence; -1 if there is none
+     */
+    public static int indexOfAny(final IByteSequence seq, final int[] set, final int from) {
+
+        int result = -1;
+
+        final int size = seq.size();
+        final int start = Math.max(from, 0);
+
+        if (start < size) {
+            // A 256-bit mask of the values in the set, in four longs
+            long m0 = 0L;
+            long m1 = 0L;
+            long m2 = 0L;
+            long m3 = 0L;
+            for (final int member : set) {
+                if (member >= 0 && member <= BYTE_MASK) {
+                    final long bit = 1L << (member & 0x3F);
+                    switch (member >> 6) {
+                        case 0 -> m0 |= bit;
+                        case 1 -> m1 |= bit;
+                        case 2 -> m2 |= bit;
+                        default -> m3 |= bit;
+                    }
+                }
+            }
+
+            final byte[] data = rawBytes(seq);
+            if (data == null) {
+                for (int i = start; i < size; ++i) {
+                    if (inByteMask(seq.get(i), m0, m1, m2, m3)) {
+                        result = i;
+                        break;
+                    }
+                }
+            } else {
+                final int offset = rawOffset(seq);
+                for (int i = start; i < size; ++i) {
+                    if (inByteMask((int) data[offset + i] & BYTE_MASK, m0, m1, m2, m3)) {
+                        result = i;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Counts the occurrences of a byte value in a sequence.
+     *
+     * @param seq   the sequence to search
+     * @param value the byte value (0 to 255) to count
+     * @return the number of occurrences
+     */
+    public static int count(final IByteSequence seq, final int value) {
+
+        int result = 0;
+
+        if (value >= 0 && value <= BYTE_MASK) {
+            final int size = seq.size();
+            final byte[] data = rawBytes(seq);
+
+            if (data == null) {
+                for (int i = 0; i < size; ++i) {
+                    if (seq.get(i) == value) {
+                        ++result;
+                    }
+                }
+            } else {
+                final int offset = rawOffset(seq);
+                result = count(data, offset, offset + size, value);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the index of the first byte that differs between two sequences, as {@code Arrays.mismatch} does for
+     * arrays.
+     *
+     * @param a the first sequence
+     * @param b the second sequence
+     * @return the index of the first mismatch (the length of the shorter sequence if one is a proper prefix of the
+     *         other); -1 if the sequences are identical
+     */
+    public static int mismatch(final IByteSequence a, final IByteSequence b) {
+
+        final int aSize = a.size();
+        final int bSize = b.size();
+        final int len = Math.min(aSize, bSize);
+
+        final int found = regionMismatch(a, 0, b, 0, len);
+
+        final int result;
+        if (found >= 0) {
+            result = found;
+        } else {
+            result = aSize == bSize ? -1 : len;
+        }
+
+        return result;
+    }
+
+    /**
+     * Compares two sequences lexicographically by unsigned byte value. A sequence that is a proper prefix of another is
+     * less than the other.
+     *
+     * @param a the first sequence
+     * @param b the second sequence
+     * @return a negative value, zero, or a positive value as {@code a} is less than, equal to, or greater than
+     *         {@code b}
+     */
+    public static int compare(final IByteSequence a, final IByteSequence b) {
+
+        final int aSize = a.size();
+        final int bSize = b.size();
+        final int found = regionMismatch(a, 0, b, 0, Math.min(aSize, bSize));
+
+        return found < 0 ? Integer.compare(aSize, bSize) : Integer.compare(a.get(found), b.get(found));
+    }
+
+    /**
+     * Tests whether a region of one sequence matches a region of another.
+     *
+     * @param a       the first sequence
+     * @param aOffset the index of the region in the first sequence
+     * @param b       the second sequence
+     * @param bOffset the index of the region in the second sequence
+     * @param len     the length of the regions
+     * @return true if both regions are within their sequences and their bytes are identical
+     */
+    public static boolean regionMatches(final IByteSequence a, final int aOffset, final IByteSequence b,
+                                        final int bOffset, final int len) {
+
+        final boolean inRange = aOffset >= 0 && bOffset >= 0 && len >= 0
+                && aOffset <= a.size() - len && bOffset <= b.size() - len;
+
+        return inRange && regionMismatch(a, aOffset, b, bOffset, len) < 0;
+    }
+
+    /**
+     * Finds the first occurrence of a byte value in a range of a byte array, eight bytes at a time.
+     *
+     * @param data  the array
+     * @param from  the index of the first byte to search
+     * @param to    the index after the last byte to search
+     * @param value the byte value (0 to 255)
+     * @return the array index of the first occurrence; -1 if there is none
+     */
+    static int indexOf(final byte[] data, final int from, final int to, final int value) {
+
+        int result = -1;
+
+        final long pattern = ONES * (long) value;
+        final int wordEnd = to - 7;
+        int i = from;
+
+        while (i < wordEnd) {
+            // Bytes equal to the value become zero; the expression sets the high bit of the lowest zero byte (and
+            // possibly of higher bytes, but never of a lower one)
+            final long x = (long) LONGS.get(data, i) ^ pattern;
+            final long zeros = (x - ONES) & ~x & HIGH_BITS;
+            if (zeros != 0L) {
+                result = i + (Long.numberOfTrailingZeros(zeros) >>> 3);
+                break;
+            }
+            i += 8;
+        }
+
+        if (result < 0) {
+            final byte b = (byte) value;
+            for (; i < to; ++i) {
+                if (data[i] == b) {
+                    result = i;
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the first occurrence of a code point in a range of an int array.
+     *
+     * @param data   the array
+     * @param offset the array index of sequence index 0
+     * @param from   the sequence index at which to start
+     * @param to     the sequence index at which to stop
+     * @param cp     the code point
+     * @return the sequence index of the first occurrence; -1 if there is none
+     */
+    private static int indexOf(final int[] data, final int offset, final int from, final int to, final int cp) {
+
+        int result = -1;
+
+        for (int i = offset + from; i < offset + to; ++i) {
+            if (data[i] == cp) {
+                result = i - offset;
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Counts the occurrences of a byte value in a range of a byte array, eight bytes at a time.
+     *
+     * @param data  the array
+     * @param from  the index of the first byte to count
+     * @param to    the index after the last byte to count
+     * @param value the byte value (0 to 255)
+     * @return the number of occurrences
+     */
+    private static int count(final byte[] data, final int from, final int to, final int value) {
+
+        int result = 0;
+
+        final long pattern = ONES * (long) value;
+        final int wordEnd = to - 7;
+        int i = from;
+
+        while (i < wordEnd) {
+            // Bytes equal to the value become zero; the expression sets the high bit of exactly the nonzero bytes
+            final long x = (long) LONGS.get(data, i) ^ pattern;
+            final long nonzero = (((x & LOW_SEVEN) + LOW_SEVEN) | x) & HIGH_BITS;
+            result += 8 - Long.bitCount(nonzero);
+            i += 8;
+        }
+
+        final byte b = (byte) value;
+        for (; i < to; ++i) {
+            if (data[i] == b) {
+                ++result;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Tests whether a code point is in a set of ASCII values represented as a 128-bit mask.
+     *
+     * @param cp   the code point
+     * @param low  the mask bits for values 0 to 63
+     * @param high the mask bits for values 64 to 127
+     * @return true if the code point is in the set
+     */
+    private static boolean inAsciiMask(final int cp, final long low, final long high) {
+
+        final boolean result;
+
+        if (cp < 0 || cp >= ASCII_LIMIT) {
+            result = false;
+        } else {
+            final long word = cp < 64 ? low : high;
+            result = (word & (1L << (cp & 0x3F))) != 0L;
+        }
+
+        return result;
+    }
+
+    /**
+     * Tests whether a byte value is in a set represented as a 256-bit mask.
+     *
+     * @param value the byte value (0 to 255)
+     * @param m0    the mask bits for values 0 to 63
+     * @param m1    the mask bits for values 64 to 127
+     * @param m2    the mask bits for values 128 to 191
+     * @param m3    the mask bits for values 192 to 255
+     * @return true if the value is in the set
+     */
+    private static boolean inByteMask(final int value, final long m0, final long m1, final long m2, final long m3) {
+
+        final long word = switch (value >> 6) {
+            case 0 -> m0;
+            case 1 -> m1;
+            case 2 -> m2;
+            default -> m3;
+        };
+
+        return (word & (1L << (value & 0x3F))) != 0L;
+    }
+
+    /**
+     * Finds the first code point that differs between regions of two sequences, which must be in range.
+     *
+     * @param a       the first sequence
+     * @param aOffset the index of the region in the first sequence
+     * @param b       the second sequence
+     * @param bOffset the index of the region in the second sequence
+     * @param len     the length of the regions
+     * @return the index within the regions of the first mismatch; -1 if the regions are identical
+     */
+    private static int regionMismatch(final IUSVSequence a, final int aOffset, final IUSVSequence b,
+                                      final int bOffset, final int len) {
+
+        int result = -1;
+
+        final int[] aInts = rawInts(a);
+        final int[] bInts = rawInts(b);
+
+        if (aInts != null && bInts != null) {
+            final int aStart = rawIntOffset(a) + aOffset;
+            final int bStart = rawIntOffset(b) + bOffset;
+            result = Arrays.mismatch(aInts, aStart, aStart + len, bInts, bStart, bStart + len);
+        } else if (a instanceof final USVString aStr && b instanceof final USVString bStr
+                   && aStr.rawLatin1() != null && bStr.rawLatin1() != null) {
+            final int aStart = aStr.rawOffset() + aOffset;
+            final int bStart = bStr.rawOffset() + bOffset;
+            result = Arrays.mismatch(aStr.rawLatin1(), aStart, aStart + len, bStr.rawLatin1(), bStart, bStart + len);
+        } else if (a instanceof final USVString aStr && b instanceof final USVString bStr
+                   && aStr.rawBmp() != null && bStr.rawBmp() != null) {
+            final int aStart = aStr.rawOffset() + aOffset;
+            final int bStart = bStr.rawOffset() + bOffset;
+            result = Arrays.mismatch(aStr.rawBmp(), aStart, aStart + len, bStr.rawBmp(), bStart, bStart + len);
+        } else {
+            for (int i = 0; i < len; ++i) {
+                if (a.get(aOffset + i) != b.get(bOffset + i)) {
+                    result = i;
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the first byte that differs between regions of two sequences, which must be in range.
+     *
+     * @param a       the first sequence
+     * @param aOffset the index of the region in the first sequence
+     * @param b       the second sequence
+     * @param bOffset the index of the region in the second sequence
+     * @param len     the length of the regions
+     * @return the index within the regions of the first mismatch; -1 if the regions are identical
+     */
+    private static int regionMismatch(final IByteSequence a, final int aOffset, final IByteSequence b,
+                                      final int bOffset, final int len) {
+
+        int result = -1;
+
+        final byte[] aBytes = rawBytes(a);
+        final byte[] bBytes = rawBytes(b);
+
+        if (aBytes != null && bBytes != null) {
+            final int aStart = rawOffset(a) + aOffset;
+            final int bStart = rawOffset(b) + bOffset;
+            result = Arrays.mismatch(aBytes, aStart, aStart + len, bBytes, bStart, bStart + len);
+        } else {
+            for (int i = 0; i < len; ++i) {
+                if (a.get(aOffset + i) != b.get(bOffset + i)) {
+                    result = i;
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the int array that backs a code point sequence, if it has one.
+     *
+     * @param seq the sequence
+     * @return the array; null if the sequence is not backed by an int array
+     */
+    private static int[] rawInts(final IUSVSequence seq) {
+
+        final int[] result;
+
+        if (seq instanceof final USVQueue queue) {
+            result = queue.rawData();
+        } else if (seq instanceof final USVString str) {
+            result = str.rawWide();
+        } else {
+            result = null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the index in the backing int array of the first code point of a sequence (see {@code rawInts}).
+     *
+     * @param seq the sequence
+     * @return the index
+     */
+    private static int rawIntOffset(final IUSVSequence seq) {
+
+        return seq instanceof final USVQueue queue ? queue.rawStart() : ((USVString) seq).rawOffset();
+    }
+
+    /**
+     * Gets the byte array that backs a byte sequence, if it has one.
+     *
+     * @param seq the sequence
+     * @return the array; null if the sequence is not backed by a byte array
+     */
+    private static byte[] rawBytes(final IByteSequence seq) {
+
+        final byte[] result;
+
+        if (seq instanceof final ByteQueue queue) {
+            result = queue.rawData();
+        } else if (seq instanceof final ByteString str) {
+            result = str.rawData();
+        } else {
+            result = null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the index in the backing byte array of the first byte of a sequence (see {@code rawBytes}).
+     *
+     * @param seq the sequence
+     * @return the index
+     */
+    private static int rawOffset(final IByteSequence seq) {
+
+        return seq instanceof final ByteQueue queue ? queue.rawStart() : ((ByteString) seq).rawOffset();
+    }
+}
@@ -0,0 +1,409 @@
+package dev.mathops.text;
+
+import dev.mathops.commons.CoreConstants;
+import dev.mathops.text.builder.Builder;
+import dev.mathops.text.builder.HtmlBuilder;
+import dev.mathops.text.builder.USVBuilder;
+import dev.mathops.text.builder.USVHtmlBuilder;
+
+/**
+ * Applies a selected set of the normalizations defined in the
+ * <a href="https://infra.spec.whatwg.org/">WhatWG "Infra" living standard</a> (newline normalization, stripping and
+ * collapsing ASCII whitespace, and ASCII lowercasing) in one pass over the text, rather than one pass (and one new
+ * string) per transform.
+ *
+ * <p>
+ * The input is first scanned for the first position at which the output would differ from the input. If there is
+ * none, the methods that return a result return the input itself (or, if only leading and trailing whitespace would
+ * be removed, a subsequence of it) without copying. Otherwise, the unchanged prefix is copied and the rest of the text
+ * is transformed, writing into a caller-provided builder or a pooled one.
+ *
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ */
+public final class TextNormalizer {
+
+    /** A normalizer that normalizes newlines. */
+    public static final TextNormalizer NEWLINES = new TextNormalizer(ENormalizationStep.NORMALIZE_NEWLINES);
+
+    /** A normalizer that strips leading and trailing ASCII whitespace. */
+    public static final TextNormalizer STRIP = new TextNormalizer(ENormalizationStep.STRIP_ASCII_WHITESPACE);
+
+    /** A normalizer that strips and collapses ASCII whitespace. */
+    public static final TextNormalizer STRIP_AND_COLLAPSE =
+            new TextNormalizer(ENormalizationStep.STRIP_AND_COLLAPSE_ASCII_WHITESPACE);
+
+    /** A normalizer that strips and collapses ASCII whitespace, then converts to ASCII lowercase. */
+    public static final TextNormalizer COLLAPSE_AND_LOWERCASE = new TextNormalizer(
+            ENormalizationStep.STRIP_AND_COLLAPSE_ASCII_WHITESPACE, ENormalizationStep.ASCII_LOWERCASE);
+
+    /** The CR code point. */
+    private static final int CR = 0x0D;
+
+    /** The LF code point. */
+    private static final int LF = 0x0A;
+
+    /** The SPACE code point. */
+    private static final int SPACE = 0x20;
+
+    /** True to normalize newlines. */
+    private final boolean newlines;
+
+    /** True to strip leading and trailing ASCII whitespace. */
+    private final boolean strip;
+
+    /** True to collapse runs of ASCII whitespace. */
+    private final boolean collapse;
+
+    /** True to convert to ASCII lowercase. */
+    private final boolean lowercase;
+
+    /**
+     * Constructs a new {@code TextNormalizer}.
+     *
+     * @param steps the steps to apply (the order in which they are given does not matter)
+     */
+    public TextNormalizer(final ENormalizationStep... steps) {
+
+        boolean doNewlines = false;
+        boolean doStrip = false;
+        boolean doCollapse = false;
+        boolean doLowercase = false;
+
+        for (final ENormalizationStep step : steps) {
+            switch (step) {
+                case NORMALIZE_NEWLINES -> doNewlines = true;
+                case STRIP_ASCII_WHITESPACE -> doStrip = true;
+                case STRIP_AND_COLLAPSE_ASCII_WHITESPACE -> {
+                    doStrip = true;
+                    doCollapse = true;
+                }
+                case ASCII_LOWERCASE -> doLowercase = true;
+            }
+        }
+
+        this.newlines = doNewlines;
+        this.strip = doStrip;
+        this.collapse = doCollapse;
+        this.lowercase = doLowercase;
+    }
+
+    /**
+     * Normalizes a string.
+     *
+     * @param input the string to normalize
+     * @return the normalized string ({@code input} itself if normalization would not change it)
+     */
+    public String normalize(final String input) {
+
+        final int len = input.length();
+        final int first = firstKept(input, len);
+        final int last = lastKept(input, first, len);
+
+        final String result;
+
+        if (first == last) {
+            result = len == 0 ? input : CoreConstants.EMPTY;
+        } else if (firstChange(input, first, last) == last) {
+            result = input.substring(first, last);
+        } else {
+            try (final BufferPool.Lease<HtmlBuilder> lease = BufferPool.HTML_BUILDERS.lease(last - first)) {
+                final HtmlBuilder target = lease.get();
+                normalize(input, target);
+                result = target.toString();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Normalizes a character sequence, appending the result to a builder.
+     *
+     * @param input  the character sequence to normalize
+     * @param target the builder to which to append the normalized text
+     */
+    public void normalize(final CharSequence input, final Builder target) {
+
+        final int len = input.length();
+        final int first = firstKept(input, len);
+        final int last = lastKept(input, first, len);
+        final int change = firstChange(input, first, last);
+
+        for (int i = first; i < change; ++i) {
+            target.appendChar(input.charAt(i));
+        }
+
+        boolean inSpace = false;
+        for (int i = change; i < last; ++i) {
+            final char ch = input.charAt(i);
+            final int cp = (int) ch;
+
+            if (this.collapse && TextUtils.isAsciiWhitespcae(cp)) {
+                if (!inSpace) {
+                    target.appendChar((char) SPACE);
+                    inSpace = true;
+                }
+            } else {
+                inSpace = false;
+                if (this.newlines && cp == CR) {
+                    target.appendChar((char) LF);
+                    if (i + 1 < last && (int) input.charAt(i + 1) == LF) {
+                        ++i;
+                    }
+                } else if (this.lowercase && TextUtils.isAsciiUpperAlpha(cp)) {
+                    target.appendChar((char) (cp + SPACE));
+                } else {
+                    target.appendChar(ch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests whether a character sequence is already normalized.
+     *
+     * @param input the character sequence
+     * @return true if normalizing it would not change it
+     */
+    public boolean isNormalized(final CharSequence input) {
+
+        final int len = input.length();
+        final int first = firstKept(input, len);
+        final int last = lastKept(input, first, len);
+
+        return first == 0 && last == len && firstChange(input, 0, len) == len;
+    }
+
+    /**
+     * Finds the index of the first character that is not removed by stripping leading whitespace.
+     *
+     * @param input the character sequence
+     * @param len   the length of the sequence
+     * @return the index
+     */
+    private int firstKept(final CharSequence input, final int len) {
+
+        int first = 0;
+
+        if (this.strip) {
+            while (first < len && TextUtils.isAsciiWhitespcae((int) input.charAt(first))) {
+                ++first;
+            }
+        }
+
+        return first;
+    }
+
+    /**
+     * Finds the index after the last character that is not removed by stripping trailing whitespace.
+     *
+     * @param input the character sequence
+     * @param first the index of the first character kept
+     * @param len   the length of the sequence
+     * @return the index
+     */
+    private int lastKept(final CharSequence input, final int first, final int len) {
+
+        int last = len;
+
+        if (this.strip) {
+            while (last > first && TextUtils.isAsciiWhitespcae((int) input.charAt(last - 1))) {
+                --last;
+            }
+        }
+
+        return last;
+    }
+
+    /**
+     * Finds the first index in a range at which the normalized text differs from the input. Where a run of whitespace
+     * is collapsed, this is the start of the run.
+     *
+     * @param input the character sequence
+     * @param first the start of the range
+     * @param last  the end of the range
+     * @return the index ({@code last} if the range is unchanged by normalization)
+     */
+    private int firstChange(final CharSequence input, final int first, final int last) {
+
+        int result = last;
+
+        for (int i = first; i < last; ++i) {
+            final int cp = (int) input.charAt(i);
+            if (changes(cp, i + 1 < last ? (int) input.charAt(i + 1) : -1)) {
+                result = i;
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Normalizes a code point sequence.
+     *
+     * @param input the code point sequence to normalize
+     * @return the normalized sequence ({@code input} itself if normalization would not change it)
+     */
+    public IUSVSequence normalize(final IUSVSequence input) {
+
+        final int len = input.size();
+        final int first = firstKept(input, len);
+        final int last = lastKept(input, first, len);
+
+        final IUSVSequence result;
+
+        if (firstChange(input, first, last) == last) {
+            result = first == 0 && last == len ? input : input.subSequence(first, last);
+        } else {
+            try (final BufferPool.Lease<USVHtmlBuilder> lease = BufferPool.USV_HTML_BUILDERS.lease(last - first)) {
+                final USVHtmlBuilder target = lease.get();
+                normalize(input, target);
+                result = target.toUSVString();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Normalizes a code point sequence, appending the result to a builder.
+     *
+     * @param input  the code point sequence to normalize
+     * @param target the builder to which to append the normalized text
+     */
+    public void normalize(final IUSVSequence input, final USVBuilder target) {
+
+        final int len = input.size();
+        final int first = firstKept(input, len);
+        final int last = lastKept(input, first, len);
+        final int change = firstChange(input, first, last);
+
+        for (int i = first; i < change; ++i) {
+            target.addCodePoint(input.get(i));
+        }
+
+        boolean inSpace = false;
+        for (int i = change; i < last; ++i) {
+            final int cp = input.get(i);
+
+            if (this.collapse && TextUtils.isAsciiWhitespcae(cp)) {
+                if (!inSpace) {
+                    target.addCodePoint(SPACE);
+                    inSpace = true;
+                }
+            } else {
+                inSpace = false;
+                if (this.newlines && cp == CR) {
+                    target.addCodePoint(LF);
+                    if (i + 1 < last && input.get(i + 1) == LF) {
+                        ++i;
+                    }
+                } else if (this.lowercase && TextUtils.isAsciiUpperAlpha(cp)) {
+                    target.addCodePoint(cp + SPACE);
+                } else {
+                    target.addCodePoint(cp);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests whether a code point sequence is already normalized.
+     *
+     * @param input the code point sequence
+     * @return true if normalizing it would not change it
+     */
+    public boolean isNormalized(final IUSVSequence input) {
+
+        final int len = input.size();
+        final int first = firstKept(input, len);
+        final int last = lastKept(input, first, len);
+
+        return first == 0 && last == len && firstChange(input, 0, len) == len;
+    }
+
+    /**
+     * Finds the index of the first code point that is not removed by stripping leading whitespace.
+     *
+     * @param input the code point sequence
+     * @param len   the length of the sequence
+     * @return the index
+     */
+    private int firstKept(final IUSVSequence input, final int len) {
+
+        int first = 0;
+
+        if (this.strip) {
+            while (first < len && TextUtils.isAsciiWhitespcae(input.get(first))) {
+                ++first;
+            }
+        }
+
+        return first;
+    }
+
+    /**
+     * Finds the index after the last code point that is not removed by stripping trailing whitespace.
+     *
+     * @param input the code point sequence
+     * @param first the index of the first code point kept
+     * @param len   the length of the sequence
+     * @return the index
+     */
+    private int lastKept(final IUSVSequence input, final int first, final int len) {
+
+        int last = len;
+
+        if (this.strip) {
+            while (last > first && TextUtils.isAsciiWhitespcae(input.get(last - 1))) {
+                --last;
+            }
+        }
+
+        return last;
+    }
+
+    /**
+     * Finds the first index in a range at which the normalized text differs from the input.
+     *
+     * @param input the code point sequence
+     * @param first the start of the range
+     * @param last  the end of the range
+     * @return the index ({@code last} if the range is unchanged by normalization)
+     */
+    private int firstChange(final IUSVSequence input, final int first, final int last) {
+
+        int result = last;
+
+        for (int i = first; i < last; ++i) {
+            if (changes(input.get(i), i + 1 < last ? input.get(i + 1) : -1)) {
+                result = i;
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Tests whether normalization changes the text at a position (within the range kept after stripping).
+     *
+     * @param cp   the code point at the position
+     * @param next the following code point, or -1 if the position is the last in the range
+     * @return true if the normalized text differs from the input at this position
+     */
+    private boolean changes(final int cp, final int next) {
+
+        final boolean result;
+
+        if (this.collapse && TextUtils.isAsciiWhitespcae(cp)) {
+            result = cp != SPACE || TextUtils.isAsciiWhitespcae(next);
+        } else {
+            result = (this.newlines && cp == CR) || (this.lowercase && TextUtils.isAsciiUpperAlpha(cp));
+        }
+
+        return result;
+    }
+}
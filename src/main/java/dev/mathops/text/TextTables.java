@@ -0,0 +1,49 @@
+package dev.mathops.text;
+
+import dev.mathops.text.unicode.UnicodeBlocks;
+import dev.mathops.text.unicode.UnicodeCharacterSet;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Loads the static text tables (the Unicode character database, the Unicode block list, the Unicode+ escapes
+ * database, and the code point class tables) ahead of first use.
+ *
+ * <p>
+ * Each table is loaded the first time it is used, and the first caller waits for it. A server can instead call
+ * {@code warmUp} at startup to load all the tables in parallel, and wait on the returned future before reporting that
+ * it is ready. Loading a table that is already loaded does nothing, so calling {@code warmUp} more than once is
+ * harmless.
+ */
+public enum TextTables {
+    ;
+
+    /**
+     * Loads all the tables in parallel on the common fork-join pool.
+     *
+     * @return a future that completes when all the tables are loaded (exceptionally if a table could not be loaded)
+     */
+    public static CompletableFuture<Void> warmUp() {
+
+        return warmUp(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads all the tables in parallel.
+     *
+     * @param executor the executor on which to load the tables
+     * @return a future that completes when all the tables are loaded (exceptionally if a table could not be loaded)
+     */
+    public static CompletableFuture<Void> warmUp(final Executor executor) {
+
+        final CompletableFuture<Void> characters = CompletableFuture.runAsync(UnicodeCharacterSet::getInstance,
+                executor);
+        final CompletableFuture<Void> blocks = CompletableFuture.runAsync(UnicodeBlocks::getInstance, executor);
+        final CompletableFuture<Void> escapes = CompletableFuture.runAsync(UnicodePlusEscapes::getInstance, executor);
+        final CompletableFuture<Void> classes = CompletableFuture.runAsync(() -> CodePointClass.classify(0), executor);
+
+        return CompletableFuture.allOf(characters, blocks, escapes, classes);
+    }
+}
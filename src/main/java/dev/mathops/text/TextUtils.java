@@ -1,7 +1,5 @@
 package dev.mathops.text;
 
-import dev.mathops.commons.CoreConstants;
-
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -28,6 +26,9 @@ public enum TextUtils {
     /** The SVG namespace. */
     public static final String SVG_NS = "http://www.w3.org/2000/svg";
 
+    /** The difference between an ASCII lower alpha and the corresponding upper alpha. */
+    private static final int CASE_BIT = 0x20;
+
     /**
      * To <b>byte-lowercase</b> a byte sequence, increase each byte it contains, in the range 0x41 (A) to 0x5A (Z),
      * inclusive, by 0x20.
@@ -36,10 +37,34 @@ public enum TextUtils {
      */
     public static void byteLowercase(final byte[] sequence) {
 
-        for (int i = sequence.length - 1; i >= 0; --i) {
+        byteLowercase(sequence, 0, sequence.length);
+    }
+
+    /**
+     * Byte-lowercases a range of a byte sequence in place. Eight bytes are processed at a time.
+     *
+     * @param sequence the sequence to make lowercase
+     * @param start    the index of the first byte to make lowercase
+     * @param end      the index after the last byte to make lowercase
+     */
+    public static void byteLowercase(final byte[] sequence, final int start, final int end) {
+
+        final int wordEnd = end - 7;
+        int i = start;
+
+        while (i < wordEnd) {
+            final long word = (long) SequenceSearch.LONGS.get(sequence, i);
+            final long upper = byteRangeMask(word, 0x41, 0x5A);
+            if (upper != 0L) {
+                SequenceSearch.LONGS.set(sequence, i, word | (upper >>> 2));
+            }
+            i += 8;
+        }
+
+        for (; i < end; ++i) {
             final int value = (int) sequence[i];
             if (value >= 0x41 && value <= 0x5A) {
-                sequence[i] = (byte) (value + 0x20);
+                sequence[i] = (byte) (value + CASE_BIT);
             }
         }
     }
@@ -52,10 +77,34 @@ public enum TextUtils {
      */
     public static void byteUppercase(final byte[] sequence) {
 
-        for (int i = sequence.length - 1; i >= 0; --i) {
+        byteUppercase(sequence, 0, sequence.length);
+    }
+
+    /**
+     * Byte-uppercases a range of a byte sequence in place. Eight bytes are processed at a time.
+     *
+     * @param sequence the sequence to make uppercase
+     * @param start    the index of the first byte to make uppercase
+     * @param end      the index after the last byte to make uppercase
+     */
+    public static void byteUppercase(final byte[] sequence, final int start, final int end) {
+
+        final int wordEnd = end - 7;
+        int i = start;
+
+        while (i < wordEnd) {
+            final long word = (long) SequenceSearch.LONGS.get(sequence, i);
+            final long lower = byteRangeMask(word, 0x61, 0x7A);
+            if (lower != 0L) {
+                SequenceSearch.LONGS.set(sequence, i, word & ~(lower >>> 2));
+            }
+            i += 8;
+        }
+
+        for (; i < end; ++i) {
             final int value = (int) sequence[i];
             if (value >= 0x61 && value <= 0x7A) {
-                sequence[i] = (byte) (value - 0x20);
+                sequence[i] = (byte) (value - CASE_BIT);
             }
         }
     }
@@ -70,37 +119,89 @@ public enum TextUtils {
      */
     public static boolean byteCaseInsensitiveMatch(final byte[] array1, final byte[] array2) {
 
+        final int len = array1.length;
+
+        return array2.length == len && byteCaseInsensitiveMatch(array1, 0, array2, 0, len);
+    }
+
+    /**
+     * Tests whether a range of one byte sequence is a byte-case-insensitive match for a range of another. Eight bytes
+     * are compared at a time.
+     *
+     * @param array1 the first sequence
+     * @param start1 the index of the range in the first sequence
+     * @param array2 the second sequence
+     * @param start2 the index of the range in the second sequence
+     * @param len    the length of the ranges
+     * @return true if the ranges match
+     */
+    public static boolean byteCaseInsensitiveMatch(final byte[] array1, final int start1, final byte[] array2,
+                                                   final int start2, final int len) {
+
         boolean match = true;
 
-        final int len = array1.length;
+        final int wordEnd = len - 7;
+        int i = 0;
+
+        while (i < wordEnd) {
+            final long word1 = (long) SequenceSearch.LONGS.get(array1, start1 + i);
+            final long word2 = (long) SequenceSearch.LONGS.get(array2, start2 + i);
+            if (word1 != word2) {
+                final long lower1 = word1 | (byteRangeMask(word1, 0x41, 0x5A) >>> 2);
+                final long lower2 = word2 | (byteRangeMask(word2, 0x41, 0x5A) >>> 2);
+                if (lower1 != lower2) {
+                    match = false;
+                    break;
+                }
+            }
+            i += 8;
+        }
 
-        if (array2.length == len) {
-            for (int i = len - 1; i >= 0; --i) {
-                final int b1 = (int) array1[i];
-                final int b2 = (int) array2[i];
-
-                if (b1 != b2) {
-                    if (b1 < 0x41 || b1 > 0x7a) {
-                        match = false;
-                        break;
-                    } else if (b1 <= 0x5a) {
-                        if (b2 != (b1 + 0x20)) {
-                            match = false;
-                            break;
-                        }
-                    } else if (b1 < 0x61 || (b1 != (b2 + 0x20))) {
-                        match = false;
-                        break;
-                    }
+        if (match) {
+            for (; i < len; ++i) {
+                if (!asciiCaseInsensitiveEqual((int) array1[start1 + i] & 0xFF, (int) array2[start2 + i] & 0xFF)) {
+                    match = false;
+                    break;
                 }
             }
-        } else {
-            match = false;
         }
 
         return match;
     }
 
+    /**
+     * Computes a mask with the high bit set in each byte of a word whose value is in an ASCII range, so eight bytes can
+     * be classified at once. Adding to the low seven bits of each byte never carries into the next byte, so each byte
+     * is tested independently.
+     *
+     * @param word the eight bytes
+     * @param low  the lowest value in the range
+     * @param high the highest value in the range
+     * @return the mask, with 0x80 in each byte in the range and 0x00 in each other byte
+     */
+    private static long byteRangeMask(final long word, final int low, final int high) {
+
+        final long heptets = word & SequenceSearch.LOW_SEVEN;
+        final long atLeastLow = heptets + SequenceSearch.ONES * (long) (0x80 - low);
+        final long aboveHigh = heptets + SequenceSearch.ONES * (long) (0x7F - high);
+
+        return atLeastLow & ~aboveHigh & ~word & SequenceSearch.HIGH_BITS;
+    }
+
+    /**
+     * Tests whether two code points are equal after ASCII lowercasing.
+     *
+     * @param c1 the first code point
+     * @param c2 the second code point
+     * @return true if the code points are equal ignoring ASCII case
+     */
+    private static boolean asciiCaseInsensitiveEqual(final int c1, final int c2) {
+
+        final int diff = c1 ^ c2;
+
+        return diff == 0 || (diff == CASE_BIT && isAsciiLowerAlpha(c1 | CASE_BIT));
+    }
+
     /**
      * Tests whether a byte sequence is a <b>prefix</b> of an input byte sequence, which means the input byte sequence
      * <b>starts with</b> the prefix.
@@ -220,14 +321,7 @@ public enum TextUtils {
      */
     public static boolean isNoncharacter(final int cp) {
 
-        return (cp >= 0xFDD0 && cp <= 0xFDEF) || cp == 0xFFFE || cp == 0xFFFF || cp == 0x1FFFE
-                || cp == 0x1FFFF || cp == 0x2FFFE || cp == 0x2FFFF || cp == 0x3FFFE || cp == 0x3FFFF
-                || cp == 0x4FFFE || cp == 0x4FFFF || cp == 0x5FFFE || cp == 0x5FFFF || cp == 0x6FFFE
-                || cp == 0x6FFFF || cp == 0x7FFFE || cp == 0x7FFFF || cp == 0x8FFFE || cp == 0x8FFFF
-                || cp == 0x9FFFE || cp == 0x9FFFF || cp == 0xAFFFE || cp == 0xAFFFF || cp == 0xBFFFE
-                || cp == 0xBFFFF || cp == 0xCFFFE || cp == 0xCFFFF || cp == 0xDFFFE || cp == 0xDFFFF
-                || cp == 0xEFFFE || cp == 0xEFFFF || cp == 0xFFFFE || cp == 0xFFFFF || cp == 0x10FFFE
-                || cp == 0x10FFFF;
+        return CodePointClass.is(cp, CodePointClass.NONCHARACTER);
     }
 
     /**
@@ -251,7 +345,7 @@ public enum TextUtils {
      */
     public static boolean isAsciiTabOrNewline(final int cp) {
 
-        return cp == 0x09 || cp == 0x0A || cp == 0x0D;
+        return CodePointClass.is(cp, CodePointClass.ASCII_TAB_OR_NEWLINE);
     }
 
     /**
@@ -263,7 +357,7 @@ public enum TextUtils {
      */
     public static boolean isAsciiWhitespcae(final int cp) {
 
-        return cp == 0x09 || cp == 0x0A || cp == 0x0C || cp == 0x0D || cp == 0x20;
+        return CodePointClass.is(cp, CodePointClass.ASCII_WHITESPACE);
     }
 
     /**
@@ -275,7 +369,7 @@ public enum TextUtils {
      */
     public static boolean isC0Control(final int cp) {
 
-        return cp >= 0x00 && cp <= 0x1F;
+        return CodePointClass.is(cp, CodePointClass.C0_CONTROL);
     }
 
     /**
@@ -287,7 +381,7 @@ public enum TextUtils {
      */
     public static boolean isC0ControlOrSpace(final int cp) {
 
-        return cp >= 0x00 && cp <= 0x20;
+        return CodePointClass.is(cp, CodePointClass.C0_CONTROL_OR_SPACE);
     }
 
     /**
@@ -299,7 +393,7 @@ public enum TextUtils {
      */
     public static boolean isControl(final int cp) {
 
-        return (cp >= 0x00 && cp <= 0x1F) || (cp >= 0x7F && cp <= 0x9F);
+        return CodePointClass.is(cp, CodePointClass.CONTROL);
     }
 
     /**
@@ -311,7 +405,7 @@ public enum TextUtils {
      */
     public static boolean isAsciiDigit(final int cp) {
 
-        return cp >= 0x30 && cp <= 0x39;
+        return CodePointClass.is(cp, CodePointClass.ASCII_DIGIT);
     }
 
     /**
@@ -323,7 +417,7 @@ public enum TextUtils {
      */
     public static boolean isAsciiUpperHexDigit(final int cp) {
 
-        return (cp >= 0x30 && cp <= 0x39) || (cp >= 0x41 && cp <= 0x46);
+        return CodePointClass.is(cp, CodePointClass.ASCII_UPPER_HEX_DIGIT);
     }
 
     /**
@@ -335,7 +429,7 @@ public enum TextUtils {
      */
     public static boolean isAsciiLowerHexDigit(final int cp) {
 
-        return (cp >= 0x30 && cp <= 0x39) || (cp >= 0x61 && cp <= 0x66);
+        return CodePointClass.is(cp, CodePointClass.ASCII_LOWER_HEX_DIGIT);
     }
 
     /**
@@ -347,8 +441,7 @@ public enum TextUtils {
      */
     public static boolean isAsciiHexDigit(final int cp) {
 
-        return (cp >= 0x30 && cp <= 0x39) || (cp >= 0x41 && cp <= 0x46)
-                || (cp >= 0x61 && cp <= 0x66);
+        return CodePointClass.is(cp, CodePointClass.ASCII_HEX_DIGIT);
     }
 
     /**
@@ -360,7 +453,7 @@ public enum TextUtils {
      */
     public static boolean isAsciiUpperAlpha(final int cp) {
 
-        return cp >= 0x41 && cp <= 0x5A;
+        return CodePointClass.is(cp, CodePointClass.ASCII_UPPER_ALPHA);
     }
 
     /**
@@ -372,7 +465,7 @@ public enum TextUtils {
      */
     public static boolean isAsciiLowerAlpha(final int cp) {
 
-        return cp >= 0x61 && cp <= 0x7A;
+        return CodePointClass.is(cp, CodePointClass.ASCII_LOWER_ALPHA);
     }
 
     /**
@@ -384,7 +477,7 @@ public enum TextUtils {
      */
     public static boolean isAsciiAlpha(final int cp) {
 
-        return (cp >= 0x41 && cp <= 0x5A) || (cp >= 0x61 && cp <= 0x7A);
+        return CodePointClass.is(cp, CodePointClass.ASCII_ALPHA);
     }
 
     /**
@@ -396,8 +489,7 @@ public enum TextUtils {
      */
     public static boolean isAsciiAlphanumeric(final int cp) {
 
-        return (cp >= 0x41 && cp <= 0x5A) || (cp >= 0x61 && cp <= 0x7A)
-                || (cp >= 0x30 && cp <= 0x39);
+        return CodePointClass.is(cp, CodePointClass.ASCII_ALPHANUMERIC);
     }
 
     /**
@@ -444,15 +536,29 @@ public enum TextUtils {
      */
     public static String asciiLowercase(final String str) {
 
-        final char[] chars = str.toCharArray();
-        for (int i = chars.length - 1; i >= 0; --i) {
-            final int value = (int) chars[i];
-            if (value >= 0x41 && value <= 0x5A) {
-                chars[i] = (char) (value + 0x20);
+        final int len = str.length();
+        int first = 0;
+        while (first < len && !isAsciiUpperAlpha((int) str.charAt(first))) {
+            ++first;
+        }
+
+        final String result;
+
+        if (first == len) {
+            // Already lowercase: no need to copy
+            result = str;
+        } else {
+            final char[] chars = str.toCharArray();
+            for (int i = first; i < len; ++i) {
+                final int value = (int) chars[i];
+                if (value >= 0x41 && value <= 0x5A) {
+                    chars[i] = (char) (value + CASE_BIT);
+                }
             }
+            result = new String(chars);
         }
 
-        return new String(chars);
+        return result;
     }
 
     /**
@@ -484,15 +590,29 @@ public enum TextUtils {
      */
     public static String asciiUppercase(final String str) {
 
-        final char[] chars = str.toCharArray();
-        for (int i = chars.length - 1; i >= 0; --i) {
-            final int value = (int) chars[i];
-            if (value >= 0x61 && value <= 0x7A) {
-                chars[i] = (char) (value - 0x20);
+        final int len = str.length();
+        int first = 0;
+        while (first < len && !isAsciiLowerAlpha((int) str.charAt(first))) {
+            ++first;
+        }
+
+        final String result;
+
+        if (first == len) {
+            // Already uppercase: no need to copy
+            result = str;
+        } else {
+            final char[] chars = str.toCharArray();
+            for (int i = first; i < len; ++i) {
+                final int value = (int) chars[i];
+                if (value >= 0x61 && value <= 0x7A) {
+                    chars[i] = (char) (value - CASE_BIT);
+                }
             }
+            result = new String(chars);
         }
 
-        return new String(chars);
+        return result;
     }
 
     /**
@@ -525,33 +645,23 @@ public enum TextUtils {
      */
     public static boolean asciiCsaseInsensitiveMatch(final String str1, final String str2) {
 
-        boolean match = true;
+        boolean match;
 
         final int len = str1.length();
 
-        if (str2.length() == len) {
-
-            for (int i = len - 1; i >= 0; --i) {
-                final int c1 = (int) str1.charAt(i);
-                final int c2 = (int) str2.charAt(i);
-
-                if (c1 != c2) {
-                    if (c1 < 0x41 || c1 > 0x7a) {
-                        match = false;
-                        break;
-                    } else if (c1 <= 0x5a) {
-                        if (c2 != (c1 + 0x20)) {
-                            match = false;
-                            break;
-                        }
-                    } else if (c1 < 0x61 || (c1 != (c2 + 0x20))) {
-                        match = false;
-                        break;
-                    }
+        if (str2.length() != len) {
+            match = false;
+        } else if (str1.equals(str2)) {
+            // Exact matches (the common case) are found by the vectorized String comparison
+            match = true;
+        } else {
+            match = true;
+            for (int i = 0; i < len; ++i) {
+                if (!asciiCaseInsensitiveEqual((int) str1.charAt(i), (int) str2.charAt(i))) {
+                    match = false;
+                    break;
                 }
             }
-        } else {
-            match = false;
         }
 
         return match;
@@ -567,33 +677,23 @@ public enum TextUtils {
      */
     public static boolean asciiCaseInsensitiveMatch(final IUSVSequence str1, final IUSVSequence str2) {
 
-        boolean match = true;
+        boolean match;
 
         final int len = str1.size();
 
-        if (str2.size() == len) {
-
-            for (int i = len - 1; i >= 0; --i) {
-                final int c1 = str1.get(i);
-                final int c2 = str2.get(i);
-
-                if (c1 != c2) {
-                    if (c1 < 0x41 || c1 > 0x7a) {
-                        match = false;
-                        break;
-                    } else if (c1 <= 0x5a) {
-                        if (c2 != (c1 + 0x20)) {
-                            match = false;
-                            break;
-                        }
-                    } else if (c1 < 0x61 || (c1 != (c2 + 0x20))) {
-                        match = false;
-                        break;
-                    }
+        if (str2.size() != len) {
+            match = false;
+        } else if (str1 instanceof final USVString u1 && str2 instanceof final USVString u2
+                   && u1.rawLatin1() != null && u2.rawLatin1() != null) {
+            match = byteCaseInsensitiveMatch(u1.rawLatin1(), u1.rawOffset(), u2.rawLatin1(), u2.rawOffset(), len);
+        } else {
+            match = true;
+            for (int i = 0; i < len; ++i) {
+                if (!asciiCaseInsensitiveEqual(str1.get(i), str2.get(i))) {
+                    match = false;
+                    break;
                 }
             }
-        } else {
-            match = false;
         }
 
         return match;
@@ -629,22 +729,7 @@ public enum TextUtils {
      */
     public static String normalizeNewlines(final String input) {
 
-        final int len = input.length();
-        final StringBuilder sb = new StringBuilder(len);
-
-        for (int i = 0; i < len; ++i) {
-            final char ch = input.charAt(i);
-            if ((int) ch == 0x0D) {
-                sb.append(0x0A);
-                if (i + 1 < len && (int) input.charAt(i + 1) == 0x0A) {
-                    ++i;
-                }
-            } else {
-                sb.append(ch);
-            }
-        }
-
-        return sb.toString();
+        return TextNormalizer.NEWLINES.normalize(input);
     }
 
     /**
@@ -656,31 +741,7 @@ public enum TextUtils {
      */
     public static String stripLeadingAndTrailingAsciiWhitespace(final String input) {
 
-        String result = input;
-
-        if (!input.isEmpty()) {
-            final char[] chars = input.toCharArray();
-            final int len = chars.length;
-
-            int firstNonspace = 0;
-            while (firstNonspace < len && isAsciiWhitespcae((int) chars[firstNonspace])) {
-                ++firstNonspace;
-            }
-
-            if (firstNonspace == len) {
-                result = CoreConstants.EMPTY;
-            } else {
-                // There is a non-whitespace character
-                int lastNonspace = len - 1;
-                while (isAsciiWhitespcae((int) chars[lastNonspace])) {
-                    --lastNonspace;
-                }
-
-                result = new String(chars, firstNonspace, lastNonspace - firstNonspace + 1);
-            }
-        }
-
-        return result;
+        return TextNormalizer.STRIP.normalize(input);
     }
 
     /**
@@ -693,74 +754,87 @@ public enum TextUtils {
      */
     public static String stripAndCollapseAsciiWhitespace(final String input) {
 
-        String result = input;
+        return TextNormalizer.STRIP_AND_COLLAPSE.normalize(input);
+    }
 
-        if (!input.isEmpty()) {
-            final char[] chars = input.toCharArray();
-            final int len = chars.length;
+    /**
+     * Strictly splits a string on a code point delimiter.
+     *
+     * @param seq       the string to split
+     * @param delimiter the delimiter code point
+     * @return the list of resulting tokens (if the input string is empty, this will contain one empty string, and there
+     *         will be one empty string for every pair of adjacent delimiters in the input string
+     */
+    public static List<String> strictlySplit(final CharSequence seq, final int delimiter) {
 
-            int first = 0;
-            while (first < len && isAsciiWhitespcae((int) chars[first])) {
-                ++first;
-            }
+        final List<String> tokens = new ArrayList<>(20);
 
-            if (first == len) {
-                result = CoreConstants.SPC;
-            } else {
-                int last = len - 1;
-                while (isAsciiWhitespcae((int) chars[last])) {
-                    --last;
-                }
+        strictlySplit(seq, delimiter, (start, end) -> tokens.add(seq.subSequence(start, end).toString()));
 
-                final StringBuilder sb = new StringBuilder(last - first + 1);
-                boolean notInSpace = true;
-                for (int i = first; i <= last; ++i) {
-                    final char c = chars[i];
-
-                    if (isAsciiWhitespcae((int) c)) {
-                        if (notInSpace) {
-                            sb.append(' ');
-                            notInSpace = false;
-                        }
-                    } else {
-                        sb.append(c);
-                        notInSpace = true;
-                    }
-                }
+        return tokens;
+    }
+
+    /**
+     * Strictly splits a string on a code point delimiter, passing the bounds of each token to a consumer rather than
+     * creating strings. There is always at least one token (which is empty if the string is empty), and one token more
+     * than the number of delimiters.
+     *
+     * @param seq       the string to split
+     * @param delimiter the delimiter code point
+     * @param consumer  the consumer that receives the bounds of each token, as indexes of {@code char}s in the string
+     * @return the number of tokens passed to the consumer
+     */
+    public static int strictlySplit(final CharSequence seq, final int delimiter, final FieldConsumer consumer) {
+
+        final int len = seq.length();
+        final int delimiterLen = Character.charCount(delimiter);
+
+        int count = 0;
+        int start = 0;
+
+        while (true) {
+            final int found = indexOf(seq, delimiter, start);
+            final int end = found < 0 ? len : found;
 
-                result = sb.toString();
+            ++count;
+            if (!consumer.accept(start, end) || found < 0) {
+                break;
             }
+            start = end + delimiterLen;
         }
 
-        return result;
+        return count;
     }
 
     /**
-     * Strictly splits a string on a code point delimiter.
+     * Strictly splits a code point sequence on a code point delimiter, passing the bounds of each token to a consumer.
+     * There is always at least one token (which is empty if the sequence is empty), and one token more than the number
+     * of delimiters.
      *
-     * @param seq       the string to split
+     * @param seq       the sequence to split
      * @param delimiter the delimiter code point
-     * @return the list of resulting tokens (if the input string is empty, this will contain one empty string, and there
-     *         will be one empty string for every pair of adjacent delimiters in the input string
+     * @param consumer  the consumer that receives the bounds of each token, as code point indexes in the sequence
+     * @return the number of tokens passed to the consumer
      */
-    public static List<String> strictlySplit(final CharSequence seq, final int delimiter) {
+    public static int strictlySplit(final IUSVSequence seq, final int delimiter, final FieldConsumer consumer) {
 
-        final List<String> tokens = new ArrayList<>(20);
+        final int len = seq.size();
 
-        final int[] codePoints = seq.codePoints().toArray();
+        int count = 0;
         int start = 0;
-        final int len = codePoints.length;
-        int current = 0;
 
-        while (current < len) {
-            if (codePoints[current] == delimiter) {
-                tokens.add(new String(codePoints, start, current - start));
-                start = current + 1;
+        while (true) {
+            final int found = SequenceSearch.indexOf(seq, delimiter, start);
+            final int end = found < 0 ? len : found;
+
+            ++count;
+            if (!consumer.accept(start, end) || found < 0) {
+                break;
             }
-            ++current;
+            start = end + 1;
         }
 
-        return tokens;
+        return count;
     }
 
     /**
@@ -774,33 +848,85 @@ public enum TextUtils {
 
         final List<String> tokens = new ArrayList<>(20);
 
-        final int[] codePoints = seq.codePoints().toArray();
-        final int len = codePoints.length;
+        splitOnAsciiWhitespace(seq, (start, end) -> tokens.add(seq.subSequence(start, end).toString()));
+
+        return tokens;
+    }
 
-        // Skip leading whitespace
+    /**
+     * Splits a string using runs of ASCII whitespace as delimiters, passing the bounds of each token to a consumer
+     * rather than creating strings.
+     *
+     * @param seq      the string to split
+     * @param consumer the consumer that receives the bounds of each token, as indexes of {@code char}s in the string
+     * @return the number of tokens passed to the consumer (zero if the string is empty or contains only whitespace)
+     */
+    public static int splitOnAsciiWhitespace(final CharSequence seq, final FieldConsumer consumer) {
+
+        final int len = seq.length();
+
+        int count = 0;
         int start = 0;
-        while (start < len && isAsciiWhitespcae(codePoints[start])) {
-            ++start;
-        }
 
-        while (start < len) {
-            // Start is the index of the start of a token
-            int end = start + 1;
+        while (true) {
+            while (start < len && isAsciiWhitespcae((int) seq.charAt(start))) {
+                ++start;
+            }
+            if (start == len) {
+                break;
+            }
 
-            while (end < len && !isAsciiWhitespcae(codePoints[end])) {
+            int end = start + 1;
+            while (end < len && !isAsciiWhitespcae((int) seq.charAt(end))) {
                 ++end;
             }
 
-            // End is either 'len' or a whitespace character
-            tokens.add(new String(codePoints, start, end - start));
-
+            ++count;
+            if (!consumer.accept(start, end)) {
+                break;
+            }
             start = end;
-            while (start < len && isAsciiWhitespcae(codePoints[start])) {
+        }
+
+        return count;
+    }
+
+    /**
+     * Splits a code point sequence using runs of ASCII whitespace as delimiters, passing the bounds of each token to a
+     * consumer.
+     *
+     * @param seq      the sequence to split
+     * @param consumer the consumer that receives the bounds of each token, as code point indexes in the sequence
+     * @return the number of tokens passed to the consumer (zero if the sequence is empty or contains only whitespace)
+     */
+    public static int splitOnAsciiWhitespace(final IUSVSequence seq, final FieldConsumer consumer) {
+
+        final int len = seq.size();
+
+        int count = 0;
+        int start = 0;
+
+        while (true) {
+            while (start < len && isAsciiWhitespcae(seq.get(start))) {
                 ++start;
             }
+            if (start == len) {
+                break;
+            }
+
+            int end = start + 1;
+            while (end < len && !isAsciiWhitespcae(seq.get(end))) {
+                ++end;
+            }
+
+            ++count;
+            if (!consumer.accept(start, end)) {
+                break;
+            }
+            start = end;
         }
 
-        return tokens;
+        return count;
     }
 
     /**
@@ -815,34 +941,122 @@ public enum TextUtils {
 
         final List<String> tokens = new ArrayList<>(10);
 
-        final int[] codePoints = seq.codePoints().toArray();
-        final int len = codePoints.length;
+        splitOnCommas(seq, (start, end) -> tokens.add(seq.subSequence(start, end).toString()));
+
+        return tokens;
+    }
 
+    /**
+     * Splits a string using commas as delimiters, passing the bounds of each token (without any ASCII whitespace that
+     * surrounds it) to a consumer rather than creating strings.
+     *
+     * @param seq      the string to split
+     * @param consumer the consumer that receives the bounds of each token, as indexes of {@code char}s in the string
+     * @return the number of tokens passed to the consumer (zero if the string is empty)
+     */
+    public static int splitOnCommas(final CharSequence seq, final FieldConsumer consumer) {
+
+        final int len = seq.length();
+
+        int count = 0;
         int start = 0;
+
         while (start < len) {
+            final int found = indexOf(seq, 0x2C, start);
+            final int comma = found < 0 ? len : found;
+
+            int tokStart = start;
+            int tokEnd = comma;
+            while (tokStart < comma && isAsciiWhitespcae((int) seq.charAt(tokStart))) {
+                ++tokStart;
+            }
+            while (tokEnd > tokStart && isAsciiWhitespcae((int) seq.charAt(tokEnd - 1))) {
+                --tokEnd;
+            }
 
-            // Find the next comma, or the end of the string
-            int comma = start;
-            while (comma < len && codePoints[comma] != 0x2C) {
-                ++comma;
+            ++count;
+            if (!consumer.accept(tokStart, tokEnd)) {
+                break;
             }
+            start = comma + 1;
+        }
+
+        return count;
+    }
+
+    /**
+     * Splits a code point sequence using commas as delimiters, passing the bounds of each token (without any ASCII
+     * whitespace that surrounds it) to a consumer.
+     *
+     * @param seq      the sequence to split
+     * @param consumer the consumer that receives the bounds of each token, as code point indexes in the sequence
+     * @return the number of tokens passed to the consumer (zero if the sequence is empty)
+     */
+    public static int splitOnCommas(final IUSVSequence seq, final FieldConsumer consumer) {
+
+        final int len = seq.size();
+
+        int count = 0;
+        int start = 0;
+
+        while (start < len) {
+            final int found = SequenceSearch.indexOf(seq, 0x2C, start);
+            final int comma = found < 0 ? len : found;
 
-            // Remove leading and trailing whitespace
             int tokStart = start;
             int tokEnd = comma;
-
-            while (tokStart < comma && isAsciiWhitespcae(codePoints[tokStart])) {
+            while (tokStart < comma && isAsciiWhitespcae(seq.get(tokStart))) {
                 ++tokStart;
             }
-            while (tokEnd > tokStart && isAsciiWhitespcae(codePoints[tokEnd - 1])) {
+            while (tokEnd > tokStart && isAsciiWhitespcae(seq.get(tokEnd - 1))) {
                 --tokEnd;
             }
-            tokens.add(new String(codePoints, tokStart, tokEnd - tokStart));
 
+            ++count;
+            if (!consumer.accept(tokStart, tokEnd)) {
+                break;
+            }
             start = comma + 1;
         }
 
-        return tokens;
+        return count;
+    }
+
+    /**
+     * Finds the first occurrence of a code point in a character sequence, at or after a starting index.
+     *
+     * @param seq  the character sequence
+     * @param cp   the code point (which is matched as a surrogate pair if it is beyond the Basic Multilingual Plane)
+     * @param from the index at which to start searching
+     * @return the index of the first {@code char} of the first occurrence; -1 if there is none
+     */
+    private static int indexOf(final CharSequence seq, final int cp, final int from) {
+
+        int result = -1;
+
+        if (seq instanceof final String str) {
+            result = str.indexOf(cp, from);
+        } else if (Character.isBmpCodePoint(cp)) {
+            final int len = seq.length();
+            for (int i = from; i < len; ++i) {
+                if ((int) seq.charAt(i) == cp) {
+                    result = i;
+                    break;
+                }
+            }
+        } else {
+            final char high = Character.highSurrogate(cp);
+            final char low = Character.lowSurrogate(cp);
+            final int last = seq.length() - 1;
+            for (int i = from; i < last; ++i) {
+                if (seq.charAt(i) == high && seq.charAt(i + 1) == low) {
+                    result = i;
+                    break;
+                }
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -872,4 +1086,20 @@ public enum TextUtils {
 
         return sb.toString();
     }
+
+    /**
+     * Receives the bounds of tokens found by the splitting methods that do not create strings.
+     */
+    @FunctionalInterface
+    public interface FieldConsumer {
+
+        /**
+         * Accepts the bounds of one token.
+         *
+         * @param start the index of the first element of the token
+         * @param end   the index after the last element of the token
+         * @return true to continue splitting; false to stop
+         */
+        boolean accept(int start, int end);
+    }
 }
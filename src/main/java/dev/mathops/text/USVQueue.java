@@ -14,6 +14,13 @@ import java.util.Arrays;
  * <p>
  * This class implements the algorithms for a "Queue", allowing it to be used as those types directly. It can serve as
  * the code point queue to which a byte stream is decoded, or from which a byte stream is encoded.
+ *
+ * <p>
+ * A queue may be bounded by a maximum capacity. A bounded queue reclaims the storage used by consumed items (moving
+ * the unconsumed items to the front of its storage) rather than growing, so a long-running stream can pass through
+ * a queue of constant size. When a bounded queue is full, {@code enqueue} and {@code offer} return a value that tells
+ * the producer to wait, while {@code append}, {@code prepend}, {@code insert} and {@code extend} throw
+ * {@code IllegalStateException}.
  */
 public class USVQueue implements IUSVSequence {
 
@@ -23,6 +30,12 @@ public class USVQueue implements IUSVSequence {
     /** The value returned to indicate the queue is empty but not yet at end of file. */
     public static final int QUEUE_EMPTY = -1;
 
+    /** The maximum capacity of a queue that is not bounded. */
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    /** Bits that must be clear in a Basic Multilingual Plane code point. */
+    private static final int NOT_BMP = ~0xFFFF;
+
     /** The code points in the list. */
     private int[] data;
 
@@ -35,6 +48,16 @@ public class USVQueue implements IUSVSequence {
     /** The position in the int array after the last element in the list. */
     private int end;
 
+    /**
+     * The index in the data array below which the data is shared with immutable views returned by
+     * {@code subSequence}. Before any element below this index is modified, the data array is copied so existing views
+     * are unaffected ("copy on write").
+     */
+    private int sharedLimit;
+
+    /** The maximum number of items the queue may hold ({@code UNBOUNDED} if the queue is not bounded). */
+    private final int maxCapacity;
+
     /**
      * A flag indicating EOF has been enqueued, which prevents further data from being enqueued. Data may still be
      * inserted before the EOF marker.
@@ -52,6 +75,28 @@ public class USVQueue implements IUSVSequence {
         final int clamped = Math.min(max, 1000000);
 
         this.data = new int[clamped];
+        this.maxCapacity = UNBOUNDED;
+    }
+
+    /**
+     * Constructs a new bounded {@code USVQueue}.
+     *
+     * @param initialCapacity the initial capacity of the list (clamped to the range 10 to 1000000, and to the maximum
+     *                        capacity)
+     * @param theMaxCapacity  the maximum number of code points the queue may hold at one time
+     * @throws IllegalArgumentException if the maximum capacity is not positive
+     */
+    public USVQueue(final int initialCapacity, final int theMaxCapacity) {
+
+        if (theMaxCapacity < 1) {
+            throw new IllegalArgumentException("Maximum capacity must be positive.");
+        }
+
+        final int max = Math.max(10, initialCapacity);
+        final int clamped = Math.min(Math.min(max, 1000000), theMaxCapacity + 1);
+
+        this.data = new int[clamped];
+        this.maxCapacity = theMaxCapacity;
     }
 
     /**
@@ -62,10 +107,13 @@ public class USVQueue implements IUSVSequence {
     public USVQueue(final CharSequence seq) {
 
         this.data = seq.codePoints().toArray();
+        this.end = this.data.length;
+        this.maxCapacity = UNBOUNDED;
     }
 
     /**
-     * Constructs a new {@code USVQueue} whose data is taken from another.
+     * Constructs a new {@code USVQueue} whose data is taken from another. If the source is a bounded queue, this queue
+     * has the same maximum capacity.
      *
      * @param src the list whose data to copy
      */
@@ -76,6 +124,7 @@ public class USVQueue implements IUSVSequence {
         this.data = src.getCodePoints();
         this.start = 0;
         this.end = len;
+        this.maxCapacity = src instanceof final USVQueue queue ? queue.maxCapacity : UNBOUNDED;
     }
 
     /**
@@ -95,6 +144,7 @@ public class USVQueue implements IUSVSequence {
 
         this.start = 0;
         this.end = theLength;
+        this.maxCapacity = UNBOUNDED;
     }
 
     /**
@@ -110,7 +160,8 @@ public class USVQueue implements IUSVSequence {
     }
 
     /**
-     * Gets the index the next code point to be returned by {@code consume} or {@code dequeue}.
+     * Gets the index the next code point to be returned by {@code consume} or {@code dequeue}. In a bounded queue,
+     * adding code points may reclaim consumed storage and move the data, which invalidates indexes obtained earlier.
      *
      * @return the code point index
      */
@@ -146,13 +197,14 @@ public class USVQueue implements IUSVSequence {
      *
      * @param item the int to append
      * @return this, for invocation chaining
+     * @throws IllegalStateException if the queue is bounded and full
      */
     public final USVQueue append(final int item) {
 
         if (!this.eofQueued) {
-            if (this.end >= this.data.length) {
-                extendStorage();
-            }
+            checkRoomFor(1);
+            ensureRoom(1);
+            beforeWrite(this.end);
 
             this.data[this.end] = item & MASK;
             ++this.end;
@@ -167,11 +219,13 @@ public class USVQueue implements IUSVSequence {
      *
      * @param seq the string whose code points to append
      * @return this, for invocation chaining
+     * @throws IllegalStateException if the queue is bounded and does not have room for all the code points
      */
     public final USVQueue append(final IUSVSequence seq) {
 
         if (!this.eofQueued) {
             final int len = seq.size();
+            checkRoomFor(len);
             for (int i = 0; i < len; ++i) {
                 final int item = seq.get(i);
                 append(item);
@@ -187,18 +241,82 @@ public class USVQueue implements IUSVSequence {
      *
      * @param seq the string whose code points to append
      * @return this, for invocation chaining
+     * @throws IllegalStateException if the queue is bounded and does not have room for all the code points
      */
     public final USVQueue append(final CharSequence seq) {
 
         if (!this.eofQueued) {
-            for (final int cp : seq.codePoints().toArray()) {
+            final int len = seq.length();
+            checkRoomFor(Character.codePointCount(seq, 0, len));
+
+            int pos = 0;
+            while (pos < len) {
+                final int cp = Character.codePointAt(seq, pos);
                 append(cp);
+                pos += Character.charCount(cp);
             }
         }
 
         return this;
     }
 
+    /**
+     * Appends as many code points from a range of an array as the queue has room for. An unbounded queue always
+     * accepts all the code points. If {@code indicateEndOfFile} has already been called, no code points are accepted.
+     *
+     * @param source the array containing the code points to append
+     * @param offset the index of the first code point to append
+     * @param length the number of code points to append
+     * @return the number of code points accepted (less than {@code length} if the queue became full)
+     */
+    public final int offer(final int[] source, final int offset, final int length) {
+
+        int count = 0;
+
+        if (!this.eofQueued) {
+            count = Math.min(length, remainingCapacity());
+            ensureRoom(count);
+            beforeWrite(this.end);
+
+            for (int i = 0; i < count; ++i) {
+                this.data[this.end + i] = source[offset + i] & MASK;
+            }
+            this.end += count;
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the number of code points that can be added before the queue is full.
+     *
+     * @return the remaining capacity ({@code Integer.MAX_VALUE} minus the current size if the queue is not bounded)
+     */
+    public final int remainingCapacity() {
+
+        return this.maxCapacity - (this.end - this.start);
+    }
+
+    /**
+     * Tests whether the queue is full (only a bounded queue can become full).
+     *
+     * @return true if the queue is full
+     */
+    public final boolean isFull() {
+
+        return this.end - this.start >= this.maxCapacity;
+    }
+
+    /**
+     * Tests whether the queue is bounded by a maximum capacity.
+     *
+     * @return true if the queue is bounded
+     */
+    public final boolean isBounded() {
+
+        return this.maxCapacity != UNBOUNDED;
+    }
+
     /**
      * Appends the EOF code to the end of the stream.
      */
@@ -207,25 +325,31 @@ public class USVQueue implements IUSVSequence {
         this.eofQueued = true;
     }
 
+    /**
+     * Tests whether {@code indicateEndOfFile} has been called.
+     *
+     * @return true if end of file has been indicated
+     */
+    public final boolean isEndOfFileIndicated() {
+
+        return this.eofQueued;
+    }
+
     /**
      * Extends this list by appending all items from a given list. If {@code indicateEndOfFile} has already been called,
      * this has no effect.
      *
      * @param list the list to append
+     * @throws IllegalStateException if the queue is bounded and does not have room for all the code points
      */
     public final void extend(final USVQueue list) {
 
         if (!this.eofQueued) {
             final int lengthToAdd = list.size();
 
-            if (this.end + lengthToAdd > this.data.length) {
-                // Extend using the length to add to control how much space to allocate
-                final int growSize = lengthToAdd * 6 / 5;
-                final int newLen = this.data.length + growSize;
-                final int[] newData = new int[newLen];
-                System.arraycopy(this.data, 0, newData, 0, this.end);
-                this.data = newData;
-            }
+            checkRoomFor(lengthToAdd);
+            ensureRoom(lengthToAdd);
+            beforeWrite(this.end);
 
             System.arraycopy(list.data, list.start, this.data, this.end, lengthToAdd);
             this.end += lengthToAdd;
@@ -236,13 +360,15 @@ public class USVQueue implements IUSVSequence {
      * Prepends a code point to the list.
      *
      * @param item the code point to prepend
+     * @throws IllegalStateException if the queue is bounded and full
      */
     public final void prepend(final int item) {
 
+        checkRoomFor(1);
+        beforeWrite(Math.max(0, this.start - 1));
+
         if (this.start == 0) {
-            if (this.end == this.data.length) {
-                extendStorage();
-            }
+            ensureRoom(1);
 
             // Shift by 1/2 the extra space
             final int len = this.end - this.start;
@@ -269,6 +395,8 @@ public class USVQueue implements IUSVSequence {
         final int m = match & MASK;
         final int r = replacement & MASK;
 
+        beforeWrite(this.start);
+
         for (int i = this.start; i < this.end; ++i) {
             if (this.data[i] == m) {
                 this.data[i] = r;
@@ -286,6 +414,8 @@ public class USVQueue implements IUSVSequence {
 
         final int r = replacement & MASK;
 
+        beforeWrite(this.start);
+
         for (int i = this.start; i < this.end; ++i) {
             if (match.test(this.data[i])) {
                 this.data[i] = r;
@@ -298,12 +428,13 @@ public class USVQueue implements IUSVSequence {
      *
      * @param item        the code point to insert
      * @param beforeIndex the index before which to insert the code point
+     * @throws IllegalStateException if the queue is bounded and full
      */
     public final void insert(final int item, final int beforeIndex) {
 
-        if (this.end == this.data.length) {
-            extendStorage();
-        }
+        checkRoomFor(1);
+        ensureRoom(1);
+        beforeWrite(this.start + beforeIndex);
 
         final int len = this.end - this.start;
         System.arraycopy(this.data, this.start + beforeIndex, this.data,
@@ -322,6 +453,8 @@ public class USVQueue implements IUSVSequence {
 
         final int m = match & MASK;
 
+        beforeWrite(this.start);
+
         int pos = this.start;
         for (int i = this.start; i < this.end; ++i) {
             if (this.data[i] != m) {
@@ -339,6 +472,8 @@ public class USVQueue implements IUSVSequence {
      */
     public final void remove(final Condition match) {
 
+        beforeWrite(this.start);
+
         int pos = this.start;
         for (int i = this.start; i < this.end; ++i) {
             if (!match.test(this.data[i])) {
@@ -402,13 +537,21 @@ public class USVQueue implements IUSVSequence {
     }
 
     /**
-     * Enqueues a code point to the tail of the queue.
+     * Enqueues a code point to the tail of the queue. Unlike {@code append}, this does not throw an exception when a
+     * bounded queue is full; the producer should instead wait until some code points have been consumed.
      *
      * @param item the code point to enqueue
+     * @return true if the code point was enqueued; false if the queue is full or EOF has been enqueued
      */
-    public final void enqueue(final int item) {
+    public final boolean enqueue(final int item) {
+
+        final boolean accepted = !this.eofQueued && !isFull();
+
+        if (accepted) {
+            append(item);
+        }
 
-        append(item);
+        return accepted;
     }
 
     /**
@@ -549,15 +692,211 @@ public class USVQueue implements IUSVSequence {
     }
 
     /**
-     * Extends storage. Storage grows by the smallest of half the current data size and 1 million bytes.
+     * Throws an exception if the queue is bounded and does not have room for a number of additional code points.
+     *
+     * @param count the number of code points to be added
+     * @throws IllegalStateException if there is not room for the code points
+     */
+    private void checkRoomFor(final int count) {
+
+        if (count > remainingCapacity()) {
+            throw new IllegalStateException("Queue is full.");
+        }
+    }
+
+    /**
+     * Ensures there is room in the data array for a number of code points after the current end.
+     *
+     * <p>
+     * A bounded queue first reclaims the storage used by consumed code points when that would free at least a quarter
+     * of the array, or when the array cannot grow enough within the maximum capacity. Otherwise, storage grows by the
+     * largest of the shortfall, 10 items, and the smaller of half the current data size and 1 million items (but a
+     * bounded queue never grows beyond its maximum capacity).
+     *
+     * @param count the number of code points to be added
+     */
+    private void ensureRoom(final int count) {
+
+        if (this.end + count > this.data.length) {
+            final boolean bounded = this.maxCapacity != UNBOUNDED;
+            final int limit = bounded ? this.maxCapacity + 1 : Integer.MAX_VALUE;
+
+            if (bounded && this.start > 1
+                    && (this.start >= this.data.length / 4 || this.end + count > limit)) {
+                compact();
+            }
+
+            if (this.end + count > this.data.length) {
+                final int growSize = Math.max(10, Math.min(this.data.length / 2, 1000000));
+                final int newLen = Math.max(this.end + count, Math.min(this.data.length + growSize, limit));
+                this.data = Arrays.copyOf(this.data, newLen);
+                this.sharedLimit = 0;
+            }
+        }
+    }
+
+    /**
+     * Moves the unconsumed code points to the front of the data array, reclaiming the space used by consumed code
+     * points. The most recently consumed code point is retained so it can still be reconsumed.
      */
-    private void extendStorage() {
+    private void compact() {
 
-        final int growSize = Math.min(this.data.length / 2, 1000000);
-        final int newLen = this.data.length + growSize;
-        final int[] newData = new int[newLen];
-        System.arraycopy(this.data, 0, newData, 0, this.end);
-        this.data = newData;
+        final int keep = this.start - 1;
+        final int len = this.end - keep;
+
+        if (this.sharedLimit > 0) {
+            // Views share the current array, so move the data into a new array instead
+            final int[] newData = new int[this.data.length];
+            System.arraycopy(this.data, keep, newData, 0, len);
+            this.data = newData;
+            this.sharedLimit = 0;
+        } else {
+            System.arraycopy(this.data, keep, this.data, 0, len);
+        }
+
+        this.start = 1;
+        this.end = len;
+    }
+
+    /**
+     * Called before modifying the data array at or above a specified index. If any immutable view shares that part of
+     * the array, the array is copied first.
+     *
+     * @param index the lowest index that is about to be modified
+     */
+    private void beforeWrite(final int index) {
+
+        if (index < this.sharedLimit) {
+            this.data = this.data.clone();
+            this.sharedLimit = 0;
+        }
+    }
+
+    /**
+     * Gets a range of this list as an immutable string. The string shares this list's data array rather than copying
+     * it; if this list is later modified in that range, it copies its data first so the string is unaffected.
+     *
+     * @param rangeStart the index of the first code point to include
+     * @param rangeEnd   the index after the last code point to include
+     * @return the string
+     * @throws IndexOutOfBoundsException if the range is not valid for this list
+     */
+    @Override
+    public final USVString subSequence(final int rangeStart, final int rangeEnd) {
+
+        final int size = this.end - this.start;
+        if (rangeStart < 0 || rangeEnd > size || rangeStart > rangeEnd) {
+            final String msg = "Range [" + rangeStart + ", " + rangeEnd + ") out of bounds for length " + size;
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        this.sharedLimit = Math.max(this.sharedLimit, this.start + rangeEnd);
+
+        return USVString.view(this.data, this.start + rangeStart, rangeEnd - rangeStart);
+    }
+
+    /**
+     * Appends a range of bytes, treating each byte as a Latin-1 code point from 0x00 to 0xFF. This is a bulk
+     * operation, intended for decoders that find runs of ASCII bytes. If {@code indicateEndOfFile} has already been
+     * called, this has no effect.
+     *
+     * @param source the array containing the bytes to append
+     * @param offset the index of the first byte to append
+     * @param length the number of bytes to append
+     * @throws IllegalStateException if the queue is bounded and does not have room for all the code points
+     */
+    public final void appendLatin1(final byte[] source, final int offset, final int length) {
+
+        if (!this.eofQueued) {
+            checkRoomFor(length);
+            ensureRoom(length);
+            beforeWrite(this.end);
+
+            final int[] target = this.data;
+            final int base = this.end;
+            for (int i = 0; i < length; ++i) {
+                target[base + i] = (int) source[offset + i] & 0xFF;
+            }
+            this.end += length;
+        }
+    }
+
+    /**
+     * Appends a range of bytes, translating each byte to a code point through a 256-entry table. This is a bulk
+     * operation, intended for table-driven single-byte decoders. If {@code indicateEndOfFile} has already been called,
+     * this has no effect.
+     *
+     * @param source the array containing the bytes to append
+     * @param offset the index of the first byte to append
+     * @param length the number of bytes to append
+     * @param table  the table of code points, indexed by unsigned byte value
+     * @throws IllegalStateException if the queue is bounded and does not have room for all the code points
+     */
+    final void appendMapped(final byte[] source, final int offset, final int length, final int[] table) {
+
+        if (!this.eofQueued) {
+            checkRoomFor(length);
+            ensureRoom(length);
+            beforeWrite(this.end);
+
+            final int[] target = this.data;
+            final int base = this.end;
+            for (int i = 0; i < length; ++i) {
+                target[base + i] = table[(int) source[offset + i] & 0xFF];
+            }
+            this.end += length;
+        }
+    }
+
+    /**
+     * Gets the data array, for encoders in this package that scan the queue in bulk. The code points in the queue are
+     * at indexes {@code rawStart()} through {@code rawStart() + size() - 1}. Callers must not modify the array.
+     *
+     * @return the data array
+     */
+    final int[] rawData() {
+
+        return this.data;
+    }
+
+    /**
+     * Gets the index in the data array of the code point at the head of the queue (see {@code rawData}).
+     *
+     * @return the index
+     */
+    final int rawStart() {
+
+        return this.start;
+    }
+
+    /**
+     * Gets the number of code points the data array can hold before it must grow.
+     *
+     * @return the capacity
+     */
+    final int capacity() {
+
+        return this.data.length;
+    }
+
+    /**
+     * Prepares the queue for reuse by {@code BufferPool}: empties it, clears the end of file indicator, and moves the
+     * head back to the start of the data array. A queue that is bounded, or whose data array is shared with views
+     * returned by {@code subSequence}, is not reusable and is left unchanged.
+     *
+     * @return true if the queue was reset for reuse; false if it should be discarded
+     */
+    final boolean recycle() {
+
+        final boolean reusable = this.maxCapacity == UNBOUNDED && this.sharedLimit == 0;
+
+        if (reusable) {
+            this.start = 0;
+            this.end = 0;
+            this.eofQueued = false;
+        }
+
+        return reusable;
     }
 
     /**
@@ -577,23 +916,27 @@ public class USVQueue implements IUSVSequence {
     }
 
     /**
-     * Computes a hash code for the list.
+     * Computes a hash of the code points in the sequence.
+     *
+     * @return the hash
      */
     @Override
-    public final int hashCode() {
+    public final int hashCodePoints() {
 
-        int hash = 0;
+        return SequenceHash.hash(this.data, this.start, this.end);
+    }
 
-        for (int i = this.start; i < this.end; ++i) {
-            hash += this.data[i];
-        }
+    /**
+     * Computes a hash code for the list. This is not cached since the list is mutable.
+     */
+    @Override
+    public final int hashCode() {
 
-        return hash;
+        return SequenceHash.hash(this.data, this.start, this.end);
     }
 
     /**
-     * Gets an array of the code points in the sequence. The returned array is independent of the sequence and can be
-     * modified without affecting this object.
+     * Tests whether two code point sequences have identical code point arrays.
      *
      * @param other the sequence against which to compare
      * @return {@code true} if this sequence and {@code other} have identical code point arrays
@@ -601,9 +944,46 @@ public class USVQueue implements IUSVSequence {
     @Override
     public final boolean equalsCodePoints(final IUSVSequence other) {
 
-        final int[] otherCPs = other.getCodePoints();
-        final int[] myCPs = getCodePoints();
-        return Arrays.equals(otherCPs, myCPs);
+        boolean equal;
+
+        if (other instanceof final USVQueue queue) {
+            equal = Arrays.equals(this.data, this.start, this.end, queue.data, queue.start, queue.end);
+        } else {
+            final int size = this.end - this.start;
+            equal = size == other.size();
+
+            if (equal) {
+                for (int i = 0; i < size; ++i) {
+                    if (this.data[this.start + i] != other.get(i)) {
+                        equal = false;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return equal;
+    }
+
+    /**
+     * Compares this sequence to another lexicographically by code point.
+     *
+     * @param other the sequence against which to compare
+     * @return a negative value, zero, or a positive value as this sequence is less than, equal to, or greater than
+     *         {@code other}
+     */
+    @Override
+    public final int compareCodePoints(final IUSVSequence other) {
+
+        final int result;
+
+        if (other instanceof final USVQueue queue) {
+            result = Arrays.compare(this.data, this.start, this.end, queue.data, queue.start, queue.end);
+        } else {
+            result = IUSVSequence.super.compareCodePoints(other);
+        }
+
+        return result;
     }
 
     /**
@@ -651,13 +1031,23 @@ public class USVQueue implements IUSVSequence {
     }
 
     /**
-     * Generates a USVString with this object's code points.
+     * Generates a USVString with this object's code points. If all the code points are in the Basic Multilingual Plane,
+     * they are copied into the string's compact storage (one or two bytes per code point rather than four), so a
+     * string that is kept does not hold a full-width array. Otherwise, the string shares this list's data array (see
+     * {@code subSequence}).
      *
      * @return the USVString
      */
     public final USVString toUSVString() {
 
-        return new USVString(this.data, this.start, this.end - this.start);
+        final int len = this.end - this.start;
+
+        int bits = 0;
+        for (int i = this.start; i < this.end; ++i) {
+            bits |= this.data[i];
+        }
+
+        return (bits & NOT_BMP) == 0 ? new USVString(this.data, this.start, len) : subSequence(0, len);
     }
 
     /**
@@ -0,0 +1,796 @@
+package dev.mathops.text;
+
+import java.util.Arrays;
+
+/**
+ * A mutable sequence of code points stored as a balanced tree of immutable {@code USVString} leaves, for large
+ * documents that are edited in place. Inserting, deleting, or fetching a code point at any index costs O(log n) rather
+ * than the O(n) shift of {@code USVQueue.insert} or {@code USVQueue.remove}. This sequence supports the non-Unicode
+ * extended code point range N+110000 - N+1FFFFF in addition to Unicode.
+ *
+ * <p>
+ * The tree is an AVL tree ordered by position: each branch records the number of code points beneath it and its
+ * height, and trees are joined and split with rotations that keep sibling heights within one of each other. Leaves hold
+ * up to {@code MAX_LEAF} code points. A small insertion or deletion rewrites only the leaf it falls in and the branches
+ * above it; adjacent small leaves are merged when trees are joined, so a long run of single-character edits does not
+ * fragment the tree.
+ *
+ * <p>
+ * Nodes are never modified once built, so an edit shares every node it does not rewrite with the tree before the
+ * edit. {@code snapshot} captures the current content in O(1) (for undo, or to hand a stable copy to another thread),
+ * and {@code restore} returns to a snapshot in O(1). Instances are not safe for concurrent modification, but a
+ * snapshot may be read from any thread.
+ */
+public final class USVRope implements IUSVSequence {
+
+    /** The number of code points in each leaf when a tree is built from a sequence. */
+    private static final int LEAF_SIZE = 256;
+
+    /** The maximum number of code points in a leaf built by merging. */
+    private static final int MAX_LEAF = 512;
+
+    /** The root of the tree (null if the rope is empty). */
+    private Node root;
+
+    /**
+     * Constructs a new empty {@code USVRope}.
+     */
+    public USVRope() {
+
+        this.root = null;
+    }
+
+    /**
+     * Constructs a new {@code USVRope} by copying the code points of a sequence. Leaves taken from a {@code USVString}
+     * share its storage, and a rope taken from another {@code USVRope} shares its tree, rather than copying them.
+     *
+     * @param src the sequence whose code points to copy
+     */
+    public USVRope(final IUSVSequence src) {
+
+        this.root = src instanceof final USVRope rope ? rope.root : build(src, 0, src.size());
+    }
+
+    /**
+     * Constructs a new {@code USVRope} by converting a Java string. Unpaired surrogates in the source string are
+     * replaced by the 0xFFFD replacement code point.
+     *
+     * @param src the string whose code points to copy
+     */
+    public USVRope(final CharSequence src) {
+
+        this(new USVString(src));
+    }
+
+    /**
+     * Constructs a new {@code USVRope} with a given tree.
+     *
+     * @param theRoot the root of the tree
+     */
+    private USVRope(final Node theRoot) {
+
+        this.root = theRoot;
+    }
+
+    /**
+     * Tests whether the rope is empty.
+     *
+     * @return true if the rope is empty; false if not
+     */
+    @Override
+    public boolean isEmpty() {
+
+        return this.root == null;
+    }
+
+    /**
+     * Gets the size of the rope (the number of code points).
+     *
+     * @return the size
+     */
+    @Override
+    public int size() {
+
+        return this.root == null ? 0 : this.root.size;
+    }
+
+    /**
+     * Gets the height of the tree (the number of branches on the longest path from the root to a leaf).
+     *
+     * @return the height (-1 if the rope is empty)
+     */
+    int height() {
+
+        return this.root == null ? -1 : this.root.height;
+    }
+
+    /**
+     * Gets a code point.
+     *
+     * @param index the index of the code point to retrieve
+     * @return the code point
+     * @throws IndexOutOfBoundsException if the index is not valid for this rope
+     */
+    @Override
+    public int get(final int index) {
+
+        final int size = size();
+        if (index < 0 || index >= size) {
+            final String msg = "Index " + index + " out of bounds for length " + size;
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        Node node = this.root;
+        int pos = index;
+        while (node.text == null) {
+            final int leftSize = node.left.size;
+            if (pos < leftSize) {
+                node = node.left;
+            } else {
+                pos -= leftSize;
+                node = node.right;
+            }
+        }
+
+        return node.text.get(pos);
+    }
+
+    /**
+     * Inserts the code points of a sequence before a specified index. If the sequence is another {@code USVRope}, its
+     * tree is shared rather than copied.
+     *
+     * @param index the index before which to insert (equal to {@code size()} to append)
+     * @param seq   the sequence to insert
+     * @throws IndexOutOfBoundsException if the index is not valid for this rope
+     * @throws IllegalStateException     if the rope would grow beyond the maximum size
+     */
+    public void insert(final int index, final IUSVSequence seq) {
+
+        final int size = size();
+        if (index < 0 || index > size) {
+            final String msg = "Index " + index + " out of bounds for length " + size;
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        final int count = seq.size();
+        if (count > Integer.MAX_VALUE - size) {
+            throw new IllegalStateException("Rope would exceed maximum size.");
+        }
+
+        if (count > 0) {
+            if (seq instanceof final USVRope rope) {
+                final Node[] parts = split(this.root, index);
+                this.root = join(join(parts[0], rope.root), parts[1]);
+            } else {
+                this.root = insert(this.root, index, seq, count);
+            }
+        }
+    }
+
+    /**
+     * Inserts the code points of a Java string before a specified index. Unpaired surrogates in the string are replaced
+     * by the 0xFFFD replacement code point.
+     *
+     * @param index the index before which to insert (equal to {@code size()} to append)
+     * @param str   the string to insert
+     * @throws IndexOutOfBoundsException if the index is not valid for this rope
+     * @throws IllegalStateException     if the rope would grow beyond the maximum size
+     */
+    public void insert(final int index, final CharSequence str) {
+
+        insert(index, new USVString(str));
+    }
+
+    /**
+     * Appends the code points of a sequence to the end of the rope.
+     *
+     * @param seq the sequence to append
+     * @throws IllegalStateException if the rope would grow beyond the maximum size
+     */
+    public void append(final IUSVSequence seq) {
+
+        insert(size(), seq);
+    }
+
+    /**
+     * Appends the code points of a Java string to the end of the rope. Unpaired surrogates in the string are replaced
+     * by the 0xFFFD replacement code point.
+     *
+     * @param str the string to append
+     * @throws IllegalStateException if the rope would grow beyond the maximum size
+     */
+    public void append(final CharSequence str) {
+
+        insert(size(), new USVString(str));
+    }
+
+    /**
+     * Deletes a range of code points.
+     *
+     * @param start the index of the first code point to delete
+     * @param end   the index after the last code point to delete
+     * @throws IndexOutOfBoundsException if the range is not valid for this rope
+     */
+    public void delete(final int start, final int end) {
+
+        checkRange(start, end);
+
+        if (start < end) {
+            this.root = delete(this.root, start, end);
+        }
+    }
+
+    /**
+     * Replaces a range of code points with the code points of a sequence.
+     *
+     * @param start the index of the first code point to replace
+     * @param end   the index after the last code point to replace
+     * @param seq   the sequence to insert in place of the range
+     * @throws IndexOutOfBoundsException if the range is not valid for this rope
+     * @throws IllegalStateException     if the rope would grow beyond the maximum size
+     */
+    public void replace(final int start, final int end, final IUSVSequence seq) {
+
+        checkRange(start, end);
+
+        final Node before = this.root;
+        delete(start, end);
+        try {
+            insert(start, seq);
+        } catch (final IllegalStateException ex) {
+            this.root = before;
+            throw ex;
+        }
+    }
+
+    /**
+     * Removes all code points from the rope.
+     */
+    public void empty() {
+
+        this.root = null;
+    }
+
+    /**
+     * Captures the current content of the rope. The snapshot shares the rope's tree, so this takes constant time, and
+     * later edits to either rope do not affect the other.
+     *
+     * @return the snapshot
+     */
+    public USVRope snapshot() {
+
+        return new USVRope(this.root);
+    }
+
+    /**
+     * Replaces the content of this rope with the content of a snapshot (or any other rope) in constant time. Later
+     * edits to either rope do not affect the other.
+     *
+     * @param snapshot the rope whose content to adopt
+     */
+    public void restore(final USVRope snapshot) {
+
+        this.root = snapshot.root;
+    }
+
+    /**
+     * Gets a range of this rope as a new rope. The result shares all but O(log n) nodes with this rope, so no code
+     * points are copied, and later edits to either rope do not affect the other.
+     *
+     * @param start the index of the first code point to include
+     * @param end   the index after the last code point to include
+     * @return the new rope
+     * @throws IndexOutOfBoundsException if the range is not valid for this rope
+     */
+    public USVRope slice(final int start, final int end) {
+
+        checkRange(start, end);
+
+        final Node[] tail = split(this.root, start);
+        final Node[] range = split(tail[1], end - start);
+
+        return new USVRope(range[0]);
+    }
+
+    /**
+     * Gets a range of this rope as an immutable string. The code points in the range are copied.
+     *
+     * @param start the index of the first code point to include
+     * @param end   the index after the last code point to include
+     * @return the subsequence
+     * @throws IndexOutOfBoundsException if the range is not valid for this rope
+     */
+    @Override
+    public USVString subSequence(final int start, final int end) {
+
+        checkRange(start, end);
+
+        final int[] codePoints = new int[end - start];
+        copy(this.root, start, end, codePoints, 0);
+
+        return USVString.view(codePoints, 0, codePoints.length);
+    }
+
+    /**
+     * Gets an array of the code points in the rope. The returned array is independent of the rope and can be modified
+     * without affecting this object.
+     *
+     * @return the array of code points
+     */
+    @Override
+    public int[] getCodePoints() {
+
+        final int size = size();
+        final int[] result = new int[size];
+        copy(this.root, 0, size, result, 0);
+
+        return result;
+    }
+
+    /**
+     * Generates a {@code USVString} with this rope's code points.
+     *
+     * @return the string
+     */
+    public USVString toUSVString() {
+
+        final int[] codePoints = getCodePoints();
+
+        return USVString.view(codePoints, 0, codePoints.length);
+    }
+
+    /**
+     * Generates a {@code USVQueue} with this rope's code points.
+     *
+     * @return the queue
+     */
+    public USVQueue toUSVQueue() {
+
+        return new USVQueue(this);
+    }
+
+    /**
+     * Computes a hash of the code points in the sequence.
+     *
+     * @return the hash
+     */
+    @Override
+    public int hashCodePoints() {
+
+        return SequenceHash.hash(getCodePoints(), 0, size());
+    }
+
+    /**
+     * Computes a hash code for the rope. This is not cached since the rope is mutable.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+
+        return hashCodePoints();
+    }
+
+    /**
+     * Tests whether two code point sequences have identical code point arrays.
+     *
+     * @param other the sequence against which to compare
+     * @return {@code true} if this sequence and {@code other} have identical code point arrays
+     */
+    @Override
+    public boolean equalsCodePoints(final IUSVSequence other) {
+
+        final boolean equal;
+
+        if (other instanceof final USVRope rope && rope.root == this.root) {
+            equal = true;
+        } else {
+            equal = size() == other.size() && Arrays.equals(getCodePoints(), other.getCodePoints());
+        }
+
+        return equal;
+    }
+
+    /**
+     * Compares this sequence to another lexicographically by code point.
+     *
+     * @param other the sequence against which to compare
+     * @return a negative value, zero, or a positive value as this sequence is less than, equal to, or greater than
+     *         {@code other}
+     */
+    @Override
+    public int compareCodePoints(final IUSVSequence other) {
+
+        return Arrays.compare(getCodePoints(), other.getCodePoints());
+    }
+
+    /**
+     * Tests whether this object is equal to another.
+     *
+     * @param obj the other object
+     * @return true if {@code obj} is a {@code USVRope} with the same code points
+     */
+    @Override
+    public boolean equals(final Object obj) {
+
+        final boolean equal;
+
+        if (obj == this) {
+            equal = true;
+        } else if (obj instanceof final USVRope rope) {
+            equal = equalsCodePoints(rope);
+        } else {
+            equal = false;
+        }
+
+        return equal;
+    }
+
+    /**
+     * Generates the string representation, which is the Java string formed by doing a UTF-16 encoding of the sequence
+     * of code points.
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+
+        return UnicodePlus.usvArrayToString(getCodePoints(), 0, size());
+    }
+
+    /**
+     * Verifies that a range is valid for this rope.
+     *
+     * @param start the index of the first code point in the range
+     * @param end   the index after the last code point in the range
+     * @throws IndexOutOfBoundsException if the range is not valid
+     */
+    private void checkRange(final int start, final int end) {
+
+        final int size = size();
+        if (start < 0 || end > size || start > end) {
+            final String msg = "Range [" + start + ", " + end + ") out of bounds for length " + size;
+            throw new IndexOutOfBoundsException(msg);
+        }
+    }
+
+    /**
+     * Builds a balanced tree from a range of a sequence, in leaves of {@code LEAF_SIZE} code points.
+     *
+     * @param src   the sequence
+     * @param start the index of the first code point
+     * @param end   the index after the last code point
+     * @return the root of the tree (null if the range is empty)
+     */
+    private static Node build(final IUSVSequence src, final int start, final int end) {
+
+        final Node result;
+
+        final int len = end - start;
+        if (len == 0) {
+            result = null;
+        } else if (len <= LEAF_SIZE) {
+            final USVString text;
+            if (src instanceof final USVString str) {
+                text = str.subSequence(start, end);
+            } else if (src instanceof final USVQueue queue) {
+                text = new USVString(queue.rawData(), queue.rawStart() + start, len);
+            } else {
+                final int[] codePoints = new int[len];
+                for (int i = 0; i < len; ++i) {
+                    codePoints[i] = src.get(start + i);
+                }
+                text = new USVString(codePoints);
+            }
+            result = new Node(text);
+        } else {
+            // Split on a leaf boundary so every leaf but the last is full
+            final int numLeaves = (len + LEAF_SIZE - 1) / LEAF_SIZE;
+            final int mid = start + (numLeaves >> 1) * LEAF_SIZE;
+            result = new Node(build(src, start, mid), build(src, mid, end));
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a leaf, or returns null if the text is empty.
+     *
+     * @param text the text
+     * @return the leaf, or null
+     */
+    private static Node leaf(final USVString text) {
+
+        return text.isEmpty() ? null : new Node(text);
+    }
+
+    /**
+     * Gets the height of a tree.
+     *
+     * @param node the root of the tree (null if the tree is empty)
+     * @return the height (-1 if the tree is empty, 0 for a leaf)
+     */
+    private static int height(final Node node) {
+
+        return node == null ? -1 : node.height;
+    }
+
+    /**
+     * Creates a branch over two subtrees whose heights differ by at most two, rotating if they differ by two.
+     *
+     * @param left  the left subtree
+     * @param right the right subtree
+     * @return the balanced tree
+     */
+    private static Node balance(final Node left, final Node right) {
+
+        final Node result;
+
+        final int leftHeight = height(left);
+        final int rightHeight = height(right);
+
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                result = new Node(left.left, new Node(left.right, right));
+            } else {
+                final Node inner = left.right;
+                result = new Node(new Node(left.left, inner.left), new Node(inner.right, right));
+            }
+        } else if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                result = new Node(new Node(left, right.left), right.right);
+            } else {
+                final Node inner = right.left;
+                result = new Node(new Node(left, inner.left), new Node(inner.right, right.right));
+            }
+        } else {
+            result = new Node(left, right);
+        }
+
+        return result;
+    }
+
+    /**
+     * Joins two trees of any heights into one balanced tree, in O(difference in heights) time. Two small leaves that
+     * meet are merged into one.
+     *
+     * @param left  the left tree (null if empty)
+     * @param right the right tree (null if empty)
+     * @return the joined tree (null if both are empty)
+     */
+    private static Node join(final Node left, final Node right) {
+
+        final Node result;
+
+        if (left == null) {
+            result = right;
+        } else if (right == null) {
+            result = left;
+        } else {
+            final int leftHeight = left.height;
+            final int rightHeight = right.height;
+
+            if (leftHeight > rightHeight + 1) {
+                result = balance(left.left, join(left.right, right));
+            } else if (rightHeight > leftHeight + 1) {
+                result = balance(join(left, right.left), right.right);
+            } else if (left.text != null && right.text != null && left.size + right.size <= MAX_LEAF) {
+                final int[] codePoints = new int[left.size + right.size];
+                copy(left, 0, left.size, codePoints, 0);
+                copy(right, 0, right.size, codePoints, left.size);
+                result = new Node(new USVString(codePoints));
+            } else {
+                result = new Node(left, right);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Splits a tree into the code points before an index and those at or after it.
+     *
+     * @param node  the root of the tree (null if empty)
+     * @param index the index at which to split
+     * @return a two-element array with the left and right trees (either may be null)
+     */
+    private static Node[] split(final Node node, final int index) {
+
+        final Node[] result;
+
+        if (node == null) {
+            result = new Node[]{null, null};
+        } else if (index <= 0) {
+            result = new Node[]{null, node};
+        } else if (index >= node.size) {
+            result = new Node[]{node, null};
+        } else if (node.text != null) {
+            result = new Node[]{new Node(node.text.subSequence(0, index)),
+                    new Node(node.text.subSequence(index, node.size))};
+        } else {
+            final int leftSize = node.left.size;
+            if (index < leftSize) {
+                final Node[] parts = split(node.left, index);
+                result = new Node[]{parts[0], join(parts[1], node.right)};
+            } else if (index > leftSize) {
+                final Node[] parts = split(node.right, index - leftSize);
+                result = new Node[]{join(node.left, parts[0]), parts[1]};
+            } else {
+                result = new Node[]{node.left, node.right};
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Inserts code points into a tree. An insertion that fits in the leaf where it falls rewrites only that leaf and
+     * the branches above it.
+     *
+     * @param node  the root of the tree (null if empty)
+     * @param index the index before which to insert
+     * @param seq   the sequence to insert
+     * @param count the number of code points in the sequence
+     * @return the new tree
+     */
+    private static Node insert(final Node node, final int index, final IUSVSequence seq, final int count) {
+
+        final Node result;
+
+        if (node == null) {
+            result = build(seq, 0, count);
+        } else if (node.text != null) {
+            final USVString text = node.text;
+            final int size = node.size;
+
+            if (size + count <= MAX_LEAF) {
+                final int[] codePoints = new int[size + count];
+                for (int i = 0; i < index; ++i) {
+                    codePoints[i] = text.get(i);
+                }
+                for (int i = 0; i < count; ++i) {
+                    codePoints[index + i] = seq.get(i);
+                }
+                for (int i = index; i < size; ++i) {
+                    codePoints[count + i] = text.get(i);
+                }
+                result = new Node(new USVString(codePoints));
+            } else {
+                final Node before = leaf(text.subSequence(0, index));
+                final Node after = leaf(text.subSequence(index, size));
+                result = join(join(before, build(seq, 0, count)), after);
+            }
+        } else {
+            final int leftSize = node.left.size;
+            if (index <= leftSize) {
+                result = join(insert(node.left, index, seq, count), node.right);
+            } else {
+                result = join(node.left, insert(node.right, index - leftSize, seq, count));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Deletes a nonempty range of code points from a tree.
+     *
+     * @param node  the root of the tree
+     * @param start the index of the first code point to delete
+     * @param end   the index after the last code point to delete
+     * @return the new tree (null if it is empty)
+     */
+    private static Node delete(final Node node, final int start, final int end) {
+
+        final Node result;
+
+        final int size = node.size;
+        if (start == 0 && end == size) {
+            result = null;
+        } else if (node.text != null) {
+            final USVString text = node.text;
+            if (start == 0) {
+                result = new Node(text.subSequence(end, size));
+            } else if (end == size) {
+                result = new Node(text.subSequence(0, start));
+            } else {
+                final int[] codePoints = new int[size - end + start];
+                for (int i = 0; i < start; ++i) {
+                    codePoints[i] = text.get(i);
+                }
+                for (int i = end; i < size; ++i) {
+                    codePoints[start + i - end] = text.get(i);
+                }
+                result = new Node(new USVString(codePoints));
+            }
+        } else {
+            final int leftSize = node.left.size;
+            final Node left = start < leftSize ? delete(node.left, start, Math.min(end, leftSize)) : node.left;
+            final Node right = end > leftSize ? delete(node.right, Math.max(start - leftSize, 0), end - leftSize)
+                    : node.right;
+            result = join(left, right);
+        }
+
+        return result;
+    }
+
+    /**
+     * Copies a range of the code points in a tree into an array.
+     *
+     * @param node   the root of the tree (null if empty)
+     * @param start  the index of the first code point to copy
+     * @param end    the index after the last code point to copy
+     * @param target the array into which to copy
+     * @param offset the index in {@code target} at which to store the first code point
+     */
+    private static void copy(final Node node, final int start, final int end, final int[] target, final int offset) {
+
+        if (node != null && start < end) {
+            if (node.text != null) {
+                final USVString text = node.text;
+                for (int i = start; i < end; ++i) {
+                    target[offset + i - start] = text.get(i);
+                }
+            } else {
+                final int leftSize = node.left.size;
+                if (start < leftSize) {
+                    copy(node.left, start, Math.min(end, leftSize), target, offset);
+                }
+                if (end > leftSize) {
+                    final int rightStart = Math.max(start - leftSize, 0);
+                    copy(node.right, rightStart, end - leftSize, target, offset + rightStart + leftSize - start);
+                }
+            }
+        }
+    }
+
+    /**
+     * A node in the tree: either a leaf with text, or a branch with two nonempty subtrees. Nodes are immutable.
+     */
+    private static final class Node {
+
+        /** The left subtree (null for a leaf). */
+        final Node left;
+
+        /** The right subtree (null for a leaf). */
+        final Node right;
+
+        /** The text (null for a branch). */
+        final USVString text;
+
+        /** The number of code points in this subtree. */
+        final int size;
+
+        /** The height of this subtree (0 for a leaf). */
+        final int height;
+
+        /**
+         * Constructs a new leaf.
+         *
+         * @param theText the text
+         */
+        Node(final USVString theText) {
+
+            this.left = null;
+            this.right = null;
+            this.text = theText;
+            this.size = theText.size();
+            this.height = 0;
+        }
+
+        /**
+         * Constructs a new branch.
+         *
+         * @param theLeft  the left subtree
+         * @param theRight the right subtree
+         */
+        Node(final Node theLeft, final Node theRight) {
+
+            this.left = theLeft;
+            this.right = theRight;
+            this.text = null;
+            this.size = theLeft.size + theRight.size;
+            this.height = Math.max(theLeft.height, theRight.height) + 1;
+        }
+    }
+}
@@ -1,19 +1,54 @@
 package dev.mathops.text;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 /**
  * An immutable string made up of code points (rather than UTF-16 code units), as defined in
  * <a href="https://webidl.spec.whatwg.org/#idl-USVString">WebIDL</a>.  This string supports
  * the non-Unicode extended code point range N+110000 - N+1FFFFF in addition to Unicode.
+ *
+ * <p>
+ * Storage is chosen at construction time based on the largest code point in the string: a byte array when every code
+ * point is in the Latin-1 range (0x00 - 0xFF), a char array when every code point is in the Basic Multilingual Plane
+ * (0x0000 - 0xFFFF), and an int array otherwise.  Exactly one of the three arrays is non-null.
+ *
+ * <p>
+ * A string may be a view of a range of a larger array (see {@code subSequence}), in which case it shares that array
+ * rather than copying it.  Views share the storage type of the string (or queue) they were taken from, so two equal
+ * strings do not necessarily use the same kind of array.
  */
 public class USVString implements IUSVSequence {
 
     /** An empty USVString. */
     public static final USVString EMPTY = new USVString(new int[0]);
 
-    /** The code points in the string. */
-    private final int[] codePoints;
+    /** Mask for Latin-1 values. */
+    private static final int LATIN1_MASK = 0xFF;
+
+    /** Bits that must be clear in a Latin-1 code point. */
+    private static final int NOT_LATIN1 = ~0xFF;
+
+    /** Bits that must be clear in a Basic Multilingual Plane code point. */
+    private static final int NOT_BMP = ~0xFFFF;
+
+    /** The code points in the string, if all are in the Latin-1 range; null otherwise. */
+    private final byte[] latin1;
+
+    /** The code points in the string, if all are in the BMP but some are not Latin-1; null otherwise. */
+    private final char[] bmp;
+
+    /** The code points in the string, if some are beyond the BMP; null otherwise. */
+    private final int[] wide;
+
+    /** The index in the backing array of the first code point in the string. */
+    private final int offset;
+
+    /** The number of code points in the string. */
+    private final int length;
+
+    /** The cached hash code (computed on first use, zero until then). */
+    private int hash;
 
     /**
      * Constructs a new {@code USVString}.
@@ -22,7 +57,7 @@ public class USVString implements IUSVSequence {
      */
     public USVString(final int[] theCodePoints) {
 
-        this.codePoints = theCodePoints.clone();
+        this(theCodePoints, 0, theCodePoints.length);
     }
 
     /**
@@ -34,8 +69,37 @@ public class USVString implements IUSVSequence {
      */
     public USVString(final int[] theCodePoints, final int start, final int length) {
 
-        this.codePoints = new int[length];
-        System.arraycopy(theCodePoints, start, this.codePoints, 0, length);
+        final int end = start + length;
+
+        int bits = 0;
+        for (int i = start; i < end; ++i) {
+            bits |= theCodePoints[i];
+        }
+
+        if ((bits & NOT_LATIN1) == 0) {
+            final byte[] array = new byte[length];
+            for (int i = 0; i < length; ++i) {
+                array[i] = (byte) theCodePoints[start + i];
+            }
+            this.latin1 = array;
+            this.bmp = null;
+            this.wide = null;
+        } else if ((bits & NOT_BMP) == 0) {
+            final char[] array = new char[length];
+            for (int i = 0; i < length; ++i) {
+                array[i] = (char) theCodePoints[start + i];
+            }
+            this.latin1 = null;
+            this.bmp = array;
+            this.wide = null;
+        } else {
+            this.latin1 = null;
+            this.bmp = null;
+            this.wide = Arrays.copyOfRange(theCodePoints, start, end);
+        }
+
+        this.offset = 0;
+        this.length = length;
     }
 
     /**
@@ -46,16 +110,160 @@ public class USVString implements IUSVSequence {
      */
     public USVString(final CharSequence theString) {
 
-        this.codePoints = theString.codePoints().toArray();
+        final int numChars = theString.length();
+
+        int bits = 0;
+        boolean surrogates = false;
+        for (int i = 0; i < numChars; ++i) {
+            final int ch = (int) theString.charAt(i);
+            bits |= ch;
+            if (ch >= UnicodePlus.MIN_UNICODE_HIGH_SURROGATE && ch < UnicodePlus.MIN_UNICODE_PRIVATE_USE) {
+                surrogates = true;
+            }
+        }
 
-        // If there are leftover, unpaired surrogates, replace with the replacement code point
-        for (int i = 0; i < this.codePoints.length; ++i) {
-            final int cp = this.codePoints[i];
+        if ((bits & NOT_LATIN1) == 0) {
+            final byte[] array = new byte[numChars];
+            for (int i = 0; i < numChars; ++i) {
+                array[i] = (byte) theString.charAt(i);
+            }
+            this.latin1 = array;
+            this.bmp = null;
+            this.wide = null;
+            this.length = numChars;
+        } else if (surrogates) {
+            final int[] array = theString.codePoints().toArray();
+
+            // If there are leftover, unpaired surrogates, replace with the replacement code point
+            int wideBits = 0;
+            for (int i = 0; i < array.length; ++i) {
+                final int cp = array[i];
+
+                if (cp >= 0xD800 && cp <= 0xDFFF) {
+                    array[i] = 0xFFFD;
+                }
+                wideBits |= array[i];
+            }
 
-            if (cp >= 0xD800 && cp <= 0xDFFF) {
-                this.codePoints[i] = 0xFFFD;
+            if ((wideBits & NOT_BMP) == 0) {
+                // Only unpaired surrogates, which have now been replaced
+                final char[] chars = new char[array.length];
+                for (int i = 0; i < array.length; ++i) {
+                    chars[i] = (char) array[i];
+                }
+                this.latin1 = null;
+                this.bmp = chars;
+                this.wide = null;
+            } else {
+                this.latin1 = null;
+                this.bmp = null;
+                this.wide = array;
             }
+            this.length = array.length;
+        } else {
+            final char[] array = new char[numChars];
+            for (int i = 0; i < numChars; ++i) {
+                array[i] = theString.charAt(i);
+            }
+            this.latin1 = null;
+            this.bmp = array;
+            this.wide = null;
+            this.length = numChars;
         }
+
+        this.offset = 0;
+    }
+
+    /**
+     * Constructs a new {@code USVString} that shares a range of an existing backing array. Exactly one of the arrays
+     * must be non-null.
+     *
+     * @param theLatin1 the Latin-1 backing array, or null
+     * @param theBmp    the BMP backing array, or null
+     * @param theWide   the full-width backing array, or null
+     * @param theOffset the index of the first code point in the backing array
+     * @param theLength the number of code points
+     */
+    private USVString(final byte[] theLatin1, final char[] theBmp, final int[] theWide, final int theOffset,
+                      final int theLength) {
+
+        this.latin1 = theLatin1;
+        this.bmp = theBmp;
+        this.wide = theWide;
+        this.offset = theOffset;
+        this.length = theLength;
+    }
+
+    /**
+     * Creates a {@code USVString} that is a view of a range of a code point array, without copying. The caller must
+     * ensure the range of the array is never modified while the string is reachable.
+     *
+     * @param theCodePoints the array of code points
+     * @param start         the index of the first code point
+     * @param length        the number of code points
+     * @return the string
+     */
+    static USVString view(final int[] theCodePoints, final int start, final int length) {
+
+        return new USVString(null, null, theCodePoints, start, length);
+    }
+
+    /**
+     * Creates a {@code USVString} that is a view of a range of a byte array, without copying. Each byte is treated as
+     * a Latin-1 code point from 0x00 to 0xFF. The caller must ensure the range of the array is never modified while
+     * the string is reachable.
+     *
+     * @param theBytes the array of bytes
+     * @param start    the index of the first byte
+     * @param length   the number of bytes
+     * @return the string
+     */
+    static USVString latin1View(final byte[] theBytes, final int start, final int length) {
+
+        return new USVString(theBytes, null, null, start, length);
+    }
+
+    /**
+     * Gets the array that stores this string's code points if they are all in the Latin-1 range. The code points are
+     * at indexes {@code rawOffset()} through {@code rawOffset() + size() - 1}. Callers must not modify the array.
+     *
+     * @return the byte array, or null if the string is not stored as bytes
+     */
+    final byte[] rawLatin1() {
+
+        return this.latin1;
+    }
+
+    /**
+     * Gets the array that stores this string's code points if they are all in the Basic Multilingual Plane but not all
+     * Latin-1 (see {@code rawLatin1}).
+     *
+     * @return the char array, or null if the string is not stored as chars
+     */
+    final char[] rawBmp() {
+
+        return this.bmp;
+    }
+
+    /**
+     * Gets the array that stores this string's code points if some are beyond the Basic Multilingual Plane (see
+     * {@code rawLatin1}).
+     *
+     * @return the int array, or null if the string is not stored as ints
+     */
+    final int[] rawWide() {
+
+        return this.wide;
+    }
+
+    /**
+     * Gets the index in the backing array of the first code point of this string (see {@code rawLatin1}).
+     *
+     * @return the index
+     */
+    final int rawOffset() {
+
+        return this.offset;
     }
 
     /**
@@ -66,7 +274,7 @@ public class USVString implements IUSVSequence {
     @Override
     public final boolean isEmpty() {
 
-        return this.codePoints.length == 0;
+        return this.length == 0;
     }
 
     /**
@@ -77,7 +285,7 @@ public class USVString implements IUSVSequence {
     @Override
     public final int size() {
 
-        return this.codePoints.length;
+        return this.length;
     }
 
     /**
@@ -85,11 +293,55 @@ public class USVString implements IUSVSequence {
      *
      * @param index the index of the code point to retrieve
      * @return the code point
+     * @throws IndexOutOfBoundsException if the index is not valid for this string
      */
     @Override
     public final int get(final int index) {
 
-        return this.codePoints[index];
+        if (index < 0 || index >= this.length) {
+            final String msg = "Index " + index + " out of bounds for length " + this.length;
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        final int result;
+
+        if (this.latin1 != null) {
+            result = (int) this.latin1[this.offset + index] & LATIN1_MASK;
+        } else if (this.bmp != null) {
+            result = (int) this.bmp[this.offset + index];
+        } else {
+            result = this.wide[this.offset + index];
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets a range of this string as a new string. The result shares this string's backing array, so no code points
+     * are copied.
+     *
+     * @param start the index of the first code point to include
+     * @param end   the index after the last code point to include
+     * @return the substring
+     * @throws IndexOutOfBoundsException if the range is not valid for this string
+     */
+    @Override
+    public final USVString subSequence(final int start, final int end) {
+
+        if (start < 0 || end > this.length || start > end) {
+            final String msg = "Range [" + start + ", " + end + ") out of bounds for length " + this.length;
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        final USVString result;
+
+        if (start == 0 && end == this.length) {
+            result = this;
+        } else {
+            result = new USVString(this.latin1, this.bmp, this.wide, this.offset + start, end - start);
+        }
+
+        return result;
     }
 
     /**
@@ -101,29 +353,63 @@ public class USVString implements IUSVSequence {
     @Override
     public final int[] getCodePoints() {
 
-        return this.codePoints.clone();
+        final int[] result;
+
+        if (this.latin1 != null) {
+            result = new int[this.length];
+            for (int i = 0; i < this.length; ++i) {
+                result[i] = (int) this.latin1[this.offset + i] & LATIN1_MASK;
+            }
+        } else if (this.bmp != null) {
+            result = new int[this.length];
+            for (int i = 0; i < this.length; ++i) {
+                result[i] = (int) this.bmp[this.offset + i];
+            }
+        } else {
+            result = Arrays.copyOfRange(this.wide, this.offset, this.offset + this.length);
+        }
+
+        return result;
     }
 
     /**
-     * Gets the hash code for the object.
+     * Computes a hash of the code points in the sequence.
+     *
+     * @return the hash
+     */
+    @Override
+    public final int hashCodePoints() {
+
+        return hashCode();
+    }
+
+    /**
+     * Gets the hash code for the object. The hash is computed on first use and cached.
      *
      * @return the hash code
      */
     @Override
     public final int hashCode() {
 
-        int hash = 0;
+        int h = this.hash;
 
-        for (final int cp : this.codePoints) {
-            hash += cp;
+        if (h == 0) {
+            final int end = this.offset + this.length;
+            if (this.latin1 != null) {
+                h = SequenceHash.hash(this.latin1, this.offset, end);
+            } else if (this.bmp != null) {
+                h = SequenceHash.hash(this.bmp, this.offset, end);
+            } else {
+                h = SequenceHash.hash(this.wide, this.offset, end);
+            }
+            this.hash = h;
         }
 
-        return hash;
+        return h;
     }
 
     /**
-     * Gets an array of the code points in the sequence. The returned array is independent of the sequence and can be
-     * modified without affecting this object.
+     * Tests whether two code point sequences have identical code point arrays.
      *
      * @param other the sequence against which to compare
      * @return {@code true} if this sequence and {@code other} have identical code point arrays
@@ -131,9 +417,64 @@ public class USVString implements IUSVSequence {
     @Override
     public final boolean equalsCodePoints(final IUSVSequence other) {
 
-        final int[] otherCPs = other.getCodePoints();
-        final int[] myCPs = getCodePoints();
-        return Arrays.equals(otherCPs, myCPs);
+        boolean equal;
+
+        if (other instanceof final USVString str) {
+            equal = equals(str);
+        } else {
+            equal = this.length == other.size();
+
+            if (equal) {
+                for (int i = 0; i < this.length; ++i) {
+                    if (get(i) != other.get(i)) {
+                        equal = false;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return equal;
+    }
+
+    /**
+     * Compares this sequence to another lexicographically by code point.
+     *
+     * @param other the sequence against which to compare
+     * @return a negative value, zero, or a positive value as this sequence is less than, equal to, or greater than
+     *         {@code other}
+     */
+    @Override
+    public final int compareCodePoints(final IUSVSequence other) {
+
+        final int result;
+
+        final int end = this.offset + this.length;
+        if (other instanceof final USVString u && sameStorage(u)) {
+            final int uEnd = u.offset + u.length;
+            if (this.latin1 != null) {
+                result = Arrays.compareUnsigned(this.latin1, this.offset, end, u.latin1, u.offset, uEnd);
+            } else if (this.bmp != null) {
+                result = Arrays.compare(this.bmp, this.offset, end, u.bmp, u.offset, uEnd);
+            } else {
+                result = Arrays.compare(this.wide, this.offset, end, u.wide, u.offset, uEnd);
+            }
+        } else {
+            result = IUSVSequence.super.compareCodePoints(other);
+        }
+
+        return result;
+    }
+
+    /**
+     * Tests whether another string uses the same kind of backing array as this string.
+     *
+     * @param other the other string
+     * @return true if both strings use the same kind of backing array
+     */
+    private boolean sameStorage(final USVString other) {
+
+        return (this.latin1 == null) == (other.latin1 == null) && (this.bmp == null) == (other.bmp == null);
     }
 
     /**
@@ -150,15 +491,25 @@ public class USVString implements IUSVSequence {
         if (obj == this) {
             equal = true;
         } else if (obj instanceof USVString u) {
-            equal = this.codePoints.length == u.codePoints.length;
-
-            if (equal) {
-                for (int i = 0; i < this.codePoints.length; ++i) {
-                    if (this.codePoints[i] != u.codePoints[i]) {
-                        equal = false;
-                        break;
+            final int end = this.offset + this.length;
+            final int uEnd = u.offset + u.length;
+
+            if (!sameStorage(u)) {
+                equal = this.length == u.length;
+                if (equal) {
+                    for (int i = 0; i < this.length; ++i) {
+                        if (get(i) != u.get(i)) {
+                            equal = false;
+                            break;
+                        }
                     }
                 }
+            } else if (this.latin1 != null) {
+                equal = Arrays.equals(this.latin1, this.offset, end, u.latin1, u.offset, uEnd);
+            } else if (this.bmp != null) {
+                equal = Arrays.equals(this.bmp, this.offset, end, u.bmp, u.offset, uEnd);
+            } else {
+                equal = Arrays.equals(this.wide, this.offset, end, u.wide, u.offset, uEnd);
             }
         } else {
             equal = false;
@@ -175,6 +526,16 @@ public class USVString implements IUSVSequence {
     @Override
     public final String toString() {
 
-        return UnicodePlus.usvArrayToString(this.codePoints, 0, this.codePoints.length);
+        final String result;
+
+        if (this.latin1 != null) {
+            result = new String(this.latin1, this.offset, this.length, StandardCharsets.ISO_8859_1);
+        } else if (this.bmp != null) {
+            result = new String(this.bmp, this.offset, this.length);
+        } else {
+            result = UnicodePlus.usvArrayToString(this.wide, this.offset, this.offset + this.length);
+        }
+
+        return result;
     }
 }
@@ -0,0 +1,285 @@
+package dev.mathops.text;
+
+/**
+ * An incremental UTF-8 decoder that moves bytes from a {@code ByteQueue} to code points in a {@code USVQueue}, as
+ * defined by the "UTF-8 decoder" in the <a href="https://encoding.spec.whatwg.org/#utf-8-decoder">WhatWG Encoding
+ * Standard</a>.
+ *
+ * <p>
+ * Bytes may arrive in chunks of any size. A multibyte sequence that is split across chunks is carried in the decoder
+ * state until the rest of it arrives, so the decoder must be used for one stream at a time. Malformed sequences are
+ * replaced by U+FFFD (the "replacement" error mode).
+ *
+ * <p>
+ * When constructed to allow Unicode+, the decoder also accepts the 4-byte sequences with lead bytes 0xF4 (above
+ * 0xF4 0x8F) through 0xF7, which encode the non-Unicode extended range N+110000 - N+1FFFFF. These sequences are
+ * produced by {@code UTF8Encoder} when it is constructed to allow Unicode+.
+ */
+public final class UTF8Decoder {
+
+    /** The replacement code point emitted for malformed sequences. */
+    private static final int REPLACEMENT = 0xFFFD;
+
+    /** The result from {@code step} when the byte was accepted but more bytes are needed. */
+    private static final int NEED_MORE = -1;
+
+    /**
+     * The result from {@code step} when a sequence was interrupted by a byte that is not a valid continuation byte.
+     * A replacement code point is emitted, and the byte is "restored to the stream" (not consumed) so it can begin a
+     * new sequence.
+     */
+    private static final int ERROR_RESTORE = -2;
+
+    /** The default lower boundary for continuation bytes. */
+    private static final int DEFAULT_LOWER = 0x80;
+
+    /** The default upper boundary for continuation bytes. */
+    private static final int DEFAULT_UPPER = 0xBF;
+
+    /** True to accept sequences that encode the non-Unicode extended range. */
+    private final boolean allowUnicodePlus;
+
+    /** The code point being assembled from a multibyte sequence. */
+    private int codePoint;
+
+    /** The number of continuation bytes seen so far in the current sequence. */
+    private int bytesSeen;
+
+    /** The number of continuation bytes needed by the current sequence (0 if not in a sequence). */
+    private int bytesNeeded;
+
+    /** The lowest value allowed for the next continuation byte. */
+    private int lowerBoundary = DEFAULT_LOWER;
+
+    /** The highest value allowed for the next continuation byte. */
+    private int upperBoundary = DEFAULT_UPPER;
+
+    /**
+     * Constructs a new {@code UTF8Decoder} that accepts only Unicode scalar values.
+     */
+    public UTF8Decoder() {
+
+        this(false);
+    }
+
+    /**
+     * Constructs a new {@code UTF8Decoder}.
+     *
+     * @param theAllowUnicodePlus true to accept sequences that encode the non-Unicode extended range N+110000 -
+     *                            N+1FFFFF
+     */
+    public UTF8Decoder(final boolean theAllowUnicodePlus) {
+
+        this.allowUnicodePlus = theAllowUnicodePlus;
+    }
+
+    /**
+     * Tests whether the decoder holds an incomplete multibyte sequence.
+     *
+     * @return true if a sequence is pending
+     */
+    public boolean isPending() {
+
+        return this.bytesNeeded != 0;
+    }
+
+    /**
+     * Discards any incomplete sequence so the decoder can be used for a new stream.
+     */
+    public void reset() {
+
+        this.codePoint = 0;
+        this.bytesSeen = 0;
+        this.bytesNeeded = 0;
+        this.lowerBoundary = DEFAULT_LOWER;
+        this.upperBoundary = DEFAULT_UPPER;
+    }
+
+    /**
+     * Decodes as many bytes from the head of an input queue as possible, appending code points to an output queue.
+     * Decoding stops when the input is empty or the output queue is full. Bytes are consumed from the input as they are
+     * decoded; the bytes of an incomplete sequence at the end of the input are consumed and held by the decoder.
+     *
+     * <p>
+     * If the input queue has had end of file indicated and decoding empties it, this also calls {@code finish}.
+     *
+     * @param input  the queue from which to consume bytes
+     * @param output the queue to which to append code points
+     * @return the number of code points appended to the output
+     */
+    public int decode(final ByteQueue input, final USVQueue output) {
+
+        final byte[] data = input.rawData();
+        int pos = input.rawStart();
+        final int end = input.rawEnd();
+        int produced = 0;
+        int room = output.remainingCapacity();
+
+        while (pos < end && room > 0) {
+            final int b = (int) data[pos] & 0xFF;
+
+            if (this.bytesNeeded == 0 && b < 0x80) {
+                // ASCII fast path: move the whole run in bulk
+                final int limit = pos + Math.min(room, end - pos);
+                int runEnd = pos + 1;
+                while (runEnd < limit && data[runEnd] >= 0) {
+                    ++runEnd;
+                }
+                final int count = runEnd - pos;
+                output.appendLatin1(data, pos, count);
+                pos = runEnd;
+                produced += count;
+                room -= count;
+                continue;
+            }
+
+            final int cp = step(b);
+            if (cp == NEED_MORE) {
+                ++pos;
+            } else {
+                if (cp == ERROR_RESTORE) {
+                    output.append(REPLACEMENT);
+                } else {
+                    output.append(cp);
+                    ++pos;
+                }
+                ++produced;
+                --room;
+            }
+        }
+
+        input.consume(pos - input.rawStart());
+
+        if (input.isEmpty() && input.isEndOfFileIndicated() && room > 0 && finish(output)) {
+            ++produced;
+        }
+
+        return produced;
+    }
+
+    /**
+     * Decodes a range of a byte array, appending code points to an output queue. Unlike
+     * {@code decode(ByteQueue, USVQueue)}, this does not stop when a bounded output queue is full; the output queue
+     * must have room for one code point per byte.
+     *
+     * @param source the array containing the bytes to decode
+     * @param offset the index of the first byte to decode
+     * @param length the number of bytes to decode
+     * @param output the queue to which to append code points
+     * @return the number of code points appended to the output
+     * @throws IllegalStateException if the output is bounded and becomes full
+     */
+    public int decode(final byte[] source, final int offset, final int length, final USVQueue output) {
+
+        int pos = offset;
+        final int end = offset + length;
+        int produced = 0;
+
+        while (pos < end) {
+            final int b = (int) source[pos] & 0xFF;
+
+            if (this.bytesNeeded == 0 && b < 0x80) {
+                int runEnd = pos + 1;
+                while (runEnd < end && source[runEnd] >= 0) {
+                    ++runEnd;
+                }
+                final int count = runEnd - pos;
+                output.appendLatin1(source, pos, count);
+                pos = runEnd;
+                produced += count;
+                continue;
+            }
+
+            final int cp = step(b);
+            if (cp == NEED_MORE) {
+                ++pos;
+            } else {
+                if (cp == ERROR_RESTORE) {
+                    output.append(REPLACEMENT);
+                } else {
+                    output.append(cp);
+                    ++pos;
+                }
+                ++produced;
+            }
+        }
+
+        return produced;
+    }
+
+    /**
+     * Signals the end of the byte stream. If an incomplete sequence is pending, a replacement code point is appended to
+     * the output and the decoder is reset.
+     *
+     * @param output the queue to which to append a replacement code point if needed
+     * @return true if a replacement code point was appended
+     * @throws IllegalStateException if a replacement is needed and the output is bounded and full
+     */
+    public boolean finish(final USVQueue output) {
+
+        final boolean pending = this.bytesNeeded != 0;
+
+        if (pending) {
+            reset();
+            output.append(REPLACEMENT);
+        }
+
+        return pending;
+    }
+
+    /**
+     * Runs the UTF-8 decoder handler on one byte.
+     *
+     * @param b the byte (0 to 255)
+     * @return the decoded code point, {@code REPLACEMENT} on an error that consumes the byte, {@code ERROR_RESTORE} on
+     *         an error that does not consume the byte, or {@code NEED_MORE} if more bytes are needed
+     */
+    private int step(final int b) {
+
+        int result = NEED_MORE;
+
+        if (this.bytesNeeded == 0) {
+            if (b < 0x80) {
+                result = b;
+            } else if (b >= 0xC2 && b <= 0xDF) {
+                this.bytesNeeded = 1;
+                this.codePoint = b & 0x1F;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                if (b == 0xE0) {
+                    this.lowerBoundary = 0xA0;
+                } else if (b == 0xED) {
+                    this.upperBoundary = 0x9F;
+                }
+                this.bytesNeeded = 2;
+                this.codePoint = b & 0x0F;
+            } else if (b >= 0xF0 && b <= 0xF4 || this.allowUnicodePlus && b >= 0xF5 && b <= 0xF7) {
+                if (b == 0xF0) {
+                    this.lowerBoundary = 0x90;
+                } else if (b == 0xF4 && !this.allowUnicodePlus) {
+                    this.upperBoundary = 0x8F;
+                }
+                this.bytesNeeded = 3;
+                this.codePoint = b & 0x07;
+            } else {
+                result = REPLACEMENT;
+            }
+        } else if (b < this.lowerBoundary || b > this.upperBoundary) {
+            reset();
+            result = ERROR_RESTORE;
+        } else {
+            this.lowerBoundary = DEFAULT_LOWER;
+            this.upperBoundary = DEFAULT_UPPER;
+            this.codePoint = (this.codePoint << 6) | (b & 0x3F);
+            ++this.bytesSeen;
+
+            if (this.bytesSeen == this.bytesNeeded) {
+                result = this.codePoint;
+                this.codePoint = 0;
+                this.bytesSeen = 0;
+                this.bytesNeeded = 0;
+            }
+        }
+
+        return result;
+    }
+}
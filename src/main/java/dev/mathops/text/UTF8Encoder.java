@@ -0,0 +1,475 @@
+package dev.mathops.text;
+
+import dev.mathops.text.builder.USVBuilder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An incremental UTF-8 encoder that moves code points from a {@code USVQueue} (or a {@code CharSequence}) to bytes in
+ * a {@code ByteQueue}, as defined by the "UTF-8 encoder" in the
+ * <a href="https://encoding.spec.whatwg.org/#utf-8-encoder">WhatWG Encoding Standard</a>.
+ *
+ * <p>
+ * The encoder never splits a code point's byte sequence: if a bounded output queue does not have room for a complete
+ * sequence, encoding stops and the code point remains in the input, so encoding can resume once the output has been
+ * drained. Code points that are not Unicode scalar values (surrogates, and values beyond 0x10FFFF) are encoded as
+ * U+FFFD.
+ *
+ * <p>
+ * When constructed to allow Unicode+, the encoder instead encodes code points in the non-Unicode extended range
+ * N+110000 - N+1FFFFF as 4-byte sequences with lead bytes 0xF4 (followed by 0x90 or above) through 0xF7, using the same
+ * bit layout as other 4-byte sequences. {@code UTF8Decoder} accepts these sequences when it is constructed to allow
+ * Unicode+.
+ *
+ * <p>
+ * Code points can also be encoded straight from an {@code int[]} range, an {@code IUSVSequence}, or a
+ * {@code USVBuilder} into a caller-supplied {@code ByteBuffer} (use {@code ByteBuffer.wrap} to target a
+ * {@code byte[]}), with no intermediate {@code String}. These methods return the index of the first code point not
+ * encoded, so when the buffer fills the caller can drain it and resume from that index. {@code encodedLength} computes
+ * the exact number of bytes in advance.
+ */
+public final class UTF8Encoder {
+
+    /** The replacement code point used for code points that cannot be encoded. */
+    private static final int REPLACEMENT = 0xFFFD;
+
+    /** True to encode the non-Unicode extended range. */
+    private final boolean allowUnicodePlus;
+
+    /**
+     * Constructs a new {@code UTF8Encoder} that encodes only Unicode scalar values.
+     */
+    public UTF8Encoder() {
+
+        this(false);
+    }
+
+    /**
+     * Constructs a new {@code UTF8Encoder}.
+     *
+     * @param theAllowUnicodePlus true to encode code points in the non-Unicode extended range N+110000 - N+1FFFFF
+     */
+    public UTF8Encoder(final boolean theAllowUnicodePlus) {
+
+        this.allowUnicodePlus = theAllowUnicodePlus;
+    }
+
+    /**
+     * Encodes as many code points from the head of an input queue as possible, appending bytes to an output queue.
+     * Encoding stops when the input is empty or the output queue does not have room for the next code point's bytes.
+     * Code points are consumed from the input as they are encoded.
+     *
+     * @param input  the queue from which to consume code points
+     * @param output the queue to which to append bytes
+     * @return the number of bytes appended to the output
+     */
+    public int encode(final USVQueue input, final ByteQueue output) {
+
+        final int[] source = input.rawData();
+        final int start = input.rawStart();
+        final int end = start + input.size();
+        int pos = start;
+        int written = 0;
+
+        while (pos < end) {
+            final int room = output.remainingCapacity();
+
+            // ASCII fast path: copy the whole run in bulk
+            final int limit = pos + Math.min(room, end - pos);
+            int runEnd = pos;
+            while (runEnd < limit && source[runEnd] < 0x80) {
+                ++runEnd;
+            }
+
+            if (runEnd > pos) {
+                final int count = runEnd - pos;
+                output.reserve(count);
+                final byte[] target = output.rawData();
+                final int base = output.rawEnd();
+                for (int i = 0; i < count; ++i) {
+                    target[base + i] = (byte) source[pos + i];
+                }
+                output.commit(count);
+                written += count;
+                pos = runEnd;
+            } else {
+                final int cp = encodable(source[pos]);
+                final int len = encodedLength(cp);
+                if (len > room) {
+                    break;
+                }
+                output.reserve(len);
+                put(cp, len, output.rawData(), output.rawEnd());
+                output.commit(len);
+                written += len;
+                ++pos;
+            }
+        }
+
+        input.consume(pos - start);
+
+        return written;
+    }
+
+    /**
+     * Encodes the code points in a range of a character sequence, appending bytes to an output queue. Unpaired
+     * surrogates are encoded as U+FFFD. Encoding stops at the end of the range or when the output queue does not have
+     * room for the next code point's bytes.
+     *
+     * @param input  the character sequence
+     * @param start  the index of the first character to encode
+     * @param end    the index after the last character to encode
+     * @param output the queue to which to append bytes
+     * @return the index of the first character that was not encoded ({@code end} if all were encoded)
+     */
+    public int encode(final CharSequence input, final int start, final int end, final ByteQueue output) {
+
+        int pos = start;
+
+        while (pos < end) {
+            final int ch = (int) input.charAt(pos);
+            final int room = output.remainingCapacity();
+
+            if (ch < 0x80) {
+                final int limit = pos + Math.min(room, end - pos);
+                int runEnd = pos + 1;
+                while (runEnd < limit && (int) input.charAt(runEnd) < 0x80) {
+                    ++runEnd;
+                }
+                if (limit == pos) {
+                    break;
+                }
+
+                final int count = runEnd - pos;
+                output.reserve(count);
+                final byte[] target = output.rawData();
+                final int base = output.rawEnd();
+                for (int i = 0; i < count; ++i) {
+                    target[base + i] = (byte) input.charAt(pos + i);
+                }
+                output.commit(count);
+                pos = runEnd;
+            } else {
+                int cp = ch;
+                if (Character.isHighSurrogate((char) ch) && pos + 1 < end) {
+                    final char low = input.charAt(pos + 1);
+                    if (Character.isLowSurrogate(low)) {
+                        cp = Character.toCodePoint((char) ch, low);
+                    }
+                }
+                final int toEncode = encodable(cp);
+                final int len = encodedLength(toEncode);
+                if (len > room) {
+                    break;
+                }
+                output.reserve(len);
+                put(toEncode, len, output.rawData(), output.rawEnd());
+                output.commit(len);
+                pos += Character.charCount(cp);
+            }
+        }
+
+        return pos;
+    }
+
+    /**
+     * Encodes a range of an array of code points into a buffer, starting at the buffer's position. Encoding stops at
+     * the end of the range or when the buffer does not have room for the next code point's bytes; the buffer's position
+     * is advanced past the bytes written.
+     *
+     * @param source the array of code points
+     * @param start  the index of the first code point to encode
+     * @param end    the index after the last code point to encode
+     * @param target the buffer to which to write bytes
+     * @return the index of the first code point that was not encoded ({@code end} if all were encoded)
+     */
+    public int encode(final int[] source, final int start, final int end, final ByteBuffer target) {
+
+        int pos = start;
+
+        if (target.hasArray()) {
+            final byte[] array = target.array();
+            final int base = target.arrayOffset();
+            final int limit = base + target.limit();
+            int out = base + target.position();
+
+            while (pos < end) {
+                final int cp = encodable(source[pos]);
+                if (cp < 0x80) {
+                    if (out == limit) {
+                        break;
+                    }
+                    array[out] = (byte) cp;
+                    ++out;
+                } else {
+                    final int len = encodedLength(cp);
+                    if (out + len > limit) {
+                        break;
+                    }
+                    out = put(cp, len, array, out);
+                }
+                ++pos;
+            }
+
+            target.position(out - base);
+        } else {
+            while (pos < end && put(source[pos], target)) {
+                ++pos;
+            }
+        }
+
+        return pos;
+    }
+
+    /**
+     * Encodes code points from a sequence into a buffer, starting at the buffer's position. Encoding stops at the end
+     * of the sequence or when the buffer does not have room for the next code point's bytes; the buffer's position is
+     * advanced past the bytes written.
+     *
+     * @param source the sequence of code points
+     * @param start  the index of the first code point to encode
+     * @param target the buffer to which to write bytes
+     * @return the index of the first code point that was not encoded ({@code source.size()} if all were encoded)
+     */
+    public int encode(final IUSVSequence source, final int start, final ByteBuffer target) {
+
+        final int end = source.size();
+        int pos = start;
+
+        while (pos < end && put(source.get(pos), target)) {
+            ++pos;
+        }
+
+        return pos;
+    }
+
+    /**
+     * Encodes code points from a builder into a buffer, starting at the buffer's position. Encoding stops at the end of
+     * the builder's content or when the buffer does not have room for the next code point's bytes; the buffer's
+     * position is advanced past the bytes written.
+     *
+     * @param source the builder
+     * @param start  the index of the first code point to encode
+     * @param target the buffer to which to write bytes
+     * @return the index of the first code point that was not encoded ({@code source.length()} if all were encoded)
+     */
+    public int encode(final USVBuilder source, final int start, final ByteBuffer target) {
+
+        final int end = source.length();
+        int pos = start;
+
+        while (pos < end && put(source.codePointAt(pos), target)) {
+            ++pos;
+        }
+
+        return pos;
+    }
+
+    /**
+     * Encodes a range of an array of code points into a new array of exactly the right length. The range is scanned
+     * twice: once by {@code encodedLength} to size the array, and once to write the bytes.
+     *
+     * @param source the array of code points
+     * @param start  the index of the first code point to encode
+     * @param end    the index after the last code point to encode
+     * @return the encoded bytes
+     * @throws IllegalArgumentException if the encoded length exceeds the maximum array size
+     */
+    public byte[] toBytes(final int[] source, final int start, final int end) {
+
+        final long length = encodedLength(source, start, end);
+        if (length > (long) (Integer.MAX_VALUE - 8)) {
+            throw new IllegalArgumentException("Encoded length exceeds maximum array size.");
+        }
+
+        final byte[] result = new byte[(int) length];
+        encode(source, start, end, ByteBuffer.wrap(result));
+
+        return result;
+    }
+
+    /**
+     * Computes the exact number of bytes needed to encode a range of an array of code points.
+     *
+     * @param source the array of code points
+     * @param start  the index of the first code point
+     * @param end    the index after the last code point
+     * @return the number of bytes
+     */
+    public long encodedLength(final int[] source, final int start, final int end) {
+
+        long total = 0L;
+
+        for (int i = start; i < end; ++i) {
+            total += (long) byteLength(source[i]);
+        }
+
+        return total;
+    }
+
+    /**
+     * Computes the exact number of bytes needed to encode a sequence of code points.
+     *
+     * @param source the sequence of code points
+     * @return the number of bytes
+     */
+    public long encodedLength(final IUSVSequence source) {
+
+        final int end = source.size();
+        long total = 0L;
+
+        for (int i = 0; i < end; ++i) {
+            total += (long) byteLength(source.get(i));
+        }
+
+        return total;
+    }
+
+    /**
+     * Computes the exact number of bytes needed to encode the content of a builder.
+     *
+     * @param source the builder
+     * @return the number of bytes
+     */
+    public long encodedLength(final USVBuilder source) {
+
+        final int end = source.length();
+        long total = 0L;
+
+        for (int i = 0; i < end; ++i) {
+            total += (long) byteLength(source.codePointAt(i));
+        }
+
+        return total;
+    }
+
+    /**
+     * Computes the number of bytes needed to encode a code point, after replacement of code points that cannot be
+     * encoded.
+     *
+     * @param codePoint the code point
+     * @return the number of bytes (1 to 4)
+     */
+    public int byteLength(final int codePoint) {
+
+        return encodedLength(encodable(codePoint));
+    }
+
+    /**
+     * Maps a code point to itself if it can be encoded, or to U+FFFD if not.
+     *
+     * @param cp the code point
+     * @return the code point to encode
+     */
+    private int encodable(final int cp) {
+
+        final int result;
+
+        if (cp < 0 || cp >= 0xD800 && cp <= 0xDFFF) {
+            result = REPLACEMENT;
+        } else if (cp <= 0x10FFFF) {
+            result = cp;
+        } else if (this.allowUnicodePlus && cp <= IUSVSequence.MAX_NON_UNICODE) {
+            result = cp;
+        } else {
+            result = REPLACEMENT;
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes the number of bytes used to encode a code point that is known to be encodable.
+     *
+     * @param cp the code point
+     * @return the number of bytes (1 to 4)
+     */
+    private static int encodedLength(final int cp) {
+
+        final int len;
+
+        if (cp < 0x80) {
+            len = 1;
+        } else if (cp < 0x800) {
+            len = 2;
+        } else if (cp < 0x10000) {
+            len = 3;
+        } else {
+            len = 4;
+        }
+
+        return len;
+    }
+
+    /**
+     * Stores the bytes that encode a code point.
+     *
+     * @param cp     the code point (known to be encodable)
+     * @param len    the number of bytes (from {@code encodedLength})
+     * @param target the array in which to store bytes
+     * @param index  the index at which to store the first byte
+     * @return the index after the last byte stored
+     */
+    private static int put(final int cp, final int len, final byte[] target, final int index) {
+
+        int pos = index;
+
+        switch (len) {
+            case 1 -> target[pos++] = (byte) cp;
+            case 2 -> {
+                target[pos++] = (byte) (0xC0 | (cp >> 6));
+                target[pos++] = (byte) (0x80 | (cp & 0x3F));
+            }
+            case 3 -> {
+                target[pos++] = (byte) (0xE0 | (cp >> 12));
+                target[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                target[pos++] = (byte) (0x80 | (cp & 0x3F));
+            }
+            default -> {
+                target[pos++] = (byte) (0xF0 | (cp >> 18));
+                target[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                target[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                target[pos++] = (byte) (0x80 | (cp & 0x3F));
+            }
+        }
+
+        return pos;
+    }
+
+    /**
+     * Writes the bytes that encode a code point into a buffer, if the buffer has room for all of them.
+     *
+     * @param codePoint the code point
+     * @param target    the buffer
+     * @return true if the code point was written; false if the buffer did not have room
+     */
+    private boolean put(final int codePoint, final ByteBuffer target) {
+
+        final int cp = encodable(codePoint);
+        final int len = encodedLength(cp);
+        final boolean fits = target.remaining() >= len;
+
+        if (fits) {
+            switch (len) {
+                case 1 -> target.put((byte) cp);
+                case 2 -> {
+                    target.put((byte) (0xC0 | (cp >> 6)));
+                    target.put((byte) (0x80 | (cp & 0x3F)));
+                }
+                case 3 -> {
+                    target.put((byte) (0xE0 | (cp >> 12)));
+                    target.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    target.put((byte) (0x80 | (cp & 0x3F)));
+                }
+                default -> {
+                    target.put((byte) (0xF0 | (cp >> 18)));
+                    target.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    target.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    target.put((byte) (0x80 | (cp & 0x3F)));
+                }
+            }
+        }
+
+        return fits;
+    }
+}
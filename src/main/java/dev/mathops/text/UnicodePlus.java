@@ -16,8 +16,13 @@
 package dev.mathops.text;
 
 import dev.mathops.commons.log.Log;
+import dev.mathops.text.builder.CharBuilder;
+import dev.mathops.text.builder.CharHtmlBuilder;
+import dev.mathops.text.builder.USVBuilder;
+import dev.mathops.text.builder.USVHtmlBuilder;
 
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Code point constants used for Unicode+.
@@ -25,6 +30,9 @@ import java.util.List;
 public enum UnicodePlus {
     ;
 
+    /** The character that begins an escape sequence. */
+    private static final char BACKSLASH = '\\';
+
     /** The minimum Unicode high surrogate code point. */
     public static final int MIN_UNICODE_HIGH_SURROGATE = 0xD800;
 
@@ -109,6 +117,23 @@ public enum UnicodePlus {
         return result;
     }
 
+    /**
+     * Generates the UTF-8 bytes that encode an array of USV values, with no intermediate string. The values are scanned
+     * twice: once to compute the exact encoded length, and once to write the bytes into an array of that length. Code
+     * points in the extended non-Unicode range are encoded as described in {@code UTF8Encoder}.
+     *
+     * @param data  the source data array of USV values
+     * @param start the position of the first code point to include
+     * @param end   the position after the last code point to include
+     * @return the UTF-8 bytes
+     */
+    public static byte[] usvArrayToUTF8(final int[] data, final int start, final int end) {
+
+        final UTF8Encoder encoder = new UTF8Encoder(true);
+
+        return encoder.toBytes(data, start, end);
+    }
+
     /**
      * Generates an escaped version of a sequence of USV values.  The escaped string will consist only of ASCII
      * characters.
@@ -118,11 +143,63 @@ public enum UnicodePlus {
      * @param end   the position after the last entry in the data array to escape
      * @return the escaped ASCII string
      */
-    public String escape(final int[] data, final int start, final int end) {
+    public static String escape(final int[] data, final int start, final int end) {
+
+        final CharHtmlBuilder builder = new CharHtmlBuilder(end - start + 16);
+        escape(data, start, end, builder);
+
+        return builder.toString();
+    }
+
+    /**
+     * Appends an escaped version of a sequence of USV values to a builder.  Only ASCII characters are appended.
+     *
+     * <p>
+     * ASCII code points other than the backslash are appended unchanged, and the backslash is escaped as "\\".  Other
+     * code points are looked up directly (by code point) in a table of canonical escapes, and those with no named
+     * escape are written as "\x{" followed by the hexadecimal value and "}".  When an escape ends with a letter and the
+     * next code point is a letter, a space, or '{', "{}" is appended to terminate the escape, so {@code unescape}
+     * reproduces the original sequence.
+     *
+     * @param data   the data to escape
+     * @param start  the first position in the data array to escape
+     * @param end    the position after the last entry in the data array to escape
+     * @param target the builder to which to append the escaped characters
+     */
+    public static void escape(final int[] data, final int start, final int end, final CharBuilder target) {
+
+        final UnicodePlusEscapes escapes = UnicodePlusEscapes.getInstance();
 
-        // TODO:
+        for (int i = start; i < end; ++i) {
+            final int cp = data[i];
 
-        return null;
+            if (cp < 0 || cp > MAX_NON_UNICODE) {
+                final String msg = Res.get(Res.UNI_CP_OUT_OF_RANGE);
+                Log.warning(msg);
+            } else if (cp < 0x80 && cp != (int) BACKSLASH) {
+                target.addChar((char) cp);
+            } else {
+                final int nameIndex = escapes.escapeNameIndex(cp);
+
+                if (nameIndex < 0) {
+                    target.addChar(BACKSLASH);
+                    target.addChar('x');
+                    target.addChar('{');
+                    target.addChars(Integer.toHexString(cp).toUpperCase(Locale.ROOT).toCharArray());
+                    target.addChar('}');
+                } else {
+                    escapes.appendEscape(nameIndex, target);
+
+                    if (i + 1 < end && UnicodePlusEscapes.isAsciiLetter((int) escapes.lastChar(nameIndex))) {
+                        final int next = data[i + 1];
+                        if (next == (int) ' ' || next == (int) '{' || UnicodePlusEscapes.isAsciiLetter(next)) {
+                            target.addChar('{');
+                            target.addChar('}');
+                        }
+                    }
+                }
+            }
+        }
     }
 
     /**
@@ -172,12 +249,178 @@ public enum UnicodePlus {
      *
      * @param escaped  the escaped string
      * @param warnings a list to which to add warnings for unrecognized or malformed escape sequences
-     * @return the escaped ASCII string
+     * @return the USV values
      */
-    public int[] unescape(final String escaped, final List<String> warnings) {
+    public static int[] unescape(final String escaped, final List<String> warnings) {
 
-        // TODO:
+        final USVHtmlBuilder builder = new USVHtmlBuilder(escaped.length());
+        unescape(escaped, warnings, builder);
+
+        final int len = builder.length();
+        final int[] result = new int[len];
+        for (int i = 0; i < len; ++i) {
+            result[i] = builder.codePointAt(i);
+        }
+
+        return result;
+    }
 
-        return null;
+    /**
+     * Appends the USV values represented by an escaped string to a builder.  The entire input string is processed.  All
+     * recognized escape sequences are converted to the corresponding USV value.  All other characters in the input
+     * stream are emitted as their corresponding code points (where UTF-16 surrogate pairs are converted to a USV
+     * value).  The input string does not need to be ASCII-only.
+     *
+     * <p>
+     * Escapes follow (and are compatible with) the LaTeX system, to the extent possible.  LaTeX defines escapes that
+     * map to specific glyphs, where this system maps escapes to USV values.  LaTeX may map multiple escapes to
+     * different glyphs that both correspond to the same USV value.  In these cases, we try to find the most reasonable
+     * substitutions to maintain the best LaTeX compatibility possible.
+     *
+     * <p>
+     * The backslash character starts an escape.  The following single-character escapes are recognized:
+     *
+     * <ul>
+     *     <li>"\\" is unescaped as "\"</li>
+     *     <li>"\$" is unescaped as "$"</li>
+     *     <li>"\%" is unescaped as "%"</li>
+     *     <li>"\_" is unescaped as "_"</li>
+     *     <li>"\{" is unescaped as "{"</li>
+     *     <li>"\{" is unescaped as "}"</li>
+     *     <li>"\&" is unescaped as "&"</li>
+     *     <li>"\#" is unescaped as "#"</li>
+     * </ul>
+     * <p>
+     * Of these, only the backslash actually needs to be escaped - the others, if encountered in the input string,
+     * will simply be emitted to the USV sequence.
+     *
+     * <p>
+     * Otherwise, characters after the backslash are scanned and compared to a database of escape codes.  If a match
+     * is found, the corresponding USV is emitted. If not, a warning is logged and the characters are written unchanged.
+     * Escape codes, when matched and followed by a space character will consume the space as well.  So "2\pi r" would
+     * be unescaped to three USV values: the digit 2, the lowercase Pi symbol, and the letter r, while "2 \pi  r" would
+     * be escaped to four USVs (2, Pi, a space, then r).  To terminate an escape without consuming the space that
+     * follows, the escape can be terminated by "{}", which will be consumed. This is consistent with LaTeX.  Some
+     * escape sequences include arguments surrounded by curly braces - these do not need additional termination, and
+     * will not consume a space that follows the closing brace.
+     *
+     * <p>
+     * Control codes in the input string are retained (tab characters, line terminators, etc.).  An escape that ends
+     * at the end of a line does not consume the line terminator that follows.  LaTeX may have several escape sequences
+     * that map to the same USV - all will be recognized by this method, but if the resulting string is then escaped,
+     * the "canonical" escape sequence will be emitted.
+     *
+     * <p>
+     * A code point with no named escape may be written as "\x{" followed by its hexadecimal value and "}" (this is the
+     * form {@code escape} emits for such code points).
+     *
+     * <p>
+     * The string is processed in a single pass: each escape name is matched against a trie of all names in the escape
+     * database, and the runs of characters between escapes are appended in bulk.
+     *
+     * @param escaped  the escaped string
+     * @param warnings a list to which to add warnings for unrecognized or malformed escape sequences
+     * @param target   the builder to which to append USV values
+     */
+    public static void unescape(final String escaped, final List<String> warnings, final USVBuilder target) {
+
+        final UnicodePlusEscapes escapes = UnicodePlusEscapes.getInstance();
+        final int len = escaped.length();
+        final int[] usv = new int[1];
+        char[] run = null;
+
+        int runStart = 0;
+        int pos = 0;
+        while (pos < len) {
+            if (escaped.charAt(pos) == BACKSLASH) {
+                if (pos > runStart) {
+                    final int runLen = pos - runStart;
+                    if (run == null || run.length < runLen) {
+                        run = new char[Math.max(runLen, 64)];
+                    }
+                    escaped.getChars(runStart, pos, run, 0);
+                    target.addChars(run, runLen);
+                }
+
+                final int matched = escapes.match(escaped, pos + 1, usv);
+                if (matched > 0) {
+                    target.addCodePoint(usv[0]);
+                    pos += matched + 1;
+
+                    // An escape name that ends with a letter consumes a following "{}" or a single space
+                    if (UnicodePlusEscapes.isAsciiLetter((int) escaped.charAt(pos - 1))) {
+                        if (escaped.startsWith("{}", pos)) {
+                            pos += 2;
+                        } else if (pos < len && escaped.charAt(pos) == ' ') {
+                            ++pos;
+                        }
+                    }
+                } else {
+                    final int numericEnd = matchNumericEscape(escaped, pos + 1, usv);
+                    if (numericEnd > 0) {
+                        target.addCodePoint(usv[0]);
+                        pos = numericEnd;
+                    } else {
+                        final String posStr = Integer.toString(pos);
+                        warnings.add(Res.fmt(Res.UNI_UNRECOGNIZED_ESC, posStr));
+                        target.addChar(BACKSLASH);
+                        ++pos;
+                    }
+                }
+                runStart = pos;
+            } else {
+                ++pos;
+            }
+        }
+
+        if (len > runStart) {
+            final int runLen = len - runStart;
+            if (run == null || run.length < runLen) {
+                run = new char[runLen];
+            }
+            escaped.getChars(runStart, len, run, 0);
+            target.addChars(run, runLen);
+        }
+    }
+
+    /**
+     * Matches a numeric escape ("x{" followed by 1 to 6 ASCII hexadecimal digits and "}") that begins at a position in
+     * a string (just after a backslash). An escape whose value is a surrogate or is above {@code MAX_NON_UNICODE} is
+     * not a valid numeric escape.
+     *
+     * @param escaped the escaped string
+     * @param from    the index of the 'x'
+     * @param usvOut  a one-element array that receives the USV value
+     * @return the index after the closing brace; -1 if there is no valid numeric escape at the position
+     */
+    private static int matchNumericEscape(final String escaped, final int from, final int[] usvOut) {
+
+        int result = -1;
+
+        if (escaped.startsWith("x{", from)) {
+            final int len = escaped.length();
+            final int digitsStart = from + 2;
+            int pos = digitsStart;
+            int value = 0;
+
+            while (pos < len && pos - digitsStart < 6) {
+                final char ch = escaped.charAt(pos);
+                if (!TextUtils.isAsciiHexDigit((int) ch)) {
+                    break;
+                }
+                value = (value << 4) + Character.digit(ch, 16);
+                ++pos;
+            }
+
+            final boolean valid = value <= MAX_NON_UNICODE
+                    && (value < (int) Character.MIN_SURROGATE || value > (int) Character.MAX_SURROGATE);
+
+            if (valid && pos > digitsStart && pos < len && escaped.charAt(pos) == '}') {
+                usvOut[0] = value;
+                result = pos + 1;
+            }
+        }
+
+        return result;
     }
 }
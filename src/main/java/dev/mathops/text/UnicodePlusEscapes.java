@@ -17,154 +17,370 @@ package dev.mathops.text;
 
 import dev.mathops.commons.file.FileLoader;
 import dev.mathops.commons.log.Log;
+import dev.mathops.text.builder.CharBuilder;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.nio.ByteBuffer;
 
 /**
  * A singleton utility class that loads the Unicode+ escapes database and supports lookups of escape sequences or
  * matching of escape sequences to determine USV values.
+ *
+ * <p>
+ * The database is loaded from a binary table generated at build time by {@code UnicodePlusEscapesCompiler} (or, if
+ * that table is not present, compiled from the text database when this class is initialized). All names are packed
+ * into one {@code char[]}, and lookups in both directions run without allocation:
+ * <ul>
+ *     <li>From name to USV through a perfect hash index, or, when scanning text for the longest name at a position,
+ *     through a trie stored as flat arrays</li>
+ *     <li>From USV to canonical name through a table indexed directly by code point (in pages of 256 code points, so
+ *     only pages that contain escapes are allocated)</li>
+ * </ul>
  */
-public class UnicodePlusEscapes {
+public final class UnicodePlusEscapes {
+
+    /** The number of code points in each page of the escape table. */
+    private static final int PAGE_SIZE = 256;
+
+    /** The number of pages in the escape table (enough for all Unicode+ code points). */
+    private static final int NUM_PAGES = (UnicodePlus.MAX_NON_UNICODE >> 8) + 1;
+
+    /** All escape names (without the leading '\'), sorted and packed together. */
+    private final char[] names;
+
+    /** The index in {@code names} where each name starts (with an extra entry at the end). */
+    private final int[] nameStarts;
+
+    /** The USV for each name. */
+    private final int[] nameUsvs;
+
+    /** The USVs that have escapes, in ascending order. */
+    private final int[] usvs;
+
+    /** The index of the canonical name for each USV in {@code usvs}. */
+    private final int[] canonicalNames;
 
-    /** The single instance. */
-    public static final UnicodePlusEscapes INSTANCE = new UnicodePlusEscapes();
+    /** The seed for each bucket of the perfect hash index. */
+    private final int[] hashSeeds;
 
-    /** The start of a comment line or delimiter between escape sequence and USV. */
-    private static final int SPC = (int) ' ';
+    /** The name index in each slot of the perfect hash index (-1 if empty). */
+    private final int[] hashSlots;
 
-    /** Escape codes sorted by string. */
-    private final List<Escape> escapesByString;
+    /** For each trie node, the index of its first edge in {@code edgeChars} (with an extra entry at the end). */
+    private final int[] firstEdge;
 
-    /** Escape codes sorted by code. */
-    private final List<Escape> escapesByUsv;
+    /** For each trie node, the USV of the escape name that ends there (-1 if none). */
+    private final int[] nodeUsv;
+
+    /** The character on each trie edge. */
+    private final char[] edgeChars;
+
+    /** The node to which each trie edge leads. */
+    private final int[] edgeTargets;
+
+    /** Pages of canonical name indexes plus one (0 where there is no escape), indexed by code point. */
+    private final int[][] escapePages;
 
     /**
      * Private constructor to prevent direct instantiation.
      */
     private UnicodePlusEscapes() {
 
-        final String[] lines = FileLoader.loadFileAsLines(UnicodePlusEscapes.class, "UnicodePlusEscapes.txt", true);
+        final ByteBuffer table = ByteBuffer.wrap(loadTable());
+
+        // The magic number and version were checked when the table was loaded
+        table.position(8);
+
+        final int numNames = table.getInt();
+        this.names = readChars(table, table.getInt());
+        this.nameStarts = readInts(table, numNames + 1);
+        this.nameUsvs = readInts(table, numNames);
+
+        final int numUsvs = table.getInt();
+        this.usvs = readInts(table, numUsvs);
+        this.canonicalNames = readInts(table, numUsvs);
+
+        final int tableSize = table.getInt();
+        final int numBuckets = table.getInt();
+        this.hashSeeds = readInts(table, numBuckets);
+        this.hashSlots = readInts(table, tableSize);
+
+        final int numNodes = table.getInt();
+        final int numEdges = table.getInt();
+        this.firstEdge = readInts(table, numNodes + 1);
+        this.nodeUsv = readInts(table, numNodes);
+        this.edgeChars = readChars(table, numEdges);
+        this.edgeTargets = readInts(table, numEdges);
+
+        this.escapePages = new int[NUM_PAGES][];
+        for (int i = 0; i < numUsvs; ++i) {
+            final int usv = this.usvs[i];
+            if (usv >= 0 && usv <= UnicodePlus.MAX_NON_UNICODE) {
+                final int pageIndex = usv >> 8;
+                int[] page = this.escapePages[pageIndex];
+                if (page == null) {
+                    page = new int[PAGE_SIZE];
+                    this.escapePages[pageIndex] = page;
+                }
+                page[usv & 0xFF] = this.canonicalNames[i] + 1;
+            }
+        }
 
-        if (lines == null) {
-            Log.warning(Res.get(Res.UNI_CANT_LOAD_ESC_DB));
-            this.escapesByString = new ArrayList<>(0);
-            this.escapesByUsv = new ArrayList<>(0);
-        } else {
-            this.escapesByString = new ArrayList<>(lines.length);
-            this.escapesByUsv = new ArrayList<>(lines.length);
+        final String countStr = Integer.toString(numNames);
+        final String msg = Res.fmt(Res.UNI_LOADED_ESC_DB, countStr);
+        Log.info(msg);
+    }
 
-            final Set<Integer> usvs = new HashSet<>(lines.length);
+    /**
+     * Gets the single instance, loading the escapes database if not already loaded. The instance is created when the
+     * holder class is initialized, so using the static methods of this class does not load the database, and only the
+     * first call to this method waits for loading.
+     *
+     * @return the instance
+     */
+    public static UnicodePlusEscapes getInstance() {
 
-            for (final String line : lines) {
-                if (line.isBlank()) {
-                    continue;
-                }
-                final int start = (int) line.charAt(0);
+        return Holder.INSTANCE;
+    }
 
-                if (start == SPC) {
-                    continue;
-                }
+    /**
+     * Loads the binary escape table generated at build time, or compiles the text database if the table is not present
+     * or not valid.
+     *
+     * @return the binary table
+     */
+    private static byte[] loadTable() {
 
-                final int spc = line.indexOf(SPC);
-                if (spc == -1) {
-                    final String msg = Res.fmt(Res.UNI_BAD_ESC_IN_DB, line);
-                    Log.warning(msg);
-                    continue;
-                }
+        byte[] table = FileLoader.loadFileAsBytes(UnicodePlusEscapes.class, "UnicodePlusEscapes.bin", false);
 
-                final String usvStr = line.substring(spc + 1).trim();
-                try {
-                    final int usv = Integer.parseInt(usvStr);
-
-                    final Escape esc = new Escape(line.substring(spc), usv);
-                    this.escapesByString.add(esc);
-
-                    // We track USVs we have found so far, and only add an escape to the USV-based list if this is
-                    // the first instance - that allows multiple symbols to be mapped to one USV, but one USV will
-                    // map to only one "canonical" escape (the first one found in the database file)
-
-                    final Integer key = Integer.valueOf(usv);
-                    if (!usvs.contains(key)) {
-                        this.escapesByUsv.add(esc);
-                        usvs.add(key);
-                    }
-                } catch (final NumberFormatException ex) {
-                    final String msg = Res.fmt(Res.UNI_BAD_ESC_IN_DB, line);
-                    Log.warning(msg);
-                }
+        if (table == null || table.length < 8) {
+            table = null;
+        } else {
+            final ByteBuffer buffer = ByteBuffer.wrap(table);
+            if (buffer.getInt() != UnicodePlusEscapesCompiler.MAGIC
+                || buffer.getInt() != UnicodePlusEscapesCompiler.VERSION) {
+                Log.warning(Res.get(Res.UNI_BAD_ESC_TABLE));
+                table = null;
             }
+        }
 
-            this.escapesByString.sort(null);
-            this.escapesByUsv.sort(Comparator.comparingInt(o -> o.usv));
-
-            final int size = this.escapesByString.size();
-            final String sizeStr = Integer.toString(size);
-            final String msg = Res.fmt(Res.UNI_LOADED_ESC_DB, sizeStr);
-            Log.warning(msg);
+        if (table == null) {
+            String[] lines = FileLoader.loadFileAsLines(UnicodePlusEscapes.class, "UnicodePlusEscapes.txt", true);
+            if (lines == null) {
+                Log.warning(Res.get(Res.UNI_CANT_LOAD_ESC_DB));
+                lines = new String[0];
+            }
+            table = UnicodePlusEscapesCompiler.compile(lines);
         }
+
+        return table;
+    }
+
+    /**
+     * Reads an array of integers from a buffer.
+     *
+     * @param buffer the buffer
+     * @param count  the number of integers to read
+     * @return the array
+     */
+    private static int[] readInts(final ByteBuffer buffer, final int count) {
+
+        final int[] result = new int[count];
+        buffer.asIntBuffer().get(result);
+        buffer.position(buffer.position() + (count << 2));
+
+        return result;
+    }
+
+    /**
+     * Reads an array of characters from a buffer.
+     *
+     * @param buffer the buffer
+     * @param count  the number of characters to read
+     * @return the array
+     */
+    private static char[] readChars(final ByteBuffer buffer, final int count) {
+
+        final char[] result = new char[count];
+        buffer.asCharBuffer().get(result);
+        buffer.position(buffer.position() + (count << 1));
+
+        return result;
     }
 
     /**
-     * Retrieves the escape for a particular USV code.
+     * Retrieves the canonical escape for a particular USV code.
      *
      * @param usv the USV code
-     * @return the escape; null if there is no escape for the USV
+     * @return the escape sequence, without the leading '\'; null if there is no escape for the USV
      */
-    public String getEscapeFor(int usv) {
+    public String getEscapeFor(final int usv) {
 
-        String result = null;
+        final int nameIndex = escapeNameIndex(usv);
 
-        int low = 0;
-        int high = this.escapesByUsv.size() - 1;
+        return nameIndex < 0 ? null : new String(this.names, this.nameStarts[nameIndex],
+                this.nameStarts[nameIndex + 1] - this.nameStarts[nameIndex]);
+    }
 
-        while (low <= high) {
-            int mid = low + (high - low) / 2;
-            final Escape element = this.escapesByUsv.get(mid);
+    /**
+     * Finds the canonical escape name for a particular USV code.
+     *
+     * @param usv the USV code
+     * @return the name index; -1 if there is no escape for the USV
+     */
+    int escapeNameIndex(final int usv) {
 
-            if (element.usv == usv) {
-                result = element.sequence;
-                break;
-            }
+        int result = -1;
 
-            if (element.usv < usv) {
-                low = mid + 1;
-            } else {
-                high = mid - 1;
+        if (usv >= 0 && usv <= UnicodePlus.MAX_NON_UNICODE) {
+            final int[] page = this.escapePages[usv >> 8];
+            if (page != null) {
+                result = page[usv & 0xFF] - 1;
             }
         }
 
         return result;
     }
 
+    /**
+     * Appends an escape name to a builder, preceded by '\'.
+     *
+     * @param nameIndex the name index (from {@code escapeNameIndex})
+     * @param target    the builder to which to append
+     */
+    void appendEscape(final int nameIndex, final CharBuilder target) {
+
+        final int start = this.nameStarts[nameIndex];
+
+        target.addChar('\\');
+        target.addChars(this.names, start, this.nameStarts[nameIndex + 1] - start);
+    }
+
+    /**
+     * Gets the last character of an escape name.
+     *
+     * @param nameIndex the name index (from {@code escapeNameIndex})
+     * @return the last character
+     */
+    char lastChar(final int nameIndex) {
+
+        return this.names[this.nameStarts[nameIndex + 1] - 1];
+    }
+
     /**
      * Retrieves the USV for a particular escape sequence code.
      *
-     * @param escapeSequence the escape sequence
-     * @return the USV code; -1 if there is no escape for the USV
+     * @param escapeSequence the escape sequence, without the leading '\'
+     * @return the USV code; -1 if there is no such escape sequence
+     */
+    public int unescape(final String escapeSequence) {
+
+        return lookup(escapeSequence, 0, escapeSequence.length());
+    }
+
+    /**
+     * Retrieves the USV for the escape name in a range of a character sequence, using the perfect hash index.
+     *
+     * @param text  the text
+     * @param start the index of the first character of the name
+     * @param end   the index after the last character of the name
+     * @return the USV code; -1 if there is no such escape name
      */
-    public int unescape(String escapeSequence) {
+    int lookup(final CharSequence text, final int start, final int end) {
+
+        final int bucket = UnicodePlusEscapesCompiler.hash(text, start, end, 0) & (this.hashSeeds.length - 1);
+        final int seed = this.hashSeeds[bucket];
+        final int slot = UnicodePlusEscapesCompiler.hash(text, start, end, seed) & (this.hashSlots.length - 1);
+        final int nameIndex = this.hashSlots[slot];
 
         int result = -1;
 
-        int low = 0;
-        int high = this.escapesByString.size() - 1;
+        if (nameIndex >= 0) {
+            final int nameStart = this.nameStarts[nameIndex];
+            final int len = end - start;
 
-        while (low <= high) {
-            int mid = low + (high - low) / 2;
-            final Escape element = this.escapesByString.get(mid);
+            if (this.nameStarts[nameIndex + 1] - nameStart == len) {
+                boolean same = true;
+                for (int i = 0; i < len && same; ++i) {
+                    same = this.names[nameStart + i] == text.charAt(start + i);
+                }
+                if (same) {
+                    result = this.nameUsvs[nameIndex];
+                }
+            }
+        }
 
-            final int comparison = element.sequence.compareTo(escapeSequence);
+        return result;
+    }
 
-            if (comparison == 0) {
-                result = element.usv;
+    /**
+     * Finds the longest escape name that begins at a position in a string. Following LaTeX, a name that ends with an
+     * ASCII letter matches only if it is not immediately followed by another ASCII letter (so "\pir" does not match
+     * "pi").
+     *
+     * @param text   the text
+     * @param from   the index of the first character of the name (after the '\')
+     * @param usvOut a one-element array that receives the USV of the matched escape
+     * @return the length of the matched name; 0 if no name matches
+     */
+    int match(final CharSequence text, final int from, final int[] usvOut) {
+
+        final int len = text.length();
+        int node = 0;
+        int pos = from;
+        int matched = 0;
+
+        while (pos < len) {
+            final char ch = text.charAt(pos);
+            node = child(node, ch);
+            if (node < 0) {
                 break;
             }
+            ++pos;
+
+            final int usv = this.nodeUsv[node];
+            if (usv >= 0 && !(isAsciiLetter(ch) && pos < len && isAsciiLetter(text.charAt(pos)))) {
+                matched = pos - from;
+                usvOut[0] = usv;
+            }
+        }
+
+        return matched;
+    }
 
-            if (comparison < 0) {
+    /**
+     * Tests whether a character is an ASCII letter.
+     *
+     * @param ch the character
+     * @return true if the character is in 'A' to 'Z' or 'a' to 'z'
+     */
+    static boolean isAsciiLetter(final int ch) {
+
+        return CodePointClass.is(ch, CodePointClass.ASCII_ALPHA);
+    }
+
+    /**
+     * Follows the trie edge from a node for a character.
+     *
+     * @param node the node
+     * @param ch   the character
+     * @return the node the edge leads to; -1 if there is no such edge
+     */
+    private int child(final int node, final char ch) {
+
+        int low = this.firstEdge[node];
+        int high = this.firstEdge[node + 1] - 1;
+        int result = -1;
+
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final char midChar = this.edgeChars[mid];
+
+            if (midChar == ch) {
+                result = this.edgeTargets[mid];
+                break;
+            }
+
+            if (midChar < ch) {
                 low = mid + 1;
             } else {
                 high = mid - 1;
@@ -175,38 +391,19 @@ public class UnicodePlusEscapes {
     }
 
     /**
-     * A data object that represents a single escape sequence, sortable so we can sort the list and do a binary search
-     * when looking up escapes.
+     * Holds the single instance (the JVM initializes this class, and creates the instance, on first access).
      */
-    private static class Escape implements Comparable<Escape> {
-
-        /** The escape sequence, without the leading '\'. */
-        public final String sequence;
-
-        /** The USV to which that sequence maps. */
-        public final int usv;
+    private static final class Holder {
 
-        /**
-         * Constructs a new {@code Escape}.
-         *
-         * @param theSequence the escape sequence, without the leading '\'
-         * @param theUsv      the USV to which that sequence maps
-         */
-        Escape(final String theSequence, final int theUsv) {
-            this.sequence = theSequence;
-            this.usv = theUsv;
-        }
+        /** The single instance. */
+        static final UnicodePlusEscapes INSTANCE = new UnicodePlusEscapes();
 
         /**
-         * Compares two escapes for order.  Comparison is based on the escape sequence.
-         *
-         * @param o the object to be compared
-         * @return the result of this.sequence.compareTo(o.sequence)
+         * Private constructor to prevent instantiation.
          */
-        @Override
-        public int compareTo(final Escape o) {
+        private Holder() {
 
-            return this.sequence.compareTo(o.sequence);
+            // No action
         }
     }
 }
@@ -0,0 +1,369 @@
+package dev.mathops.text;
+
+import dev.mathops.commons.log.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the Unicode+ escape database ("UnicodePlusEscapes.txt") into the compact binary table that
+ * {@code UnicodePlusEscapes} loads at runtime. The build runs {@code main} to generate the table as a resource; if the
+ * table is not present (as when running from sources), {@code UnicodePlusEscapes} compiles the text file itself.
+ *
+ * <p>
+ * The table is written with {@code DataOutputStream} (big-endian), and contains, in order:
+ * <ol>
+ *     <li>The magic number and format version</li>
+ *     <li>All escape names, sorted, packed into one {@code char[]} with an array of start offsets, and the USV for
+ *     each name</li>
+ *     <li>The USVs that have escapes, sorted, with the index of each one's canonical (first defined) name</li>
+ *     <li>A perfect hash index over the names (a seed for each bucket, then the name index in each slot)</li>
+ *     <li>A trie over the names (for each node, the first edge and the USV of the name ending there, then the
+ *     character and target node of each edge)</li>
+ * </ol>
+ */
+public enum UnicodePlusEscapesCompiler {
+    ;
+
+    /** The magic number that begins the table ("UPES"). */
+    static final int MAGIC = 0x55504553;
+
+    /** The table format version. */
+    static final int VERSION = 1;
+
+    /** The start of a comment line or delimiter between escape sequence and USV. */
+    private static final int SPC = (int) ' ';
+
+    /** The single-character escapes that are recognized even if the database does not define them. */
+    private static final String SINGLE_CHAR_ESCAPES = "\\$%_{}&#";
+
+    /**
+     * Compiles the escape database.
+     *
+     * @param args the path of the text database, and the path of the binary table to write
+     * @throws IOException if the database cannot be read or the table cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: UnicodePlusEscapesCompiler <source.txt> <target.bin>");
+        }
+
+        final List<String> lines = Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8);
+        final byte[] table = compile(lines.toArray(new String[0]));
+
+        final Path target = Path.of(args[1]);
+        final Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(target, table);
+    }
+
+    /**
+     * Compiles the lines of the escape database into a binary table.
+     *
+     * @param lines the lines of the database
+     * @return the binary table
+     */
+    static byte[] compile(final String[] lines) {
+
+        // Maps each escape name to its USV (the first definition wins); remembers each USV's first (canonical) name
+        final Map<String, Integer> usvByName = new HashMap<>(lines.length);
+        final Map<Integer, String> nameByUsv = new HashMap<>(lines.length);
+
+        final int numSingle = SINGLE_CHAR_ESCAPES.length();
+        for (int i = 0; i < numSingle; ++i) {
+            final char ch = SINGLE_CHAR_ESCAPES.charAt(i);
+            final String name = String.valueOf(ch);
+            final Integer key = Integer.valueOf((int) ch);
+            usvByName.put(name, key);
+            nameByUsv.put(key, name);
+        }
+
+        for (final String line : lines) {
+            if (line.isBlank() || (int) line.charAt(0) == SPC) {
+                continue;
+            }
+
+            final int spc = line.indexOf(SPC);
+            if (spc == -1) {
+                final String msg = Res.fmt(Res.UNI_BAD_ESC_IN_DB, line);
+                Log.warning(msg);
+                continue;
+            }
+
+            try {
+                final int usv = Integer.parseInt(line.substring(spc + 1).trim(), 16);
+                final String name = line.substring(0, spc);
+                final Integer key = Integer.valueOf(usv);
+                usvByName.putIfAbsent(name, key);
+                nameByUsv.putIfAbsent(key, name);
+            } catch (final NumberFormatException ex) {
+                final String msg = Res.fmt(Res.UNI_BAD_ESC_IN_DB, line);
+                Log.warning(msg);
+            }
+        }
+
+        final String[] names = usvByName.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        final int numNames = names.length;
+
+        final Map<String, Integer> indexByName = new HashMap<>(numNames);
+        for (int i = 0; i < numNames; ++i) {
+            indexByName.put(names[i], Integer.valueOf(i));
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            // Packed names
+            int totalChars = 0;
+            for (final String name : names) {
+                totalChars += name.length();
+            }
+            out.writeInt(numNames);
+            out.writeInt(totalChars);
+            for (final String name : names) {
+                out.writeChars(name);
+            }
+            int offset = 0;
+            for (final String name : names) {
+                out.writeInt(offset);
+                offset += name.length();
+            }
+            out.writeInt(offset);
+            for (final String name : names) {
+                out.writeInt(usvByName.get(name).intValue());
+            }
+
+            // Sorted USVs with their canonical names
+            final Integer[] usvs = nameByUsv.keySet().toArray(new Integer[0]);
+            Arrays.sort(usvs);
+            out.writeInt(usvs.length);
+            for (final Integer usv : usvs) {
+                out.writeInt(usv.intValue());
+            }
+            for (final Integer usv : usvs) {
+                out.writeInt(indexByName.get(nameByUsv.get(usv)).intValue());
+            }
+
+            writePerfectHash(out, names);
+            writeTrie(out, names, usvByName);
+        } catch (final IOException ex) {
+            // Not possible when writing to a byte array
+            throw new IllegalStateException(ex);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Computes the hash of a range of characters, used by the perfect hash index.
+     *
+     * @param text  the text
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     * @param seed  the seed (0 to select a bucket, or the bucket's seed to select a slot)
+     * @return the hash
+     */
+    static int hash(final CharSequence text, final int start, final int end, final int seed) {
+
+        int h = 0x811C9DC5 ^ (seed * 0x9E3779B1);
+
+        for (int i = start; i < end; ++i) {
+            h = (h ^ (int) text.charAt(i)) * 0x01000193;
+        }
+
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+
+        return h;
+    }
+
+    /**
+     * Builds and writes a perfect hash index over the names, using "hash and displace": names are grouped into buckets
+     * by one hash, then, largest bucket first, each bucket is given the first seed for which a second hash places all
+     * its names in distinct empty slots.
+     *
+     * @param out   the stream to which to write
+     * @param names the sorted names
+     * @throws IOException if the index cannot be written
+     */
+    private static void writePerfectHash(final DataOutputStream out, final String[] names) throws IOException {
+
+        final int numNames = names.length;
+        final int minSize = Math.max(2, numNames + (numNames >> 2));
+        final int tableSize = Integer.highestOneBit(minSize - 1) << 1;
+        final int numBuckets = Math.max(1, tableSize >> 2);
+
+        final List<List<Integer>> buckets = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; ++i) {
+            buckets.add(new ArrayList<>(4));
+        }
+        for (int i = 0; i < numNames; ++i) {
+            final String name = names[i];
+            final int bucket = hash(name, 0, name.length(), 0) & (numBuckets - 1);
+            buckets.get(bucket).add(Integer.valueOf(i));
+        }
+
+        final Integer[] order = new Integer[numBuckets];
+        for (int i = 0; i < numBuckets; ++i) {
+            order[i] = Integer.valueOf(i);
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(buckets.get(b.intValue()).size(),
+                buckets.get(a.intValue()).size()));
+
+        final int[] seeds = new int[numBuckets];
+        final int[] slots = new int[tableSize];
+        Arrays.fill(slots, -1);
+
+        for (final Integer bucketIndex : order) {
+            final List<Integer> members = buckets.get(bucketIndex.intValue());
+            if (members.isEmpty()) {
+                continue;
+            }
+
+            final int count = members.size();
+            final int[] chosen = new int[count];
+            int seed = 1;
+            while (!tryPlace(names, members, seed, slots, chosen)) {
+                ++seed;
+            }
+
+            seeds[bucketIndex.intValue()] = seed;
+            for (int i = 0; i < count; ++i) {
+                slots[chosen[i]] = members.get(i).intValue();
+            }
+        }
+
+        out.writeInt(tableSize);
+        out.writeInt(numBuckets);
+        for (final int seed : seeds) {
+            out.writeInt(seed);
+        }
+        for (final int slot : slots) {
+            out.writeInt(slot);
+        }
+    }
+
+    /**
+     * Tests whether a seed places all names in a bucket in distinct empty slots.
+     *
+     * @param names   the sorted names
+     * @param members the indexes of the names in the bucket
+     * @param seed    the seed to test
+     * @param slots   the slots (-1 where empty)
+     * @param chosen  an array that receives the slot chosen for each name
+     * @return true if the seed works
+     */
+    private static boolean tryPlace(final String[] names, final List<Integer> members, final int seed,
+                                    final int[] slots, final int[] chosen) {
+
+        final int mask = slots.length - 1;
+        final int count = members.size();
+        boolean ok = true;
+
+        for (int i = 0; i < count && ok; ++i) {
+            final String name = names[members.get(i).intValue()];
+            final int slot = hash(name, 0, name.length(), seed) & mask;
+            ok = slots[slot] == -1;
+            for (int j = 0; j < i && ok; ++j) {
+                ok = chosen[j] != slot;
+            }
+            chosen[i] = slot;
+        }
+
+        return ok;
+    }
+
+    /**
+     * Builds and writes a trie over the names. Nodes are numbered breadth-first, so the edges leaving each node are
+     * contiguous and (since the names are sorted) in ascending order of character.
+     *
+     * @param out       the stream to which to write
+     * @param names     the sorted names
+     * @param usvByName the map from name to USV
+     * @throws IOException if the trie cannot be written
+     */
+    private static void writeTrie(final DataOutputStream out, final String[] names,
+                                  final Map<String, Integer> usvByName) throws IOException {
+
+        int capacity = 1;
+        for (final String name : names) {
+            capacity += name.length();
+        }
+
+        final int[] first = new int[capacity + 1];
+        final char[] chars = new char[capacity];
+        final int[] targets = new int[capacity];
+        final int[] values = new int[capacity];
+        Arrays.fill(values, -1);
+
+        // Each pending node is {first name index, end name index, depth}
+        final Deque<int[]> pending = new ArrayDeque<>(capacity);
+        pending.addLast(new int[]{0, names.length, 0});
+        int numNodes = 1;
+        int numEdges = 0;
+        int node = 0;
+
+        while (!pending.isEmpty()) {
+            final int[] range = pending.removeFirst();
+            int lo = range[0];
+            final int hi = range[1];
+            final int depth = range[2];
+
+            first[node] = numEdges;
+            if (lo < hi && names[lo].length() == depth) {
+                values[node] = usvByName.get(names[lo]).intValue();
+                ++lo;
+            }
+
+            while (lo < hi) {
+                final char ch = names[lo].charAt(depth);
+                int groupEnd = lo + 1;
+                while (groupEnd < hi && names[groupEnd].charAt(depth) == ch) {
+                    ++groupEnd;
+                }
+                chars[numEdges] = ch;
+                targets[numEdges] = numNodes;
+                ++numEdges;
+                ++numNodes;
+                pending.addLast(new int[]{lo, groupEnd, depth + 1});
+                lo = groupEnd;
+            }
+
+            ++node;
+        }
+        first[numNodes] = numEdges;
+
+        out.writeInt(numNodes);
+        out.writeInt(numEdges);
+        for (int i = 0; i <= numNodes; ++i) {
+            out.writeInt(first[i]);
+        }
+        for (int i = 0; i < numNodes; ++i) {
+            out.writeInt(values[i]);
+        }
+        for (int i = 0; i < numEdges; ++i) {
+            out.writeChar((int) chars[i]);
+        }
+        for (int i = 0; i < numEdges; ++i) {
+            out.writeInt(targets[i]);
+        }
+    }
+}
@@ -64,6 +64,16 @@ public class Builder {
         return this.chars[index];
     }
 
+    /**
+     * Gets the number of characters the builder can hold before it must grow.
+     *
+     * @return the capacity
+     */
+    public final int capacity() {
+
+        return this.chars.length;
+    }
+
     /**
      * Resets the builder (clears any string content).
      */
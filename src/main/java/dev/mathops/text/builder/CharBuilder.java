@@ -163,6 +163,20 @@ public class CharBuilder {
         this.size += len;
     }
 
+    /**
+     * Appends a range of characters to the builder's character array.
+     *
+     * @param source the source character array
+     * @param offset the index of the first character to copy
+     * @param len    the number of characters to copy
+     */
+    public final void addChars(final char[] source, final int offset, final int len) {
+
+        ensureCapacity(this.size + len);
+        System.arraycopy(source, offset, this.chars, this.size, len);
+        this.size += len;
+    }
+
     /**
      * Appends the UTF-16 characters that represent a "Unicode+" code point, in the range 0x0 to 0x1FFFFF.  If the
      * provided value is outside that range, or if it falls in the surrogate range, no action is taken and a warning
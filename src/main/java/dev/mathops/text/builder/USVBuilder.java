@@ -81,6 +81,16 @@ public class USVBuilder {
         return this.codePoints[index];
     }
 
+    /**
+     * Gets the number of code points the builder can hold before it must grow.
+     *
+     * @return the capacity
+     */
+    public final int capacity() {
+
+        return this.codePoints.length;
+    }
+
     /**
      * Resets the builder (clears any code point content).  This method does not change allocated storage.
      */
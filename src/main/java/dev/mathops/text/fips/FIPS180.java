@@ -1,12 +1,15 @@
 package dev.mathops.text.fips;
 
+import dev.mathops.text.MappedByteSequence;
+
 /**
  * An implementation of <a href='https://nvlpubs.nist.gov/nistpubs/FIPS/NIST.FIPS.180-4.pdf'>FIPS 180-4 (Secure Hash
  * Standard)</a>.
  *
  * <p>
- * This implementation assumes messages to be hashed will consist of a number of bits that is evenly divisible by 8.  It
- * cannot handle messages larger than 2^31 bytes (2^34 bits).
+ * This implementation assumes messages to be hashed will consist of a number of bits that is evenly divisible by 8.
+ * Messages are padded block by block as they are hashed, so a message may be a memory-mapped file larger than 2^31
+ * bytes, which is hashed without being copied into the heap.
  */
 public abstract class FIPS180 {
 
@@ -37,7 +40,29 @@ public abstract class FIPS180 {
      * @param message the message
      * @return the hash
      */
-    public abstract byte[] hash(byte[] message);
+    public final byte[] hash(final byte[] message) {
+
+        return digest(new MessageBlocks(message, blockSize()));
+    }
+
+    /**
+     * Computes a hash of the remaining bytes of a memory-mapped file. The sequence's position is not changed.
+     *
+     * @param message the message
+     * @return the hash
+     */
+    public final byte[] hash(final MappedByteSequence message) {
+
+        return digest(new MessageBlocks(message, blockSize()));
+    }
+
+    /**
+     * Computes a hash from the padded blocks of a message.
+     *
+     * @param blocks the supplier of padded blocks
+     * @return the hash
+     */
+    abstract byte[] digest(MessageBlocks blocks);
 
     /**
      * Performs the "Ch(x,y,z)" function using 32-bit words.
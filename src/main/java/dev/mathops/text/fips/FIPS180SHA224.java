@@ -5,8 +5,7 @@ package dev.mathops.text.fips;
  * <a href='https://nvlpubs.nist.gov/nistpubs/FIPS/NIST.FIPS.180-4.pdf'>FIPS 180-4 (Secure Hash Standard)</a>.
  *
  * <p>
- * This implementation assumes messages to be hashed will consist of a number of bits that is evenly divisible by 8. It
- * cannot handle messages larger than 2^31 bytes (2^34 bits).
+ * This implementation assumes messages to be hashed will consist of a number of bits that is evenly divisible by 8.
  */
 public final class FIPS180SHA224 extends FIPS180 {
 
@@ -52,16 +51,14 @@ public final class FIPS180SHA224 extends FIPS180 {
     }
 
     /**
-     * Computes a hash of a message.
+     * Computes a hash from the padded blocks of a message.
      *
-     * @param message the message
+     * @param blocks the supplier of padded blocks
      * @return the hash
      */
-    public byte[] hash(final byte[] message) {
+    byte[] digest(final MessageBlocks blocks) {
 
-        final byte[] padded = padToMultipleOf64(message);
-        final int len = padded.length;
-        final int numBlocks = len >> 6;
+        final byte[] block = new byte[64];
 
         int h0 = 0xc1059ed8;
         int h1 = 0x367cd507;
@@ -74,13 +71,12 @@ public final class FIPS180SHA224 extends FIPS180 {
 
         final int[] w = new int[64];
 
-        int blockStart = 0;
-        for (int i = 0; i < numBlocks; ++i) {
+        while (blocks.next(block)) {
 
             // Prepare the message schedule
-            int pos = blockStart;
+            int pos = 0;
             for (int t = 0; t < 16; ++t) {
-                w[t] = fourBytesToWord32(padded, pos);
+                w[t] = fourBytesToWord32(block, pos);
                 pos += 4;
             }
             for (int t = 16; t < 64; ++t) {
@@ -117,8 +113,6 @@ public final class FIPS180SHA224 extends FIPS180 {
             h5 += f;
             h6 += g;
             h7 += h;
-
-            blockStart += 64;
         }
 
         return new byte[]{
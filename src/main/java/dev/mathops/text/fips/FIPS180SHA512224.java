@@ -5,8 +5,7 @@ package dev.mathops.text.fips;
  * <a href='https://nvlpubs.nist.gov/nistpubs/FIPS/NIST.FIPS.180-4.pdf'>FIPS 180-4 (Secure Hash Standard)</a>.
  *
  * <p>
- * This implementation assumes messages to be hashed will consist of a number of bits that is evenly divisible by 8. It
- * cannot handle messages larger than 2^31 bytes (2^34 bits).
+ * This implementation assumes messages to be hashed will consist of a number of bits that is evenly divisible by 8.
  */
 public final class FIPS180SHA512224 extends FIPS180 {
 
@@ -52,16 +51,14 @@ public final class FIPS180SHA512224 extends FIPS180 {
     }
 
     /**
-     * Computes a hash of a message.
+     * Computes a hash from the padded blocks of a message.
      *
-     * @param message the message
+     * @param blocks the supplier of padded blocks
      * @return the hash
      */
-    public byte[] hash(final byte[] message) {
+    byte[] digest(final MessageBlocks blocks) {
 
-        final byte[] padded = padToMultipleOf128(message);
-        final int len = padded.length;
-        final int numBlocks = len >> 7;
+        final byte[] block = new byte[128];
 
         long h0 = 0x8C3D37C819544DA2L;
         long h1 = 0x73E1996689DCD4D6L;
@@ -74,13 +71,12 @@ public final class FIPS180SHA512224 extends FIPS180 {
 
         final long[] w = new long[80];
 
-        int blockStart = 0;
-        for (int i = 0; i < numBlocks; ++i) {
+        while (blocks.next(block)) {
 
             // Prepare the message schedule
-            int pos = blockStart;
+            int pos = 0;
             for (int t = 0; t < 16; ++t) {
-                w[t] = eightBytesToWord64(padded, pos);
+                w[t] = eightBytesToWord64(block, pos);
                 pos += 8;
             }
             for (int t = 16; t < 80; ++t) {
@@ -117,8 +113,6 @@ public final class FIPS180SHA512224 extends FIPS180 {
             h5 += f;
             h6 += g;
             h7 += h;
-
-            blockStart += 128;
         }
 
         return new byte[]{
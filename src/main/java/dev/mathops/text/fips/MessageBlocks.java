@@ -0,0 +1,129 @@
+package dev.mathops.text.fips;
+
+import dev.mathops.text.MappedByteSequence;
+
+/**
+ * Supplies the padded blocks of a message to a hash function one block at a time, so the padded message is never
+ * materialized. The message may be a byte array or a memory-mapped file of any length.
+ *
+ * <p>
+ * Padding follows Section 5.1 of FIPS 180-4: a single 1 bit (the byte 0x80), then zero bytes, then the message length
+ * in bits as a big-endian integer in the last 8 bytes (for 64-byte blocks) or 16 bytes (for 128-byte blocks) of the
+ * final block.
+ */
+final class MessageBlocks {
+
+    /** The message if it is an array (null if it is a mapped file). */
+    private final byte[] array;
+
+    /** The message if it is a mapped file (null if it is an array). */
+    private final MappedByteSequence mapped;
+
+    /** The file offset in {@code mapped} of the first byte of the message. */
+    private final long mappedStart;
+
+    /** The length of the message, in bytes. */
+    private final long messageLength;
+
+    /** The block size, in bytes (64 or 128). */
+    private final int blockSize;
+
+    /** The total number of padded blocks. */
+    private final long numBlocks;
+
+    /** The index of the next block to be supplied. */
+    private long nextBlock;
+
+    /**
+     * Constructs a new {@code MessageBlocks} over a byte array.
+     *
+     * @param message      the message
+     * @param theBlockSize the block size, in bytes (64 or 128)
+     */
+    MessageBlocks(final byte[] message, final int theBlockSize) {
+
+        this.array = message;
+        this.mapped = null;
+        this.mappedStart = 0L;
+        this.messageLength = (long) message.length;
+        this.blockSize = theBlockSize;
+        this.numBlocks = countBlocks(this.messageLength, theBlockSize);
+    }
+
+    /**
+     * Constructs a new {@code MessageBlocks} over the remaining bytes of a mapped file. The sequence's position is not
+     * changed.
+     *
+     * @param message      the message
+     * @param theBlockSize the block size, in bytes (64 or 128)
+     */
+    MessageBlocks(final MappedByteSequence message, final int theBlockSize) {
+
+        this.array = null;
+        this.mapped = message;
+        this.mappedStart = message.position();
+        this.messageLength = message.remaining();
+        this.blockSize = theBlockSize;
+        this.numBlocks = countBlocks(this.messageLength, theBlockSize);
+    }
+
+    /**
+     * Computes the number of blocks in a padded message.
+     *
+     * @param length    the message length, in bytes
+     * @param blockSize the block size, in bytes
+     * @return the number of blocks
+     */
+    private static long countBlocks(final long length, final int blockSize) {
+
+        // One byte for the 0x80 marker plus 8 or 16 bytes for the length
+        final long minPaddedLength = length + 1L + (long) (blockSize >> 3);
+
+        return (minPaddedLength + (long) blockSize - 1L) / (long) blockSize;
+    }
+
+    /**
+     * Fills an array with the next padded block.
+     *
+     * @param block the array to fill (its length must be the block size)
+     * @return true if a block was supplied; false if all blocks have been supplied
+     */
+    boolean next(final byte[] block) {
+
+        final boolean more = this.nextBlock < this.numBlocks;
+
+        if (more) {
+            final long blockStart = this.nextBlock * (long) this.blockSize;
+            final long available = Math.max(0L, Math.min((long) this.blockSize, this.messageLength - blockStart));
+            final int count = (int) available;
+
+            if (count > 0) {
+                if (this.array == null) {
+                    this.mapped.copy(this.mappedStart + blockStart, block, 0, count);
+                } else {
+                    System.arraycopy(this.array, (int) blockStart, block, 0, count);
+                }
+            }
+
+            if (count < this.blockSize) {
+                for (int i = count; i < this.blockSize; ++i) {
+                    block[i] = 0;
+                }
+                if (blockStart + (long) count == this.messageLength) {
+                    block[count] = (byte) 0x80;
+                }
+                ++this.nextBlock;
+                if (this.nextBlock == this.numBlocks) {
+                    final long bits = this.messageLength << 3;
+                    for (int i = 0; i < 8; ++i) {
+                        block[this.blockSize - 1 - i] = (byte) (bits >>> (i << 3));
+                    }
+                }
+            } else {
+                ++this.nextBlock;
+            }
+        }
+
+        return more;
+    }
+}
@@ -1,5 +1,7 @@
 package dev.mathops.text.internet;
 
+import dev.mathops.text.CodePointClass;
+
 /**
  * An implementation of <a href='https://datatracker.ietf.org/doc/html/rfc1034'>RFC 1034 (DOMAIN NAMES - CONCEPTS AND
  * FACILITIES)</a>.
@@ -15,7 +17,7 @@ public enum RFC1034 {
      */
     public static boolean isLetter(final int cp) {
 
-        return (cp >= 'a' && cp <= 'z') || (cp >= 'A' && cp <= 'Z');
+        return CodePointClass.is(cp, CodePointClass.ASCII_ALPHA);
     }
 
     /**
@@ -26,7 +28,7 @@ public enum RFC1034 {
      */
     public static boolean isDigit(final int cp) {
 
-        return cp >= '0' && cp <= '9';
+        return CodePointClass.is(cp, CodePointClass.ASCII_DIGIT);
     }
 
     /**
@@ -37,7 +39,7 @@ public enum RFC1034 {
      */
     public static boolean isLdh(final int cp) {
 
-        return cp == '-' || isLetter(cp) || isDigit(cp);
+        return CodePointClass.is(cp, CodePointClass.LDH);
     }
 
     /**
@@ -2,6 +2,7 @@ package dev.mathops.text.parser.json;
 
 import dev.mathops.commons.CoreConstants;
 import dev.mathops.commons.log.Log;
+import dev.mathops.text.CodePointClass;
 import dev.mathops.text.parser.ParsingException;
 
 import java.util.ArrayList;
@@ -740,7 +741,7 @@ public enum JSONParser {
      */
     private static boolean isWhitespace(final char ch) {
 
-        return (int) ch == (int) ' ' || (int) ch == (int) '\t' || (int) ch == (int) '\r' || (int) ch == (int) '\n';
+        return (int) ch < 0x80 && CodePointClass.isAscii((int) ch, CodePointClass.XML_WHITESPACE);
     }
 
     /**
@@ -751,6 +752,6 @@ public enum JSONParser {
      */
     private static boolean isDigit(final char ch) {
 
-        return (int) ch >= (int) '0' && (int) ch <= (int) '9';
+        return (int) ch < 0x80 && CodePointClass.isAscii((int) ch, CodePointClass.ASCII_DIGIT);
     }
 }
@@ -1,7 +1,7 @@
 package dev.mathops.text.parser.xml;
 
 import dev.mathops.commons.log.Log;
-import dev.mathops.text.unicode.UnicodeCharacter;
+import dev.mathops.text.CodePointClass;
 import dev.mathops.text.unicode.UnicodeCharacterSet;
 
 /**
@@ -10,36 +10,6 @@ import dev.mathops.text.unicode.UnicodeCharacterSet;
 public enum XmlChars {
     ;
 
-    /** The ranges of characters valid as the first character of an encoding. */
-    private static final int[][] ENCODING_1 = {{(int) 'A', (int) 'Z'}, {(int) 'a', (int) 'z'},};
-
-    /** A Unicode code point. */
-    private static final int SPACE = 0x20;
-
-    /** A Unicode code point. */
-    private static final int TAB = 0x9;
-
-    /** A Unicode code point. */
-    private static final int CR = 0xD;
-
-    /** A Unicode code point. */
-    private static final int LF = 0xA;
-
-    /** A Unicode code point. */
-    private static final int MIDDLE_DOT = 0xB7;
-
-    /**
-     * The set of ranges considered a {@code Char} in the XML 1.0 specification. Note that many of these characters are
-     * not currently defined in Unicode. This list is a subset of those permitted by XML 1.1.
-     */
-    private static final int[][] CHAR_10_RANGES =
-            {{0x9, 0xA}, {0xD}, {0x20, 0xD7FF}, {0xE000, 0xFFFD}, {0x10000, 0x10FFFF},};
-
-    /**
-     * The set of ranges considered a {@code Char} in the XML 1.1 specification that are not permitted by XML 1.0.
-     */
-    private static final int[][] EXTRA_CHAR_11_RANGES = {{0x1, 0x1F}};
-
     /**
      * Tests whether a code point is defined in the current Unicode standard and matches the {@code [2] Char} production
      * of XML 1.1.
@@ -51,16 +21,13 @@ public enum XmlChars {
      */
     public static boolean isChar(final int codePoint) {
 
-        final UnicodeCharacter chr = UnicodeCharacterSet.getInstance().getCharacter(codePoint);
         final boolean ok;
 
-        if (chr == null) {
+        if (!UnicodeCharacterSet.getInstance().isValid(codePoint)) {
             Log.warning("Unable to get Unicode character description");
             ok = false;
-        } else if (isInRanges(codePoint, CHAR_10_RANGES)) {
-            ok = true;
         } else {
-            ok = isInRanges(codePoint, EXTRA_CHAR_11_RANGES);
+            ok = CodePointClass.is(codePoint, CodePointClass.XML_CHAR);
         }
 
         return ok;
@@ -74,7 +41,7 @@ public enum XmlChars {
      */
     public static boolean isWhitespace(final int codePoint) {
 
-        return codePoint == SPACE || codePoint == TAB || codePoint == CR || codePoint == LF;
+        return CodePointClass.is(codePoint, CodePointClass.XML_WHITESPACE);
     }
 
     /**
@@ -85,13 +52,8 @@ public enum XmlChars {
      */
     public static boolean isNameStartChar(final int codePoint) {
 
-        final int[][] ranges = {{(int) 'A', (int) 'Z'}, {(int) 'a', (int) 'z'}, {0xC0, 0xD6}, {0xD8, 0xF6},
-                {0xF8, 0x2FF}, {0x370, 0x37D}, {0x37F, 0x1FFF}, {0x200C, 0x200D}, {0x2070, 0x218F}, {0x2C00, 0x2FEF},
-                {0x3001, 0xD7FF}, {0xF900, 0xFDCF}, {0xFDF0, 0xFFFD}, {0x10000, 0xEFFFF},};
-
-        return codePoint == (int) ':' || codePoint == (int) '_' ||
-               (UnicodeCharacterSet.getInstance().getCharacter(codePoint) != null
-                && isInRanges(codePoint, ranges));
+        return CodePointClass.is(codePoint, CodePointClass.XML_NAME_START_CHAR)
+               && (codePoint < 0x80 || UnicodeCharacterSet.getInstance().isValid(codePoint));
     }
 
     /**
@@ -102,10 +64,8 @@ public enum XmlChars {
      */
     public static boolean isNameChar(final int codePoint) {
 
-        final int[][] ranges = {{(int) '0', (int) '9'}, {0x300, 0x36f}, {0x203F, 0x2040}};
-
-        return codePoint == (int) '-' || codePoint == (int) '.' || codePoint == MIDDLE_DOT || isNameStartChar(codePoint)
-               || (UnicodeCharacterSet.getInstance().getCharacter(codePoint) != null && isInRanges(codePoint, ranges));
+        return CodePointClass.is(codePoint, CodePointClass.XML_NAME_CHAR)
+               && (codePoint < 0x80 || UnicodeCharacterSet.getInstance().isValid(codePoint));
     }
 
     /**
@@ -116,7 +76,7 @@ public enum XmlChars {
      */
     public static boolean isEncodingChar1(final char chr) {
 
-        return isInRanges((int) chr, ENCODING_1);
+        return CodePointClass.is((int) chr, CodePointClass.ASCII_ALPHA);
     }
 
     /**
@@ -127,7 +87,7 @@ public enum XmlChars {
      */
     public static boolean isEncodingChar2(final char chr) {
 
-        return isEncodingChar1(chr) || isDigit((int) chr) || "._-".indexOf((int) chr) != -1;
+        return CodePointClass.is((int) chr, CodePointClass.ASCII_ALPHANUMERIC) || "._-".indexOf((int) chr) != -1;
     }
 
     /**
@@ -149,9 +109,7 @@ public enum XmlChars {
      */
     public static boolean isDigit(final int codePoint) {
 
-        final int[][] ranges = {{(int) '0', (int) '9'}};
-
-        return isInRanges(codePoint, ranges);
+        return CodePointClass.is(codePoint, CodePointClass.ASCII_DIGIT);
     }
 
     /**
@@ -162,35 +120,6 @@ public enum XmlChars {
      */
     public static boolean isHex(final int codePoint) {
 
-        final int[][] ranges = {{(int) 'a', (int) 'f'}, {(int) 'A', (int) 'F'}};
-
-        return isDigit(codePoint) || isInRanges(codePoint, ranges);
-    }
-
-    /**
-     * Tests whether a Unicode code point falls within any of several ranges of values.
-     *
-     * @param codePoint the code point to test
-     * @param ranges    an array of one- or two-integer arrays, each containing either a single code point value, or the
-     *                  lower and upper limits of a range of code point values
-     * @return {@code true} if the code point is included in any of the specifies ranges (including the endpoints)
-     */
-    private static boolean isInRanges(final int codePoint, final int[][] ranges) {
-
-        boolean isInRanges = false;
-
-        for (final int[] range : ranges) {
-            if (range.length == 1) {
-                if (codePoint == range[0]) {
-                    isInRanges = true;
-                    break;
-                }
-            } else if (codePoint >= range[0] && codePoint <= range[1]) {
-                isInRanges = true;
-                break;
-            }
-        }
-
-        return isInRanges;
+        return CodePointClass.is(codePoint, CodePointClass.ASCII_HEX_DIGIT);
     }
 }
@@ -0,0 +1,250 @@
+package dev.mathops.text.unicode;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable two-stage table that maps each code point from U+0000 to U+10FFFF to a 16-bit value. The first stage
+ * maps each block of 128 code points to one of the distinct blocks in the second stage. Data from the Unicode
+ * character database is sparse and repetitive, so most blocks are shared and the table is a small fraction of the
+ * size of a flat array.
+ *
+ * <p>
+ * This is the one table builder for per-code-point data in the library: it backs the {@code UnicodeCharacterSet}
+ * tables (which are written by {@code UnicodeDatabaseCompiler} and read back with {@code read}) and the class table
+ * of {@code CodePointClass}, which builds its table at class initialization.
+ */
+public final class CodePointTable {
+
+    /** The largest code point in the table. */
+    static final int MAX_CODE_POINT = 0x10FFFF;
+
+    /** The number of bits of a code point that index within a second-stage block. */
+    private static final int BLOCK_SHIFT = 7;
+
+    /** The number of code points in a second-stage block. */
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    /** The index of the second-stage block for each block of code points. */
+    private final char[] index;
+
+    /** The distinct blocks, each {@code BLOCK_SIZE} entries long. */
+    private final char[] data;
+
+    /**
+     * Constructs a new {@code CodePointTable} from the value of each code point.
+     *
+     * @param values the value for each code point from U+0000 to U+10FFFF (an array of length 0x110000)
+     */
+    CodePointTable(final char[] values) {
+
+        this(runStarts(values), runValues(values));
+    }
+
+    /**
+     * Constructs a new {@code CodePointTable} from runs of code points that share a value. Each run extends from its
+     * start to the start of the next run (the last run extends through U+10FFFF).
+     *
+     * @param runStarts the first code point of each run, in ascending order (the first must be 0)
+     * @param runValues the value of each run
+     */
+    public CodePointTable(final int[] runStarts, final char[] runValues) {
+
+        final int numIndexes = (MAX_CODE_POINT + 1) >> BLOCK_SHIFT;
+        this.index = new char[numIndexes];
+
+        final int numRuns = runStarts.length;
+        int run = 0;
+
+        // A block that lies within one run is found by its value once a block with that value exists, so most blocks
+        // are never filled, hashed, or compared with the distinct blocks.
+        final int[] uniformValues = new int[numIndexes];
+        final int[] uniformBlocks = new int[numIndexes];
+        int numUniform = 0;
+
+        final char[] block = new char[BLOCK_SIZE];
+        char[] blocks = new char[BLOCK_SIZE * 64];
+        final int[] hashes = new int[numIndexes];
+        int numBlocks = 0;
+
+        for (int i = 0; i < numIndexes; ++i) {
+            final int start = i << BLOCK_SHIFT;
+            final int end = start + BLOCK_SIZE;
+
+            while (run + 1 < numRuns && runStarts[run + 1] <= start) {
+                ++run;
+            }
+            final boolean uniform = run + 1 == numRuns || runStarts[run + 1] >= end;
+            final int value = (int) runValues[run];
+
+            int found = -1;
+            if (uniform) {
+                for (int k = 0; k < numUniform; ++k) {
+                    if (uniformValues[k] == value) {
+                        found = uniformBlocks[k];
+                        break;
+                    }
+                }
+            }
+
+            if (found == -1) {
+                if (uniform) {
+                    Arrays.fill(block, (char) value);
+                } else {
+                    int pos = 0;
+                    int current = run;
+                    while (current + 1 < numRuns && runStarts[current + 1] < end) {
+                        final int next = runStarts[current + 1] - start;
+                        Arrays.fill(block, pos, next, runValues[current]);
+                        pos = next;
+                        ++current;
+                    }
+                    Arrays.fill(block, pos, BLOCK_SIZE, runValues[current]);
+                }
+
+                final int hash = Arrays.hashCode(block);
+                for (int k = 0; k < numBlocks; ++k) {
+                    final int blockStart = k << BLOCK_SHIFT;
+                    if (hashes[k] == hash
+                        && Arrays.equals(blocks, blockStart, blockStart + BLOCK_SIZE, block, 0, BLOCK_SIZE)) {
+                        found = k;
+                        break;
+                    }
+                }
+
+                if (found == -1) {
+                    if ((numBlocks << BLOCK_SHIFT) == blocks.length) {
+                        blocks = Arrays.copyOf(blocks, blocks.length * 2);
+                    }
+                    System.arraycopy(block, 0, blocks, numBlocks << BLOCK_SHIFT, BLOCK_SIZE);
+                    hashes[numBlocks] = hash;
+                    found = numBlocks;
+                    ++numBlocks;
+                }
+
+                if (uniform) {
+                    uniformValues[numUniform] = value;
+                    uniformBlocks[numUniform] = found;
+                    ++numUniform;
+                }
+            }
+
+            this.index[i] = (char) found;
+        }
+
+        this.data = Arrays.copyOf(blocks, numBlocks << BLOCK_SHIFT);
+    }
+
+    /**
+     * Finds the runs of code points that share a value.
+     *
+     * @param values the value for each code point
+     * @return the first code point of each run
+     */
+    private static int[] runStarts(final char[] values) {
+
+        int numRuns = 1;
+        for (int cp = 1; cp < values.length; ++cp) {
+            if (values[cp] != values[cp - 1]) {
+                ++numRuns;
+            }
+        }
+
+        final int[] result = new int[numRuns];
+        int count = 1;
+        for (int cp = 1; cp < values.length; ++cp) {
+            if (values[cp] != values[cp - 1]) {
+                result[count] = cp;
+                ++count;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the value of each run of code points that share a value.
+     *
+     * @param values the value for each code point
+     * @return the value of each run, in the order of {@code runStarts}
+     */
+    private static char[] runValues(final char[] values) {
+
+        final int[] starts = runStarts(values);
+        final char[] result = new char[starts.length];
+        for (int i = 0; i < starts.length; ++i) {
+            result[i] = values[starts[i]];
+        }
+
+        return result;
+    }
+
+    /**
+     * Constructs a new {@code CodePointTable} from its stages.
+     *
+     * @param theIndex the index of the second-stage block for each block of code points
+     * @param theData  the distinct blocks
+     */
+    private CodePointTable(final char[] theIndex, final char[] theData) {
+
+        this.index = theIndex;
+        this.data = theData;
+    }
+
+    /**
+     * Reads a table written by {@code write}.
+     *
+     * @param buffer the buffer from which to read
+     * @return the table
+     */
+    static CodePointTable read(final ByteBuffer buffer) {
+
+        final char[] theIndex = new char[buffer.getInt()];
+        final char[] theData = new char[buffer.getInt()];
+
+        buffer.asCharBuffer().get(theIndex).get(theData);
+        buffer.position(buffer.position() + ((theIndex.length + theData.length) << 1));
+
+        return new CodePointTable(theIndex, theData);
+    }
+
+    /**
+     * Writes the table (the lengths of the two stages, then their contents).
+     *
+     * @param out the stream to which to write
+     * @throws IOException if writing fails
+     */
+    void write(final DataOutputStream out) throws IOException {
+
+        out.writeInt(this.index.length);
+        out.writeInt(this.data.length);
+        for (final char value : this.index) {
+            out.writeChar((int) value);
+        }
+        for (final char value : this.data) {
+            out.writeChar((int) value);
+        }
+    }
+
+    /**
+     * Gets the value for a code point.
+     *
+     * @param codePoint the code point
+     * @return the value (zero if the code point is negative or beyond U+10FFFF)
+     */
+    public int get(final int codePoint) {
+
+        final int result;
+
+        if (codePoint >= 0 && codePoint <= MAX_CODE_POINT) {
+            final int block = (int) this.index[codePoint >> BLOCK_SHIFT];
+            result = (int) this.data[(block << BLOCK_SHIFT) | (codePoint & (BLOCK_SIZE - 1))];
+        } else {
+            result = 0;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+package dev.mathops.text.unicode;
+
+/**
+ * A named Unicode block. {@code UnicodeBlocks} creates one instance per block and always returns that instance, so
+ * blocks may be compared by identity.
+ */
+public final class UnicodeBlock {
+
+    /** The block name, as given in the Blocks.txt file (such as "Latin-1 Supplement"). */
+    public final String name;
+
+    /** The range of code points in the block. */
+    public final CodePointRange range;
+
+    /**
+     * Constructs a new {@code UnicodeBlock}.
+     *
+     * @param theName  the block name
+     * @param theRange the range of code points in the block
+     */
+    UnicodeBlock(final String theName, final CodePointRange theRange) {
+
+        this.name = theName;
+        this.range = theRange;
+    }
+
+    /**
+     * Tests whether a code point falls within the block.
+     *
+     * @param codePoint the code point
+     * @return {@code true} if the code point falls within the block
+     */
+    public boolean contains(final int codePoint) {
+
+        return this.range.isInRange(codePoint);
+    }
+
+    /**
+     * Generates the string representation of the block (its name).
+     *
+     * @return the string representation
+     */
+    @Override
+    public String toString() {
+
+        return this.name;
+    }
+}
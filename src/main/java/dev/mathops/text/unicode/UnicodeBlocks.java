@@ -1,95 +1,112 @@
 package dev.mathops.text.unicode;
 
-import dev.mathops.commons.CoreConstants;
 import dev.mathops.commons.file.FileLoader;
 import dev.mathops.commons.log.Log;
 import dev.mathops.text.builder.HtmlBuilder;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Performs lookups of Unicode block names based on the version 8.0.0 "Blocks.txt" file from the Unicode Character
  * Database.
+ *
+ * <p>
+ * Blocks can be looked up by name, or by code point: {@code blockOf} finds the block containing a code point with a
+ * binary search over the sorted block start code points, so finding the block of each code point in a text does not
+ * require testing every block.
  */
 public final class UnicodeBlocks {
 
     /** The name of the file to read. */
     private static final String FILENAME = "Blocks.txt";
 
+    /** The name of the compiled block table. */
+    private static final String TABLE_FILENAME = "Blocks.bin";
+
     /** The number of named Unicode blocks. */
     private static final int NUM_BLOCKS = 222;
 
-    /** The singleton instance. */
-    private static UnicodeBlocks instance = null;
-
-    /** A map from normalized block name to code point range. */
-    private final Map<String, CodePointRange> blocks;
-
-    /** A map from normalized block name to non-normalized name. */
-    private final Map<String, String> names;
+    /** A map from normalized block name to block. */
+    private final Map<String, UnicodeBlock> blocks;
 
     /** A map from partially normalized name (without spaces) to normalized name. */
     private final Map<String, String> noSpaceNames;
 
+    /** The blocks, in order by first code point. */
+    private final UnicodeBlock[] ordered;
+
+    /** The first code point of each block in {@code ordered}. */
+    private final int[] starts;
+
     /**
      * Private constructor to prevent direct instantiation.
      */
     private UnicodeBlocks() {
 
         this.blocks = new HashMap<>(NUM_BLOCKS);
-        this.names = new HashMap<>(NUM_BLOCKS);
         this.noSpaceNames = new HashMap<>(NUM_BLOCKS);
 
-        loadBlocksFile();
-    }
-
-    /**
-     * Attempts to load and populate the blocks map by reading the Blocks.txt file, which should be from the latest
-     * Unicode character database.
-     */
-    private void loadBlocksFile() {
-
-        final Class<? extends UnicodeBlocks> cls = getClass();
-        final String[] lines = FileLoader.loadFileAsLines(cls, FILENAME, true);
-        try {
-            for (final String line : lines) {
-                if (!line.isEmpty() && (int) line.charAt(0) != (int) '#') {
-                    processLine(line);
-                }
-            }
-        } catch (final NumberFormatException ex) {
-            Log.warning("Invalid block specification in ", FILENAME, ex);
-            this.blocks.clear();
+        this.ordered = loadBlocksFile();
+        this.starts = new int[this.ordered.length];
+        for (int i = 0; i < this.ordered.length; ++i) {
+            this.starts[i] = this.ordered[i].range.min;
         }
     }
 
     /**
-     * Processes a single line of the input blocks file, after it has been discovered that the line is not a comment or
-     * empty.
+     * Loads the block table and populates the blocks maps.
      *
-     * @param line the line to process
+     * @return the blocks, in order by first code point
      */
-    private void processLine(final String line) {
-
-        final int semi = line.indexOf((int) ';');
-        final int dots = line.indexOf("..");
+    private UnicodeBlock[] loadBlocksFile() {
 
-        if (semi != -1 && dots != -1) {
-            final String firstStr = line.substring(0, dots);
-            final int first = Integer.parseInt(firstStr, 16);
+        final ByteBuffer buffer = ByteBuffer.wrap(loadTable());
+        buffer.position(8);
 
-            final String lastStr = line.substring(dots + 2, semi);
-            final int last = Integer.parseInt(lastStr, 16);
+        final int numBlocks = buffer.getInt();
+        final UnicodeBlock[] list = new UnicodeBlock[numBlocks];
 
-            final String name = line.substring(semi + 2);
+        for (int i = 0; i < numBlocks; ++i) {
+            final int first = buffer.getInt();
+            final int last = buffer.getInt();
+            final String name = UnicodeDatabaseCompiler.readString(buffer);
             final String normalized = normalizeBlockName(name);
 
-            this.blocks.put(normalized, new CodePointRange(first, last));
-            this.names.put(normalized, name);
+            final UnicodeBlock block = new UnicodeBlock(name, new CodePointRange(first, last));
+            list[i] = block;
+            this.blocks.put(normalized, block);
             final String stripped = stripSpaces(name);
             this.noSpaceNames.put(stripped, normalized);
         }
+
+        Arrays.sort(list, Comparator.comparingInt(block -> block.range.min));
+
+        return list;
+    }
+
+    /**
+     * Loads the binary block table generated at build time, or compiles the Blocks.txt file if the table is not present
+     * or not valid.
+     *
+     * @return the binary table
+     */
+    private static byte[] loadTable() {
+
+        byte[] table = FileLoader.loadFileAsBytes(UnicodeBlocks.class, TABLE_FILENAME, false);
+
+        if (!UnicodeDatabaseCompiler.hasHeader(table, UnicodeDatabaseCompiler.BLOCKS_MAGIC)) {
+            if (table != null) {
+                Log.warning("Unicode block table has the wrong format; compiling ", FILENAME);
+            }
+            final String[] lines = FileLoader.loadFileAsLines(UnicodeBlocks.class, FILENAME, true);
+            table = UnicodeDatabaseCompiler.compileBlocks(lines == null ? new String[0] : lines);
+        }
+
+        return table;
     }
 
     /**
@@ -143,20 +160,57 @@ public final class UnicodeBlocks {
     }
 
     /**
-     * Gets the singleton instance, loading the blocks file if not already loaded.
+     * Gets the singleton instance, loading the blocks file if not already loaded. The instance is created when the
+     * holder class is initialized, so only the first call waits for loading, and later calls take no lock.
      *
      * @return the singleton instance
      */
     public static UnicodeBlocks getInstance() {
 
-        synchronized (CoreConstants.INSTANCE_SYNCH) {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Gets the block with a specified name.
+     *
+     * @param name the normalized or no-space block name
+     * @return the block; null if the name was not found
+     */
+    public UnicodeBlock getBlock(final String name) {
 
-            if (instance == null) {
-                instance = new UnicodeBlocks();
+        UnicodeBlock result = this.blocks.get(name);
+
+        if (result == null) {
+            final String normalized = this.noSpaceNames.get(name);
+            if (normalized != null) {
+                result = this.blocks.get(normalized);
             }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the block that contains a code point.
+     *
+     * @param codePoint the code point
+     * @return the block; null if the code point is not in any block
+     */
+    public UnicodeBlock blockOf(final int codePoint) {
+
+        final int index = Arrays.binarySearch(this.starts, codePoint);
+        final int candidate = index >= 0 ? index : -index - 2;
 
-            return instance;
+        UnicodeBlock result = null;
+
+        if (candidate >= 0) {
+            final UnicodeBlock block = this.ordered[candidate];
+            if (codePoint <= block.range.max) {
+                result = block;
+            }
         }
+
+        return result;
     }
 
     /**
@@ -168,16 +222,9 @@ public final class UnicodeBlocks {
      */
     public boolean isInBlock(final int codePoint, final String name) {
 
-        CodePointRange range = this.blocks.get(name);
+        final UnicodeBlock block = getBlock(name);
 
-        if (range == null) {
-            final String normalized = this.noSpaceNames.get(name);
-            if (normalized != null) {
-                range = this.blocks.get(normalized);
-            }
-        }
-
-        return range != null && range.isInRange(codePoint);
+        return block != null && block.contains(codePoint);
     }
 
     /**
@@ -190,4 +237,21 @@ public final class UnicodeBlocks {
 
         return this.noSpaceNames.containsKey(noSpaceName);
     }
+
+    /**
+     * Holds the singleton instance (the JVM initializes this class, and creates the instance, on first access).
+     */
+    private static final class Holder {
+
+        /** The singleton instance. */
+        static final UnicodeBlocks INSTANCE = new UnicodeBlocks();
+
+        /**
+         * Private constructor to prevent instantiation.
+         */
+        private Holder() {
+
+            // No action
+        }
+    }
 }
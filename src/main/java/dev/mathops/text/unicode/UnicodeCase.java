@@ -0,0 +1,263 @@
+package dev.mathops.text.unicode;
+
+import dev.mathops.text.BufferPool;
+import dev.mathops.text.IUSVSequence;
+import dev.mathops.text.TextUtils;
+import dev.mathops.text.builder.USVBuilder;
+import dev.mathops.text.builder.USVHtmlBuilder;
+
+/**
+ * Unicode case mapping and case-insensitive comparison of code point sequences.
+ *
+ * <p>
+ * Mappings are the one-to-one ("simple") mappings from the Unicode character database, so the result always has the
+ * same length as the input. Case folding maps each code point to the lowercase equivalent of its uppercase equivalent,
+ * as {@code String.equalsIgnoreCase} does for each character, so two sequences that differ only in case fold to the
+ * same sequence.
+ *
+ * <p>
+ * ASCII code points are mapped with arithmetic; other code points are mapped with one lookup in the delta-encoded case
+ * tables of {@code UnicodeCharacterSet}. The case-insensitive comparisons only map code points that differ, so
+ * comparing sequences that are equal, or that differ only in ASCII letter case, costs about as much as a plain
+ * comparison.
+ */
+public enum UnicodeCase {
+    ;
+
+    /** The mapping mode that maps to uppercase. */
+    private static final int UPPERCASE = 0;
+
+    /** The mapping mode that maps to lowercase. */
+    private static final int LOWERCASE = 1;
+
+    /** The mapping mode that folds case. */
+    private static final int FOLD = 2;
+
+    /** The smallest code point that is not ASCII. */
+    private static final int ASCII_LIMIT = 0x80;
+
+    /** The offset from an ASCII uppercase letter to the corresponding lowercase letter. */
+    private static final int ASCII_CASE_OFFSET = 0x20;
+
+    /**
+     * Converts a code point sequence to uppercase.
+     *
+     * @param input the code point sequence
+     * @return the uppercase sequence ({@code input} itself if it has no code points with uppercase mappings)
+     */
+    public static IUSVSequence toUppercase(final IUSVSequence input) {
+
+        return map(input, UPPERCASE);
+    }
+
+    /**
+     * Converts a code point sequence to uppercase, appending the result to a builder.
+     *
+     * @param input  the code point sequence
+     * @param target the builder to which to append the uppercase code points
+     */
+    public static void toUppercase(final IUSVSequence input, final USVBuilder target) {
+
+        map(input, 0, target, UPPERCASE);
+    }
+
+    /**
+     * Converts a code point sequence to lowercase.
+     *
+     * @param input the code point sequence
+     * @return the lowercase sequence ({@code input} itself if it has no code points with lowercase mappings)
+     */
+    public static IUSVSequence toLowercase(final IUSVSequence input) {
+
+        return map(input, LOWERCASE);
+    }
+
+    /**
+     * Converts a code point sequence to lowercase, appending the result to a builder.
+     *
+     * @param input  the code point sequence
+     * @param target the builder to which to append the lowercase code points
+     */
+    public static void toLowercase(final IUSVSequence input, final USVBuilder target) {
+
+        map(input, 0, target, LOWERCASE);
+    }
+
+    /**
+     * Folds the case of a code point sequence.
+     *
+     * @param input the code point sequence
+     * @return the case folded sequence ({@code input} itself if folding would not change it)
+     */
+    public static IUSVSequence foldCase(final IUSVSequence input) {
+
+        return map(input, FOLD);
+    }
+
+    /**
+     * Folds the case of a code point sequence, appending the result to a builder.
+     *
+     * @param input  the code point sequence
+     * @param target the builder to which to append the case folded code points
+     */
+    public static void foldCase(final IUSVSequence input, final USVBuilder target) {
+
+        map(input, 0, target, FOLD);
+    }
+
+    /**
+     * Folds the case of a code point.
+     *
+     * @param codePoint the code point
+     * @return the case folded code point
+     */
+    public static int foldCase(final int codePoint) {
+
+        return map(codePoint, FOLD);
+    }
+
+    /**
+     * Tests whether two code point sequences are equal, ignoring case (whether they are equal after case folding).
+     *
+     * @param seq1 the first sequence
+     * @param seq2 the second sequence
+     * @return true if the sequences are equal, ignoring case
+     */
+    public static boolean equalsIgnoreCase(final IUSVSequence seq1, final IUSVSequence seq2) {
+
+        final int len = seq1.size();
+        boolean equal = len == seq2.size();
+
+        for (int i = 0; equal && i < len; ++i) {
+            final int cp1 = seq1.get(i);
+            final int cp2 = seq2.get(i);
+            if (cp1 != cp2) {
+                if ((cp1 | cp2) < ASCII_LIMIT) {
+                    equal = (cp1 ^ cp2) == ASCII_CASE_OFFSET && TextUtils.isAsciiLowerAlpha(cp1 | ASCII_CASE_OFFSET);
+                } else {
+                    equal = map(cp1, FOLD) == map(cp2, FOLD);
+                }
+            }
+        }
+
+        return equal;
+    }
+
+    /**
+     * Compares two code point sequences lexicographically by their case folded code points.
+     *
+     * @param seq1 the first sequence
+     * @param seq2 the second sequence
+     * @return a negative value, zero, or a positive value as the first sequence is less than, equal to, or greater
+     *         than the second, ignoring case
+     */
+    public static int compareIgnoreCase(final IUSVSequence seq1, final IUSVSequence seq2) {
+
+        final int len1 = seq1.size();
+        final int len2 = seq2.size();
+        final int len = Math.min(len1, len2);
+
+        int result = 0;
+
+        for (int i = 0; result == 0 && i < len; ++i) {
+            final int cp1 = seq1.get(i);
+            final int cp2 = seq2.get(i);
+            if (cp1 != cp2) {
+                result = Integer.compare(map(cp1, FOLD), map(cp2, FOLD));
+            }
+        }
+
+        if (result == 0) {
+            result = Integer.compare(len1, len2);
+        }
+
+        return result;
+    }
+
+    /**
+     * Maps a code point sequence, returning the input itself if no code point changes.
+     *
+     * @param input the code point sequence
+     * @param mode  the mapping mode
+     * @return the mapped sequence
+     */
+    private static IUSVSequence map(final IUSVSequence input, final int mode) {
+
+        final int len = input.size();
+        int first = 0;
+        while (first < len) {
+            final int cp = input.get(first);
+            if (map(cp, mode) != cp) {
+                break;
+            }
+            ++first;
+        }
+
+        final IUSVSequence result;
+
+        if (first == len) {
+            result = input;
+        } else {
+            try (final BufferPool.Lease<USVHtmlBuilder> lease = BufferPool.USV_HTML_BUILDERS.lease(len)) {
+                final USVHtmlBuilder target = lease.get();
+                for (int i = 0; i < first; ++i) {
+                    target.addCodePoint(input.get(i));
+                }
+                map(input, first, target, mode);
+                result = target.toUSVString();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Maps the code points of a sequence from a starting index to the end, appending the results to a builder.
+     *
+     * @param input  the code point sequence
+     * @param start  the index of the first code point to map
+     * @param target the builder to which to append the mapped code points
+     * @param mode   the mapping mode
+     */
+    private static void map(final IUSVSequence input, final int start, final USVBuilder target, final int mode) {
+
+        final int len = input.size();
+
+        for (int i = start; i < len; ++i) {
+            target.addCodePoint(map(input.get(i), mode));
+        }
+    }
+
+    /**
+     * Maps a code point.
+     *
+     * @param codePoint the code point
+     * @param mode      the mapping mode
+     * @return the mapped code point
+     */
+    private static int map(final int codePoint, final int mode) {
+
+        int result = codePoint;
+
+        if (codePoint < ASCII_LIMIT) {
+            if (mode == UPPERCASE) {
+                if (TextUtils.isAsciiLowerAlpha(codePoint)) {
+                    result = codePoint - ASCII_CASE_OFFSET;
+                }
+            } else if (TextUtils.isAsciiUpperAlpha(codePoint)) {
+                result = codePoint + ASCII_CASE_OFFSET;
+            }
+        } else {
+            final UnicodeCharacterSet set = UnicodeCharacterSet.getInstance();
+            if (mode == UPPERCASE) {
+                result = set.toUppercase(codePoint);
+            } else if (mode == LOWERCASE) {
+                result = set.toLowercase(codePoint);
+            } else {
+                result = set.foldCase(codePoint);
+            }
+        }
+
+        return result;
+    }
+}
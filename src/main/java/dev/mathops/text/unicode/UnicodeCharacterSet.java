@@ -1,100 +1,204 @@
 package dev.mathops.text.unicode;
 
-import dev.mathops.commons.CoreConstants;
 import dev.mathops.commons.file.FileLoader;
 import dev.mathops.commons.log.Log;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * Loads the Unicode character database and generates a map from code point to a {@code UnicodeCharacter}.
+ * Loads the Unicode character database and provides the properties of each code point.
+ *
+ * <p>
+ * The properties queried most often (whether a code point is assigned, its general category, its canonical combining
+ * class, and its simple case mappings) are held in two-stage tables of primitive values (see {@code CodePointTable}),
+ * so each query is a few array loads. Full {@code UnicodeCharacter} records, with names and the less frequently used
+ * fields, are only built when first requested: the text database is read at that point, and each record is created
+ * when it is first requested and then shared.
+ *
+ * <p>
+ * The tables are loaded with one bulk read from a binary resource that the build compiles from UnicodeData.txt (see
+ * {@code UnicodeDatabaseCompiler}). If that resource is not present, as when running from sources, the text file is
+ * compiled when the set is first used.
+ *
+ * <p>
+ * Ranges of code points that the database lists as a "First" and "Last" pair (such as CJK ideographs and Hangul
+ * syllables) are treated as assigned throughout, with the properties of the range.
+ *
+ * <p>
+ * The set also holds the data used by {@code UnicodeNormalizer}: quick-check flags, full decompositions, and primary
+ * composites, all precomputed by the compiler so that normalization does not need to recurse through decomposition
+ * mappings or search for composition exclusions.
  */
 public final class UnicodeCharacterSet {
 
     /** The name of the file to read. */
     private static final String FILENAME = "UnicodeData.txt";
 
-    /** The number of fields per line in the UnicodeData.txt file. */
-    private static final int LINE_FIELDS = 15;
+    /** The name of the compiled character table. */
+    private static final String TABLE_FILENAME = "UnicodeData.bin";
 
-    /** The singleton instance. */
-    private static UnicodeCharacterSet instance = null;
+    /** The mask for the general category index (one more than the index in {@code categories}) in a property value. */
+    private static final int CATEGORY_MASK = 0x1F;
 
-    /** The Unicode characters by code point. */
-    private final Map<Integer, UnicodeCharacter> chars;
+    /** The general category abbreviations, in the order of their indexes in property values. */
+    private final String[] categories;
+
+    /** The general category index and combining class of each code point (zero if not assigned). */
+    private final CodePointTable properties;
+
+    /** The index of each code point's case mappings in the delta arrays (zero if it has none). */
+    private final CodePointTable caseIndexes;
+
+    /** The offsets from code points to their uppercase mappings, by case mapping index. */
+    private final int[] uppercaseDeltas;
+
+    /** The offsets from code points to their lowercase mappings, by case mapping index. */
+    private final int[] lowercaseDeltas;
+
+    /** The offsets from code points to their title case mappings, by case mapping index. */
+    private final int[] titlecaseDeltas;
+
+    /** The offsets from code points to their case foldings, by case mapping index. */
+    private final int[] foldingDeltas;
+
+    /** The normalization quick-check flags of each code point. */
+    private final CodePointTable normalizationFlags;
+
+    /** The index of each code point's decompositions in the offset arrays (zero if it has none). */
+    private final CodePointTable decompositionIndexes;
+
+    /** The start offset of each full canonical decomposition in {@code canonicalData}, by decomposition index. */
+    private final int[] canonicalOffsets;
+
+    /** The code points of the full canonical decompositions. */
+    private final int[] canonicalData;
+
+    /** The start offset of each full compatibility decomposition in {@code compatibilityData}, by index. */
+    private final int[] compatibilityOffsets;
+
+    /** The code points of the full compatibility decompositions. */
+    private final int[] compatibilityData;
+
+    /** The keys of the primary composites (see {@code UnicodeDatabaseCompiler.compositionKey}), in ascending order. */
+    private final long[] compositionKeys;
+
+    /** The primary composites, in the order of their keys. */
+    private final int[] composites;
 
     /**
      * Private constructor to prevent direct instantiation.
      */
     private UnicodeCharacterSet() {
 
-        this.chars = new TreeMap<>();
+        final ByteBuffer buffer = ByteBuffer.wrap(loadTable());
+        buffer.position(8);
 
-        loadCharsFile();
+        this.categories = new String[buffer.getInt()];
+        for (int i = 0; i < this.categories.length; ++i) {
+            this.categories[i] = UnicodeDatabaseCompiler.readString(buffer);
+        }
+
+        this.properties = CodePointTable.read(buffer);
+        this.caseIndexes = CodePointTable.read(buffer);
+
+        final int numMappings = buffer.getInt();
+        this.uppercaseDeltas = readInts(buffer, numMappings);
+        this.lowercaseDeltas = readInts(buffer, numMappings);
+        this.titlecaseDeltas = readInts(buffer, numMappings);
+        this.foldingDeltas = readInts(buffer, numMappings);
+
+        this.normalizationFlags = CodePointTable.read(buffer);
+        this.decompositionIndexes = CodePointTable.read(buffer);
+
+        final int numOffsets = buffer.getInt();
+        this.canonicalOffsets = readInts(buffer, numOffsets);
+        this.canonicalData = readInts(buffer, buffer.getInt());
+        this.compatibilityOffsets = readInts(buffer, numOffsets);
+        this.compatibilityData = readInts(buffer, buffer.getInt());
+
+        final int numComposites = buffer.getInt();
+        final int[] firsts = readInts(buffer, numComposites);
+        final int[] seconds = readInts(buffer, numComposites);
+        this.composites = readInts(buffer, numComposites);
+        this.compositionKeys = new long[numComposites];
+        for (int i = 0; i < numComposites; ++i) {
+            this.compositionKeys[i] = UnicodeDatabaseCompiler.compositionKey(firsts[i], seconds[i]);
+        }
     }
 
     /**
-     * Attempts to load and populate the blocks map by reading the Blocks.txt file, which should be from the latest
-     * Unicode character database.
+     * Loads the binary character table generated at build time, or compiles the UnicodeData.txt file if the table is
+     * not present or not valid.
+     *
+     * @return the binary table
      */
-    private void loadCharsFile() {
+    private static byte[] loadTable() {
 
-        final Class<? extends UnicodeCharacterSet> cls = getClass();
-        final String[] lines = FileLoader.loadFileAsLines(cls, FILENAME, true);
-        try {
-            for (final String line : lines) {
-                if (!line.isEmpty() && (int) line.charAt(0) != (int) '#') {
-                    processLine(line);
-                }
+        byte[] table = FileLoader.loadFileAsBytes(UnicodeCharacterSet.class, TABLE_FILENAME, false);
+
+        if (!UnicodeDatabaseCompiler.hasHeader(table, UnicodeDatabaseCompiler.CHARACTERS_MAGIC)) {
+            if (table != null) {
+                Log.warning("Unicode character table has the wrong format; compiling ", FILENAME);
             }
-        } catch (final NumberFormatException ex) {
-            Log.warning("Invalid character specification in ", FILENAME, ex);
-            this.chars.clear();
+            table = UnicodeDatabaseCompiler.compileCharacters(loadLines());
         }
+
+        return table;
     }
 
     /**
-     * Processes a single line of the input blocks file, after it has been discovered that the line is not a comment or
-     * empty.
+     * Reads the lines of the UnicodeData.txt file that are not empty or comments.
      *
-     * @param line the line to process
+     * @return the lines
      */
-    private void processLine(final String line) {
+    static String[] loadLines() {
 
-        final String[] split = line.split(";");
-        final String[] padded;
+        final String[] lines = FileLoader.loadFileAsLines(UnicodeCharacterSet.class, FILENAME, true);
+        final List<String> result = new ArrayList<>(lines == null ? 0 : lines.length);
 
-        if (split.length >= LINE_FIELDS) {
-            padded = split;
-        } else {
-            padded = new String[LINE_FIELDS];
-            Arrays.fill(padded, split.length, LINE_FIELDS, CoreConstants.EMPTY);
-            System.arraycopy(split, 0, padded, 0, split.length);
+        if (lines != null) {
+            for (final String line : lines) {
+                if (UnicodeDatabaseCompiler.isDataLine(line)) {
+                    result.add(line);
+                }
+            }
         }
 
-        final UnicodeCharacter chr = new UnicodeCharacter(padded);
-        final Integer key = Integer.valueOf(chr.codePoint);
-        this.chars.put(key, chr);
+        return result.toArray(new String[0]);
     }
 
     /**
-     * Gets the singleton instance, loading the Unicode database data file if not already loaded.
+     * Reads an array of integers from a buffer.
      *
-     * @return the singleton instance
+     * @param buffer the buffer
+     * @param count  the number of integers to read
+     * @return the array
      */
-    public static UnicodeCharacterSet getInstance() {
+    private static int[] readInts(final ByteBuffer buffer, final int count) {
 
-        synchronized (CoreConstants.INSTANCE_SYNCH) {
+        final int[] result = new int[count];
+        buffer.asIntBuffer().get(result);
+        buffer.position(buffer.position() + (count << 2));
 
-            if (instance == null) {
-                instance = new UnicodeCharacterSet();
-            }
+        return result;
+    }
 
-            return instance;
-        }
+    /**
+     * Gets the singleton instance, loading the Unicode database data file if not already loaded. The instance is
+     * created when the holder class is initialized, so only the first call waits for loading, and later calls take no
+     * lock.
+     *
+     * @return the singleton instance
+     */
+    public static UnicodeCharacterSet getInstance() {
+
+        return Holder.INSTANCE;
     }
 
     /**
@@ -105,18 +209,104 @@ public final class UnicodeCharacterSet {
      */
     public boolean isValid(final int codePoint) {
 
-        final Integer key = Integer.valueOf(codePoint);
-        return this.chars.containsKey(key);
+        return this.properties.get(codePoint) != 0;
     }
 
     /**
-     * Gets an iterator over the {@code UnicodeCharacter}s in the set.
+     * Gets the general category of a code point.
+     *
+     * @param codePoint the code point
+     * @return the two-letter general category abbreviation (such as "Lu"), or null if the code point is not assigned
+     */
+    public String getCategory(final int codePoint) {
+
+        final int categoryIndex = this.properties.get(codePoint) & CATEGORY_MASK;
+
+        return categoryIndex == 0 ? null : this.categories[categoryIndex - 1];
+    }
+
+    /**
+     * Gets the canonical combining class of a code point.
+     *
+     * @param codePoint the code point
+     * @return the canonical combining class (zero if the code point is not assigned)
+     */
+    public int getCombiningClass(final int codePoint) {
+
+        return this.properties.get(codePoint) >>> UnicodeDatabaseCompiler.COMBINING_SHIFT;
+    }
+
+    /**
+     * Gets the normalization quick-check flags of a code point (the {@code NFD_NO}, {@code NFKD_NO}, {@code NFC_NO},
+     * {@code NFKC_NO}, and {@code COMPOSE_MAYBE} bits defined in {@code UnicodeDatabaseCompiler}).
+     *
+     * @param codePoint the code point
+     * @return the flags (zero if the code point occurs unchanged in text in every normalization form)
+     */
+    int getNormalizationFlags(final int codePoint) {
+
+        return this.normalizationFlags.get(codePoint);
+    }
+
+    /**
+     * Gets the length of the full decomposition of a code point. Precomposed Hangul syllables are not included, since
+     * their decompositions are computed algorithmically.
+     *
+     * @param codePoint     the code point
+     * @param compatibility true for the full compatibility decomposition; false for the full canonical decomposition
+     * @return the number of code points in the decomposition (zero if the code point has no such decomposition)
+     */
+    int getDecompositionLength(final int codePoint, final boolean compatibility) {
+
+        final int index = this.decompositionIndexes.get(codePoint);
+        final int[] offsets = compatibility ? this.compatibilityOffsets : this.canonicalOffsets;
+
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Copies the full decomposition of a code point into an array.
+     *
+     * @param codePoint     the code point
+     * @param compatibility true for the full compatibility decomposition; false for the full canonical decomposition
+     * @param target        the array into which to copy (which must have room for {@code getDecompositionLength})
+     * @param offset        the index in {@code target} at which to copy the first code point
+     */
+    void getDecomposition(final int codePoint, final boolean compatibility, final int[] target, final int offset) {
+
+        final int index = this.decompositionIndexes.get(codePoint);
+        final int[] offsets = compatibility ? this.compatibilityOffsets : this.canonicalOffsets;
+        final int[] data = compatibility ? this.compatibilityData : this.canonicalData;
+        final int start = offsets[index];
+
+        System.arraycopy(data, start, target, offset, offsets[index + 1] - start);
+    }
+
+    /**
+     * Gets the primary composite of two code points. Precomposed Hangul syllables are not included, since their
+     * compositions are computed algorithmically.
+     *
+     * @param first  the first code point
+     * @param second the second code point
+     * @return the primary composite; -1 if the code points do not compose
+     */
+    int getComposite(final int first, final int second) {
+
+        final long key = UnicodeDatabaseCompiler.compositionKey(first, second);
+        final int index = Arrays.binarySearch(this.compositionKeys, key);
+
+        return index >= 0 ? this.composites[index] : -1;
+    }
+
+    /**
+     * Gets an iterator over the {@code UnicodeCharacter}s in the set (one for each entry in the database, so a range of
+     * code points is represented by its first and last code points).
      *
      * @return the iterator
      */
     public Iterator<UnicodeCharacter> iterator() {
 
-        return this.chars.values().iterator();
+        return new RecordIterator();
     }
 
     /**
@@ -127,8 +317,7 @@ public final class UnicodeCharacterSet {
      */
     public UnicodeCharacter getCharacter(final int codePoint) {
 
-        final Integer key = Integer.valueOf(codePoint);
-        return codePoint < 0 ? null : this.chars.get(key);
+        return isValid(codePoint) ? Records.getCharacter(codePoint) : null;
     }
 
     /**
@@ -140,17 +329,7 @@ public final class UnicodeCharacterSet {
      */
     public int toUppercase(final int codePoint) {
 
-        final int result;
-
-        final UnicodeCharacter chr = getCharacter(codePoint);
-
-        if (chr == null || chr.uppercase == null) {
-            result = codePoint;
-        } else {
-            result = chr.uppercase.intValue();
-        }
-
-        return result;
+        return codePoint + this.uppercaseDeltas[this.caseIndexes.get(codePoint)];
     }
 
     /**
@@ -162,17 +341,7 @@ public final class UnicodeCharacterSet {
      */
     public int toLowercase(final int codePoint) {
 
-        final int result;
-
-        final UnicodeCharacter chr = getCharacter(codePoint);
-
-        if (chr == null || chr.lowercase == null) {
-            result = codePoint;
-        } else {
-            result = chr.lowercase.intValue();
-        }
-
-        return result;
+        return codePoint + this.lowercaseDeltas[this.caseIndexes.get(codePoint)];
     }
 
     /**
@@ -184,16 +353,191 @@ public final class UnicodeCharacterSet {
      */
     public int toTitlecase(final int codePoint) {
 
-        final int result;
+        return codePoint + this.titlecaseDeltas[this.caseIndexes.get(codePoint)];
+    }
 
-        final UnicodeCharacter chr = getCharacter(codePoint);
+    /**
+     * Given a Unicode code point, returns the code point to which it folds for case-insensitive comparison: the
+     * lowercase equivalent of its uppercase equivalent. Two code points that differ only in case fold to the same code
+     * point. This is the same one-to-one folding that {@code String.equalsIgnoreCase} applies to each character.
+     *
+     * @param codePoint the code point
+     * @return the case folded equivalent
+     */
+    public int foldCase(final int codePoint) {
+
+        return codePoint + this.foldingDeltas[this.caseIndexes.get(codePoint)];
+    }
+
+    /**
+     * Holds the singleton instance (the JVM initializes this class, and creates the instance, on first access).
+     */
+    private static final class Holder {
+
+        /** The singleton instance. */
+        static final UnicodeCharacterSet INSTANCE = new UnicodeCharacterSet();
+
+        /**
+         * Private constructor to prevent instantiation.
+         */
+        private Holder() {
 
-        if (chr == null || chr.titlecase == null) {
-            result = codePoint;
-        } else {
-            result = chr.titlecase.intValue();
+            // No action
         }
+    }
 
-        return result;
+    /**
+     * The full records from the database, loaded when first used (the JVM initializes this class on first access).
+     */
+    private static final class Records {
+
+        /** The lines of the database. */
+        private static final String[] LINES;
+
+        /** The code point of each line. */
+        private static final int[] CODE_POINTS;
+
+        /** The records created so far, by line index. */
+        private static final AtomicReferenceArray<UnicodeCharacter> CHARACTERS;
+
+        static {
+            final String[] lines = loadLines();
+            final int[] codePoints = new int[lines.length];
+
+            int count = 0;
+            try {
+                for (final String line : lines) {
+                    final int semicolon = line.indexOf((int) ';');
+                    final String hex = line.substring(0, semicolon);
+                    codePoints[count] = Integer.parseInt(hex, UnicodeDatabaseCompiler.HEX_RADIX);
+                    ++count;
+                }
+            } catch (final NumberFormatException | StringIndexOutOfBoundsException ex) {
+                Log.warning("Invalid character specification in ", FILENAME, ex);
+                count = 0;
+            }
+
+            LINES = Arrays.copyOf(lines, count);
+            CODE_POINTS = Arrays.copyOf(codePoints, count);
+            CHARACTERS = new AtomicReferenceArray<>(count);
+        }
+
+        /**
+         * Private constructor to prevent instantiation.
+         */
+        private Records() {
+
+            // No action
+        }
+
+        /**
+         * Gets the number of records.
+         *
+         * @return the number of records
+         */
+        static int size() {
+
+            return LINES.length;
+        }
+
+        /**
+         * Gets the record for a line, creating it if this is the first request.
+         *
+         * @param index the line index
+         * @return the record
+         */
+        static UnicodeCharacter getRecord(final int index) {
+
+            UnicodeCharacter result = CHARACTERS.get(index);
+
+            if (result == null) {
+                final String[] fields = UnicodeDatabaseCompiler.splitLine(LINES[index]);
+                final UnicodeCharacter created = new UnicodeCharacter(fields);
+                result = CHARACTERS.compareAndExchange(index, null, created);
+                if (result == null) {
+                    result = created;
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * Gets the record for an assigned code point. A code point inside a range gets a new record with the properties
+         * of the range, and a name formed from the range name (such as "&lt;CJK Ideograph&gt;").
+         *
+         * @param codePoint the code point
+         * @return the record; null if the code point is not in the database
+         */
+        static UnicodeCharacter getCharacter(final int codePoint) {
+
+            final int index = Arrays.binarySearch(CODE_POINTS, codePoint);
+            UnicodeCharacter result = null;
+
+            if (index >= 0) {
+                result = getRecord(index);
+            } else {
+                final int before = -index - 2;
+                if (before >= 0) {
+                    final String[] fields = UnicodeDatabaseCompiler.splitLine(LINES[before]);
+                    final String name = fields[UnicodeDatabaseCompiler.NAME_IDX];
+                    if (name.endsWith(UnicodeDatabaseCompiler.FIRST_SUFFIX)) {
+                        final int prefixLen = name.length() - UnicodeDatabaseCompiler.FIRST_SUFFIX.length();
+                        fields[UnicodeDatabaseCompiler.CODE_POINT_IDX] = Integer.toHexString(codePoint);
+                        fields[UnicodeDatabaseCompiler.NAME_IDX] = name.substring(0, prefixLen) + ">";
+                        result = new UnicodeCharacter(fields);
+                    }
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * An iterator over the records in the database.
+     */
+    private static final class RecordIterator implements Iterator<UnicodeCharacter> {
+
+        /** The index of the next record. */
+        private int next;
+
+        /**
+         * Constructs a new {@code RecordIterator}.
+         */
+        RecordIterator() {
+
+            this.next = 0;
+        }
+
+        /**
+         * Tests whether there is another record.
+         *
+         * @return true if there is another record
+         */
+        @Override
+        public boolean hasNext() {
+
+            return this.next < Records.size();
+        }
+
+        /**
+         * Gets the next record.
+         *
+         * @return the record
+         * @throws NoSuchElementException if there are no more records
+         */
+        @Override
+        public UnicodeCharacter next() {
+
+            if (this.next >= Records.size()) {
+                throw new NoSuchElementException();
+            }
+
+            final UnicodeCharacter result = Records.getRecord(this.next);
+            ++this.next;
+
+            return result;
+        }
     }
 }
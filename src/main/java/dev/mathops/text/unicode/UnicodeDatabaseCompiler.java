@@ -0,0 +1,678 @@
+package dev.mathops.text.unicode;
+
+import dev.mathops.commons.CoreConstants;
+import dev.mathops.commons.log.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Compiles the Unicode character database files ("UnicodeData.txt" and "Blocks.txt") into the compact binary tables
+ * that {@code UnicodeCharacterSet} and {@code UnicodeBlocks} load at runtime. The build runs {@code main} to generate
+ * the tables as resources; if a table is not present (as when running from sources), the class that needs it compiles
+ * the text file itself.
+ *
+ * <p>
+ * Tables are written with {@code DataOutputStream} (big-endian). The character table contains, in order:
+ * <ol>
+ *     <li>The magic number and format version</li>
+ *     <li>The general category abbreviations (a count, then the length and characters of each)</li>
+ *     <li>The property table (category index and combining class), as a {@code CodePointTable}</li>
+ *     <li>The case mapping table (case mapping index), as a {@code CodePointTable}</li>
+ *     <li>The number of case mappings, then the uppercase, lowercase, title case, and case folding offsets for
+ *     each</li>
+ *     <li>The normalization quick-check flags, as a {@code CodePointTable}</li>
+ *     <li>The decomposition table (decomposition index), as a {@code CodePointTable}</li>
+ *     <li>The full canonical decompositions and full compatibility decompositions (for each, the start offset of each
+ *     decomposition in a data array, then the data array)</li>
+ *     <li>The primary composites (the number of pairs, then the first code points, the second code points, and the
+ *     composites, sorted by first and then second code point)</li>
+ * </ol>
+ * The block table contains the magic number and format version, the number of blocks, and the first and last code
+ * point, name length, and name characters of each block.
+ */
+public enum UnicodeDatabaseCompiler {
+    ;
+
+    /** The magic number that begins the character table ("UCDT"). */
+    static final int CHARACTERS_MAGIC = 0x55434454;
+
+    /** The magic number that begins the block table ("UCBK"). */
+    static final int BLOCKS_MAGIC = 0x5543424B;
+
+    /** The table format version. */
+    static final int VERSION = 3;
+
+    /** The number of fields per line in the UnicodeData.txt file. */
+    static final int LINE_FIELDS = 15;
+
+    /** A field index into the string array from UnicodeData.txt. */
+    static final int CODE_POINT_IDX = 0;
+
+    /** A field index into the string array from UnicodeData.txt. */
+    static final int NAME_IDX = 1;
+
+    /** A field index into the string array from UnicodeData.txt. */
+    private static final int CATEGORY_IDX = 2;
+
+    /** A field index into the string array from UnicodeData.txt. */
+    private static final int COMBINING_IDX = 3;
+
+    /** A field index into the string array from UnicodeData.txt. */
+    private static final int DECOMPOSITION_IDX = 5;
+
+    /** A field index into the string array from UnicodeData.txt. */
+    static final int OLD_NAME_IDX = 10;
+
+    /** A field index into the string array from UnicodeData.txt. */
+    private static final int UPPERCASE_IDX = 12;
+
+    /** A field index into the string array from UnicodeData.txt. */
+    private static final int LOWERCASE_IDX = 13;
+
+    /** A field index into the string array from UnicodeData.txt. */
+    private static final int TITLECASE_IDX = 14;
+
+    /** Radix for parsing hexadecimal. */
+    static final int HEX_RADIX = 16;
+
+    /** The suffix of the name of the first code point of a range. */
+    static final String FIRST_SUFFIX = ", First>";
+
+    /** The suffix of the name of the last code point of a range. */
+    private static final String LAST_SUFFIX = ", Last>";
+
+    /** The number of case mappings (uppercase, lowercase, title case, and case folding) per case mapping index. */
+    private static final int CASE_MAPPINGS = 4;
+
+    /** The shift of the canonical combining class in a property value. */
+    static final int COMBINING_SHIFT = 5;
+
+    /** A normalization flag: the code point does not occur in NFD text. */
+    static final int NFD_NO = 0x01;
+
+    /** A normalization flag: the code point does not occur in NFKD text. */
+    static final int NFKD_NO = 0x02;
+
+    /** A normalization flag: the code point does not occur in NFC text. */
+    static final int NFC_NO = 0x04;
+
+    /** A normalization flag: the code point does not occur in NFKC text. */
+    static final int NFKC_NO = 0x08;
+
+    /** A normalization flag: the code point may compose with a preceding code point in NFC or NFKC text. */
+    static final int COMPOSE_MAYBE = 0x10;
+
+    /** The first precomposed Hangul syllable. */
+    static final int HANGUL_S_BASE = 0xAC00;
+
+    /** The first leading Hangul jamo. */
+    static final int HANGUL_L_BASE = 0x1100;
+
+    /** The first vowel Hangul jamo. */
+    static final int HANGUL_V_BASE = 0x1161;
+
+    /** One less than the first trailing Hangul jamo. */
+    static final int HANGUL_T_BASE = 0x11A7;
+
+    /** The number of leading Hangul jamo. */
+    static final int HANGUL_L_COUNT = 19;
+
+    /** The number of vowel Hangul jamo. */
+    static final int HANGUL_V_COUNT = 21;
+
+    /** The number of trailing Hangul jamo, plus one for "no trailing jamo". */
+    static final int HANGUL_T_COUNT = 28;
+
+    /** The number of precomposed Hangul syllables with each leading jamo. */
+    static final int HANGUL_N_COUNT = HANGUL_V_COUNT * HANGUL_T_COUNT;
+
+    /** The number of precomposed Hangul syllables. */
+    static final int HANGUL_S_COUNT = HANGUL_L_COUNT * HANGUL_N_COUNT;
+
+    /**
+     * The code points excluded from composition that cannot be derived from UnicodeData.txt (the script-specific and
+     * post composition version exclusions listed in CompositionExclusions.txt).
+     */
+    private static final int[] COMPOSITION_EXCLUSIONS = {0x0958, 0x0959, 0x095A, 0x095B, 0x095C, 0x095D, 0x095E,
+            0x095F, 0x09DC, 0x09DD, 0x09DF, 0x0A33, 0x0A36, 0x0A59, 0x0A5A, 0x0A5B, 0x0A5E, 0x0B5C, 0x0B5D, 0x0F43,
+            0x0F4D, 0x0F52, 0x0F57, 0x0F5C, 0x0F69, 0x0F76, 0x0F78, 0x0F93, 0x0F9D, 0x0FA2, 0x0FA7, 0x0FAC, 0x0FB9,
+            0xFB1D, 0xFB1F, 0xFB2A, 0xFB2B, 0xFB2C, 0xFB2D, 0xFB2E, 0xFB2F, 0xFB30, 0xFB31, 0xFB32, 0xFB33, 0xFB34,
+            0xFB35, 0xFB36, 0xFB38, 0xFB39, 0xFB3A, 0xFB3B, 0xFB3C, 0xFB3E, 0xFB40, 0xFB41, 0xFB43, 0xFB44, 0xFB46,
+            0xFB47, 0xFB48, 0xFB49, 0xFB4A, 0xFB4B, 0xFB4C, 0xFB4D, 0xFB4E, 0x2ADC, 0x1D15E, 0x1D15F, 0x1D160, 0x1D161,
+            0x1D162, 0x1D163, 0x1D164, 0x1D1BB, 0x1D1BC, 0x1D1BD, 0x1D1BE, 0x1D1BF, 0x1D1C0};
+
+    /**
+     * Compiles the Unicode character database files.
+     *
+     * @param args the paths of UnicodeData.txt and Blocks.txt, then the paths of the character and block tables to
+     *             write
+     * @throws IOException if a database file cannot be read or a table cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+
+        if (args.length != 4) {
+            throw new IllegalArgumentException(
+                    "Usage: UnicodeDatabaseCompiler <UnicodeData.txt> <Blocks.txt> <characters.bin> <blocks.bin>");
+        }
+
+        final List<String> dataLines = Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8);
+        final List<String> blockLines = Files.readAllLines(Path.of(args[1]), StandardCharsets.UTF_8);
+
+        write(Path.of(args[2]), compileCharacters(dataLines.toArray(new String[0])));
+        write(Path.of(args[3]), compileBlocks(blockLines.toArray(new String[0])));
+    }
+
+    /**
+     * Writes a table to a file, creating its directory if needed.
+     *
+     * @param target the file to write
+     * @param table  the table
+     * @throws IOException if the file cannot be written
+     */
+    private static void write(final Path target, final byte[] table) throws IOException {
+
+        final Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(target, table);
+    }
+
+    /**
+     * Tests whether a line of a database file holds data (is not empty and not a comment).
+     *
+     * @param line the line
+     * @return true if the line holds data
+     */
+    static boolean isDataLine(final String line) {
+
+        return !line.isEmpty() && (int) line.charAt(0) != (int) '#';
+    }
+
+    /**
+     * Splits a line of the UnicodeData.txt file into its fields, padding with empty strings to the full number of
+     * fields.
+     *
+     * @param line the line
+     * @return the fields
+     */
+    static String[] splitLine(final String line) {
+
+        final String[] split = line.split(";");
+        final String[] padded;
+
+        if (split.length >= LINE_FIELDS) {
+            padded = split;
+        } else {
+            padded = new String[LINE_FIELDS];
+            Arrays.fill(padded, split.length, LINE_FIELDS, CoreConstants.EMPTY);
+            System.arraycopy(split, 0, padded, 0, split.length);
+        }
+
+        return padded;
+    }
+
+    /**
+     * Compiles the lines of the UnicodeData.txt file into a character table. If the file contains an invalid line, a
+     * warning is logged and the table has no assigned characters.
+     *
+     * @param lines the lines of the file
+     * @return the character table
+     */
+    static byte[] compileCharacters(final String[] lines) {
+
+        final char[] propertyValues = new char[CodePointTable.MAX_CODE_POINT + 1];
+        final List<String> categories = new ArrayList<>(32);
+        final Map<Integer, List<Integer>> caseDeltas = new HashMap<>(4096);
+        final Map<Integer, int[]> decompositions = new TreeMap<>();
+        final Set<Integer> compatibility = new HashSet<>(4096);
+
+        try {
+            int rangeStart = -1;
+            for (final String line : lines) {
+                if (!isDataLine(line)) {
+                    continue;
+                }
+
+                final String[] fields = splitLine(line);
+                final int codePoint = Integer.parseInt(fields[CODE_POINT_IDX], HEX_RADIX);
+                if (codePoint > CodePointTable.MAX_CODE_POINT) {
+                    continue;
+                }
+
+                final String category = fields[CATEGORY_IDX];
+                int categoryIndex = categories.indexOf(category);
+                if (categoryIndex == -1) {
+                    categoryIndex = categories.size();
+                    categories.add(category);
+                }
+                final int combining = fields[COMBINING_IDX].isEmpty() ? 0 : Integer.parseInt(fields[COMBINING_IDX]);
+                final char property = (char) ((categoryIndex + 1) | (combining << COMBINING_SHIFT));
+
+                final List<Integer> deltas = List.of(delta(fields[UPPERCASE_IDX], codePoint),
+                        delta(fields[LOWERCASE_IDX], codePoint), delta(fields[TITLECASE_IDX], codePoint));
+                if (deltas.get(0).intValue() != 0 || deltas.get(1).intValue() != 0 || deltas.get(2).intValue() != 0) {
+                    caseDeltas.put(Integer.valueOf(codePoint), deltas);
+                }
+
+                final String decomposition = fields[DECOMPOSITION_IDX];
+                if (!decomposition.isEmpty()) {
+                    final Integer cpKey = Integer.valueOf(codePoint);
+                    String mapping = decomposition;
+                    if ((int) mapping.charAt(0) == (int) '<') {
+                        compatibility.add(cpKey);
+                        mapping = mapping.substring(mapping.indexOf((int) '>') + 1).trim();
+                    }
+                    final String[] hex = mapping.split(" ");
+                    final int[] codePoints = new int[hex.length];
+                    for (int i = 0; i < hex.length; ++i) {
+                        codePoints[i] = Integer.parseInt(hex[i], HEX_RADIX);
+                    }
+                    decompositions.put(cpKey, codePoints);
+                }
+
+                final String name = fields[NAME_IDX];
+                if (name.endsWith(FIRST_SUFFIX)) {
+                    rangeStart = codePoint;
+                } else if (name.endsWith(LAST_SUFFIX) && rangeStart >= 0) {
+                    Arrays.fill(propertyValues, rangeStart, codePoint, property);
+                    rangeStart = -1;
+                }
+                propertyValues[codePoint] = property;
+            }
+        } catch (final NumberFormatException ex) {
+            Log.warning("Invalid character specification in UnicodeData.txt", ex);
+            Arrays.fill(propertyValues, (char) 0);
+            caseDeltas.clear();
+            decompositions.clear();
+            compatibility.clear();
+        }
+
+        final char[] caseValues = new char[CodePointTable.MAX_CODE_POINT + 1];
+        final Map<List<Integer>, Integer> caseMappings = caseMappings(caseDeltas, caseValues);
+        final List<List<Integer>> mappings = orderedMappings(caseMappings);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(65536);
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(CHARACTERS_MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(categories.size());
+            for (final String category : categories) {
+                writeString(out, category);
+            }
+
+            new CodePointTable(propertyValues).write(out);
+            new CodePointTable(caseValues).write(out);
+
+            out.writeInt(mappings.size());
+            for (int i = 0; i < CASE_MAPPINGS; ++i) {
+                for (final List<Integer> mapping : mappings) {
+                    out.writeInt(mapping.get(i).intValue());
+                }
+            }
+
+            writeNormalization(out, propertyValues, decompositions, compatibility);
+        } catch (final IOException ex) {
+            // Not possible when writing to a byte array
+            throw new IllegalStateException(ex);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the normalization tables: quick-check flags, full decompositions, and primary composites.
+     *
+     * <p>
+     * A code point is excluded from composition if its canonical decomposition is a single code point, if it or the
+     * first code point of its decomposition has a nonzero combining class, or if it is in
+     * {@code COMPOSITION_EXCLUSIONS}. Every other canonical decomposition into two code points defines a primary
+     * composite. A code point excluded from composition does not occur in NFC text, and the second code point of a
+     * primary composite may compose with the code point before it (the "maybe" quick-check result).
+     *
+     * @param out            the stream to which to write
+     * @param propertyValues the property value (category index and combining class) of each code point
+     * @param decompositions the decomposition mapping of each code point that has one, in order by code point
+     * @param compatibility  the code points whose decomposition mappings are compatibility mappings
+     * @throws IOException if writing fails
+     */
+    private static void writeNormalization(final DataOutputStream out, final char[] propertyValues,
+                                           final Map<Integer, int[]> decompositions, final Set<Integer> compatibility)
+            throws IOException {
+
+        final char[] flagValues = new char[CodePointTable.MAX_CODE_POINT + 1];
+        final char[] indexValues = new char[CodePointTable.MAX_CODE_POINT + 1];
+
+        final int numDecompositions = decompositions.size();
+        final int[] canonicalOffsets = new int[numDecompositions + 2];
+        final int[] compatibilityOffsets = new int[numDecompositions + 2];
+        final List<Integer> canonicalData = new ArrayList<>(numDecompositions * 3);
+        final List<Integer> compatibilityData = new ArrayList<>(numDecompositions * 3);
+        final Map<Long, Integer> composites = new TreeMap<>();
+
+        final Set<Integer> exclusions = new HashSet<>(COMPOSITION_EXCLUSIONS.length);
+        for (final int excluded : COMPOSITION_EXCLUSIONS) {
+            exclusions.add(Integer.valueOf(excluded));
+        }
+
+        int index = 1;
+        for (final Map.Entry<Integer, int[]> entry : decompositions.entrySet()) {
+            final Integer key = entry.getKey();
+            final int codePoint = key.intValue();
+            final int[] mapping = entry.getValue();
+            final boolean canonical = !compatibility.contains(key);
+
+            final List<Integer> canonicalFull = new ArrayList<>(4);
+            appendDecomposition(codePoint, decompositions, compatibility, false, canonicalFull);
+            final List<Integer> compatibilityFull = new ArrayList<>(4);
+            appendDecomposition(codePoint, decompositions, compatibility, true, compatibilityFull);
+
+            int flags = NFKD_NO;
+            if (canonical) {
+                flags |= NFD_NO;
+                canonicalData.addAll(canonicalFull);
+                if (mapping.length == 1 || (int) propertyValues[codePoint] >>> COMBINING_SHIFT != 0
+                    || (int) propertyValues[mapping[0]] >>> COMBINING_SHIFT != 0 || exclusions.contains(key)) {
+                    flags |= NFC_NO | NFKC_NO;
+                } else if (mapping.length == 2) {
+                    composites.put(Long.valueOf(compositionKey(mapping[0], mapping[1])), key);
+                }
+            }
+            if (!canonicalFull.equals(compatibilityFull)) {
+                flags |= NFKC_NO;
+            }
+            compatibilityData.addAll(compatibilityFull);
+
+            flagValues[codePoint] |= (char) flags;
+            indexValues[codePoint] = (char) index;
+            canonicalOffsets[index + 1] = canonicalData.size();
+            compatibilityOffsets[index + 1] = compatibilityData.size();
+            ++index;
+        }
+
+        for (final Integer composite : composites.values()) {
+            final int second = decompositions.get(composite)[1];
+            flagValues[second] |= (char) COMPOSE_MAYBE;
+        }
+        final int hangulEnd = HANGUL_S_BASE + HANGUL_S_COUNT;
+        for (int cp = HANGUL_S_BASE; cp < hangulEnd; ++cp) {
+            flagValues[cp] |= (char) (NFD_NO | NFKD_NO);
+        }
+        for (int i = 0; i < HANGUL_V_COUNT; ++i) {
+            flagValues[HANGUL_V_BASE + i] |= (char) COMPOSE_MAYBE;
+        }
+        for (int i = 1; i < HANGUL_T_COUNT; ++i) {
+            flagValues[HANGUL_T_BASE + i] |= (char) COMPOSE_MAYBE;
+        }
+
+        new CodePointTable(flagValues).write(out);
+        new CodePointTable(indexValues).write(out);
+
+        out.writeInt(canonicalOffsets.length);
+        writeInts(out, canonicalOffsets);
+        out.writeInt(canonicalData.size());
+        for (final Integer value : canonicalData) {
+            out.writeInt(value.intValue());
+        }
+        writeInts(out, compatibilityOffsets);
+        out.writeInt(compatibilityData.size());
+        for (final Integer value : compatibilityData) {
+            out.writeInt(value.intValue());
+        }
+
+        out.writeInt(composites.size());
+        for (final Long key : composites.keySet()) {
+            out.writeInt((int) (key.longValue() >>> Integer.SIZE));
+        }
+        for (final Long key : composites.keySet()) {
+            out.writeInt((int) key.longValue());
+        }
+        for (final Integer composite : composites.values()) {
+            out.writeInt(composite.intValue());
+        }
+    }
+
+    /**
+     * Appends the full (recursive) decomposition of a code point to a list. Precomposed Hangul syllables (which appear
+     * in some compatibility decompositions) are decomposed algorithmically.
+     *
+     * @param codePoint      the code point
+     * @param decompositions the decomposition mapping of each code point that has one
+     * @param compatibility  the code points whose decomposition mappings are compatibility mappings
+     * @param full           true to apply compatibility mappings as well as canonical mappings
+     * @param target         the list to which to append
+     */
+    private static void appendDecomposition(final int codePoint, final Map<Integer, int[]> decompositions,
+                                            final Set<Integer> compatibility, final boolean full,
+                                            final List<Integer> target) {
+
+        final Integer key = Integer.valueOf(codePoint);
+        final int[] mapping = decompositions.get(key);
+        final int sIndex = codePoint - HANGUL_S_BASE;
+
+        if (sIndex >= 0 && sIndex < HANGUL_S_COUNT) {
+            target.add(Integer.valueOf(HANGUL_L_BASE + sIndex / HANGUL_N_COUNT));
+            target.add(Integer.valueOf(HANGUL_V_BASE + (sIndex % HANGUL_N_COUNT) / HANGUL_T_COUNT));
+            final int tIndex = sIndex % HANGUL_T_COUNT;
+            if (tIndex != 0) {
+                target.add(Integer.valueOf(HANGUL_T_BASE + tIndex));
+            }
+        } else if (mapping == null || (!full && compatibility.contains(key))) {
+            target.add(key);
+        } else {
+            for (final int mapped : mapping) {
+                appendDecomposition(mapped, decompositions, compatibility, full, target);
+            }
+        }
+    }
+
+    /**
+     * Computes the key under which a primary composite is stored (the first code point in the high 32 bits and the
+     * second in the low 32 bits, so keys sort by first and then second code point).
+     *
+     * @param first  the first code point
+     * @param second the second code point
+     * @return the key
+     */
+    static long compositionKey(final int first, final int second) {
+
+        return ((long) first << Integer.SIZE) | (long) second;
+    }
+
+    /**
+     * Writes the values in an array of integers.
+     *
+     * @param out    the stream to which to write
+     * @param values the values
+     * @throws IOException if writing fails
+     */
+    private static void writeInts(final DataOutputStream out, final int[] values) throws IOException {
+
+        for (final int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Computes the offset from a code point to a mapped code point.
+     *
+     * @param mapping   the hexadecimal mapped code point, or an empty string if there is no mapping
+     * @param codePoint the code point
+     * @return the offset (zero if there is no mapping)
+     * @throws NumberFormatException if the mapping cannot be parsed
+     */
+    private static Integer delta(final String mapping, final int codePoint) {
+
+        final int value = mapping.isEmpty() ? 0 : Integer.parseInt(mapping, HEX_RADIX) - codePoint;
+
+        return Integer.valueOf(value);
+    }
+
+    /**
+     * Assigns an index to each distinct combination of case mapping offsets (uppercase, lowercase, title case, and case
+     * folding), with index zero for code points that have no case mappings. The case folding of a code point is the
+     * lowercase mapping of its uppercase mapping (which maps, for example, U+017F LATIN SMALL LETTER LONG S and U+212A
+     * KELVIN SIGN to the same code point as the letters they resemble).
+     *
+     * @param caseDeltas the uppercase, lowercase, and title case offsets of each code point that has a case mapping
+     * @param caseValues the array in which to store the case mapping index of each code point
+     * @return the map from each combination of offsets to its index
+     */
+    private static Map<List<Integer>, Integer> caseMappings(final Map<Integer, List<Integer>> caseDeltas,
+                                                            final char[] caseValues) {
+
+        final Map<List<Integer>, Integer> result = new HashMap<>(64);
+        final Integer zero = Integer.valueOf(0);
+        result.put(List.of(zero, zero, zero, zero), zero);
+
+        for (final Map.Entry<Integer, List<Integer>> entry : caseDeltas.entrySet()) {
+            final int codePoint = entry.getKey().intValue();
+            final List<Integer> deltas = entry.getValue();
+            final int upper = codePoint + deltas.get(0).intValue();
+            final List<Integer> upperDeltas = caseDeltas.get(Integer.valueOf(upper));
+            final int folded = upperDeltas == null ? upper : upper + upperDeltas.get(1).intValue();
+
+            final List<Integer> key = List.of(deltas.get(0), deltas.get(1), deltas.get(2),
+                    Integer.valueOf(folded - codePoint));
+            Integer caseIndex = result.get(key);
+            if (caseIndex == null) {
+                caseIndex = Integer.valueOf(result.size());
+                result.put(key, caseIndex);
+            }
+            caseValues[codePoint] = (char) caseIndex.intValue();
+        }
+
+        return result;
+    }
+
+    /**
+     * Orders case mappings by their index.
+     *
+     * @param caseMappings the map from each combination of case mapping offsets to its index
+     * @return the case mappings, in order by index
+     */
+    private static List<List<Integer>> orderedMappings(final Map<List<Integer>, Integer> caseMappings) {
+
+        final List<List<Integer>> result = new ArrayList<>(Collections.nCopies(caseMappings.size(), null));
+
+        for (final Map.Entry<List<Integer>, Integer> entry : caseMappings.entrySet()) {
+            result.set(entry.getValue().intValue(), entry.getKey());
+        }
+
+        return result;
+    }
+
+    /**
+     * Compiles the lines of the Blocks.txt file into a block table. If the file contains an invalid line, a warning is
+     * logged and the table has no blocks.
+     *
+     * @param lines the lines of the file
+     * @return the block table
+     */
+    static byte[] compileBlocks(final String[] lines) {
+
+        final List<Integer> firsts = new ArrayList<>(400);
+        final List<Integer> lasts = new ArrayList<>(400);
+        final List<String> names = new ArrayList<>(400);
+
+        try {
+            for (final String line : lines) {
+                final int semi = line.indexOf((int) ';');
+                final int dots = line.indexOf("..");
+
+                if (isDataLine(line) && semi != -1 && dots != -1) {
+                    firsts.add(Integer.valueOf(line.substring(0, dots), HEX_RADIX));
+                    lasts.add(Integer.valueOf(line.substring(dots + 2, semi), HEX_RADIX));
+                    names.add(line.substring(semi + 2));
+                }
+            }
+        } catch (final NumberFormatException ex) {
+            Log.warning("Invalid block specification in Blocks.txt", ex);
+            firsts.clear();
+            lasts.clear();
+            names.clear();
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(16384);
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(BLOCKS_MAGIC);
+            out.writeInt(VERSION);
+
+            final int numBlocks = names.size();
+            out.writeInt(numBlocks);
+            for (int i = 0; i < numBlocks; ++i) {
+                out.writeInt(firsts.get(i).intValue());
+                out.writeInt(lasts.get(i).intValue());
+                writeString(out, names.get(i));
+            }
+        } catch (final IOException ex) {
+            // Not possible when writing to a byte array
+            throw new IllegalStateException(ex);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a string as its length followed by its characters.
+     *
+     * @param out the stream to which to write
+     * @param str the string
+     * @throws IOException if writing fails
+     */
+    private static void writeString(final DataOutputStream out, final String str) throws IOException {
+
+        out.writeShort(str.length());
+        out.writeChars(str);
+    }
+
+    /**
+     * Reads a string written by {@code writeString}.
+     *
+     * @param buffer the buffer from which to read
+     * @return the string
+     */
+    static String readString(final ByteBuffer buffer) {
+
+        final char[] chars = new char[(int) buffer.getShort() & 0xFFFF];
+        buffer.asCharBuffer().get(chars);
+        buffer.position(buffer.position() + (chars.length << 1));
+
+        return new String(chars);
+    }
+
+    /**
+     * Tests whether a table begins with the expected magic number and the current format version.
+     *
+     * @param table the table (null if it could not be loaded)
+     * @param magic the expected magic number
+     * @return true if the table has the expected header
+     */
+    static boolean hasHeader(final byte[] table, final int magic) {
+
+        boolean result = false;
+
+        if (table != null && table.length >= 8) {
+            final ByteBuffer buffer = ByteBuffer.wrap(table);
+            result = buffer.getInt() == magic && buffer.getInt() == VERSION;
+        }
+
+        return result;
+    }
+}
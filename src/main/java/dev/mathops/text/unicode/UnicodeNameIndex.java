@@ -0,0 +1,428 @@
+package dev.mathops.text.unicode;
+
+import dev.mathops.commons.log.Log;
+import dev.mathops.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An index of the names of the characters in the Unicode character database, for looking up characters by name and
+ * searching for characters whose names contain given words.
+ *
+ * <p>
+ * Both the current name and the Unicode 1.0 name of each character are indexed. Names in the database are uppercase
+ * ASCII, and queries are converted to uppercase, so lookups ignore ASCII case. Characters whose names are derived from
+ * their code points (such as CJK ideographs and Hangul syllables) and control characters with no Unicode 1.0 name are
+ * not indexed.
+ *
+ * <p>
+ * The index holds two sorted lists, each packed into one {@code char[]} with an array of start offsets: the names
+ * (with the code point of each), and the distinct words in the names (with a posting list of the code points whose
+ * names contain each word, in ascending order). A lookup by name or name prefix is a binary search over the names. A
+ * search by words finds the range of indexed words that begin with each query word by binary search, merges their
+ * posting lists, and intersects the results across query words.
+ *
+ * <p>
+ * The index is built from the text database when first used, and is immutable after that.
+ */
+public final class UnicodeNameIndex {
+
+    /** An empty result. */
+    private static final int[] NONE = new int[0];
+
+    /** A character greater than any character in a name (used to find the end of a range of names with a prefix). */
+    private static final char AFTER_PREFIX = '\uFFFF';
+
+    /** The indexed names, sorted and packed together. */
+    private final char[] names;
+
+    /** The index in {@code names} where each name starts (with an extra entry at the end). */
+    private final int[] nameStarts;
+
+    /** The code point of each name. */
+    private final int[] nameCodePoints;
+
+    /** The distinct words in the names, sorted and packed together. */
+    private final char[] words;
+
+    /** The index in {@code words} where each word starts (with an extra entry at the end). */
+    private final int[] wordStarts;
+
+    /** The index in {@code postings} where each word's posting list starts (with an extra entry at the end). */
+    private final int[] postingStarts;
+
+    /** The posting lists (the code points whose names contain each word, in ascending order). */
+    private final int[] postings;
+
+    /**
+     * Private constructor to prevent direct instantiation.
+     */
+    private UnicodeNameIndex() {
+
+        final Map<String, Integer> nameMap = new TreeMap<>();
+        final Map<String, List<Integer>> wordMap = new TreeMap<>();
+
+        try {
+            for (final String line : UnicodeCharacterSet.loadLines()) {
+                final String[] fields = UnicodeDatabaseCompiler.splitLine(line);
+                final int codePoint = Integer.parseInt(fields[UnicodeDatabaseCompiler.CODE_POINT_IDX],
+                        UnicodeDatabaseCompiler.HEX_RADIX);
+                addName(fields[UnicodeDatabaseCompiler.NAME_IDX], codePoint, nameMap, wordMap);
+                addName(fields[UnicodeDatabaseCompiler.OLD_NAME_IDX], codePoint, nameMap, wordMap);
+            }
+        } catch (final NumberFormatException ex) {
+            Log.warning("Invalid character specification in UnicodeData.txt", ex);
+            nameMap.clear();
+            wordMap.clear();
+        }
+
+        final int numNames = nameMap.size();
+        this.names = pack(nameMap.keySet());
+        this.nameStarts = starts(nameMap.keySet());
+        this.nameCodePoints = new int[numNames];
+        int index = 0;
+        for (final Integer codePoint : nameMap.values()) {
+            this.nameCodePoints[index] = codePoint.intValue();
+            ++index;
+        }
+
+        this.words = pack(wordMap.keySet());
+        this.wordStarts = starts(wordMap.keySet());
+        this.postingStarts = new int[wordMap.size() + 1];
+        int numPostings = 0;
+        index = 0;
+        for (final List<Integer> list : wordMap.values()) {
+            numPostings += list.size();
+            ++index;
+            this.postingStarts[index] = numPostings;
+        }
+        this.postings = new int[numPostings];
+        index = 0;
+        for (final List<Integer> list : wordMap.values()) {
+            for (final Integer codePoint : list) {
+                this.postings[index] = codePoint.intValue();
+                ++index;
+            }
+        }
+    }
+
+    /**
+     * Adds a name and its words to the maps from which the index is built. Empty names, and names in angle brackets
+     * (such as "&lt;control&gt;"), are not added.
+     *
+     * @param name      the name
+     * @param codePoint the code point
+     * @param nameMap   the map from name to code point
+     * @param wordMap   the map from word to the list of code points whose names contain the word
+     */
+    private static void addName(final String name, final int codePoint, final Map<String, Integer> nameMap,
+                                final Map<String, List<Integer>> wordMap) {
+
+        if (!name.isEmpty() && (int) name.charAt(0) != (int) '<') {
+            final Integer boxed = Integer.valueOf(codePoint);
+            nameMap.putIfAbsent(name, boxed);
+
+            for (final String word : splitWords(name)) {
+                final List<Integer> list = wordMap.computeIfAbsent(word, key -> new ArrayList<>(4));
+                // Code points are added in ascending order, so a repeat can only be at the end of the list
+                if (list.isEmpty() || !list.get(list.size() - 1).equals(boxed)) {
+                    list.add(boxed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits a name or query into words, at spaces and hyphens.
+     *
+     * @param str the name or query
+     * @return the words
+     */
+    private static List<String> splitWords(final String str) {
+
+        final List<String> result = new ArrayList<>(6);
+        final int len = str.length();
+
+        int start = 0;
+        for (int i = 0; i <= len; ++i) {
+            if (i == len || (int) str.charAt(i) == (int) ' ' || (int) str.charAt(i) == (int) '-') {
+                if (i > start) {
+                    result.add(str.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Packs a sorted collection of strings into one array.
+     *
+     * @param strings the strings
+     * @return the packed characters
+     */
+    private static char[] pack(final Iterable<String> strings) {
+
+        final StringBuilder builder = new StringBuilder(65536);
+        for (final String str : strings) {
+            builder.append(str);
+        }
+
+        final char[] result = new char[builder.length()];
+        builder.getChars(0, result.length, result, 0);
+
+        return result;
+    }
+
+    /**
+     * Computes the start offset of each string in the packed array built by {@code pack}.
+     *
+     * @param strings the strings
+     * @return the start offsets (with an extra entry at the end)
+     */
+    private static int[] starts(final Iterable<String> strings) {
+
+        final List<Integer> offsets = new ArrayList<>(32768);
+        int offset = 0;
+        offsets.add(Integer.valueOf(offset));
+        for (final String str : strings) {
+            offset += str.length();
+            offsets.add(Integer.valueOf(offset));
+        }
+
+        final int[] result = new int[offsets.size()];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = offsets.get(i).intValue();
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the singleton instance, building the index if not already built.
+     *
+     * @return the singleton instance
+     */
+    public static UnicodeNameIndex getInstance() {
+
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Looks up a character by its name or Unicode 1.0 name, ignoring case.
+     *
+     * @param name the name (such as "Integral" or "LATIN SMALL LETTER A")
+     * @return the code point; -1 if no character has the name
+     */
+    public int lookup(final String name) {
+
+        final String key = TextUtils.asciiUppercase(name);
+        final int index = lowerBound(this.names, this.nameStarts, key);
+
+        final int result;
+
+        if (index < this.nameCodePoints.length && compare(this.names, this.nameStarts, index, key) == 0) {
+            result = this.nameCodePoints[index];
+        } else {
+            result = -1;
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the characters whose names (or Unicode 1.0 names) begin with a prefix, ignoring case.
+     *
+     * @param prefix the prefix (such as "GREEK SMALL LETTER")
+     * @return the code points, in ascending order
+     */
+    public int[] findByPrefix(final String prefix) {
+
+        final String key = TextUtils.asciiUppercase(prefix);
+        final int first = lowerBound(this.names, this.nameStarts, key);
+        final int last = lowerBound(this.names, this.nameStarts, key + AFTER_PREFIX);
+
+        final int[] result = Arrays.copyOfRange(this.nameCodePoints, first, last);
+        Arrays.sort(result);
+
+        return distinct(result, result.length);
+    }
+
+    /**
+     * Finds the characters whose names (or Unicode 1.0 names) contain every word of a query, where a query word
+     * matches any word in a name that begins with it (so a query can be matched as it is typed), ignoring case. Words
+     * in names and queries are separated by spaces or hyphens. For example, "integral" finds INTEGRAL, CONTOUR
+     * INTEGRAL, and INTEGRATION, and "arrow up" finds UPWARDS ARROW and UP ARROWHEAD.
+     *
+     * @param query the query
+     * @return the code points, in ascending order (empty if the query has no words)
+     */
+    public int[] findByWords(final String query) {
+
+        final List<String> queryWords = splitWords(TextUtils.asciiUppercase(query));
+
+        int[] result = queryWords.isEmpty() ? NONE : null;
+
+        for (final String word : queryWords) {
+            final int[] matches = wordMatches(word);
+            result = result == null ? matches : intersect(result, matches);
+            if (result.length == 0) {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the characters whose names contain a word that begins with a prefix.
+     *
+     * @param prefix the uppercase word prefix
+     * @return the code points, in ascending order
+     */
+    private int[] wordMatches(final String prefix) {
+
+        final int first = lowerBound(this.words, this.wordStarts, prefix);
+        final int last = lowerBound(this.words, this.wordStarts, prefix + AFTER_PREFIX);
+
+        final int[] result;
+
+        if (first == last) {
+            result = NONE;
+        } else if (last - first == 1) {
+            result = Arrays.copyOfRange(this.postings, this.postingStarts[first], this.postingStarts[last]);
+        } else {
+            final int[] merged = Arrays.copyOfRange(this.postings, this.postingStarts[first], this.postingStarts[last]);
+            Arrays.sort(merged);
+            result = distinct(merged, merged.length);
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes repeated values from a sorted array.
+     *
+     * @param sorted the sorted array (which may be modified)
+     * @param len    the number of values in the array
+     * @return an array with the distinct values, in ascending order
+     */
+    private static int[] distinct(final int[] sorted, final int len) {
+
+        int count = 0;
+        for (int i = 0; i < len; ++i) {
+            if (count == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count] = sorted[i];
+                ++count;
+            }
+        }
+
+        return count == sorted.length ? sorted : Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * Intersects two sorted arrays of distinct values.
+     *
+     * @param first  the first array
+     * @param second the second array
+     * @return the values in both arrays, in ascending order
+     */
+    private static int[] intersect(final int[] first, final int[] second) {
+
+        final int[] result = new int[Math.min(first.length, second.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                ++i;
+            } else if (first[i] > second[j]) {
+                ++j;
+            } else {
+                result[count] = first[i];
+                ++count;
+                ++i;
+                ++j;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Finds the index of the first string in a packed sorted list that is not less than a key.
+     *
+     * @param chars  the packed characters
+     * @param starts the start offset of each string (with an extra entry at the end)
+     * @param key    the key
+     * @return the index (the number of strings if every string is less than the key)
+     */
+    private static int lowerBound(final char[] chars, final int[] starts, final String key) {
+
+        int low = 0;
+        int high = starts.length - 1;
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (compare(chars, starts, mid, key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Compares a string in a packed list with a key.
+     *
+     * @param chars  the packed characters
+     * @param starts the start offset of each string (with an extra entry at the end)
+     * @param index  the index of the string
+     * @param key    the key
+     * @return a negative value, zero, or a positive value as the string is less than, equal to, or greater than the key
+     */
+    private static int compare(final char[] chars, final int[] starts, final int index, final String key) {
+
+        final int start = starts[index];
+        final int len = starts[index + 1] - start;
+        final int keyLen = key.length();
+        final int common = Math.min(len, keyLen);
+
+        int result = 0;
+
+        for (int i = 0; result == 0 && i < common; ++i) {
+            result = (int) chars[start + i] - (int) key.charAt(i);
+        }
+
+        if (result == 0) {
+            result = len - keyLen;
+        }
+
+        return result;
+    }
+
+    /**
+     * Holds the singleton instance (the JVM initializes this class, and builds the index, on first access).
+     */
+    private static final class Holder {
+
+        /** The singleton instance. */
+        static final UnicodeNameIndex INSTANCE = new UnicodeNameIndex();
+
+        /**
+         * Private constructor to prevent instantiation.
+         */
+        private Holder() {
+
+            // No action
+        }
+    }
+}
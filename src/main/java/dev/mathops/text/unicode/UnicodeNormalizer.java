@@ -0,0 +1,513 @@
+package dev.mathops.text.unicode;
+
+import dev.mathops.text.IUSVSequence;
+import dev.mathops.text.USVQueue;
+import dev.mathops.text.USVString;
+
+import java.util.Arrays;
+
+/**
+ * Normalizes text to one of the Unicode normalization forms (NFD, NFC, NFKD, or NFKC) defined in
+ * <a href="https://www.unicode.org/reports/tr15/">Unicode Standard Annex #15</a>.
+ *
+ * <p>
+ * Most text is already normalized, so each method first makes a quick-check pass over the input, looking up each code
+ * point's quick-check flags and combining class. If every code point may occur in the normalization form and the
+ * combining classes are in canonical order, the input is returned itself without copying. Otherwise, the input up to
+ * the last starter before the first code point that failed the check is kept as it is, and only the rest is
+ * decomposed (using full decompositions precomputed by {@code UnicodeDatabaseCompiler}), put in canonical order, and
+ * (for NFC and NFKC) recomposed.
+ *
+ * <p>
+ * Code points above U+10FFFF (the Unicode+ range) have no decompositions and a combining class of zero, so they are
+ * unchanged by normalization.
+ *
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ */
+public final class UnicodeNormalizer {
+
+    /** A normalizer to Normalization Form D (canonical decomposition). */
+    public static final UnicodeNormalizer NFD = new UnicodeNormalizer(false, false, 0xC0,
+            UnicodeDatabaseCompiler.NFD_NO);
+
+    /** A normalizer to Normalization Form C (canonical decomposition, followed by canonical composition). */
+    public static final UnicodeNormalizer NFC = new UnicodeNormalizer(false, true, 0x300,
+            UnicodeDatabaseCompiler.NFC_NO | UnicodeDatabaseCompiler.COMPOSE_MAYBE);
+
+    /** A normalizer to Normalization Form KD (compatibility decomposition). */
+    public static final UnicodeNormalizer NFKD = new UnicodeNormalizer(true, false, 0xA0,
+            UnicodeDatabaseCompiler.NFKD_NO);
+
+    /** A normalizer to Normalization Form KC (compatibility decomposition, followed by canonical composition). */
+    public static final UnicodeNormalizer NFKC = new UnicodeNormalizer(true, true, 0xA0,
+            UnicodeDatabaseCompiler.NFKC_NO | UnicodeDatabaseCompiler.COMPOSE_MAYBE);
+
+    /** The code point below which no code point has a canonical decomposition. */
+    private static final int CANONICAL_DECOMPOSITION_LIMIT = 0xC0;
+
+    /** The code point below which no code point has a canonical or compatibility decomposition. */
+    private static final int COMPATIBILITY_DECOMPOSITION_LIMIT = 0xA0;
+
+    /** True to apply compatibility decompositions as well as canonical decompositions. */
+    private final boolean compatibility;
+
+    /** True to apply canonical composition after decomposition. */
+    private final boolean compose;
+
+    /** The code point below which no code point is changed by normalization or has a nonzero combining class. */
+    private final int quickCheckLimit;
+
+    /** The quick-check flags that indicate a code point may be changed by normalization. */
+    private final int quickCheckMask;
+
+    /**
+     * The code point below which no code point has a decomposition (this can be lower than {@code quickCheckLimit},
+     * since code points that pass the quick check may still decompose when they are followed by a combining mark).
+     */
+    private final int decompositionLimit;
+
+    /**
+     * Constructs a new {@code UnicodeNormalizer}.
+     *
+     * @param doCompatibility     true to apply compatibility decompositions as well as canonical decompositions
+     * @param doCompose           true to apply canonical composition after decomposition
+     * @param theQuickCheckLimit  the code point below which no code point is changed by normalization or has a nonzero
+     *                            combining class
+     * @param theQuickCheckMask   the quick-check flags that indicate a code point may be changed by normalization
+     */
+    private UnicodeNormalizer(final boolean doCompatibility, final boolean doCompose, final int theQuickCheckLimit,
+                              final int theQuickCheckMask) {
+
+        this.compatibility = doCompatibility;
+        this.compose = doCompose;
+        this.quickCheckLimit = theQuickCheckLimit;
+        this.quickCheckMask = theQuickCheckMask;
+        this.decompositionLimit = doCompatibility ? COMPATIBILITY_DECOMPOSITION_LIMIT : CANONICAL_DECOMPOSITION_LIMIT;
+    }
+
+    /**
+     * Normalizes a string.
+     *
+     * @param input the string to normalize
+     * @return the normalized string ({@code input} itself if normalization would not change it)
+     */
+    public String normalize(final String input) {
+
+        final int len = input.length();
+        final int start = quickCheck(input);
+
+        String result = input;
+
+        if (start < len) {
+            final CodePointBuffer buffer = new CodePointBuffer(len - start + 8);
+            final UnicodeCharacterSet set = UnicodeCharacterSet.getInstance();
+
+            int pos = start;
+            while (pos < len) {
+                final int cp = input.codePointAt(pos);
+                decompose(set, cp, buffer);
+                pos += Character.charCount(cp);
+            }
+            if (this.compose) {
+                buffer.compose(set);
+            }
+
+            final StringBuilder builder = new StringBuilder(start + buffer.size + 8);
+            builder.append(input, 0, start);
+            for (int i = 0; i < buffer.size; ++i) {
+                builder.appendCodePoint(buffer.codePoints[i]);
+            }
+            final String normalized = builder.toString();
+            if (!normalized.equals(input)) {
+                result = normalized;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Tests whether a character sequence is already normalized.
+     *
+     * @param input the character sequence
+     * @return true if normalizing it would not change it
+     */
+    public boolean isNormalized(final CharSequence input) {
+
+        return quickCheck(input) == input.length() || normalize(input.toString()).contentEquals(input);
+    }
+
+    /**
+     * Normalizes a code point sequence.
+     *
+     * @param input the code point sequence to normalize
+     * @return the normalized sequence ({@code input} itself if normalization would not change it)
+     */
+    public IUSVSequence normalize(final IUSVSequence input) {
+
+        final int len = input.size();
+        final int start = quickCheck(input);
+
+        IUSVSequence result = input;
+
+        if (start < len) {
+            final CodePointBuffer buffer = normalizeFrom(input, start);
+
+            if (!buffer.equalsRange(input, start, len)) {
+                final int[] codePoints = new int[start + buffer.size];
+                for (int i = 0; i < start; ++i) {
+                    codePoints[i] = input.get(i);
+                }
+                System.arraycopy(buffer.codePoints, 0, codePoints, start, buffer.size);
+                result = new USVString(codePoints);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Normalizes a code point sequence, appending the result to a queue.
+     *
+     * @param input  the code point sequence to normalize
+     * @param target the queue to which to append the normalized code points
+     */
+    public void normalize(final IUSVSequence input, final USVQueue target) {
+
+        final int len = input.size();
+        final int start = quickCheck(input);
+
+        for (int i = 0; i < start; ++i) {
+            target.append(input.get(i));
+        }
+
+        if (start < len) {
+            final CodePointBuffer buffer = normalizeFrom(input, start);
+            for (int i = 0; i < buffer.size; ++i) {
+                target.append(buffer.codePoints[i]);
+            }
+        }
+    }
+
+    /**
+     * Tests whether a code point sequence is already normalized.
+     *
+     * @param input the code point sequence
+     * @return true if normalizing it would not change it
+     */
+    public boolean isNormalized(final IUSVSequence input) {
+
+        final int len = input.size();
+        final int start = quickCheck(input);
+
+        return start == len || normalizeFrom(input, start).equalsRange(input, start, len);
+    }
+
+    /**
+     * Scans a character sequence for the first code point that may be changed by normalization, or whose combining
+     * class is out of canonical order.
+     *
+     * @param input the character sequence
+     * @return the index of the last starter before that code point (the point from which normalization must be
+     *         applied); the length of the sequence if there is no such code point
+     */
+    private int quickCheck(final CharSequence input) {
+
+        final int len = input.length();
+        UnicodeCharacterSet set = null;
+
+        int result = len;
+        int safe = 0;
+        int lastClass = 0;
+        int pos = 0;
+
+        while (pos < len) {
+            final int cp = Character.codePointAt(input, pos);
+
+            if (cp < this.quickCheckLimit) {
+                safe = pos;
+                lastClass = 0;
+            } else {
+                if (set == null) {
+                    set = UnicodeCharacterSet.getInstance();
+                }
+                final int cc = set.getCombiningClass(cp);
+                if ((cc != 0 && cc < lastClass) || (set.getNormalizationFlags(cp) & this.quickCheckMask) != 0) {
+                    result = safe;
+                    break;
+                }
+                if (cc == 0) {
+                    safe = pos;
+                }
+                lastClass = cc;
+            }
+
+            pos += Character.charCount(cp);
+        }
+
+        return result;
+    }
+
+    /**
+     * Scans a code point sequence for the first code point that may be changed by normalization, or whose combining
+     * class is out of canonical order.
+     *
+     * @param input the code point sequence
+     * @return the index of the last starter before that code point (the point from which normalization must be
+     *         applied); the length of the sequence if there is no such code point
+     */
+    private int quickCheck(final IUSVSequence input) {
+
+        final int len = input.size();
+        UnicodeCharacterSet set = null;
+
+        int result = len;
+        int safe = 0;
+        int lastClass = 0;
+
+        for (int i = 0; i < len; ++i) {
+            final int cp = input.get(i);
+
+            if (cp < this.quickCheckLimit) {
+                safe = i;
+                lastClass = 0;
+            } else {
+                if (set == null) {
+                    set = UnicodeCharacterSet.getInstance();
+                }
+                final int cc = set.getCombiningClass(cp);
+                if ((cc != 0 && cc < lastClass) || (set.getNormalizationFlags(cp) & this.quickCheckMask) != 0) {
+                    result = safe;
+                    break;
+                }
+                if (cc == 0) {
+                    safe = i;
+                }
+                lastClass = cc;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Normalizes the code points of a sequence from a starting index to the end.
+     *
+     * @param input the code point sequence
+     * @param start the index of the first code point to normalize
+     * @return a buffer with the normalized code points
+     */
+    private CodePointBuffer normalizeFrom(final IUSVSequence input, final int start) {
+
+        final int len = input.size();
+        final CodePointBuffer buffer = new CodePointBuffer(len - start + 8);
+        final UnicodeCharacterSet set = UnicodeCharacterSet.getInstance();
+
+        for (int i = start; i < len; ++i) {
+            decompose(set, input.get(i), buffer);
+        }
+        if (this.compose) {
+            buffer.compose(set);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Appends the full decomposition of a code point to a buffer, keeping the buffer in canonical order.
+     *
+     * @param set       the character set
+     * @param codePoint the code point
+     * @param buffer    the buffer
+     */
+    private void decompose(final UnicodeCharacterSet set, final int codePoint, final CodePointBuffer buffer) {
+
+        final int sIndex = codePoint - UnicodeDatabaseCompiler.HANGUL_S_BASE;
+
+        if (codePoint < this.decompositionLimit) {
+            buffer.append(codePoint, 0);
+        } else if (sIndex >= 0 && sIndex < UnicodeDatabaseCompiler.HANGUL_S_COUNT) {
+            buffer.append(UnicodeDatabaseCompiler.HANGUL_L_BASE + sIndex / UnicodeDatabaseCompiler.HANGUL_N_COUNT, 0);
+            buffer.append(UnicodeDatabaseCompiler.HANGUL_V_BASE
+                          + (sIndex % UnicodeDatabaseCompiler.HANGUL_N_COUNT) / UnicodeDatabaseCompiler.HANGUL_T_COUNT,
+                    0);
+            final int tIndex = sIndex % UnicodeDatabaseCompiler.HANGUL_T_COUNT;
+            if (tIndex != 0) {
+                buffer.append(UnicodeDatabaseCompiler.HANGUL_T_BASE + tIndex, 0);
+            }
+        } else {
+            final int count = set.getDecompositionLength(codePoint, this.compatibility);
+            if (count == 0) {
+                buffer.append(codePoint, set.getCombiningClass(codePoint));
+            } else {
+                final int from = buffer.size;
+                buffer.ensureCapacity(from + count);
+                set.getDecomposition(codePoint, this.compatibility, buffer.codePoints, from);
+                // Each code point is read before reordering can move an earlier one into its position
+                for (int i = 0; i < count; ++i) {
+                    final int cp = buffer.codePoints[from + i];
+                    buffer.append(cp, set.getCombiningClass(cp));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the primary composite of two code points, including precomposed Hangul syllables.
+     *
+     * @param set    the character set
+     * @param first  the first code point
+     * @param second the second code point
+     * @return the composite; -1 if the code points do not compose
+     */
+    private static int composite(final UnicodeCharacterSet set, final int first, final int second) {
+
+        final int lIndex = first - UnicodeDatabaseCompiler.HANGUL_L_BASE;
+        final int vIndex = second - UnicodeDatabaseCompiler.HANGUL_V_BASE;
+        final int sIndex = first - UnicodeDatabaseCompiler.HANGUL_S_BASE;
+        final int tIndex = second - UnicodeDatabaseCompiler.HANGUL_T_BASE;
+
+        final int result;
+
+        if (lIndex >= 0 && lIndex < UnicodeDatabaseCompiler.HANGUL_L_COUNT
+            && vIndex >= 0 && vIndex < UnicodeDatabaseCompiler.HANGUL_V_COUNT) {
+            result = UnicodeDatabaseCompiler.HANGUL_S_BASE
+                     + (lIndex * UnicodeDatabaseCompiler.HANGUL_V_COUNT + vIndex)
+                       * UnicodeDatabaseCompiler.HANGUL_T_COUNT;
+        } else if (sIndex >= 0 && sIndex < UnicodeDatabaseCompiler.HANGUL_S_COUNT
+                   && sIndex % UnicodeDatabaseCompiler.HANGUL_T_COUNT == 0
+                   && tIndex > 0 && tIndex < UnicodeDatabaseCompiler.HANGUL_T_COUNT) {
+            result = first + tIndex;
+        } else if ((set.getNormalizationFlags(second) & UnicodeDatabaseCompiler.COMPOSE_MAYBE) == 0) {
+            result = -1;
+        } else {
+            result = set.getComposite(first, second);
+        }
+
+        return result;
+    }
+
+    /**
+     * A growable buffer of code points and their combining classes, kept in canonical order as code points are
+     * appended.
+     */
+    private static final class CodePointBuffer {
+
+        /** The code points. */
+        int[] codePoints;
+
+        /** The combining class of each code point. */
+        int[] classes;
+
+        /** The number of code points in the buffer. */
+        int size;
+
+        /**
+         * Constructs a new {@code CodePointBuffer}.
+         *
+         * @param initialCapacity the initial capacity
+         */
+        CodePointBuffer(final int initialCapacity) {
+
+            this.codePoints = new int[initialCapacity];
+            this.classes = new int[initialCapacity];
+            this.size = 0;
+        }
+
+        /**
+         * Ensures the buffer can hold a number of code points.
+         *
+         * @param capacity the number of code points
+         */
+        void ensureCapacity(final int capacity) {
+
+            if (capacity > this.codePoints.length) {
+                final int newLength = Math.max(capacity, this.codePoints.length * 2);
+                this.codePoints = Arrays.copyOf(this.codePoints, newLength);
+                this.classes = Arrays.copyOf(this.classes, newLength);
+            }
+        }
+
+        /**
+         * Appends a code point, moving it before any code points at the end of the buffer that have a greater
+         * combining class (the canonical ordering algorithm, applied as an insertion sort).
+         *
+         * @param codePoint      the code point
+         * @param combiningClass the code point's combining class
+         */
+        void append(final int codePoint, final int combiningClass) {
+
+            ensureCapacity(this.size + 1);
+
+            int pos = this.size;
+            if (combiningClass != 0) {
+                while (pos > 0 && this.classes[pos - 1] > combiningClass) {
+                    this.codePoints[pos] = this.codePoints[pos - 1];
+                    this.classes[pos] = this.classes[pos - 1];
+                    --pos;
+                }
+            }
+            this.codePoints[pos] = codePoint;
+            this.classes[pos] = combiningClass;
+            ++this.size;
+        }
+
+        /**
+         * Applies the canonical composition algorithm to the buffer, replacing each starter and the following code
+         * points that are not blocked from it and compose with it by their primary composite.
+         *
+         * @param set the character set
+         */
+        void compose(final UnicodeCharacterSet set) {
+
+            if (this.size > 0) {
+                int starterPos = 0;
+                int starter = this.codePoints[0];
+                int lastClass = this.classes[0] == 0 ? 0 : Integer.MAX_VALUE;
+                int out = 1;
+
+                for (int i = 1; i < this.size; ++i) {
+                    final int cp = this.codePoints[i];
+                    final int cc = this.classes[i];
+                    final int composed = lastClass < cc || lastClass == 0 ? composite(set, starter, cp) : -1;
+
+                    if (composed == -1) {
+                        if (cc == 0) {
+                            starterPos = out;
+                            starter = cp;
+                        }
+                        lastClass = cc;
+                        this.codePoints[out] = cp;
+                        this.classes[out] = cc;
+                        ++out;
+                    } else {
+                        this.codePoints[starterPos] = composed;
+                        starter = composed;
+                    }
+                }
+
+                this.size = out;
+            }
+        }
+
+        /**
+         * Tests whether the buffer holds the same code points as a range of a sequence.
+         *
+         * @param seq   the sequence
+         * @param start the index of the first code point in the range
+         * @param end   the index after the last code point in the range
+         * @return true if the code points are the same
+         */
+        boolean equalsRange(final IUSVSequence seq, final int start, final int end) {
+
+            boolean equal = this.size == end - start;
+
+            for (int i = 0; equal && i < this.size; ++i) {
+                equal = this.codePoints[i] == seq.get(start + i);
+            }
+
+            return equal;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the BufferPool class.
+ */
+final class TestBufferPool {
+
+    /**
+     * An expected size in the largest size class, which retains one buffer per stripe. A test that holds two leases of
+     * this size has emptied the slots of its thread's stripe and the next stripe, so the next buffer released by that
+     * thread is the next one leased.
+     */
+    private static final int LARGE = 1024 * 1024;
+
+    /** An expected size larger than the largest size class. */
+    private static final int OVERSIZED = 2 * 1024 * 1024;
+
+    /** Test case. */
+    @Test
+    @DisplayName("a released buffer is reset and reused")
+    void testReuse() {
+
+        try (final BufferPool.Lease<ByteQueue> hold = BufferPool.BYTE_QUEUES.lease(LARGE)) {
+            final ByteQueue first;
+            try (final BufferPool.Lease<ByteQueue> lease = BufferPool.BYTE_QUEUES.lease(LARGE)) {
+                first = lease.get();
+                first.append("abc");
+            }
+
+            try (final BufferPool.Lease<ByteQueue> lease = BufferPool.BYTE_QUEUES.lease(LARGE)) {
+                assertSame(first, lease.get(), "reuse same buffer");
+                assertTrue(lease.get().isEmpty(), "reuse empty buffer");
+            }
+            assertNotSame(first, hold.get(), "reuse held buffer");
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("a queue with shared views is not reused")
+    void testSharedQueue() {
+
+        try (final BufferPool.Lease<ByteQueue> hold = BufferPool.BYTE_QUEUES.lease(LARGE)) {
+            final ByteQueue first;
+            final ByteString view;
+            try (final BufferPool.Lease<ByteQueue> lease = BufferPool.BYTE_QUEUES.lease(LARGE)) {
+                first = lease.get();
+                first.append("abc");
+                view = first.subSequence(0, 3);
+            }
+
+            try (final BufferPool.Lease<ByteQueue> lease = BufferPool.BYTE_QUEUES.lease(LARGE)) {
+                assertNotSame(first, lease.get(), "shared queue not reused");
+                lease.get().append("xyz");
+            }
+            assertEquals("abc", view.toString(), "shared view unchanged");
+            assertNotSame(first, hold.get(), "shared held buffer");
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("a buffer larger than the largest size class is discarded")
+    void testOversized() {
+
+        final USVQueue first;
+        try (final BufferPool.Lease<USVQueue> lease = BufferPool.USV_QUEUES.lease(OVERSIZED)) {
+            first = lease.get();
+        }
+
+        try (final BufferPool.Lease<USVQueue> lease = BufferPool.USV_QUEUES.lease(OVERSIZED)) {
+            assertNotSame(first, lease.get(), "oversized not reused");
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("a closed lease")
+    void testClosedLease() {
+
+        final BufferPool.Lease<USVQueue> lease = BufferPool.USV_QUEUES.lease();
+        lease.get().append('a');
+        lease.close();
+        lease.close();
+
+        assertThrows(IllegalStateException.class, lease::get, "get after close");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("concurrent leases never share a buffer")
+    void testConcurrent() throws InterruptedException {
+
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>(16);
+
+        for (int t = 0; t < 16; ++t) {
+            final int marker = 'A' + t;
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 2000; ++i) {
+                    try (final BufferPool.Lease<USVQueue> lease = BufferPool.USV_QUEUES.lease()) {
+                        final USVQueue queue = lease.get();
+                        queue.append(marker);
+                        Thread.yield();
+                        if (queue.size() != 1 || queue.get(0) != marker) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, failures.get(), "concurrent failures");
+    }
+}
@@ -0,0 +1,211 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the ByteQueue class.
+ */
+final class TestByteQueue {
+
+    /** The maximum capacity of the bounded queues under test. */
+    private static final int MAX = 20;
+
+    /**
+     * Gets the ASCII bytes of a string.
+     *
+     * @param str the string
+     * @return the bytes
+     */
+    private static byte[] ascii(final String str) {
+
+        return str.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Gets the bytes remaining in a queue.
+     *
+     * @param queue the queue
+     * @return the bytes
+     */
+    private static byte[] contents(final ByteQueue queue) {
+
+        final int size = queue.size();
+        final byte[] result = new byte[size];
+        for (int i = 0; i < size; ++i) {
+            result[i] = (byte) queue.get(i);
+        }
+
+        return result;
+    }
+
+    /**
+     * Takes a view of part of a queue, modifies the queue, and checks that the view still holds its original bytes.
+     *
+     * @param label    a label for assertion messages
+     * @param consumed the number of bytes to consume before taking the view
+     * @param mutation the modification to make to the queue
+     * @param expected the expected queue contents after the modification
+     */
+    private static void checkView(final String label, final int consumed, final Consumer<? super ByteQueue> mutation,
+                                  final String expected) {
+
+        final ByteQueue queue = new ByteQueue(16);
+        queue.append(ascii("abcdefgh"));
+        queue.consume(consumed);
+
+        final ByteString view = queue.subSequence(1, 4);
+        final byte[] before = view.asByteArray();
+
+        mutation.accept(queue);
+
+        assertArrayEquals(before, view.asByteArray(), "view after " + label);
+        assertArrayEquals(ascii(expected), contents(queue), "queue after " + label);
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("a subSequence view is unchanged by later modification of the queue")
+    void testSubSequenceCopyOnWrite() {
+
+        checkView("replace", 0, q -> q.replace('c', 'X'), "abXdefgh");
+        checkView("replace condition", 0, q -> q.replace(b -> b < 'e', '-'), "----efgh");
+        checkView("insert", 0, q -> q.insert('X', 2), "abXcdefgh");
+        checkView("remove", 0, q -> q.remove('c'), "abdefgh");
+        checkView("remove condition", 0, q -> q.remove(b -> b != 'a'), "a");
+        checkView("prepend at array start", 0, q -> q.prepend('X'), "Xabcdefgh");
+        checkView("prepend after consume", 2, q -> q.prepend('X'), "Xcdefgh");
+        checkView("empty and append", 0, q -> {
+            q.empty();
+            q.append('X');
+        }, "X");
+        checkView("reconsume and replace", 2, q -> {
+            q.reconsume();
+            q.replace('b', 'X');
+        }, "Xcdefgh");
+        checkView("append", 0, q -> q.append('X'), "abcdefghX");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("toByteString is unchanged by later modification of the queue")
+    void testToByteStringCopyOnWrite() {
+
+        final ByteQueue queue = new ByteQueue(16);
+        queue.append(ascii("abcd"));
+        final ByteString str = queue.toByteString();
+
+        queue.replace('b', 'X');
+        queue.consume();
+        queue.prepend('Y');
+
+        assertArrayEquals(ascii("abcd"), str.asByteArray(), "toByteString after changes");
+        assertEquals("YXcd", new String(contents(queue), StandardCharsets.US_ASCII), "queue after changes");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("a bounded queue refuses bytes when full")
+    void testBoundedBackpressure() {
+
+        final ByteQueue queue = new ByteQueue(10, MAX, null);
+        assertTrue(queue.isBounded(), "bounded");
+
+        for (int i = 0; i < MAX; ++i) {
+            assertTrue(queue.enqueue(i), "enqueue " + i);
+        }
+        assertTrue(queue.isFull(), "full");
+        assertEquals(0, queue.remainingCapacity(), "remaining capacity when full");
+        assertTrue(queue.capacity() <= MAX + 1, "array capacity when full");
+
+        assertFalse(queue.enqueue(99), "enqueue when full");
+        assertThrows(IllegalStateException.class, () -> queue.append(99), "append when full");
+        assertThrows(IllegalStateException.class, () -> queue.prepend(99), "prepend when full");
+        assertThrows(IllegalStateException.class, () -> queue.insert(99, 3), "insert when full");
+        assertEquals(0, queue.offer(new byte[]{1, 2, 3}, 0, 3), "offer when full");
+        assertEquals(MAX, queue.size(), "size after refusals");
+        for (int i = 0; i < MAX; ++i) {
+            assertEquals(i, queue.get(i), "contents after refusals " + i);
+        }
+
+        queue.consume(3);
+        assertEquals(3, queue.remainingCapacity(), "remaining capacity after consume");
+        assertThrows(IllegalStateException.class, () -> queue.append(new byte[4]), "append too many");
+        assertEquals(MAX - 3, queue.size(), "size after refused append");
+        assertEquals(3, queue.offer(new byte[]{30, 31, 32, 33, 34}, 0, 5), "offer partial");
+        assertTrue(queue.isFull(), "full after offer");
+        assertEquals(32, queue.get(MAX - 1), "last byte after offer");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("a bounded queue compacts consumed storage rather than growing")
+    void testBoundedCompaction() {
+
+        final ByteQueue queue = new ByteQueue(10, MAX, null);
+        final Deque<Integer> expected = new ArrayDeque<>(MAX);
+        int next = 0;
+
+        for (int round = 0; round < 200; ++round) {
+            // Fill the queue, then consume a varying number of bytes
+            final byte[] chunk = new byte[1 + round % 9];
+            for (int i = 0; i < chunk.length; ++i) {
+                chunk[i] = (byte) (next + i);
+            }
+            final int accepted = queue.offer(chunk, 0, chunk.length);
+            assertEquals(Math.min(chunk.length, MAX - expected.size()), accepted, "offer round " + round);
+            for (int i = 0; i < accepted; ++i) {
+                expected.addLast(next & 0xFF);
+                ++next;
+            }
+            assertTrue(queue.capacity() <= MAX + 1, "array capacity round " + round);
+
+            final int toConsume = round % 5;
+            for (int i = 0; i < toConsume && !expected.isEmpty(); ++i) {
+                assertEquals(expected.removeFirst().intValue(), queue.consume(), "consume round " + round);
+            }
+            assertEquals(expected.size(), queue.size(), "size round " + round);
+        }
+
+        // Consuming after compaction can still reconsume the last byte
+        final int last = queue.consume();
+        queue.reconsume();
+        assertEquals(last, queue.consume(), "reconsume after compaction");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("a subSequence view keeps its contents when a bounded queue compacts")
+    void testCompactionKeepsView() {
+
+        final ByteQueue queue = new ByteQueue(10, MAX, null);
+        for (int i = 0; i < MAX; ++i) {
+            queue.append('a' + i);
+        }
+        queue.consume(5);
+
+        final ByteString view = queue.subSequence(0, 10);
+        final byte[] before = view.asByteArray();
+
+        queue.consume(10);
+        for (int i = 0; i < 15; ++i) {
+            queue.append('A' + i);
+        }
+
+        assertTrue(queue.isFull(), "full after refill");
+        assertTrue(queue.capacity() <= MAX + 1, "array capacity after refill");
+        assertArrayEquals(before, view.asByteArray(), "view after compaction");
+        assertArrayEquals(ascii("pqrstABCDEFGHIJKLMNO"), contents(queue), "queue after compaction");
+    }
+}
@@ -0,0 +1,137 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the MappedByteSequence class.
+ */
+final class TestMappedByteSequence {
+
+    /** The length of the test file (a little over three minimum-size windows). */
+    private static final int FILE_LENGTH = 3 * MappedByteSequence.MIN_WINDOW_SIZE + 1000;
+
+    /** A directory for test files. */
+    @TempDir
+    Path dir;
+
+    /**
+     * Writes a test file in which each byte is derived from its offset.
+     *
+     * @return the file contents
+     * @throws IOException if the file cannot be written
+     */
+    private byte[] writeFile() throws IOException {
+
+        final byte[] contents = new byte[FILE_LENGTH];
+        for (int i = 0; i < FILE_LENGTH; ++i) {
+            contents[i] = (byte) (i * 31 + (i >> 8));
+        }
+        Files.write(this.dir.resolve("data.bin"), contents);
+
+        return contents;
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("window size rounding")
+    void testWindowSize() throws IOException {
+
+        writeFile();
+        final Path path = this.dir.resolve("data.bin");
+
+        try (final MappedByteSequence seq = new MappedByteSequence(path, 7)) {
+            assertEquals(MappedByteSequence.MIN_WINDOW_SIZE, seq.windowSize(), "window size minimum");
+        }
+        try (final MappedByteSequence seq = new MappedByteSequence(path, MappedByteSequence.MIN_WINDOW_SIZE + 1)) {
+            assertEquals(MappedByteSequence.MIN_WINDOW_SIZE + 65536, seq.windowSize(), "window size rounded up");
+        }
+        try (final MappedByteSequence seq = new MappedByteSequence(path, Integer.MAX_VALUE)) {
+            assertEquals(Integer.MAX_VALUE & -65536, seq.windowSize(), "window size maximum");
+        }
+        try (final MappedByteSequence seq = new MappedByteSequence(path)) {
+            assertEquals(MappedByteSequence.DEFAULT_WINDOW_SIZE, seq.windowSize(), "window size default");
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new MappedByteSequence(path, 0), "window size zero");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("get bytes across windows")
+    void testGetAt() throws IOException {
+
+        final byte[] contents = writeFile();
+
+        try (final MappedByteSequence seq = new MappedByteSequence(this.dir.resolve("data.bin"), 7)) {
+            assertEquals((long) FILE_LENGTH, seq.length(), "getAt length");
+
+            // Alternate between offsets on each side of a window boundary, then jump around the file.
+            final int boundary = MappedByteSequence.MIN_WINDOW_SIZE;
+            for (int i = 0; i < 100; ++i) {
+                final int offset = (i & 1) == 0 ? boundary - 1 - i : boundary + i;
+                assertEquals((int) contents[offset] & 0xFF, seq.getAt((long) offset), "getAt boundary " + offset);
+            }
+            for (int offset = FILE_LENGTH - 1; offset >= 0; offset -= 65521) {
+                assertEquals((int) contents[offset] & 0xFF, seq.getAt((long) offset), "getAt " + offset);
+            }
+
+            assertEquals(IByteSequence.EOF, seq.getAt((long) FILE_LENGTH), "getAt end");
+            assertEquals(IByteSequence.EOF, seq.getAt(-1L), "getAt negative");
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("read the whole file in chunks")
+    void testRead() throws IOException {
+
+        final byte[] contents = writeFile();
+        final byte[] copy = new byte[FILE_LENGTH];
+
+        try (final MappedByteSequence seq = new MappedByteSequence(this.dir.resolve("data.bin"), 7)) {
+            int total = 0;
+            while (!seq.isEmpty()) {
+                total += seq.read(copy, total, 100_003);
+            }
+
+            assertEquals(FILE_LENGTH, total, "read total");
+            assertEquals(0, seq.read(copy, 0, 10), "read at end");
+        }
+
+        assertArrayEquals(contents, copy, "read contents");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("consume, reconsume, and copy across a window boundary")
+    void testConsume() throws IOException {
+
+        final byte[] contents = writeFile();
+        final int boundary = 2 * MappedByteSequence.MIN_WINDOW_SIZE;
+
+        try (final MappedByteSequence seq = new MappedByteSequence(this.dir.resolve("data.bin"), 7)) {
+            seq.position((long) (boundary - 1));
+            assertEquals((int) contents[boundary - 1] & 0xFF, seq.consume(), "consume before boundary");
+            assertEquals((int) contents[boundary] & 0xFF, seq.consume(), "consume after boundary");
+            seq.reconsume();
+            seq.reconsume();
+            assertEquals((int) contents[boundary - 1] & 0xFF, seq.peek(), "peek after reconsume");
+            assertEquals((int) contents[boundary + 1] & 0xFF, seq.peekPlus(2), "peekPlus");
+
+            final ByteString slice = seq.subSequence(0, 10);
+            for (int i = 0; i < 10; ++i) {
+                assertEquals((int) contents[boundary - 1 + i] & 0xFF, slice.get(i), "subSequence " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,552 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Tests for the SequenceSearch class. Each operation is checked against a simple reference implementation, over every
+ * length from 0 to 17 (so both the eight-at-a-time loops and their scalar tails run), at several alignments of the
+ * backing array, and for each kind of sequence storage.
+ */
+final class TestSequenceSearch {
+
+    /** The largest sequence length tested. */
+    private static final int MAX_LEN = 17;
+
+    /** The largest offset of a sequence within its backing array. */
+    private static final int MAX_OFFSET = 7;
+
+    /**
+     * Byte values used to build test data (including values at or above 0x80, and values one bit away from each other,
+     * where a word-at-a-time zero-byte test could report a false match).
+     */
+    private static final int[] BYTE_VALUES = {0x00, 0x01, 0x20, 0x41, 0x61, 0x7F, 0x80, 0x81, 0xFE, 0xFF};
+
+    /** Code points that can be stored as Latin-1. */
+    private static final int[] LATIN1_VALUES = {0x00, 0x01, 0x20, 0x41, 0x61, 0x7F, 0x80, 0x81, 0xFF};
+
+    /** Code points that need BMP storage. */
+    private static final int[] BMP_VALUES = {0x41, 0x80, 0xFF, 0x100, 0x141, 0x4E00, 0xFFFF};
+
+    /** Code points that need full-width storage. */
+    private static final int[] WIDE_VALUES = {0x41, 0xFF, 0x141, 0xFFFF, 0x10000, 0x1F600, 0x10FFFF};
+
+    /**
+     * A byte sequence with no backing array that {@code SequenceSearch} recognizes, so the element-at-a-time paths are
+     * used.
+     */
+    private static final class PlainBytes implements IByteSequence {
+
+        /** The bytes. */
+        private final byte[] bytes;
+
+        /**
+         * Constructs a new {@code PlainBytes}.
+         *
+         * @param theBytes the bytes
+         */
+        PlainBytes(final byte[] theBytes) {
+
+            this.bytes = theBytes.clone();
+        }
+
+        @Override
+        public boolean isEmpty() {
+
+            return this.bytes.length == 0;
+        }
+
+        @Override
+        public int size() {
+
+            return this.bytes.length;
+        }
+
+        @Override
+        public int get(final int index) {
+
+            return index >= this.bytes.length ? EOF : (int) this.bytes[index] & 0xFF;
+        }
+
+        @Override
+        public String toString() {
+
+            return Arrays.toString(this.bytes);
+        }
+    }
+
+    /**
+     * Builds random bytes from the test byte values.
+     *
+     * @param rnd the random number generator
+     * @param len the number of bytes
+     * @return the bytes
+     */
+    private static byte[] randomBytes(final Random rnd, final int len) {
+
+        final byte[] result = new byte[len];
+        for (int i = 0; i < len; ++i) {
+            result[i] = (byte) BYTE_VALUES[rnd.nextInt(BYTE_VALUES.length)];
+        }
+
+        return result;
+    }
+
+    /**
+     * Builds random code points from a set of values.
+     *
+     * @param rnd    the random number generator
+     * @param len    the number of code points
+     * @param values the values from which to choose
+     * @return the code points
+     */
+    private static int[] randomCodePoints(final Random rnd, final int len, final int[] values) {
+
+        final int[] result = new int[len];
+        for (int i = 0; i < len; ++i) {
+            result[i] = values[rnd.nextInt(values.length)];
+        }
+
+        return result;
+    }
+
+    /**
+     * Builds each kind of byte sequence with given contents: a {@code ByteString} with its own array, a
+     * {@code ByteString} view at an offset in a larger array, a {@code ByteQueue} from which a prefix has been
+     * consumed, and a sequence with no backing array.
+     *
+     * @param bytes  the contents
+     * @param offset the offset of the contents in the backing array of the views and the queue
+     * @return the sequences
+     */
+    private static List<IByteSequence> byteSequences(final byte[] bytes, final int offset) {
+
+        final int len = bytes.length;
+        final byte[] padded = new byte[offset + len + 9];
+        Arrays.fill(padded, (byte) 0x41);
+        System.arraycopy(bytes, 0, padded, offset, len);
+
+        final ByteQueue queue = new ByteQueue(10);
+        queue.append(padded, 0, offset + len);
+        queue.consume(offset);
+
+        // A queue holding more bytes than the contents, so its view is followed by other bytes in the array
+        final ByteQueue longer = new ByteQueue(10);
+        longer.append(padded);
+        longer.consume(offset);
+
+        final List<IByteSequence> result = new ArrayList<>(5);
+        result.add(new ByteString(bytes));
+        result.add(new ByteString(padded).subSequence(offset, offset + len));
+        result.add(queue);
+        result.add(longer.subSequence(0, len));
+        result.add(new PlainBytes(bytes));
+
+        return result;
+    }
+
+    /**
+     * Builds each kind of code point sequence with given contents: a {@code USVString} with its own array, a
+     * {@code USVString} view at an offset in a larger string that uses a given storage, a {@code USVQueue} from which a
+     * prefix has been consumed, and a rope (which has no backing array).
+     *
+     * @param codePoints the contents
+     * @param offset     the offset of the contents in the backing array of the views and the queue
+     * @param padding    a code point used around the contents in the larger string (which selects its storage)
+     * @return the sequences
+     */
+    private static List<IUSVSequence> usvSequences(final int[] codePoints, final int offset, final int padding) {
+
+        final int len = codePoints.length;
+        final int[] padded = new int[offset + len + 3];
+        Arrays.fill(padded, padding);
+        System.arraycopy(codePoints, 0, padded, offset, len);
+
+        final USVQueue queue = new USVQueue(10);
+        queue.offer(padded, 0, offset + len);
+        queue.consume(offset);
+
+        final List<IUSVSequence> result = new ArrayList<>(5);
+        result.add(new USVString(codePoints));
+        result.add(new USVString(padded).subSequence(offset, offset + len));
+        result.add(queue);
+        result.add(queue.subSequence(0, len));
+        result.add(new USVRope(new USVString(codePoints)));
+
+        return result;
+    }
+
+    /**
+     * Finds the first occurrence of a value in an array.
+     *
+     * @param values the values
+     * @param value  the value for which to search
+     * @param from   the index at which to start
+     * @return the index; -1 if there is none
+     */
+    private static int refIndexOf(final int[] values, final int value, final int from) {
+
+        int result = -1;
+
+        for (int i = Math.max(from, 0); i < values.length; ++i) {
+            if (values[i] == value) {
+                result = i;
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the first occurrence of any of a set of values in an array.
+     *
+     * @param values the values
+     * @param set    the values for which to search
+     * @param from   the index at which to start
+     * @return the index; -1 if there is none
+     */
+    private static int refIndexOfAny(final int[] values, final int[] set, final int from) {
+
+        int result = -1;
+
+        outer:
+        for (int i = Math.max(from, 0); i < values.length; ++i) {
+            for (final int member : set) {
+                if (values[i] == member) {
+                    result = i;
+                    break outer;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Counts the occurrences of a value in an array.
+     *
+     * @param values the values
+     * @param value  the value to count
+     * @return the count
+     */
+    private static int refCount(final int[] values, final int value) {
+
+        int result = 0;
+
+        for (final int v : values) {
+            if (v == value) {
+                ++result;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the unsigned values of an array of bytes.
+     *
+     * @param bytes the bytes
+     * @return the values
+     */
+    private static int[] unsigned(final byte[] bytes) {
+
+        final int[] result = new int[bytes.length];
+        for (int i = 0; i < bytes.length; ++i) {
+            result[i] = (int) bytes[i] & 0xFF;
+        }
+
+        return result;
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("indexOf and count over bytes")
+    void testByteIndexOf() {
+
+        final Random rnd = new Random(1L);
+
+        for (int len = 0; len <= MAX_LEN; ++len) {
+            for (int offset = 0; offset <= MAX_OFFSET; ++offset) {
+                final byte[] bytes = randomBytes(rnd, len);
+                final int[] values = unsigned(bytes);
+
+                for (final IByteSequence seq : byteSequences(bytes, offset)) {
+                    final String label = " len " + len + " offset " + offset + " " + seq.getClass().getSimpleName();
+                    for (final int value : BYTE_VALUES) {
+                        for (int from = -1; from <= len + 1; ++from) {
+                            assertEquals(refIndexOf(values, value, from), SequenceSearch.indexOf(seq, value, from),
+                                    "indexOf " + value + " from " + from + label);
+                        }
+                        assertEquals(refCount(values, value), SequenceSearch.count(seq, value),
+                                "count " + value + label);
+                    }
+                    assertEquals(-1, SequenceSearch.indexOf(seq, 0x42, 0), "indexOf absent" + label);
+                    assertEquals(-1, SequenceSearch.indexOf(seq, 0x100, 0), "indexOf out of range" + label);
+                    assertEquals(0, SequenceSearch.count(seq, -1), "count out of range" + label);
+                }
+            }
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("indexOf and count over bytes one bit away from the target")
+    void testByteNearMisses() {
+
+        for (int value = 0; value < 256; ++value) {
+            for (final int flip : new int[]{0x01, 0x80, 0x81, 0xFF}) {
+                final byte other = (byte) (value ^ flip);
+
+                for (int len = 0; len <= MAX_LEN; ++len) {
+                    // The target at each position (and, for pos == len, nowhere) in a run of the other byte
+                    for (int pos = 0; pos <= len; ++pos) {
+                        final byte[] bytes = new byte[len];
+                        Arrays.fill(bytes, other);
+                        if (pos < len) {
+                            bytes[pos] = (byte) value;
+                        }
+                        final ByteString str = new ByteString(bytes);
+                        final String label = " value " + value + " flip " + flip + " len " + len + " pos " + pos;
+
+                        assertEquals(pos < len ? pos : -1, SequenceSearch.indexOf(str, value, 0), "indexOf" + label);
+                        assertEquals(pos < len ? 1 : 0, SequenceSearch.count(str, value), "count" + label);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("indexOfAny over bytes")
+    void testByteIndexOfAny() {
+
+        final Random rnd = new Random(2L);
+        final int[][] sets = {{}, {0x00}, {0x80, 0x41}, {0xFF, 0x01, 0x7F}, {0x42, 0x300, -1}, {0x20, 0x61, 0x81}};
+
+        for (int len = 0; len <= MAX_LEN; ++len) {
+            for (int offset = 0; offset <= MAX_OFFSET; ++offset) {
+                final byte[] bytes = randomBytes(rnd, len);
+                final int[] values = unsigned(bytes);
+
+                for (final IByteSequence seq : byteSequences(bytes, offset)) {
+                    for (final int[] set : sets) {
+                        for (int from = -1; from <= len + 1; ++from) {
+                            assertEquals(refIndexOfAny(values, set, from), SequenceSearch.indexOfAny(seq, set, from),
+                                    "indexOfAny " + Arrays.toString(set) + " from " + from + " len " + len
+                                    + " offset " + offset + " " + seq.getClass().getSimpleName());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("mismatch, compare, and regionMatches over bytes")
+    void testByteCompare() {
+
+        final Random rnd = new Random(3L);
+
+        for (int len = 0; len <= MAX_LEN; ++len) {
+            for (int offset = 0; offset <= MAX_OFFSET; offset += 3) {
+                final byte[] bytes = randomBytes(rnd, len);
+
+                // The same bytes, then a copy with one byte changed (to a value that is greater when unsigned but
+                // less when signed), then a proper prefix
+                final List<byte[]> others = new ArrayList<>(3);
+                others.add(bytes.clone());
+                if (len > 0) {
+                    final byte[] changed = bytes.clone();
+                    final int pos = rnd.nextInt(len);
+                    changed[pos] = (byte) (changed[pos] ^ 0x80);
+                    others.add(changed);
+                    others.add(Arrays.copyOf(bytes, len - 1));
+                }
+
+                for (final IByteSequence a : byteSequences(bytes, offset)) {
+                    for (final byte[] otherBytes : others) {
+                        for (final IByteSequence b : byteSequences(otherBytes, MAX_OFFSET - offset)) {
+                            final String label = " len " + len + " " + a.getClass().getSimpleName() + " vs "
+                                                 + b.getClass().getSimpleName();
+                            final byte[] aBytes = bytes;
+                            final byte[] bBytes = otherBytes;
+
+                            assertEquals(Arrays.mismatch(aBytes, bBytes), SequenceSearch.mismatch(a, b),
+                                    "mismatch" + label);
+                            assertEquals(Integer.signum(Arrays.compareUnsigned(aBytes, bBytes)),
+                                    Integer.signum(SequenceSearch.compare(a, b)), "compare" + label);
+
+                            final int common = Math.min(aBytes.length, bBytes.length);
+                            for (int start = 0; start <= common; ++start) {
+                                final boolean expected = Arrays.equals(aBytes, start, common, bBytes, start, common);
+                                assertEquals(expected, SequenceSearch.regionMatches(a, start, b, start, common - start),
+                                        "regionMatches " + start + label);
+                            }
+                            assertFalse(SequenceSearch.regionMatches(a, 0, b, 0, common + 1),
+                                    "regionMatches beyond end" + label);
+                            assertFalse(SequenceSearch.regionMatches(a, -1, b, 0, 0),
+                                    "regionMatches negative" + label);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("ByteQueue indexOf")
+    void testByteQueueIndexOf() {
+
+        final Random rnd = new Random(4L);
+
+        for (int len = 0; len <= MAX_LEN; ++len) {
+            for (int offset = 0; offset <= MAX_OFFSET; ++offset) {
+                final byte[] bytes = randomBytes(rnd, len);
+                final int[] values = unsigned(bytes);
+
+                final ByteQueue queue = new ByteQueue(10);
+                queue.append(new byte[offset]);
+                queue.append(bytes);
+                queue.consume(offset);
+
+                for (final int value : BYTE_VALUES) {
+                    assertEquals(refIndexOf(values, value, 0), queue.indexOf(value),
+                            "queue indexOf " + value + " len " + len + " offset " + offset);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the code point searches over sequences built from a set of values.
+     *
+     * @param seed    the random seed
+     * @param values  the values from which to build contents
+     * @param padding a code point used around the contents in the larger string (which selects its storage)
+     */
+    private static void checkUsvSearch(final long seed, final int[] values, final int padding) {
+
+        final Random rnd = new Random(seed);
+        final int[][] sets = {{}, {0x41}, {0x00, 0x7F}, {0x80, 0x20}, {0xFFFF, 0x41}, {0x1F600, 0x01, 0x4E00}, {-1}};
+
+        for (int len = 0; len <= MAX_LEN; ++len) {
+            for (int offset = 0; offset <= MAX_OFFSET; ++offset) {
+                final int[] cps = randomCodePoints(rnd, len, values);
+
+                for (final IUSVSequence seq : usvSequences(cps, offset, padding)) {
+                    final String label = " len " + len + " offset " + offset + " " + seq.getClass().getSimpleName();
+                    for (final int value : values) {
+                        for (int from = -1; from <= len + 1; ++from) {
+                            assertEquals(refIndexOf(cps, value, from), SequenceSearch.indexOf(seq, value, from),
+                                    "indexOf " + value + " from " + from + label);
+                        }
+                        assertEquals(refCount(cps, value), SequenceSearch.count(seq, value), "count " + value + label);
+                    }
+                    assertEquals(-1, SequenceSearch.indexOf(seq, 0x42, 0), "indexOf absent" + label);
+                    assertEquals(-1, SequenceSearch.indexOf(seq, 0x141 + 0x100, 0), "indexOf absent wide" + label);
+                    assertEquals(-1, SequenceSearch.indexOf(seq, -1, 0), "indexOf negative" + label);
+
+                    for (final int[] set : sets) {
+                        for (int from = -1; from <= len + 1; ++from) {
+                            assertEquals(refIndexOfAny(cps, set, from), SequenceSearch.indexOfAny(seq, set, from),
+                                    "indexOfAny " + Arrays.toString(set) + " from " + from + label);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("indexOf, indexOfAny, and count over Latin-1 strings")
+    void testUsvLatin1() {
+
+        checkUsvSearch(5L, LATIN1_VALUES, 0x41);
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("indexOf, indexOfAny, and count over BMP strings")
+    void testUsvBmp() {
+
+        checkUsvSearch(6L, BMP_VALUES, 0x4E00);
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("indexOf, indexOfAny, and count over full-width strings")
+    void testUsvWide() {
+
+        checkUsvSearch(7L, WIDE_VALUES, 0x1F600);
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("mismatch, compare, and regionMatches over code points")
+    void testUsvCompare() {
+
+        final Random rnd = new Random(8L);
+        final int[][] valueSets = {LATIN1_VALUES, BMP_VALUES, WIDE_VALUES};
+        final int[] paddings = {0x41, 0x4E00, 0x1F600};
+
+        for (int kind = 0; kind < valueSets.length; ++kind) {
+            for (int len = 0; len <= MAX_LEN; ++len) {
+                final int[] cps = randomCodePoints(rnd, len, valueSets[kind]);
+
+                final List<int[]> others = new ArrayList<>(4);
+                others.add(cps.clone());
+                if (len > 0) {
+                    final int pos = rnd.nextInt(len);
+                    final int[] changed = cps.clone();
+                    changed[pos] ^= 1;
+                    others.add(changed);
+                    final int[] wider = cps.clone();
+                    wider[pos] = 0x10FFFF;
+                    others.add(wider);
+                    others.add(Arrays.copyOf(cps, len - 1));
+                }
+
+                for (final IUSVSequence a : usvSequences(cps, 3, paddings[kind])) {
+                    for (final int[] otherCps : others) {
+                        for (int otherKind = 0; otherKind < paddings.length; ++otherKind) {
+                            for (final IUSVSequence b : usvSequences(otherCps, 5, paddings[otherKind])) {
+                                final String label = " kind " + kind + "/" + otherKind + " len " + len + " "
+                                                     + a.getClass().getSimpleName() + " vs "
+                                                     + b.getClass().getSimpleName();
+
+                                assertEquals(Arrays.mismatch(cps, otherCps), SequenceSearch.mismatch(a, b),
+                                        "mismatch" + label);
+                                assertEquals(Integer.signum(Arrays.compare(cps, otherCps)),
+                                        Integer.signum(SequenceSearch.compare(a, b)), "compare" + label);
+
+                                final int common = Math.min(cps.length, otherCps.length);
+                                for (int start = 0; start <= common; ++start) {
+                                    final boolean expected = Arrays.equals(cps, start, common, otherCps, start,
+                                            common);
+                                    assertEquals(expected,
+                                            SequenceSearch.regionMatches(a, start, b, start, common - start),
+                                            "regionMatches " + start + label);
+                                }
+                                assertFalse(SequenceSearch.regionMatches(a, 0, b, 0, common + 1),
+                                        "regionMatches beyond end" + label);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
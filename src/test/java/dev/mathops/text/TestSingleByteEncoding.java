@@ -0,0 +1,93 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests for the SingleByteEncoding class.
+ */
+final class TestSingleByteEncoding {
+
+    /** Test case. */
+    @Test
+    @DisplayName("forLabel")
+    void testForLabel() {
+
+        assertSame(SingleByteEncoding.WINDOWS_1252, SingleByteEncoding.forLabel(" Latin1\t"), "label latin1");
+        assertSame(SingleByteEncoding.WINDOWS_1254, SingleByteEncoding.forLabel("iso-8859-9"), "label iso-8859-9");
+        assertSame(SingleByteEncoding.ISO_8859_10, SingleByteEncoding.forLabel("latin6"), "label latin6");
+        assertSame(SingleByteEncoding.ISO_8859_14, SingleByteEncoding.forLabel("ISO8859-14"), "label iso8859-14");
+        assertSame(SingleByteEncoding.X_MAC_CYRILLIC, SingleByteEncoding.forLabel("x-mac-cyrillic"),
+                "label x-mac-cyrillic");
+        assertSame(SingleByteEncoding.X_MAC_CYRILLIC, SingleByteEncoding.forLabel("x-mac-ukrainian"),
+                "label x-mac-ukrainian");
+        assertNull(SingleByteEncoding.forLabel("utf-8"), "label utf-8");
+        assertNull(SingleByteEncoding.forLabel(null), "label null");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("every mapped byte round trips in every encoding")
+    void testRoundTrip() {
+
+        for (final SingleByteEncoding encoding : SingleByteEncoding.values()) {
+            int mismatches = 0;
+            for (int b = 0; b < 256; ++b) {
+                final int cp = encoding.decode(b);
+                if (cp != 0xFFFD && encoding.encode(cp) != b) {
+                    ++mismatches;
+                }
+            }
+            assertEquals(0, mismatches, "round trip " + encoding.encodingName);
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("x-mac-cyrillic matches the JDK except for the Encoding Standard's adjustments")
+    void testMacCyrillic() {
+
+        final byte[] bytes = new byte[256];
+        for (int b = 0; b < 256; ++b) {
+            bytes[b] = (byte) b;
+        }
+        final String jdk = new String(bytes, Charset.forName("x-MacCyrillic"));
+
+        for (int b = 0; b < 256; ++b) {
+            final int expected = switch (b) {
+                case 0xA2 -> 0x0490;
+                case 0xB6 -> 0x0491;
+                case 0xFF -> 0x20AC;
+                default -> (int) jdk.charAt(b);
+            };
+            assertEquals(expected, SingleByteEncoding.X_MAC_CYRILLIC.decode(b), "x-mac-cyrillic byte " + b);
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("decode and encode queues")
+    void testQueues() {
+
+        final ByteQueue bytes = new ByteQueue(new byte[]{'a', (byte) 0xA1, (byte) 0xFF}, "iso-8859-14");
+        final SingleByteEncoding encoding = SingleByteEncoding.forQueue(bytes);
+        final USVQueue text = new USVQueue(4);
+
+        assertSame(SingleByteEncoding.ISO_8859_14, encoding, "forQueue");
+        assertEquals(3, encoding.decode(bytes, text), "decode count");
+        assertEquals("a\u1E02\u00FF", text.toString(), "decode content");
+
+        text.append(0x4E00);
+        final ByteQueue encoded = new ByteQueue(4);
+        encoding.encode(text, encoded);
+
+        assertArrayEquals(new byte[]{'a', (byte) 0xA1, (byte) 0xFF, '?'}, encoded.asByteArray(), "encode content");
+    }
+}
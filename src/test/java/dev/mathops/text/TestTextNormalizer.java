@@ -0,0 +1,255 @@
+package dev.mathops.text;
+
+import dev.mathops.text.builder.HtmlBuilder;
+import dev.mathops.text.builder.USVHtmlBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the TextNormalizer class, and the TextUtils methods that delegate to it.
+ */
+final class TestTextNormalizer {
+
+    /** The normalizers checked against the reference implementation. */
+    private static final TextNormalizer[] NORMALIZERS = {TextNormalizer.NEWLINES, TextNormalizer.STRIP,
+            TextNormalizer.STRIP_AND_COLLAPSE, TextNormalizer.COLLAPSE_AND_LOWERCASE,
+            new TextNormalizer(ENormalizationStep.NORMALIZE_NEWLINES, ENormalizationStep.ASCII_LOWERCASE),
+            new TextNormalizer(ENormalizationStep.ASCII_LOWERCASE, ENormalizationStep.STRIP_ASCII_WHITESPACE,
+                    ENormalizationStep.NORMALIZE_NEWLINES),
+            new TextNormalizer(ENormalizationStep.values())};
+
+    /** The steps of each normalizer in {@code NORMALIZERS}. */
+    private static final ENormalizationStep[][] STEPS = {{ENormalizationStep.NORMALIZE_NEWLINES},
+            {ENormalizationStep.STRIP_ASCII_WHITESPACE}, {ENormalizationStep.STRIP_AND_COLLAPSE_ASCII_WHITESPACE},
+            {ENormalizationStep.STRIP_AND_COLLAPSE_ASCII_WHITESPACE, ENormalizationStep.ASCII_LOWERCASE},
+            {ENormalizationStep.NORMALIZE_NEWLINES, ENormalizationStep.ASCII_LOWERCASE},
+            {ENormalizationStep.NORMALIZE_NEWLINES, ENormalizationStep.STRIP_ASCII_WHITESPACE,
+                    ENormalizationStep.ASCII_LOWERCASE},
+            ENormalizationStep.values()};
+
+    /** Characters from which short test strings are built. */
+    private static final char[] ALPHABET = {'a', 'Z', ' ', '\t', '\r', '\n', '\f', '\u00C9'};
+
+    /**
+     * Tests whether a character is ASCII whitespace.
+     *
+     * @param ch the character
+     * @return true if the character is TAB, LF, FF, CR, or SPACE
+     */
+    private static boolean isWhitespace(final char ch) {
+
+        return ch == '\t' || ch == '\n' || ch == '\f' || ch == '\r' || ch == ' ';
+    }
+
+    /**
+     * Applies normalization steps one at a time, in the order defined by {@code ENormalizationStep}, each as a separate
+     * pass over the text.
+     *
+     * @param input the text
+     * @param steps the steps to apply
+     * @return the normalized text
+     */
+    private static String reference(final String input, final ENormalizationStep[] steps) {
+
+        final List<ENormalizationStep> list = List.of(steps);
+        String text = input;
+
+        if (list.contains(ENormalizationStep.NORMALIZE_NEWLINES)) {
+            text = text.replace("\r\n", "\n").replace('\r', '\n');
+        }
+
+        final boolean collapse = list.contains(ENormalizationStep.STRIP_AND_COLLAPSE_ASCII_WHITESPACE);
+        if (collapse) {
+            final StringBuilder sb = new StringBuilder(text.length());
+            boolean inSpace = false;
+            for (final char ch : text.toCharArray()) {
+                if (isWhitespace(ch)) {
+                    if (!inSpace) {
+                        sb.append(' ');
+                        inSpace = true;
+                    }
+                } else {
+                    sb.append(ch);
+                    inSpace = false;
+                }
+            }
+            text = sb.toString();
+        }
+
+        if (collapse || list.contains(ENormalizationStep.STRIP_ASCII_WHITESPACE)) {
+            int first = 0;
+            int last = text.length();
+            while (first < last && isWhitespace(text.charAt(first))) {
+                ++first;
+            }
+            while (last > first && isWhitespace(text.charAt(last - 1))) {
+                --last;
+            }
+            text = text.substring(first, last);
+        }
+
+        if (list.contains(ENormalizationStep.ASCII_LOWERCASE)) {
+            final StringBuilder sb = new StringBuilder(text.length());
+            for (final char ch : text.toCharArray()) {
+                sb.append(ch >= 'A' && ch <= 'Z' ? (char) (ch + 0x20) : ch);
+            }
+            text = sb.toString();
+        }
+
+        return text;
+    }
+
+    /**
+     * Builds every string of up to a given length over the test alphabet.
+     *
+     * @param maxLen the maximum length
+     * @return the strings
+     */
+    private static List<String> allStrings(final int maxLen) {
+
+        final List<String> result = new ArrayList<>(50000);
+        result.add("");
+
+        int from = 0;
+        for (int len = 1; len <= maxLen; ++len) {
+            final int to = result.size();
+            for (int i = from; i < to; ++i) {
+                for (final char ch : ALPHABET) {
+                    result.add(result.get(i) + ch);
+                }
+            }
+            from = to;
+        }
+
+        return result;
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("normalizeNewlines converts CR and CR LF to LF")
+    void testNormalizeNewlines() {
+
+        assertEquals("a\nb\nc\n", TextUtils.normalizeNewlines("a\r\nb\rc\n"), "newlines mixed");
+        assertEquals("a\n", TextUtils.normalizeNewlines("a\r"), "newlines CR at end");
+        assertEquals("\n", TextUtils.normalizeNewlines("\r"), "newlines lone CR");
+        assertEquals("\n", TextUtils.normalizeNewlines("\r\n"), "newlines lone CR LF");
+        assertEquals("\n\n", TextUtils.normalizeNewlines("\r\r\n"), "newlines CR then CR LF");
+        assertEquals("\n\n", TextUtils.normalizeNewlines("\n\r"), "newlines LF then CR");
+        assertEquals("x\n\ny", TextUtils.normalizeNewlines("x\r\n\r\ny"), "newlines two CR LF");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("stripAndCollapseAsciiWhitespace collapses runs and strips the ends")
+    void testStripAndCollapse() {
+
+        assertEquals("a b c", TextUtils.stripAndCollapseAsciiWhitespace("  a \t\r\n b\fc  "), "collapse mixed");
+        assertEquals("", TextUtils.stripAndCollapseAsciiWhitespace(" \t\r\n\f "), "collapse all whitespace");
+        assertEquals("", TextUtils.stripAndCollapseAsciiWhitespace(" "), "collapse one space");
+        assertEquals("", TextUtils.stripAndCollapseAsciiWhitespace(""), "collapse empty");
+        assertEquals("a\u00A0 b", TextUtils.stripAndCollapseAsciiWhitespace("a\u00A0  b"), "collapse NBSP kept");
+        assertEquals("abc", TextUtils.stripLeadingAndTrailingAsciiWhitespace("\t abc\r\n"), "strip");
+        assertEquals("a  b", TextUtils.stripLeadingAndTrailingAsciiWhitespace(" a  b "), "strip keeps inner");
+        assertEquals("", TextUtils.stripLeadingAndTrailingAsciiWhitespace("   "), "strip all whitespace");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("unchanged input is returned without copying")
+    void testUnchanged() {
+
+        final String plain = "already normal text";
+        assertSame(plain, TextUtils.normalizeNewlines(plain), "same newlines");
+        assertSame(plain, TextUtils.stripAndCollapseAsciiWhitespace(plain), "same collapse");
+        assertSame(plain, TextUtils.stripLeadingAndTrailingAsciiWhitespace(plain), "same strip");
+        assertSame(plain, TextNormalizer.NEWLINES.normalize(plain), "same normalizer");
+
+        final String lower = "lower case\nlines";
+        assertSame(lower, TextNormalizer.NEWLINES.normalize(lower), "same LF only");
+
+        final String empty = "";
+        assertSame(empty, TextNormalizer.STRIP_AND_COLLAPSE.normalize(empty), "same empty");
+
+        final USVString usv = new USVString("already normal \uD83D\uDE00 text");
+        assertSame(usv, TextNormalizer.COLLAPSE_AND_LOWERCASE.normalize(usv), "same code points");
+        assertSame(usv, TextNormalizer.STRIP_AND_COLLAPSE.normalize(usv), "same code points collapse");
+
+        assertTrue(TextNormalizer.NEWLINES.isNormalized(plain), "isNormalized string");
+        assertTrue(TextNormalizer.STRIP_AND_COLLAPSE.isNormalized(usv), "isNormalized code points");
+        assertFalse(TextNormalizer.NEWLINES.isNormalized("a\r"), "isNormalized CR");
+        assertFalse(TextNormalizer.STRIP.isNormalized(new USVString(" a")), "isNormalized leading space");
+        assertFalse(TextNormalizer.STRIP_AND_COLLAPSE.isNormalized("a  b"), "isNormalized double space");
+        assertFalse(TextNormalizer.COLLAPSE_AND_LOWERCASE.isNormalized("aB"), "isNormalized upper");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("input that only needs stripping is returned as a substring")
+    void testStripOnly() {
+
+        assertEquals("abc", TextNormalizer.STRIP.normalize("  abc \n"), "strip string");
+        assertEquals("a b", TextNormalizer.STRIP_AND_COLLAPSE.normalize(" a b "), "strip collapse string");
+
+        final USVString usv = new USVString("\t\u4E00 b\r\n");
+        final IUSVSequence stripped = TextNormalizer.STRIP_AND_COLLAPSE.normalize(usv);
+        assertEquals("\u4E00 b", stripped.toString(), "strip code points");
+        assertTrue(stripped instanceof USVString, "strip code points is a string");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("the string, builder, and code point paths agree with a step-by-step reference")
+    void testPathsAgree() {
+
+        final List<String> inputs = allStrings(5);
+        inputs.add("Mixed CASE\r\n\twith \uD83D\uDE00 emoji\r");
+        inputs.add("\r\n\r\n  Leading and trailing  \r\n\r\n");
+        inputs.add("\u00C9T\u00C9 \u00A0 NBSP\r");
+
+        for (int n = 0; n < NORMALIZERS.length; ++n) {
+            final TextNormalizer normalizer = NORMALIZERS[n];
+
+            for (final String input : inputs) {
+                final String expected = reference(input, STEPS[n]);
+                final String label = " normalizer " + n + " input \"" + escape(input) + "\"";
+
+                assertEquals(expected, normalizer.normalize(input), "string" + label);
+
+                final HtmlBuilder builder = new HtmlBuilder(10);
+                builder.add('[');
+                normalizer.normalize(new StringBuilder(input), builder);
+                assertEquals("[" + expected, builder.toString(), "builder" + label);
+
+                final USVString usv = new USVString(input);
+                assertEquals(expected, normalizer.normalize(usv).toString(), "code points" + label);
+
+                final USVHtmlBuilder usvBuilder = new USVHtmlBuilder(10);
+                normalizer.normalize(usv, usvBuilder);
+                assertEquals(expected, usvBuilder.toString(), "code point builder" + label);
+
+                final boolean unchanged = expected.equals(input);
+                assertEquals(unchanged, normalizer.isNormalized(input), "isNormalized string" + label);
+                assertEquals(unchanged, normalizer.isNormalized(usv), "isNormalized code points" + label);
+            }
+        }
+    }
+
+    /**
+     * Escapes control characters in a string for use in an assertion message.
+     *
+     * @param str the string
+     * @return the escaped string
+     */
+    private static String escape(final String str) {
+
+        return str.replace("\r", "\\r").replace("\n", "\\n").replace("\t", "\\t").replace("\f", "\\f");
+    }
+}
@@ -0,0 +1,365 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the TextUtils class.
+ */
+final class TestTextUtils {
+
+    /** The largest range length tested (so both the eight-byte loops and their scalar tails run). */
+    private static final int MAX_LEN = 17;
+
+    /** Inputs for the tests that compare the token-bounds splitters to the list splitters. */
+    private static final String[] SPLIT_INPUTS = {"", ",", ",,", " ", " , ", "a", "a,", ",a", "a,b", "a,,b",
+            "a b", "  a\tb \r\n c  ", " a , b ,, c , ", "\uD83D\uDE00,x\uD83D\uDE00y, \uD83D\uDE00 ",
+            "\u00E9\u4E00,\u00E9 \u4E00\t\uD83D\uDE00", "one,two,three,four,five,six,seven,eight,nine"};
+
+    /**
+     * Byte-lowercases one byte the simple way.
+     *
+     * @param value the byte value (0 to 255)
+     * @return the lowercase value
+     */
+    private static int refLower(final int value) {
+
+        return value >= 0x41 && value <= 0x5A ? value + 0x20 : value;
+    }
+
+    /**
+     * Byte-uppercases one byte the simple way.
+     *
+     * @param value the byte value (0 to 255)
+     * @return the uppercase value
+     */
+    private static int refUpper(final int value) {
+
+        return value >= 0x61 && value <= 0x7A ? value - 0x20 : value;
+    }
+
+    /**
+     * Builds an array holding every byte value, starting at a given value.
+     *
+     * @param first the first value
+     * @return the array
+     */
+    private static byte[] allBytes(final int first) {
+
+        final byte[] result = new byte[256];
+        for (int i = 0; i < 256; ++i) {
+            result[i] = (byte) (first + i);
+        }
+
+        return result;
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("byteLowercase and byteUppercase at range boundaries")
+    void testByteCaseBoundaries() {
+
+        final byte[] lower = {0x40, 0x41, 0x5A, 0x5B, 0x60, 0x61, 0x7A, 0x7B};
+        final byte[] upper = lower.clone();
+
+        TextUtils.byteLowercase(lower);
+        TextUtils.byteUppercase(upper);
+
+        assertArrayEquals(new byte[]{0x40, 0x61, 0x7A, 0x5B, 0x60, 0x61, 0x7A, 0x7B}, lower, "lowercase boundaries");
+        assertArrayEquals(new byte[]{0x40, 0x41, 0x5A, 0x5B, 0x60, 0x41, 0x5A, 0x7B}, upper, "uppercase boundaries");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("byteLowercase and byteUppercase leave non-ASCII bytes unchanged")
+    void testByteCaseHighBytes() {
+
+        final byte[] high = new byte[128];
+        for (int i = 0; i < 128; ++i) {
+            high[i] = (byte) (0x80 + i);
+        }
+        final byte[] lower = high.clone();
+        final byte[] upper = high.clone();
+
+        TextUtils.byteLowercase(lower);
+        TextUtils.byteUppercase(upper);
+
+        assertArrayEquals(high, lower, "lowercase high bytes");
+        assertArrayEquals(high, upper, "uppercase high bytes");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("byteLowercase and byteUppercase over every byte at every alignment and length")
+    void testByteCaseRanges() {
+
+        for (int first = 0; first < 256; first += 7) {
+            final byte[] source = allBytes(first);
+
+            for (int start = 0; start < 9; ++start) {
+                for (int len = 0; len <= MAX_LEN; ++len) {
+                    final int end = start + len;
+                    final byte[] lower = source.clone();
+                    final byte[] upper = source.clone();
+
+                    TextUtils.byteLowercase(lower, start, end);
+                    TextUtils.byteUppercase(upper, start, end);
+
+                    for (int i = 0; i < source.length; ++i) {
+                        final int value = (int) source[i] & 0xFF;
+                        final boolean inRange = i >= start && i < end;
+                        final String label = " first " + first + " start " + start + " len " + len + " at " + i;
+
+                        assertEquals(inRange ? refLower(value) : value, (int) lower[i] & 0xFF, "lowercase" + label);
+                        assertEquals(inRange ? refUpper(value) : value, (int) upper[i] & 0xFF, "uppercase" + label);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("byteCaseInsensitiveMatch matches ASCII letters of either case")
+    void testByteCaseInsensitiveMatch() {
+
+        final byte[] mixed = "Content-Type: TEXT/html; Charset=UTF-8".getBytes(StandardCharsets.US_ASCII);
+        final byte[] lower = "content-type: text/html; charset=utf-8".getBytes(StandardCharsets.US_ASCII);
+
+        assertTrue(TextUtils.byteCaseInsensitiveMatch(mixed, lower), "match mixed");
+        assertTrue(TextUtils.byteCaseInsensitiveMatch(lower, mixed), "match mixed reversed");
+        assertTrue(TextUtils.byteCaseInsensitiveMatch(new byte[0], new byte[0]), "match empty");
+        assertFalse(TextUtils.byteCaseInsensitiveMatch(mixed, Arrays.copyOf(lower, lower.length - 1)),
+                "match different lengths");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("byteCaseInsensitiveMatch rejects bytes that differ only in the case bit outside the letters")
+    void testByteCaseInsensitiveNonLetters() {
+
+        // Pairs that differ by 0x20 but are not an upper and lower letter
+        final int[][] pairs = {{0x40, 0x60}, {0x5B, 0x7B}, {0x5C, 0x7C}, {0x5D, 0x7D}, {0x5E, 0x7E}, {0x5F, 0x7F},
+                {0x21, 0x01}, {0xC1, 0xE1}, {0xDA, 0xFA}, {0x41, 0xE1}};
+
+        for (final int[] pair : pairs) {
+            for (int len = 1; len <= MAX_LEN; ++len) {
+                for (int pos = 0; pos < len; ++pos) {
+                    final byte[] a = new byte[len];
+                    final byte[] b = new byte[len];
+                    Arrays.fill(a, (byte) 0x61);
+                    Arrays.fill(b, (byte) 0x41);
+                    a[pos] = (byte) pair[0];
+                    b[pos] = (byte) pair[1];
+                    final String label = " " + Integer.toHexString(pair[0]) + "/" + Integer.toHexString(pair[1])
+                                         + " len " + len + " pos " + pos;
+
+                    assertFalse(TextUtils.byteCaseInsensitiveMatch(a, b), "reject" + label);
+                    assertFalse(TextUtils.byteCaseInsensitiveMatch(b, a), "reject reversed" + label);
+                }
+            }
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("byteCaseInsensitiveMatch over every byte pair at every alignment and length")
+    void testByteCaseInsensitiveRanges() {
+
+        for (int x = 0; x < 256; ++x) {
+            for (int y = 0; y < 256; ++y) {
+                final boolean expected = refLower(x) == refLower(y);
+                final byte[] a = new byte[MAX_LEN + 9];
+                final byte[] b = new byte[MAX_LEN + 9];
+                Arrays.fill(a, (byte) 0x4B);
+                Arrays.fill(b, (byte) 0x6B);
+
+                // The pair is placed in a range of 9 to 16 bytes, in either the first word or the scalar tail
+                final int start1 = x & 7;
+                final int start2 = y & 7;
+                final int len = 9 + ((x + y) & 7);
+                final int pos = (x ^ y) % len;
+                a[start1 + pos] = (byte) x;
+                b[start2 + pos] = (byte) y;
+
+                assertEquals(expected, TextUtils.byteCaseInsensitiveMatch(a, start1, b, start2, len),
+                        "match " + x + "/" + y + " len " + len + " pos " + pos);
+            }
+        }
+
+        for (int len = 0; len <= MAX_LEN; ++len) {
+            final byte[] a = new byte[len + 3];
+            final byte[] b = new byte[len + 5];
+            for (int i = 0; i < len; ++i) {
+                a[3 + i] = (byte) (0x41 + i);
+                b[5 + i] = (byte) (0x61 + i);
+            }
+            assertTrue(TextUtils.byteCaseInsensitiveMatch(a, 3, b, 5, len), "match offsets len " + len);
+        }
+    }
+
+    /**
+     * Creates a consumer that adds each token of a string to a list.
+     *
+     * @param seq    the string being split
+     * @param tokens the list to which to add tokens
+     * @return the consumer
+     */
+    private static TextUtils.FieldConsumer collector(final CharSequence seq, final List<? super String> tokens) {
+
+        return (start, end) -> tokens.add(seq.subSequence(start, end).toString());
+    }
+
+    /**
+     * Creates a consumer that adds each token of a code point sequence to a list.
+     *
+     * @param seq    the sequence being split
+     * @param tokens the list to which to add tokens
+     * @return the consumer
+     */
+    private static TextUtils.FieldConsumer collector(final IUSVSequence seq, final List<? super String> tokens) {
+
+        return (start, end) -> tokens.add(seq.subSequence(start, end).toString());
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("strictlySplit keeps empty and trailing tokens")
+    void testStrictlySplit() {
+
+        assertEquals(List.of(""), TextUtils.strictlySplit("", ','), "split empty");
+        assertEquals(List.of("a"), TextUtils.strictlySplit("a", ','), "split no delimiter");
+        assertEquals(List.of("a", "b"), TextUtils.strictlySplit("a,b", ','), "split trailing token");
+        assertEquals(List.of("a", ""), TextUtils.strictlySplit("a,", ','), "split empty trailing field");
+        assertEquals(List.of("", "a"), TextUtils.strictlySplit(",a", ','), "split empty leading field");
+        assertEquals(List.of("a", "", "b"), TextUtils.strictlySplit("a,,b", ','), "split consecutive");
+        assertEquals(List.of("", "", ""), TextUtils.strictlySplit(",,", ','), "split only delimiters");
+        assertEquals(List.of(" a ", " b"), TextUtils.strictlySplit(" a , b", ','), "split keeps whitespace");
+        assertEquals(List.of("x", "", "y"), TextUtils.strictlySplit("x\uD83D\uDE00\uD83D\uDE00y", 0x1F600),
+                "split supplementary delimiter");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("splitOnAsciiWhitespace and splitOnCommas tokens")
+    void testSplitOnWhitespaceAndCommas() {
+
+        assertEquals(List.of(), TextUtils.splitOnAsciiWhitespace(""), "whitespace empty");
+        assertEquals(List.of(), TextUtils.splitOnAsciiWhitespace(" \t\r\n\f"), "whitespace only whitespace");
+        assertEquals(List.of("a", "b", "c"), TextUtils.splitOnAsciiWhitespace("  a\tb \r\n c  "), "whitespace runs");
+        assertEquals(List.of("a,b"), TextUtils.splitOnAsciiWhitespace("a,b"), "whitespace no whitespace");
+
+        assertEquals(List.of(), TextUtils.splitOnCommas(""), "commas empty");
+        assertEquals(List.of("a", "b"), TextUtils.splitOnCommas(" a , b "), "commas trimmed");
+        assertEquals(List.of("a", "", "b"), TextUtils.splitOnCommas("a,,b"), "commas consecutive");
+        assertEquals(List.of("", "a"), TextUtils.splitOnCommas(",a"), "commas empty leading field");
+        assertEquals(List.of("a"), TextUtils.splitOnCommas("a,"), "commas final comma");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("token bounds from the consumer splitters match the list splitters")
+    void testSplitConsumers() {
+
+        for (final String input : SPLIT_INPUTS) {
+            final USVString usv = new USVString(input);
+            final String label = " \"" + input + "\"";
+
+            final List<String> strict = TextUtils.strictlySplit(input, ',');
+            final List<String> strictChars = new ArrayList<>(10);
+            final List<String> strictPoints = new ArrayList<>(10);
+            assertEquals(strict.size(), TextUtils.strictlySplit(input, ',', collector(input, strictChars)),
+                    "strict count" + label);
+            assertEquals(strict.size(), TextUtils.strictlySplit(usv, ',', collector(usv, strictPoints)),
+                    "strict code point count" + label);
+            assertEquals(strict, strictChars, "strict tokens" + label);
+            assertEquals(strict, strictPoints, "strict code point tokens" + label);
+
+            final List<String> emoji = TextUtils.strictlySplit(input, 0x1F600);
+            final List<String> emojiChars = new ArrayList<>(10);
+            final List<String> emojiPoints = new ArrayList<>(10);
+            TextUtils.strictlySplit(input, 0x1F600, collector(input, emojiChars));
+            TextUtils.strictlySplit(usv, 0x1F600, collector(usv, emojiPoints));
+            assertEquals(emoji, emojiChars, "strict supplementary tokens" + label);
+            assertEquals(emoji, emojiPoints, "strict supplementary code point tokens" + label);
+
+            final List<String> spaced = TextUtils.splitOnAsciiWhitespace(input);
+            final List<String> spacedChars = new ArrayList<>(10);
+            final List<String> spacedPoints = new ArrayList<>(10);
+            assertEquals(spaced.size(), TextUtils.splitOnAsciiWhitespace(input, collector(input, spacedChars)),
+                    "whitespace count" + label);
+            assertEquals(spaced.size(), TextUtils.splitOnAsciiWhitespace(usv, collector(usv, spacedPoints)),
+                    "whitespace code point count" + label);
+            assertEquals(spaced, spacedChars, "whitespace tokens" + label);
+            assertEquals(spaced, spacedPoints, "whitespace code point tokens" + label);
+
+            final List<String> commas = TextUtils.splitOnCommas(input);
+            final List<String> commaChars = new ArrayList<>(10);
+            final List<String> commaPoints = new ArrayList<>(10);
+            assertEquals(commas.size(), TextUtils.splitOnCommas(input, collector(input, commaChars)),
+                    "commas count" + label);
+            assertEquals(commas.size(), TextUtils.splitOnCommas(usv, collector(usv, commaPoints)),
+                    "commas code point count" + label);
+            assertEquals(commas, commaChars, "commas tokens" + label);
+            assertEquals(commas, commaPoints, "commas code point tokens" + label);
+        }
+    }
+
+    /**
+     * Creates a consumer that records the bounds of each token, and stops after the second token.
+     *
+     * @param bounds the list to which to add bounds
+     * @return the consumer
+     */
+    private static TextUtils.FieldConsumer stopAfterTwo(final List<? super String> bounds) {
+
+        return (start, end) -> {
+            bounds.add(start + "-" + end);
+            return bounds.size() < 2;
+        };
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("the consumer splitters stop when the consumer returns false")
+    void testSplitConsumerStops() {
+
+        final String input = "a,b c,d e";
+        final USVString usv = new USVString(input);
+
+        final List<String> strict = new ArrayList<>(4);
+        assertEquals(2, TextUtils.strictlySplit(input, ',', stopAfterTwo(strict)), "strict stop count");
+        assertEquals(List.of("0-1", "2-5"), strict, "strict stop bounds");
+
+        final List<String> strictPoints = new ArrayList<>(4);
+        assertEquals(2, TextUtils.strictlySplit(usv, ',', stopAfterTwo(strictPoints)), "strict code point stop count");
+        assertEquals(List.of("0-1", "2-5"), strictPoints, "strict code point stop bounds");
+
+        final List<String> spaced = new ArrayList<>(4);
+        assertEquals(2, TextUtils.splitOnAsciiWhitespace(input, stopAfterTwo(spaced)), "whitespace stop count");
+        assertEquals(List.of("0-3", "4-7"), spaced, "whitespace stop bounds");
+
+        final List<String> spacedPoints = new ArrayList<>(4);
+        assertEquals(2, TextUtils.splitOnAsciiWhitespace(usv, stopAfterTwo(spacedPoints)),
+                "whitespace code point stop count");
+        assertEquals(List.of("0-3", "4-7"), spacedPoints, "whitespace code point stop bounds");
+
+        final List<String> commas = new ArrayList<>(4);
+        assertEquals(2, TextUtils.splitOnCommas(input, stopAfterTwo(commas)), "commas stop count");
+        assertEquals(List.of("0-1", "2-5"), commas, "commas stop bounds");
+
+        final List<String> commaPoints = new ArrayList<>(4);
+        assertEquals(2, TextUtils.splitOnCommas(usv, stopAfterTwo(commaPoints)), "commas code point stop count");
+        assertEquals(List.of("0-1", "2-5"), commaPoints, "commas code point stop bounds");
+    }
+}
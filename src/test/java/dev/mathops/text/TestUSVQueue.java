@@ -0,0 +1,195 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the USVQueue class.
+ */
+final class TestUSVQueue {
+
+    /** The maximum capacity of the bounded queues under test. */
+    private static final int MAX = 20;
+
+    /** The first code point used to fill queues (outside the Basic Multilingual Plane). */
+    private static final int BASE = 0x1F600;
+
+    /**
+     * Takes a view of part of a queue, modifies the queue, and checks that the view still holds its original code
+     * points.
+     *
+     * @param label    a label for assertion messages
+     * @param consumed the number of code points to consume before taking the view
+     * @param mutation the modification to make to the queue
+     * @param expected the expected queue contents after the modification
+     */
+    private static void checkView(final String label, final int consumed, final Consumer<? super USVQueue> mutation,
+                                  final String expected) {
+
+        final USVQueue queue = new USVQueue(16);
+        queue.append("ab\uD83D\uDE00defgh");
+        queue.consume(consumed);
+
+        final USVString view = queue.subSequence(1, 4);
+        final String before = view.toString();
+
+        mutation.accept(queue);
+
+        assertEquals(before, view.toString(), "view after " + label);
+        assertEquals(expected, queue.toString(), "queue after " + label);
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("a subSequence view is unchanged by later modification of the queue")
+    void testSubSequenceCopyOnWrite() {
+
+        checkView("replace", 0, q -> q.replace(0x1F600, 'X'), "abXdefgh");
+        checkView("replace condition", 0, q -> q.replace(cp -> cp < 'e', '-'), "--\uD83D\uDE00-efgh");
+        checkView("insert", 0, q -> q.insert('X', 2), "abX\uD83D\uDE00defgh");
+        checkView("remove", 0, q -> q.remove(0x1F600), "abdefgh");
+        checkView("remove condition", 0, q -> q.remove(cp -> cp != 'a'), "a");
+        checkView("prepend at array start", 0, q -> q.prepend('X'), "Xab\uD83D\uDE00defgh");
+        checkView("prepend after consume", 2, q -> q.prepend('X'), "X\uD83D\uDE00defgh");
+        checkView("empty and append", 0, q -> {
+            q.empty();
+            q.append('X');
+        }, "X");
+        checkView("reconsume and replace", 2, q -> {
+            q.reconsume();
+            q.replace('b', 'X');
+        }, "X\uD83D\uDE00defgh");
+        checkView("append Latin-1", 0, q -> {
+            q.empty();
+            q.appendLatin1(new byte[]{'x', 'y'}, 0, 2);
+        }, "xy");
+        checkView("append", 0, q -> q.append('X'), "ab\uD83D\uDE00defghX");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("toUSVString is unchanged by later modification of the queue")
+    void testToUSVStringCopyOnWrite() {
+
+        final USVQueue queue = new USVQueue(16);
+        queue.append("ab\uD83D\uDE00d");
+        final USVString str = queue.toUSVString();
+
+        queue.replace('b', 'X');
+        queue.consume();
+        queue.prepend('Y');
+
+        assertEquals("ab\uD83D\uDE00d", str.toString(), "toUSVString after changes");
+        assertEquals("YX\uD83D\uDE00d", queue.toString(), "queue after changes");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("a bounded queue refuses code points when full")
+    void testBoundedBackpressure() {
+
+        final USVQueue queue = new USVQueue(10, MAX);
+        assertTrue(queue.isBounded(), "bounded");
+
+        for (int i = 0; i < MAX; ++i) {
+            assertTrue(queue.enqueue(BASE + i), "enqueue " + i);
+        }
+        assertTrue(queue.isFull(), "full");
+        assertEquals(0, queue.remainingCapacity(), "remaining capacity when full");
+        assertTrue(queue.capacity() <= MAX + 1, "array capacity when full");
+
+        assertFalse(queue.enqueue('x'), "enqueue when full");
+        assertThrows(IllegalStateException.class, () -> queue.append('x'), "append when full");
+        assertThrows(IllegalStateException.class, () -> queue.prepend('x'), "prepend when full");
+        assertThrows(IllegalStateException.class, () -> queue.insert('x', 3), "insert when full");
+        assertThrows(IllegalStateException.class, () -> queue.appendLatin1(new byte[]{'x'}, 0, 1),
+                "appendLatin1 when full");
+        assertEquals(0, queue.offer(new int[]{'x', 'y'}, 0, 2), "offer when full");
+        assertEquals(MAX, queue.size(), "size after refusals");
+        for (int i = 0; i < MAX; ++i) {
+            assertEquals(BASE + i, queue.get(i), "contents after refusals " + i);
+        }
+
+        queue.consume(3);
+        assertEquals(3, queue.remainingCapacity(), "remaining capacity after consume");
+        assertThrows(IllegalStateException.class, () -> queue.append("wxyz"), "append too many");
+        assertEquals(MAX - 3, queue.size(), "size after refused append");
+        assertEquals(3, queue.offer(new int[]{'v', 'w', 'x', 'y', 'z'}, 0, 5), "offer partial");
+        assertTrue(queue.isFull(), "full after offer");
+        assertEquals((int) 'x', queue.get(MAX - 1), "last code point after offer");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("a bounded queue compacts consumed storage rather than growing")
+    void testBoundedCompaction() {
+
+        final USVQueue queue = new USVQueue(10, MAX);
+        final Deque<Integer> expected = new ArrayDeque<>(MAX);
+        int next = BASE;
+
+        for (int round = 0; round < 200; ++round) {
+            // Fill the queue, then consume a varying number of code points
+            final int[] chunk = new int[1 + round % 9];
+            for (int i = 0; i < chunk.length; ++i) {
+                chunk[i] = next + i;
+            }
+            final int accepted = queue.offer(chunk, 0, chunk.length);
+            assertEquals(Math.min(chunk.length, MAX - expected.size()), accepted, "offer round " + round);
+            for (int i = 0; i < accepted; ++i) {
+                expected.addLast(next);
+                ++next;
+            }
+            assertTrue(queue.capacity() <= MAX + 1, "array capacity round " + round);
+
+            final int toConsume = round % 5;
+            for (int i = 0; i < toConsume && !expected.isEmpty(); ++i) {
+                assertEquals(expected.removeFirst().intValue(), queue.consume(), "consume round " + round);
+            }
+            assertEquals(expected.size(), queue.size(), "size round " + round);
+        }
+
+        // Consuming after compaction can still reconsume the last code point
+        final int last = queue.consume();
+        queue.reconsume();
+        assertEquals(last, queue.consume(), "reconsume after compaction");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("a subSequence view keeps its contents when a bounded queue compacts")
+    void testCompactionKeepsView() {
+
+        final USVQueue queue = new USVQueue(10, MAX);
+        for (int i = 0; i < MAX; ++i) {
+            queue.append(BASE + i);
+        }
+        queue.consume(5);
+
+        final USVString view = queue.subSequence(0, 10);
+        final String before = view.toString();
+
+        queue.consume(10);
+        queue.append("ABCDEFGHIJKLMNO");
+
+        final StringBuilder remaining = new StringBuilder(40);
+        for (int i = 15; i < MAX; ++i) {
+            remaining.appendCodePoint(BASE + i);
+        }
+        remaining.append("ABCDEFGHIJKLMNO");
+
+        assertTrue(queue.isFull(), "full after refill");
+        assertTrue(queue.capacity() <= MAX + 1, "array capacity after refill");
+        assertEquals(before, view.toString(), "view after compaction");
+        assertEquals(remaining.toString(), queue.toString(), "queue after compaction");
+    }
+}
@@ -0,0 +1,205 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the USVRope class.
+ */
+final class TestUSVRope {
+
+    /** Test case. */
+    @Test
+    @DisplayName("construct, get, and toString")
+    void testConstruct() {
+
+        final USVRope empty = new USVRope();
+        final USVRope rope = new USVRope("ab\uD83D\uDE00c");
+
+        assertTrue(empty.isEmpty(), "empty isEmpty");
+        assertEquals(0, empty.size(), "empty size");
+        assertEquals(4, rope.size(), "size");
+        assertEquals(0x1F600, rope.get(2), "get supplementary");
+        assertEquals("ab\uD83D\uDE00c", rope.toString(), "toString");
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.get(4), "get out of bounds");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("insert, append, and replace")
+    void testInsert() {
+
+        final USVRope rope = new USVRope("held");
+        rope.insert(2, "llo wor");
+        rope.insert(0, new USVString(">"));
+        rope.append("!");
+        rope.insert(rope.size(), new USVRope("?"));
+        rope.replace(1, 3, new USVString("HE"));
+
+        assertEquals(">HEllo world!?", rope.toString(), "insert content");
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.insert(20, "x"), "insert out of bounds");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("delete and empty")
+    void testDelete() {
+
+        final USVRope rope = new USVRope("hello, world");
+        rope.delete(5, 7);
+        rope.delete(0, 0);
+
+        assertEquals("helloworld", rope.toString(), "delete content");
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.delete(3, 2), "delete reversed range");
+
+        rope.delete(0, rope.size());
+        assertTrue(rope.isEmpty(), "delete all");
+
+        rope.append("x");
+        rope.empty();
+        assertTrue(rope.isEmpty(), "empty");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("slice and subSequence")
+    void testSlice() {
+
+        final USVRope rope = new USVRope(text(2000, 1));
+        final USVRope slice = rope.slice(300, 1300);
+        final USVString sub = rope.subSequence(300, 1300);
+
+        assertEquals(text(2000, 1).substring(300, 1300), slice.toString(), "slice content");
+        assertTrue(slice.equalsCodePoints(sub), "slice equals subSequence");
+
+        rope.delete(0, 2000);
+        assertEquals(1000, slice.size(), "slice independent of rope");
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.slice(0, 1), "slice out of bounds");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("snapshots are independent of later edits")
+    void testSnapshot() {
+
+        final USVRope rope = new USVRope("version one");
+        final USVRope snapshot = rope.snapshot();
+
+        rope.replace(8, 11, new USVString("two"));
+        assertEquals("version one", snapshot.toString(), "snapshot after edit");
+        assertEquals("version two", rope.toString(), "rope after edit");
+
+        snapshot.append("!");
+        assertEquals("version two", rope.toString(), "rope after snapshot edit");
+
+        rope.restore(snapshot);
+        assertEquals("version one!", rope.toString(), "restore");
+
+        rope.delete(0, 8);
+        assertEquals("version one!", snapshot.toString(), "snapshot after restore and edit");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("repeated edits at one end keep the tree balanced")
+    void testBalance() {
+
+        final USVRope front = new USVRope();
+        final USVRope back = new USVRope();
+        final USVString chunk = new USVString(text(512, 2));
+
+        for (int i = 0; i < 400; ++i) {
+            front.insert(0, chunk);
+            back.append(chunk);
+        }
+
+        // An AVL tree with n leaves has height less than 1.45 log2(n + 2)
+        final int bound = (int) (1.45 * Math.log(402.0) / Math.log(2.0));
+        assertEquals(400 * 512, front.size(), "front size");
+        assertTrue(front.height() <= bound, "front height " + front.height());
+        assertTrue(back.height() <= bound, "back height " + back.height());
+        assertTrue(front.equalsCodePoints(back), "front equals back");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("hash and equality are consistent with USVString")
+    void testHashEquals() {
+
+        final String content = text(1500, 3);
+        final USVRope built = new USVRope(content);
+        final USVRope edited = new USVRope(content.substring(0, 700));
+        edited.append(content.substring(900));
+        edited.insert(700, content.substring(700, 900));
+        final USVString string = new USVString(content);
+
+        assertEquals(built, edited, "equals");
+        assertEquals(built.hashCode(), edited.hashCode(), "hashCode");
+        assertEquals(string.hashCode(), edited.hashCode(), "hashCode matches USVString");
+        assertTrue(edited.equalsCodePoints(string), "equalsCodePoints USVString");
+        assertEquals(0, edited.compareCodePoints(string), "compareCodePoints USVString");
+        assertTrue(string.equalsCodePoints(edited.toUSVString()), "toUSVString");
+
+        edited.delete(0, 1);
+        assertFalse(built.equals(edited), "not equals after edit");
+        assertTrue(built.compareCodePoints(edited) != 0, "compare after edit");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("random edits match StringBuilder")
+    void testRandomEdits() {
+
+        final Random random = new Random(12345L);
+        final USVRope rope = new USVRope();
+        final StringBuilder expected = new StringBuilder(10000);
+
+        for (int i = 0; i < 3000; ++i) {
+            final int size = expected.length();
+            final int op = random.nextInt(3);
+            if (op == 0 || size == 0) {
+                final int at = random.nextInt(size + 1);
+                final String insert = text(1 + random.nextInt(600), i);
+                rope.insert(at, insert);
+                expected.insert(at, insert);
+            } else if (op == 1) {
+                final int start = random.nextInt(size);
+                final int end = start + random.nextInt(Math.min(400, size - start) + 1);
+                rope.delete(start, end);
+                expected.delete(start, end);
+            } else {
+                final int start = random.nextInt(size);
+                final int end = start + random.nextInt(size - start + 1);
+                assertEquals(expected.substring(start, end), rope.slice(start, end).toString(), "random slice");
+            }
+            assertEquals(expected.length(), rope.size(), "random size");
+        }
+
+        assertEquals(expected.toString(), rope.toString(), "random content");
+    }
+
+    /**
+     * Generates text of the BMP letters a to z, starting at an offset.
+     *
+     * @param length the number of characters
+     * @param offset the offset of the first letter from 'a'
+     * @return the text
+     */
+    private static String text(final int length, final int offset) {
+
+        final StringBuilder builder = new StringBuilder(length);
+
+        for (int i = 0; i < length; ++i) {
+            builder.append((char) ('a' + (i + offset) % 26));
+        }
+
+        return builder.toString();
+    }
+}
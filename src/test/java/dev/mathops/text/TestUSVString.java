@@ -0,0 +1,51 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the USVString class.
+ */
+final class TestUSVString {
+
+    /** Test case. */
+    @Test
+    @DisplayName("get in each storage form")
+    void testGet() {
+
+        final USVString latin1 = new USVString("a\u00E9z");
+        final USVString bmp = new USVString("a\u4E00z");
+        final USVString wide = new USVString("a\uD83D\uDE00z");
+
+        assertEquals(0xE9, latin1.get(1), "get Latin-1");
+        assertEquals(0x4E00, bmp.get(1), "get BMP");
+        assertEquals(0x1F600, wide.get(1), "get wide");
+        assertEquals((int) 'z', wide.get(2), "get wide last");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("get outside a string or a view throws")
+    void testGetOutOfBounds() {
+
+        final String[] padded = {"xxa\u00E9zxx", "xxa\u4E00zxx", "xxa\uD83D\uDE00zxx"};
+
+        for (final String text : padded) {
+            final USVString whole = new USVString(text);
+            final USVString view = whole.subSequence(2, 5);
+
+            assertEquals((int) 'a', view.get(0), "view first " + text);
+            assertEquals((int) 'z', view.get(2), "view last " + text);
+            assertThrows(IndexOutOfBoundsException.class, () -> view.get(3), "view past end " + text);
+            assertThrows(IndexOutOfBoundsException.class, () -> view.get(-1), "view before start " + text);
+            assertThrows(IndexOutOfBoundsException.class, () -> whole.get(whole.size()), "past end " + text);
+            assertThrows(IndexOutOfBoundsException.class, () -> whole.get(-1), "before start " + text);
+        }
+
+        final USVString empty = new USVString("");
+        assertThrows(IndexOutOfBoundsException.class, () -> empty.get(0), "empty");
+    }
+}
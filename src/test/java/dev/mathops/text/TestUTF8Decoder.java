@@ -0,0 +1,115 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the UTF8Decoder class.
+ */
+final class TestUTF8Decoder {
+
+    /** A string with one-, two-, three-, and four-byte sequences. */
+    private static final String MIXED = "A\u00E9\u20AC\uD83D\uDE00z";
+
+    /** Test case. */
+    @Test
+    @DisplayName("decode from a queue")
+    void testDecode1() {
+
+        final ByteQueue input = new ByteQueue(MIXED.getBytes(StandardCharsets.UTF_8));
+        final USVQueue output = new USVQueue(10);
+        final int produced = new UTF8Decoder().decode(input, output);
+
+        assertEquals(5, produced, "decode count");
+        assertEquals(MIXED, output.toString(), "decode content");
+        assertTrue(input.isEmpty(), "decode consumes input");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("decode a sequence split across chunks")
+    void testDecodeChunks() {
+
+        final byte[] bytes = MIXED.getBytes(StandardCharsets.UTF_8);
+        final UTF8Decoder decoder = new UTF8Decoder();
+        final USVQueue output = new USVQueue(10);
+
+        for (final byte b : bytes) {
+            decoder.decode(new byte[]{b}, 0, 1, output);
+        }
+
+        assertEquals(MIXED, output.toString(), "decode chunks content");
+        assertFalse(decoder.isPending(), "decode chunks not pending");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("decode malformed sequences as U+FFFD")
+    void testDecodeMalformed() {
+
+        final byte[] bytes = {(byte) 0xC3, (byte) 0x28, (byte) 0x80, (byte) 0xED, (byte) 0xA0, (byte) 0x80,
+                (byte) 0xE2, (byte) 0x82};
+        final UTF8Decoder decoder = new UTF8Decoder();
+        final USVQueue output = new USVQueue(10);
+        decoder.decode(bytes, 0, bytes.length, output);
+
+        assertTrue(decoder.isPending(), "malformed pending");
+        assertTrue(decoder.finish(output), "malformed finish");
+        assertEquals("\uFFFD(\uFFFD\uFFFD\uFFFD\uFFFD\uFFFD", output.toString(), "malformed content");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("decode stops when a bounded output is full")
+    void testDecodeBounded() {
+
+        final ByteQueue input = new ByteQueue("abcdef".getBytes(StandardCharsets.US_ASCII));
+        final USVQueue output = new USVQueue(4, 4);
+        final int produced = new UTF8Decoder().decode(input, output);
+
+        assertEquals(4, produced, "bounded count");
+        assertEquals("abcd", output.toString(), "bounded content");
+        assertEquals(2, input.size(), "bounded input left");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("decode from a partly consumed queue into an unbounded output")
+    void testDecodeConsumedInput() {
+
+        final StringBuilder text = new StringBuilder(300);
+        for (int i = 0; i < 100; ++i) {
+            text.append("ab\u00E9");
+        }
+        final ByteQueue input = new ByteQueue(text.toString().getBytes(StandardCharsets.UTF_8));
+        input.consume(40);
+        final USVQueue output = new USVQueue(4);
+        new UTF8Decoder().decode(input, output);
+
+        assertEquals(text.substring(30), output.toString(), "consumed input content");
+        assertTrue(input.isEmpty(), "consumed input empty");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("decode the Unicode+ range only when allowed")
+    void testDecodeUnicodePlus() {
+
+        final byte[] bytes = new UTF8Encoder(true).toBytes(new int[]{0x110000}, 0, 1);
+        final USVQueue plus = new USVQueue(4);
+        final USVQueue strict = new USVQueue(8);
+        new UTF8Decoder(true).decode(bytes, 0, bytes.length, plus);
+        new UTF8Decoder().decode(bytes, 0, bytes.length, strict);
+
+        assertEquals(1, plus.size(), "Unicode+ size");
+        assertEquals(0x110000, plus.get(0), "Unicode+ code point");
+        assertEquals(4, strict.size(), "strict size");
+        assertEquals(0xFFFD, strict.get(0), "strict replacement");
+    }
+}
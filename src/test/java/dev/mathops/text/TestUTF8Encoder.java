@@ -0,0 +1,97 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the UTF8Encoder class.
+ */
+final class TestUTF8Encoder {
+
+    /** A string with one-, two-, three-, and four-byte sequences. */
+    private static final String MIXED = "A\u00E9\u20AC\uD83D\uDE00z";
+
+    /** Test case. */
+    @Test
+    @DisplayName("encode a character sequence")
+    void testEncode1() {
+
+        final ByteQueue output = new ByteQueue(4);
+        final int end = new UTF8Encoder().encode(MIXED, 0, MIXED.length(), output);
+
+        assertEquals(MIXED.length(), end, "encode end");
+        assertArrayEquals(MIXED.getBytes(StandardCharsets.UTF_8), output.asByteArray(), "encode bytes");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("encode an unpaired surrogate as U+FFFD")
+    void testEncodeSurrogate() {
+
+        final ByteQueue output = new ByteQueue(8);
+        new UTF8Encoder().encode("a\uD800b", 0, 3, output);
+
+        assertArrayEquals(new byte[]{'a', (byte) 0xEF, (byte) 0xBF, (byte) 0xBD, 'b'}, output.asByteArray(),
+                "surrogate bytes");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("encode from a partly consumed queue into an unbounded output")
+    void testEncodeConsumedInput() {
+
+        final StringBuilder text = new StringBuilder(300);
+        for (int i = 0; i < 100; ++i) {
+            text.append("ab\u00E9");
+        }
+        final USVQueue input = new USVQueue(text);
+        input.consume(30);
+        final ByteQueue output = new ByteQueue(4);
+        final int written = new UTF8Encoder().encode(input, output);
+
+        final byte[] expected = text.substring(30).getBytes(StandardCharsets.UTF_8);
+        assertEquals(expected.length, written, "consumed input count");
+        assertArrayEquals(expected, output.asByteArray(), "consumed input bytes");
+        assertTrue(input.isEmpty(), "consumed input empty");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("encode never splits a code point in a bounded output")
+    void testEncodeBounded() {
+
+        final USVQueue input = new USVQueue("a\u20AC");
+        final ByteQueue output = new ByteQueue(3, 3, null);
+        final int written = new UTF8Encoder().encode(input, output);
+
+        assertEquals(1, written, "bounded count");
+        assertEquals(1, input.size(), "bounded input left");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("encode into a buffer, toBytes, and encodedLength")
+    void testEncodeArray() {
+
+        final int[] codePoints = MIXED.codePoints().toArray();
+        final byte[] expected = MIXED.getBytes(StandardCharsets.UTF_8);
+        final UTF8Encoder encoder = new UTF8Encoder();
+
+        assertEquals((long) expected.length, encoder.encodedLength(codePoints, 0, codePoints.length),
+                "encodedLength");
+        assertArrayEquals(expected, encoder.toBytes(codePoints, 0, codePoints.length), "toBytes");
+
+        final ByteBuffer buffer = ByteBuffer.allocate(5);
+        final int end = encoder.encode(codePoints, 0, codePoints.length, buffer);
+
+        assertEquals(2, end, "buffer end");
+        assertEquals(3, buffer.position(), "buffer position");
+    }
+}
@@ -0,0 +1,58 @@
+package dev.mathops.text;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the UnicodePlus class.
+ */
+final class TestUnicodePlus {
+
+    /** Test case. */
+    @Test
+    @DisplayName("unescape valid numeric escapes")
+    void testNumericEscape1() {
+
+        final List<String> warnings = new ArrayList<>(1);
+        final int[] result = UnicodePlus.unescape("a\\x{41}\\x{1d400}\\x{1FFFFD}", warnings);
+
+        assertArrayEquals(new int[]{'a', 'A', 0x1D400, UnicodePlus.MAX_NON_UNICODE}, result, "valid numeric escapes");
+        assertTrue(warnings.isEmpty(), "valid numeric escapes warnings");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("unescape rejects out of range, surrogate, and non-ASCII numeric escapes")
+    void testNumericEscape2() {
+
+        final String[] invalid = {"\\x{FFFFFF}", "\\x{1FFFFE}", "\\x{D800}", "\\x{DFFF}", "\\x{\uFF11}", "\\x{}"};
+
+        for (final String escaped : invalid) {
+            final List<String> warnings = new ArrayList<>(1);
+            final int[] result = UnicodePlus.unescape(escaped, warnings);
+
+            assertArrayEquals(escaped.codePoints().toArray(), result, "invalid escape kept " + escaped);
+            assertEquals(1, warnings.size(), "invalid escape warning " + escaped);
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("escape and unescape round trip")
+    void testRoundTrip() {
+
+        final int[] codePoints = {'x', '\\', 0x3B1, 0x2200, 0xE000, 0x1F600, UnicodePlus.MIN_NON_UNICODE};
+        final String escaped = UnicodePlus.escape(codePoints, 0, codePoints.length);
+        final List<String> warnings = new ArrayList<>(1);
+
+        assertArrayEquals(codePoints, UnicodePlus.unescape(escaped, warnings), "round trip");
+        assertTrue(warnings.isEmpty(), "round trip warnings");
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Test cases for the {@code dev.mathops.text} package.
+ */
+package dev.mathops.text;
@@ -0,0 +1,119 @@
+package dev.mathops.text.unicode;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for the CodePointTable class.
+ */
+final class TestCodePointTable {
+
+    /** The first code point of each run in the test data. */
+    private static final int[] RUN_STARTS = {0, 0x41, 0x5B, 0x61, 0x7B, 0x80, 0x100, 0x101, 0x102, 0x1000, 0x1080,
+            0xFFFE, 0x10000, 0x10FFFE};
+
+    /** The value of each run in the test data. */
+    private static final char[] RUN_VALUES = {0, 1, 0, 2, 0, 3, 4, 5, 4, 6, 6, 7, 8, 9};
+
+    /**
+     * Builds the value of each code point from the test runs.
+     *
+     * @return the values
+     */
+    private static char[] flatValues() {
+
+        final char[] values = new char[CodePointTable.MAX_CODE_POINT + 1];
+
+        for (int i = 0; i < RUN_STARTS.length; ++i) {
+            final int end = i + 1 < RUN_STARTS.length ? RUN_STARTS[i + 1] : values.length;
+            for (int cp = RUN_STARTS[i]; cp < end; ++cp) {
+                values[cp] = RUN_VALUES[i];
+            }
+        }
+
+        return values;
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("Table built from runs")
+    void testRuns() {
+
+        final char[] values = flatValues();
+        final CodePointTable table = new CodePointTable(RUN_STARTS, RUN_VALUES);
+
+        for (int cp = 0; cp < values.length; ++cp) {
+            assertEquals((int) values[cp], table.get(cp), "Runs at " + Integer.toHexString(cp));
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("Table built from values")
+    void testValues() {
+
+        final char[] values = flatValues();
+        final CodePointTable table = new CodePointTable(values);
+
+        for (int cp = 0; cp < values.length; ++cp) {
+            assertEquals((int) values[cp], table.get(cp), "Values at " + Integer.toHexString(cp));
+        }
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("Code points out of range")
+    void testOutOfRange() {
+
+        final CodePointTable table = new CodePointTable(new int[]{0}, new char[]{5});
+
+        assertEquals(5, table.get(0), "Out of range 1");
+        assertEquals(5, table.get(CodePointTable.MAX_CODE_POINT), "Out of range 2");
+        assertEquals(0, table.get(-1), "Out of range 3");
+        assertEquals(0, table.get(CodePointTable.MAX_CODE_POINT + 1), "Out of range 4");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("Runs and values build the same stages")
+    void testSameStages() throws IOException {
+
+        final ByteArrayOutputStream fromRuns = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(fromRuns)) {
+            new CodePointTable(RUN_STARTS, RUN_VALUES).write(out);
+        }
+
+        final ByteArrayOutputStream fromValues = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(fromValues)) {
+            new CodePointTable(flatValues()).write(out);
+        }
+
+        assertEquals(ByteBuffer.wrap(fromValues.toByteArray()), ByteBuffer.wrap(fromRuns.toByteArray()),
+                "Same stages");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("Write and read")
+    void testWriteRead() throws IOException {
+
+        final char[] values = flatValues();
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            new CodePointTable(values).write(out);
+        }
+        final CodePointTable table = CodePointTable.read(ByteBuffer.wrap(bytes.toByteArray()));
+
+        for (int cp = 0; cp < values.length; ++cp) {
+            assertEquals((int) values[cp], table.get(cp), "Read at " + Integer.toHexString(cp));
+        }
+    }
+}
@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -316,4 +318,51 @@ final class TestUnicodeBlocks {
 
         assertTrue(valid, "IsValidNoSpaceName 2");
     }
+
+    /** Test case. */
+    @Test
+    @DisplayName("blockOf: first and last characters of Basic Latin")
+    void testBlockOf1() {
+
+        final UnicodeBlocks instance = UnicodeBlocks.getInstance();
+        final UnicodeBlock first = instance.blockOf(0x00);
+        final UnicodeBlock last = instance.blockOf(0x7F);
+
+        assertEquals(BASIC_LATIN, first.name, "BlockOf 1 name");
+        assertSame(first, last, "BlockOf 1 same block");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("blockOf: returns the same block as getBlock")
+    void testBlockOf2() {
+
+        final UnicodeBlocks instance = UnicodeBlocks.getInstance();
+        final UnicodeBlock block = instance.blockOf(0x80);
+        final UnicodeBlock named = instance.getBlock(UnicodeBlocks.stripSpaces(LATIN_1_SUPPLEMENT));
+
+        assertSame(named, block, "BlockOf 2");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("blockOf: greatest private character")
+    void testBlockOf3() {
+
+        final UnicodeBlock block = UnicodeBlocks.getInstance().blockOf(0x10FFFF);
+
+        assertEquals(PRIVATE, block.name, "BlockOf 3");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("blockOf: character not in any block")
+    void testBlockOf4() {
+
+        final UnicodeBlocks instance = UnicodeBlocks.getInstance();
+
+        assertNull(instance.blockOf(0x2FFFF), "BlockOf 4 unassigned plane");
+        assertNull(instance.blockOf(0x110000), "BlockOf 4 beyond range");
+        assertNull(instance.blockOf(-1), "BlockOf 4 negative");
+    }
 }
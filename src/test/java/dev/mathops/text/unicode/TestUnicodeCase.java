@@ -0,0 +1,88 @@
+package dev.mathops.text.unicode;
+
+import dev.mathops.text.IUSVSequence;
+import dev.mathops.text.USVString;
+import dev.mathops.text.builder.USVHtmlBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the UnicodeCase class.
+ */
+final class TestUnicodeCase {
+
+    /** Test case. */
+    @Test
+    @DisplayName("toUppercase with ASCII and Greek letters")
+    void testToUppercase1() {
+
+        final IUSVSequence upper = UnicodeCase.toUppercase(new USVString("abc αβγ"));
+
+        assertEquals("ABC ΑΒΓ", upper.toString(), "toUppercase 1");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("toUppercase returns input with no lowercase letters")
+    void testToUppercase2() {
+
+        final USVString input = new USVString("ABC-123");
+
+        assertSame(input, UnicodeCase.toUppercase(input), "toUppercase 2");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("toLowercase into builder")
+    void testToLowercase1() {
+
+        final USVHtmlBuilder builder = new USVHtmlBuilder(20);
+        UnicodeCase.toLowercase(new USVString("ABC ÀЖ"), builder);
+
+        assertEquals("abc àж", builder.toString(), "toLowercase 1");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("foldCase of long s and Kelvin sign")
+    void testFoldCase1() {
+
+        assertEquals(0x73, UnicodeCase.foldCase(0x017F), "foldCase long s");
+        assertEquals(0x6B, UnicodeCase.foldCase(0x212A), "foldCase Kelvin sign");
+        assertEquals(0x03C3, UnicodeCase.foldCase(0x03C2), "foldCase final sigma");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("equalsIgnoreCase")
+    void testEqualsIgnoreCase1() {
+
+        final USVString mixed = new USVString("Content-Type Δ");
+        final USVString lower = new USVString("content-type δ");
+        final USVString other = new USVString("content-typf δ");
+
+        assertTrue(UnicodeCase.equalsIgnoreCase(mixed, lower), "equalsIgnoreCase equal");
+        assertFalse(UnicodeCase.equalsIgnoreCase(mixed, other), "equalsIgnoreCase not equal");
+        assertFalse(UnicodeCase.equalsIgnoreCase(new USVString("@"), new USVString("`")),
+                "equalsIgnoreCase non-letters");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("compareIgnoreCase")
+    void testCompareIgnoreCase1() {
+
+        final USVString abc = new USVString("ABC");
+        final USVString abd = new USVString("abd");
+
+        assertEquals(0, UnicodeCase.compareIgnoreCase(abc, new USVString("abc")), "compareIgnoreCase equal");
+        assertTrue(UnicodeCase.compareIgnoreCase(abc, abd) < 0, "compareIgnoreCase less");
+        assertTrue(UnicodeCase.compareIgnoreCase(abd, abc) > 0, "compareIgnoreCase greater");
+        assertTrue(UnicodeCase.compareIgnoreCase(abc, new USVString("abcd")) < 0, "compareIgnoreCase prefix");
+    }
+}
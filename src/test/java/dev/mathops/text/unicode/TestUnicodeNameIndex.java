@@ -0,0 +1,54 @@
+package dev.mathops.text.unicode;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the UnicodeNameIndex class.
+ */
+final class TestUnicodeNameIndex {
+
+    /** Test case. */
+    @Test
+    @DisplayName("lookup by name, ignoring case")
+    void testLookup1() {
+
+        final UnicodeNameIndex index = UnicodeNameIndex.getInstance();
+
+        assertEquals(0x41, index.lookup("LATIN CAPITAL LETTER A"), "lookup capital A");
+        assertEquals(0x222B, index.lookup("Integral"), "lookup integral");
+        assertEquals(0x01A2, index.lookup("latin capital letter o i"), "lookup Unicode 1.0 name");
+        assertEquals(-1, index.lookup("NO SUCH CHARACTER"), "lookup missing name");
+        assertEquals(-1, index.lookup("INTEGRA"), "lookup partial name");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("findByPrefix")
+    void testFindByPrefix1() {
+
+        final int[] found = UnicodeNameIndex.getInstance().findByPrefix("double integ");
+
+        assertArrayEquals(new int[]{0x222C}, found, "findByPrefix double integral");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("findByWords matches word prefixes in any order")
+    void testFindByWords1() {
+
+        final UnicodeNameIndex index = UnicodeNameIndex.getInstance();
+        final int[] found = index.findByWords("integ contour");
+
+        assertTrue(Arrays.binarySearch(found, 0x222E) >= 0, "findByWords contour integral");
+        assertTrue(Arrays.binarySearch(found, 0x222B) < 0, "findByWords excludes integral");
+        assertEquals(0, index.findByWords("  ").length, "findByWords empty query");
+        assertEquals(0, index.findByWords("integral zzzz").length, "findByWords no match");
+    }
+}
@@ -0,0 +1,121 @@
+package dev.mathops.text.unicode;
+
+import dev.mathops.text.IUSVSequence;
+import dev.mathops.text.USVQueue;
+import dev.mathops.text.USVString;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the UnicodeNormalizer class.
+ */
+final class TestUnicodeNormalizer {
+
+    /** Test case. */
+    @Test
+    @DisplayName("normalized input is returned itself")
+    void testUnchanged1() {
+
+        final String ascii = "Hello, world";
+        final String composed = "caf\u00E9 \u00C5ngstr\u00F6m";
+
+        assertSame(ascii, UnicodeNormalizer.NFC.normalize(ascii), "NFC ASCII");
+        assertSame(ascii, UnicodeNormalizer.NFKD.normalize(ascii), "NFKD ASCII");
+        assertSame(composed, UnicodeNormalizer.NFC.normalize(composed), "NFC composed");
+        assertTrue(UnicodeNormalizer.NFC.isNormalized(composed), "NFC isNormalized composed");
+        assertFalse(UnicodeNormalizer.NFD.isNormalized(composed), "NFD isNormalized composed");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("NFD and NFC of a Latin-1 letter")
+    void testLatin1() {
+
+        assertEquals("e\u0301", UnicodeNormalizer.NFD.normalize("\u00E9"), "NFD e acute");
+        assertEquals("\u00E9", UnicodeNormalizer.NFC.normalize("e\u0301"), "NFC e acute");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("NFC of a Latin-1 letter followed by a mark that reorders before its accent")
+    void testLatin1Reorder() {
+
+        assertEquals("\u1EB9\u0301", UnicodeNormalizer.NFC.normalize("\u00E9\u0323"), "NFC e acute dot below");
+        assertEquals("\u1EA0\u030A", UnicodeNormalizer.NFC.normalize("\u00C5\u0323"), "NFC A ring dot below");
+        assertFalse(UnicodeNormalizer.NFC.isNormalized("\u00E9\u0323"), "NFC isNormalized e acute dot below");
+        assertFalse(UnicodeNormalizer.NFC.isNormalized("\u00C5\u0323"), "NFC isNormalized A ring dot below");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("all forms of letters U+00A0 to U+02FF followed by marks U+0300 to U+036F match java.text.Normalizer")
+    void testLetterMarkPairs() {
+
+        final UnicodeNormalizer[] normalizers = {UnicodeNormalizer.NFD, UnicodeNormalizer.NFC, UnicodeNormalizer.NFKD,
+                UnicodeNormalizer.NFKC};
+        final Normalizer.Form[] forms = {Normalizer.Form.NFD, Normalizer.Form.NFC, Normalizer.Form.NFKD,
+                Normalizer.Form.NFKC};
+
+        int mismatches = 0;
+
+        for (int i = 0; i < normalizers.length; ++i) {
+            for (char base = '\u00A0'; base < '\u0300'; ++base) {
+                for (char mark = '\u0300'; mark < '\u0370'; ++mark) {
+                    final String input = new String(new char[]{base, mark});
+                    final String expected = Normalizer.normalize(input, forms[i]);
+                    if (!expected.equals(normalizers[i].normalize(input))
+                        || normalizers[i].isNormalized(input) != expected.equals(input)) {
+                        ++mismatches;
+                    }
+                }
+            }
+        }
+
+        assertEquals(0, mismatches, "letter and mark mismatches");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("compatibility forms")
+    void testCompatibility() {
+
+        assertEquals("fi", UnicodeNormalizer.NFKC.normalize("\uFB01"), "NFKC fi ligature");
+        assertEquals("\uFB01", UnicodeNormalizer.NFC.normalize("\uFB01"), "NFC fi ligature");
+        assertEquals(" \u0308", UnicodeNormalizer.NFKD.normalize("\u00A8"), "NFKD diaeresis");
+        assertEquals("2", UnicodeNormalizer.NFKC.normalize("\u00B2"), "NFKC superscript two");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("Hangul syllables")
+    void testHangul() {
+
+        assertEquals("\u1100\u1161\u11A8", UnicodeNormalizer.NFD.normalize("\uAC01"), "NFD Hangul");
+        assertEquals("\uAC01", UnicodeNormalizer.NFC.normalize("\u1100\u1161\u11A8"), "NFC Hangul");
+    }
+
+    /** Test case. */
+    @Test
+    @DisplayName("code point sequences and queues")
+    void testSequences() {
+
+        final USVString normalized = new USVString("abc");
+        final IUSVSequence result = UnicodeNormalizer.NFC.normalize(new USVString("\u00E9\u0323x"));
+
+        assertSame(normalized, UnicodeNormalizer.NFC.normalize(normalized), "NFC sequence unchanged");
+        assertEquals("\u1EB9\u0301x", result.toString(), "NFC sequence");
+        assertTrue(UnicodeNormalizer.NFC.isNormalized(result), "NFC isNormalized sequence");
+
+        final USVQueue queue = new USVQueue(10);
+        UnicodeNormalizer.NFD.normalize(new USVString("a\u00C5"), queue);
+
+        assertEquals("aA\u030A", queue.toString(), "NFD into queue");
+    }
+}